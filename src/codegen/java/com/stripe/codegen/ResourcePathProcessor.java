@@ -0,0 +1,258 @@
+package com.stripe.codegen;
+
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the collection path of each API resource of the {@code com.stripe.model} packages, as
+ * requested by its own methods, e.g. {@code /v1/charges} for {@code Charge} and {@code /v1/balance}
+ * for {@code Balance}.
+ *
+ * <p>The path is read from the resource's static {@code list}, {@code create} or {@code retrieve}
+ * methods, in that order: a literal path such as {@code /v1/charges}, the parent of a literal path
+ * ending with the ID, such as {@code /v1/charges/%s}, or the path built by {@code
+ * ApiResource.classUrl} or {@code ApiResource.instanceUrl} for the resource's own class. Resources
+ * only requested under another resource, e.g. {@code /v1/accounts/%s/capabilities}, have no
+ * collection path of their own and are left out.
+ *
+ * <p>The paths are written to the package-private {@code com.stripe.net.GeneratedResourcePaths}.
+ */
+@SupportedAnnotationTypes("*")
+public class ResourcePathProcessor extends AbstractProcessor {
+  private static final String MODEL_PACKAGE = "com.stripe.model";
+
+  private static final String API_RESOURCE = "com.stripe.net.ApiResource";
+
+  private static final String PATHS_PACKAGE = "com.stripe.net";
+
+  private static final String PATHS_NAME = "GeneratedResourcePaths";
+
+  /** The methods requesting the collection path, from the most to the least reliable. */
+  private static final List<String> PATH_METHODS = Arrays.asList("list", "create", "retrieve");
+
+  private static final String HEADER =
+      "// File generated by com.stripe.codegen.ResourcePathProcessor. Do not edit.";
+
+  private boolean generated;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    // All the sources are root elements of the first round: generate everything then.
+    if (this.generated || roundEnv.processingOver()) {
+      return false;
+    }
+    this.generated = true;
+
+    Trees trees = Trees.instance(this.processingEnv);
+    Map<String, String> paths = new TreeMap<>();
+    for (Element element : roundEnv.getRootElements()) {
+      if (element.getKind() != ElementKind.CLASS || !this.isApiResource((TypeElement) element)) {
+        continue;
+      }
+      String packageName = packageOf(element).getQualifiedName().toString();
+      if (!packageName.equals(MODEL_PACKAGE) && !packageName.startsWith(MODEL_PACKAGE + ".")) {
+        continue;
+      }
+      TypeElement resource = (TypeElement) element;
+      String path = collectionPath(trees, resource);
+      if (path != null) {
+        paths.put(this.processingEnv.getElementUtils().getBinaryName(resource).toString(), path);
+      }
+    }
+
+    try {
+      this.writePaths(paths);
+    } catch (IOException e) {
+      this.processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "Cannot generate resource paths: " + e);
+    }
+
+    // Do not claim the annotations, which are processed by other processors such as Lombok's.
+    return false;
+  }
+
+  private boolean isApiResource(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    while (superclass.getKind() == TypeKind.DECLARED) {
+      TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+      if (element.getQualifiedName().contentEquals(API_RESOURCE)) {
+        return true;
+      }
+      superclass = element.getSuperclass();
+    }
+    return false;
+  }
+
+  /**
+   * Returns the expression of the collection path of a resource, or {@code null} if it has none of
+   * its own.
+   */
+  private static String collectionPath(Trees trees, TypeElement resource) {
+    for (String methodName : PATH_METHODS) {
+      for (ExecutableElement method : ElementFilter.methodsIn(resource.getEnclosedElements())) {
+        if (!method.getSimpleName().contentEquals(methodName)
+            || !method.getModifiers().contains(Modifier.STATIC)) {
+          continue;
+        }
+        MethodTree tree = trees.getTree(method);
+        if (tree != null) {
+          String path = pathOf(tree, resource);
+          if (path != null) {
+            return path;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the expression of the first collection path requested by the given method, or {@code
+   * null} if it requests none.
+   */
+  private static String pathOf(MethodTree method, TypeElement resource) {
+    List<String> paths = new ArrayList<>();
+    method.accept(
+        new TreeScanner<Void, Void>() {
+          @Override
+          public Void visitLiteral(LiteralTree node, Void unused) {
+            Object value = node.getValue();
+            if (value instanceof String && ((String) value).startsWith("/v1/")) {
+              String path = collectionPathOf((String) value);
+              if (path != null) {
+                paths.add(stringLiteral(path));
+              }
+            }
+            return null;
+          }
+
+          @Override
+          public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+            if (isResourceUrl(node, resource)) {
+              paths.add(
+                  "ApiResource.classUrl(" + resource.getQualifiedName() + ".class, \"\")");
+              return null;
+            }
+            return super.visitMethodInvocation(node, unused);
+          }
+        },
+        null);
+    return paths.isEmpty() ? null : paths.get(0);
+  }
+
+  /**
+   * Returns the collection path requested with the given literal path, or {@code null} if the
+   * literal path is not the collection or one of its members.
+   */
+  private static String collectionPathOf(String literal) {
+    String path = literal.endsWith("/%s") ? literal.substring(0, literal.length() - 3) : literal;
+    return path.contains("%") ? null : path;
+  }
+
+  /**
+   * Returns whether the given invocation builds the URL of the given resource's collection or of
+   * one of its members, i.e. is {@code classUrl(Resource.class, ...)} or {@code
+   * instanceUrl(Resource.class, ...)}.
+   */
+  private static boolean isResourceUrl(MethodInvocationTree node, TypeElement resource) {
+    ExpressionTree select = node.getMethodSelect();
+    String name;
+    if (select instanceof MemberSelectTree) {
+      name = ((MemberSelectTree) select).getIdentifier().toString();
+    } else if (select instanceof IdentifierTree) {
+      name = ((IdentifierTree) select).getName().toString();
+    } else {
+      return false;
+    }
+    if ((!name.equals("classUrl") && !name.equals("instanceUrl"))
+        || node.getArguments().isEmpty()
+        || !(node.getArguments().get(0) instanceof MemberSelectTree)) {
+      return false;
+    }
+
+    MemberSelectTree argument = (MemberSelectTree) node.getArguments().get(0);
+    String className = argument.getExpression().toString();
+    return argument.getIdentifier().contentEquals("class")
+        && (className.equals(resource.getSimpleName().toString())
+            || className.equals(resource.getQualifiedName().toString()));
+  }
+
+  private void writePaths(Map<String, String> paths) throws IOException {
+    try (PrintWriter out =
+        new PrintWriter(
+            this.processingEnv
+                .getFiler()
+                .createSourceFile(PATHS_PACKAGE + "." + PATHS_NAME)
+                .openWriter())) {
+      out.println(HEADER);
+      out.println("package " + PATHS_PACKAGE + ";");
+      out.println();
+      out.println("/** The collection paths of the API resources, generated at build time. */");
+      out.println("final class " + PATHS_NAME + " {");
+      out.println("  private " + PATHS_NAME + "() {}");
+      out.println();
+      out.println("  /**");
+      out.println("   * Returns the collection path of the resource of the given binary class");
+      out.println("   * name, or {@code null} if it has none of its own.");
+      out.println("   */");
+      out.println("  static String collectionPath(String className) {");
+      out.println("    switch (className) {");
+      for (Map.Entry<String, String> entry : paths.entrySet()) {
+        out.println("      case " + stringLiteral(entry.getKey()) + ":");
+        out.println("        return " + entry.getValue() + ";");
+      }
+      out.println("      default:");
+      out.println("        return null;");
+      out.println("    }");
+      out.println("  }");
+      out.println("}");
+    }
+  }
+
+  private static PackageElement packageOf(Element element) {
+    Element enclosing = element;
+    while (!(enclosing instanceof PackageElement)) {
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return (PackageElement) enclosing;
+  }
+
+  private static String stringLiteral(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
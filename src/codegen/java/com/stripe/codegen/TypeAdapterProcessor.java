@@ -0,0 +1,760 @@
+package com.stripe.codegen;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates Gson type adapters for the models of the {@code com.stripe.model} packages.
+ *
+ * <p>The generated adapters read the fields of a model by switching on their precomputed JSON
+ * names, and assign them directly, without reflection. They bind the same fields under the same
+ * names as Gson's reflective adapter with the {@code LOWER_CASE_WITH_UNDERSCORES} naming policy,
+ * and look up the adapters of the field types only when a field is first read. Models are written
+ * by the reflective adapter, which is only built when a model is first written.
+ *
+ * <p>Models that the generated code cannot construct or fill without reflection, e.g. generic,
+ * abstract or {@code @JsonAdapter} classes, or classes with final or inaccessible fields, are
+ * skipped and keep using the reflective adapter.
+ *
+ * <p>For each package with models, the processor generates a {@code <Model>TypeAdapters} class per
+ * top-level model, holding the adapters of the model and of its nested classes, and a {@code
+ * GeneratedTypeAdapters} class creating them by class name. The {@code
+ * com.stripe.model.GeneratedTypeAdapterFactory} dispatches to the packages.
+ */
+@SupportedAnnotationTypes("*")
+public class TypeAdapterProcessor extends AbstractProcessor {
+  private static final String MODEL_PACKAGE = "com.stripe.model";
+
+  private static final String STRIPE_OBJECT = "com.stripe.model.StripeObject";
+
+  private static final String FACTORY_NAME = "GeneratedTypeAdapterFactory";
+
+  private static final String DISPATCHER_NAME = "GeneratedTypeAdapters";
+
+  private static final String HEADER =
+      "// File generated by com.stripe.codegen.TypeAdapterProcessor. Do not edit.";
+
+  private boolean generated;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    // All the sources are root elements of the first round: generate everything then.
+    if (this.generated || roundEnv.processingOver()) {
+      return false;
+    }
+    this.generated = true;
+
+    Map<String, List<TypeElement>> topLevelModels = new TreeMap<>();
+    for (Element element : roundEnv.getRootElements()) {
+      if (element.getKind() != ElementKind.CLASS) {
+        continue;
+      }
+      String packageName = packageOf(element).getQualifiedName().toString();
+      if (packageName.equals(MODEL_PACKAGE) || packageName.startsWith(MODEL_PACKAGE + ".")) {
+        topLevelModels
+            .computeIfAbsent(packageName, name -> new ArrayList<>())
+            .add((TypeElement) element);
+      }
+    }
+
+    Map<String, Map<String, String>> packages = new TreeMap<>();
+    try {
+      for (Map.Entry<String, List<TypeElement>> entry : topLevelModels.entrySet()) {
+        Map<String, String> adapters = new TreeMap<>();
+        for (TypeElement topLevel : entry.getValue()) {
+          adapters.putAll(this.writeModelAdapters(entry.getKey(), topLevel));
+        }
+        if (!adapters.isEmpty()) {
+          this.writeDispatcher(entry.getKey(), adapters);
+          packages.put(entry.getKey(), adapters);
+        }
+      }
+      this.writeFactory(packages.keySet());
+    } catch (IOException e) {
+      this.processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "Cannot generate type adapters: " + e);
+    }
+
+    // Do not claim the annotations, which are processed by other processors such as Lombok's.
+    return false;
+  }
+
+  /**
+   * Writes the adapters of a top-level class and of its nested classes.
+   *
+   * @return the binary names of the adapted classes, mapped to the expressions creating their
+   *     adapters
+   */
+  private Map<String, String> writeModelAdapters(String packageName, TypeElement topLevel)
+      throws IOException {
+    List<TypeElement> models = new ArrayList<>();
+    this.collectModels(topLevel, models);
+
+    Map<String, String> adapters = new LinkedHashMap<>();
+    List<String> sources = new ArrayList<>();
+    Set<String> adapterNames = new HashSet<>();
+    String holderName = topLevel.getSimpleName() + "TypeAdapters";
+    for (TypeElement model : models) {
+      List<Binding> bindings = this.bindings(model);
+      if (bindings == null) {
+        continue;
+      }
+      String adapterName = this.adapterName(topLevel, model, adapterNames);
+      sources.add(this.adapterSource(model, adapterName, bindings));
+      adapters.put(
+          this.processingEnv.getElementUtils().getBinaryName(model).toString(),
+          String.format("new %s.%s(gson, skipPast)", holderName, adapterName));
+    }
+    if (adapters.isEmpty()) {
+      return adapters;
+    }
+
+    try (PrintWriter out =
+        new PrintWriter(this.createSourceFile(packageName + "." + holderName, topLevel))) {
+      out.println(HEADER);
+      out.println("package " + packageName + ";");
+      out.println();
+      out.println("import com.google.gson.Gson;");
+      out.println("import com.google.gson.JsonSyntaxException;");
+      out.println("import com.google.gson.TypeAdapter;");
+      out.println("import com.google.gson.TypeAdapterFactory;");
+      out.println("import com.google.gson.reflect.TypeToken;");
+      out.println("import com.google.gson.stream.JsonReader;");
+      out.println("import com.google.gson.stream.JsonToken;");
+      out.println("import com.google.gson.stream.JsonWriter;");
+      out.println("import java.io.IOException;");
+      out.println();
+      out.println("/** Type adapters of {@link " + topLevel.getQualifiedName() + "}. */");
+      out.println("@SuppressWarnings(\"deprecation\")");
+      out.println("final class " + holderName + " {");
+      out.println("  private " + holderName + "() {}");
+      for (String source : sources) {
+        out.println();
+        out.print(source);
+      }
+      out.println("}");
+    }
+    return adapters;
+  }
+
+  /** Collects the given class and its nested classes that are models. */
+  private void collectModels(TypeElement type, List<TypeElement> models) {
+    if (this.isModel(type)) {
+      models.add(type);
+    }
+    for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+      if (nested.getKind() == ElementKind.CLASS
+          && nested.getModifiers().contains(Modifier.STATIC)) {
+        this.collectModels(nested, models);
+      }
+    }
+  }
+
+  /**
+   * Returns whether the given class is a model that the generated code can instantiate: a
+   * non-generic, non-abstract, non-private subclass of {@code StripeObject}, with no {@code
+   * JsonAdapter} annotation and an accessible constructor without arguments.
+   */
+  private boolean isModel(TypeElement type) {
+    TypeElement stripeObject = this.processingEnv.getElementUtils().getTypeElement(STRIPE_OBJECT);
+    if (stripeObject == null
+        || !this.processingEnv
+            .getTypeUtils()
+            .isSubtype(
+                this.processingEnv.getTypeUtils().erasure(type.asType()),
+                this.processingEnv.getTypeUtils().erasure(stripeObject.asType()))
+        || type.getModifiers().contains(Modifier.ABSTRACT)
+        || hasAnnotation(type, "com.google.gson.annotations.JsonAdapter")) {
+      return false;
+    }
+    for (Element enclosing = type;
+        enclosing instanceof TypeElement;
+        enclosing = enclosing.getEnclosingElement()) {
+      if (enclosing.getModifiers().contains(Modifier.PRIVATE)
+          || !((TypeElement) enclosing).getTypeParameters().isEmpty()) {
+        return false;
+      }
+    }
+    return this.hasNoArgsConstructor(type);
+  }
+
+  private boolean hasNoArgsConstructor(TypeElement type) {
+    // Lombok's generated constructors replace the default constructor.
+    if (hasAnnotation(type, "lombok.AllArgsConstructor")
+        || hasAnnotation(type, "lombok.RequiredArgsConstructor")
+        || hasAnnotation(type, "lombok.Value")
+        || hasAnnotation(type, "lombok.Builder")) {
+      return false;
+    }
+    List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+    if (constructors.isEmpty()) {
+      return true;
+    }
+    for (ExecutableElement constructor : constructors) {
+      if (constructor.getParameters().isEmpty()
+          && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the fields of a model bound to JSON names, as Gson's reflective adapter binds them, or
+   * {@code null} if the generated code cannot fill them all.
+   */
+  private List<Binding> bindings(TypeElement model) {
+    DeclaredType modelType = (DeclaredType) model.asType();
+    PackageElement modelPackage = packageOf(model);
+
+    List<Binding> bindings = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    Set<String> fieldNames = new HashSet<>();
+    for (TypeElement type = model;
+        type != null && !type.getQualifiedName().contentEquals("java.lang.Object");
+        type = superclassOf(type)) {
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+          continue;
+        }
+        if (modifiers.contains(Modifier.FINAL)
+            || hasAnnotation(field, "com.google.gson.annotations.JsonAdapter")
+            || !fieldNames.add(field.getSimpleName().toString())) {
+          return null;
+        }
+
+        TypeMirror fieldType = this.processingEnv.getTypeUtils().asMemberOf(modelType, field);
+        String typeSource = typeSource(fieldType);
+        if (typeSource == null) {
+          return null;
+        }
+
+        String assignment;
+        if (isAccessible(field, type, modelPackage)) {
+          assignment = "value." + field.getSimpleName() + " = %s;";
+        } else {
+          String setter = this.setterOf(model, field, fieldType, modelPackage);
+          if (setter == null) {
+            return null;
+          }
+          assignment = "value." + setter + "(%s);";
+        }
+
+        List<String> jsonNames = jsonNames(field);
+        for (String name : jsonNames) {
+          if (!names.add(name)) {
+            // The reflective adapter rejects the class: let it.
+            return null;
+          }
+        }
+        bindings.add(
+            new Binding(jsonNames, typeSource, fieldType.getKind().isPrimitive(), assignment));
+      }
+    }
+    return bindings;
+  }
+
+  /**
+   * Returns the name of a setter of the given field declared by an interface of the model, or
+   * {@code null} if none. The setters of the classes are not considered: whether the ones
+   * generated by Lombok are visible depends on the order in which the processors run.
+   */
+  private String setterOf(
+      TypeElement model, VariableElement field, TypeMirror fieldType, PackageElement modelPackage) {
+    String name = field.getSimpleName().toString();
+    String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    List<TypeMirror> supertypes = new ArrayList<>();
+    supertypes.add(model.asType());
+    for (int i = 0; i < supertypes.size(); i++) {
+      TypeMirror supertype = supertypes.get(i);
+      supertypes.addAll(this.processingEnv.getTypeUtils().directSupertypes(supertype));
+      TypeElement type = (TypeElement) ((DeclaredType) supertype).asElement();
+      if (type.getKind() != ElementKind.INTERFACE || !isAccessible(type, type, modelPackage)) {
+        continue;
+      }
+      for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+        if (method.getSimpleName().contentEquals(setterName)
+            && method.getParameters().size() == 1
+            && !method.getModifiers().contains(Modifier.STATIC)
+            && this.processingEnv
+                .getTypeUtils()
+                .isAssignable(
+                    fieldType,
+                    ((ExecutableType)
+                            this.processingEnv
+                                .getTypeUtils()
+                                .asMemberOf((DeclaredType) model.asType(), method))
+                        .getParameterTypes()
+                        .get(0))) {
+          return setterName;
+        }
+      }
+    }
+    return null;
+  }
+
+  private String adapterSource(TypeElement model, String adapterName, List<Binding> bindings) {
+    String modelName = model.getQualifiedName().toString();
+
+    // One lazily looked up adapter per distinct field type.
+    Map<String, Integer> adapterIndexes = new LinkedHashMap<>();
+    for (Binding binding : bindings) {
+      adapterIndexes.putIfAbsent(binding.typeSource, adapterIndexes.size());
+    }
+
+    StringBuilder source = new StringBuilder();
+    line(source, 1, "/** Type adapter of {@link " + modelName + "}. */");
+    line(
+        source,
+        1,
+        "static final class " + adapterName + " extends TypeAdapter<" + modelName + "> {");
+    line(source, 2, "private final Gson gson;");
+    source.append('\n');
+    line(source, 2, "private final TypeAdapterFactory skipPast;");
+    source.append('\n');
+    line(source, 2, "private volatile TypeAdapter<" + modelName + "> writeAdapter;");
+    for (Map.Entry<String, Integer> entry : adapterIndexes.entrySet()) {
+      source.append('\n');
+      line(
+          source,
+          2,
+          "private volatile TypeAdapter<"
+              + boxed(entry.getKey())
+              + "> adapter"
+              + entry.getValue()
+              + ";");
+    }
+    source.append('\n');
+    line(source, 2, adapterName + "(Gson gson, TypeAdapterFactory skipPast) {");
+    line(source, 3, "this.gson = gson;");
+    line(source, 3, "this.skipPast = skipPast;");
+    line(source, 2, "}");
+    source.append('\n');
+
+    line(source, 2, "@Override");
+    line(
+        source,
+        2,
+        "public void write(JsonWriter out, " + modelName + " value) throws IOException {");
+    line(source, 3, "TypeAdapter<" + modelName + "> adapter = this.writeAdapter;");
+    line(source, 3, "if (adapter == null) {");
+    line(
+        source,
+        4,
+        "adapter = this.gson.getDelegateAdapter(this.skipPast, TypeToken.get("
+            + modelName
+            + ".class));");
+    line(source, 4, "this.writeAdapter = adapter;");
+    line(source, 3, "}");
+    line(source, 3, "adapter.write(out, value);");
+    line(source, 2, "}");
+    source.append('\n');
+
+    line(source, 2, "@Override");
+    line(source, 2, "public " + modelName + " read(JsonReader in) throws IOException {");
+    line(source, 3, "if (in.peek() == JsonToken.NULL) {");
+    line(source, 4, "in.nextNull();");
+    line(source, 4, "return null;");
+    line(source, 3, "}");
+    line(source, 3, modelName + " value = new " + modelName + "();");
+    line(source, 3, "try {");
+    line(source, 4, "in.beginObject();");
+    line(source, 4, "while (in.hasNext()) {");
+    line(source, 5, "switch (in.nextName()) {");
+    for (Binding binding : bindings) {
+      for (String name : binding.jsonNames) {
+        line(source, 6, "case " + stringLiteral(name) + ":");
+      }
+      String read = "adapter" + adapterIndexes.get(binding.typeSource) + "().read(in)";
+      if (binding.primitive) {
+        // Like the reflective adapter, leave primitive fields unset on JSON nulls.
+        line(source, 7, "{");
+        line(source, 8, boxed(binding.typeSource) + " fieldValue = " + read + ";");
+        line(source, 8, "if (fieldValue != null) {");
+        line(source, 9, String.format(binding.assignment, "fieldValue"));
+        line(source, 8, "}");
+        line(source, 8, "break;");
+        line(source, 7, "}");
+      } else {
+        line(source, 7, String.format(binding.assignment, read));
+        line(source, 7, "break;");
+      }
+    }
+    line(source, 6, "default:");
+    line(source, 7, "in.skipValue();");
+    line(source, 7, "break;");
+    line(source, 5, "}");
+    line(source, 4, "}");
+    line(source, 3, "} catch (IllegalStateException e) {");
+    line(source, 4, "throw new JsonSyntaxException(e);");
+    line(source, 3, "}");
+    line(source, 3, "in.endObject();");
+    line(source, 3, "return value;");
+    line(source, 2, "}");
+
+    for (Map.Entry<String, Integer> entry : adapterIndexes.entrySet()) {
+      String type = boxed(entry.getKey());
+      String field = "adapter" + entry.getValue();
+      source.append('\n');
+      line(source, 2, "private TypeAdapter<" + type + "> " + field + "() {");
+      line(source, 3, "TypeAdapter<" + type + "> adapter = this." + field + ";");
+      line(source, 3, "if (adapter == null) {");
+      line(source, 4, "adapter = this.gson.getAdapter(" + typeTokenSource(entry.getKey()) + ");");
+      line(source, 4, "this." + field + " = adapter;");
+      line(source, 3, "}");
+      line(source, 3, "return adapter;");
+      line(source, 2, "}");
+    }
+    line(source, 1, "}");
+    return source.toString();
+  }
+
+  private void writeDispatcher(String packageName, Map<String, String> adapters)
+      throws IOException {
+    try (PrintWriter out =
+        new PrintWriter(this.createSourceFile(packageName + "." + DISPATCHER_NAME))) {
+      out.println(HEADER);
+      out.println("package " + packageName + ";");
+      out.println();
+      out.println("import com.google.gson.Gson;");
+      out.println("import com.google.gson.TypeAdapter;");
+      out.println("import com.google.gson.TypeAdapterFactory;");
+      out.println();
+      out.println("/**");
+      out.println(" * Creates the type adapters generated for the models of this package. For use");
+      out.println(" * by {@link com.stripe.model." + FACTORY_NAME + "} only.");
+      out.println(" */");
+      out.println("public final class " + DISPATCHER_NAME + " {");
+      out.println("  private " + DISPATCHER_NAME + "() {}");
+      out.println();
+      out.println("  /**");
+      out.println("   * Returns the generated adapter of the class with the given binary name.");
+      out.println("   *");
+      out.println("   * @param gson the Gson instance looking up the adapters of the fields");
+      out.println("   * @param skipPast the factory of the generated adapters, to look up the");
+      out.println("   *     reflective adapters writing the models");
+      out.println("   * @param className the binary name of the class");
+      out.println("   * @return the adapter, or {@code null} if there is no adapter for the class");
+      out.println("   */");
+      out.println(
+          "  public static TypeAdapter<?> create(Gson gson, TypeAdapterFactory skipPast,"
+              + " String className) {");
+      out.println("    switch (className) {");
+      for (Map.Entry<String, String> entry : adapters.entrySet()) {
+        out.println("      case " + stringLiteral(entry.getKey()) + ":");
+        out.println("        return " + entry.getValue() + ";");
+      }
+      out.println("      default:");
+      out.println("        return null;");
+      out.println("    }");
+      out.println("  }");
+      out.println("}");
+    }
+  }
+
+  private void writeFactory(Set<String> packageNames) throws IOException {
+    try (PrintWriter out =
+        new PrintWriter(this.createSourceFile(MODEL_PACKAGE + "." + FACTORY_NAME))) {
+      out.println(HEADER);
+      out.println("package " + MODEL_PACKAGE + ";");
+      out.println();
+      out.println("import com.google.gson.Gson;");
+      out.println("import com.google.gson.TypeAdapter;");
+      out.println("import com.google.gson.TypeAdapterFactory;");
+      out.println("import com.google.gson.reflect.TypeToken;");
+      out.println();
+      out.println("/**");
+      out.println(" * Creates the type adapters generated at build time for the models, which");
+      out.println(" * read them without reflection. Models are written by the next factory,");
+      out.println(" * usually Gson's reflective one.");
+      out.println(" */");
+      out.println("public final class " + FACTORY_NAME + " implements TypeAdapterFactory {");
+      out.println("  @SuppressWarnings(\"unchecked\")");
+      out.println("  @Override");
+      out.println("  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {");
+      out.println("    if (!(type.getType() instanceof Class)) {");
+      out.println("      return null;");
+      out.println("    }");
+      out.println("    String className = type.getRawType().getName();");
+      out.println("    int packageEnd = className.lastIndexOf('.');");
+      out.println("    if (packageEnd < 0) {");
+      out.println("      return null;");
+      out.println("    }");
+      out.println("    switch (className.substring(0, packageEnd)) {");
+      for (String packageName : packageNames) {
+        out.println("      case " + stringLiteral(packageName) + ":");
+        out.println(
+            "        return (TypeAdapter<T>) "
+                + packageName
+                + "."
+                + DISPATCHER_NAME
+                + ".create(gson, this, className);");
+      }
+      out.println("      default:");
+      out.println("        return null;");
+      out.println("    }");
+      out.println("  }");
+      out.println("}");
+    }
+  }
+
+  private Writer createSourceFile(String name, Element... originatingElements) throws IOException {
+    return this.processingEnv.getFiler().createSourceFile(name, originatingElements).openWriter();
+  }
+
+  /** Returns a unique name for the adapter of a model, from its path from the top-level class. */
+  private String adapterName(TypeElement topLevel, TypeElement model, Set<String> adapterNames) {
+    StringBuilder path = new StringBuilder();
+    for (Element type = model; type != topLevel; type = type.getEnclosingElement()) {
+      path.insert(0, type.getSimpleName());
+    }
+    String name = (path.length() == 0 ? topLevel.getSimpleName().toString() : path) + "Adapter";
+    String uniqueName = name;
+    for (int i = 2; !adapterNames.add(uniqueName); i++) {
+      uniqueName = name + i;
+    }
+    return uniqueName;
+  }
+
+  /** Returns the JSON names of a field, like Gson's reflective adapter. */
+  private static List<String> jsonNames(VariableElement field) {
+    List<String> names = new ArrayList<>();
+    AnnotationMirror serializedName =
+        annotation(field, "com.google.gson.annotations.SerializedName");
+    if (serializedName == null) {
+      names.add(lowerCaseWithUnderscores(field.getSimpleName().toString()));
+      return names;
+    }
+
+    Map<String, AnnotationValue> values = new HashMap<>();
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        serializedName.getElementValues().entrySet()) {
+      values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+    }
+    names.add((String) values.get("value").getValue());
+    if (values.containsKey("alternate")) {
+      @SuppressWarnings("unchecked")
+      List<? extends AnnotationValue> alternates =
+          (List<? extends AnnotationValue>) values.get("alternate").getValue();
+      for (AnnotationValue alternate : alternates) {
+        names.add((String) alternate.getValue());
+      }
+    }
+    return names;
+  }
+
+  /** Translates a field name like {@code FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES}. */
+  private static String lowerCaseWithUnderscores(String name) {
+    StringBuilder translation = new StringBuilder();
+    for (int i = 0; i < name.length(); i++) {
+      char character = name.charAt(i);
+      if (Character.isUpperCase(character) && translation.length() != 0) {
+        translation.append('_');
+      }
+      translation.append(character);
+    }
+    return translation.toString().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Returns the source of a type, with fully qualified names, or {@code null} if it cannot be
+   * written in the generated code, e.g. because it has type variables or inaccessible classes.
+   */
+  private static String typeSource(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+      case CHAR:
+      case FLOAT:
+      case DOUBLE:
+        return type.getKind().name().toLowerCase(Locale.ENGLISH);
+      case ARRAY:
+        String component = typeSource(((ArrayType) type).getComponentType());
+        return (component != null) ? component + "[]" : null;
+      case DECLARED:
+        DeclaredType declaredType = (DeclaredType) type;
+        TypeElement element = (TypeElement) declaredType.asElement();
+        for (Element enclosing = element;
+            enclosing instanceof TypeElement;
+            enclosing = enclosing.getEnclosingElement()) {
+          if (!enclosing.getModifiers().contains(Modifier.PUBLIC)
+              && !packageOf(enclosing).getQualifiedName().toString().startsWith(MODEL_PACKAGE)) {
+            return null;
+          }
+          if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+            return null;
+          }
+        }
+        StringBuilder source = new StringBuilder(element.getQualifiedName());
+        if (!declaredType.getTypeArguments().isEmpty()) {
+          source.append('<');
+          String separator = "";
+          for (TypeMirror argument : declaredType.getTypeArguments()) {
+            String argumentSource = typeSource(argument);
+            if (argumentSource == null) {
+              return null;
+            }
+            source.append(separator).append(argumentSource);
+            separator = ", ";
+          }
+          source.append('>');
+        }
+        return source.toString();
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        if (wildcard.getExtendsBound() != null) {
+          String bound = typeSource(wildcard.getExtendsBound());
+          return (bound != null) ? "? extends " + bound : null;
+        }
+        if (wildcard.getSuperBound() != null) {
+          String bound = typeSource(wildcard.getSuperBound());
+          return (bound != null) ? "? super " + bound : null;
+        }
+        return "?";
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the argument of {@code Gson.getAdapter} looking up the adapter of a type. */
+  private static String typeTokenSource(String typeSource) {
+    if (typeSource.indexOf('<') < 0) {
+      return typeSource + ".class";
+    }
+    return "new TypeToken<" + typeSource + ">() {}";
+  }
+
+  private static String boxed(String typeSource) {
+    switch (typeSource) {
+      case "boolean":
+        return "java.lang.Boolean";
+      case "byte":
+        return "java.lang.Byte";
+      case "short":
+        return "java.lang.Short";
+      case "int":
+        return "java.lang.Integer";
+      case "long":
+        return "java.lang.Long";
+      case "char":
+        return "java.lang.Character";
+      case "float":
+        return "java.lang.Float";
+      case "double":
+        return "java.lang.Double";
+      default:
+        return typeSource;
+    }
+  }
+
+  /** Returns whether a member is accessible from the generated code in the given package. */
+  private static boolean isAccessible(
+      Element member, TypeElement declaringType, PackageElement packageElement) {
+    Set<Modifier> modifiers = member.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE)) {
+      return false;
+    }
+    return modifiers.contains(Modifier.PUBLIC)
+        ? declaringType.getModifiers().contains(Modifier.PUBLIC)
+            || packageOf(declaringType).equals(packageElement)
+        : packageOf(declaringType).equals(packageElement);
+  }
+
+  private TypeElement superclassOf(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    return (superclass.getKind() == TypeKind.DECLARED)
+        ? (TypeElement) ((DeclaredType) superclass).asElement()
+        : null;
+  }
+
+  private static PackageElement packageOf(Element element) {
+    Element enclosing = element;
+    while (!(enclosing instanceof PackageElement)) {
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return (PackageElement) enclosing;
+  }
+
+  private static boolean hasAnnotation(Element element, String annotationName) {
+    return annotation(element, annotationName) != null;
+  }
+
+  private static AnnotationMirror annotation(Element element, String annotationName) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private static String stringLiteral(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private static void line(StringBuilder source, int indent, String line) {
+    for (int i = 0; i < indent; i++) {
+      source.append("  ");
+    }
+    source.append(line).append('\n');
+  }
+
+  /** A field of a model, bound to its JSON names. */
+  private static final class Binding {
+    final List<String> jsonNames;
+    final String typeSource;
+    final boolean primitive;
+
+    /** The statement assigning the field, formatted with the expression of the value. */
+    final String assignment;
+
+    Binding(List<String> jsonNames, String typeSource, boolean primitive, String assignment) {
+      this.jsonNames = jsonNames;
+      this.typeSource = typeSource;
+      this.primitive = primitive;
+      this.assignment = assignment;
+    }
+  }
+}
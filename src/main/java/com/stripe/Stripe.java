@@ -1,5 +1,7 @@
 package com.stripe;
 
+import com.stripe.net.HttpClient;
+import com.stripe.net.ResponseRetention;
 import java.net.PasswordAuthentication;
 import java.net.Proxy;
 import java.util.HashMap;
@@ -25,6 +27,7 @@ public abstract class Stripe {
   // fall back to a default.
   private static volatile int connectTimeout = -1;
   private static volatile int readTimeout = -1;
+  private static volatile int callTimeout = 0;
 
   private static volatile int maxNetworkRetries = 0;
 
@@ -33,6 +36,11 @@ public abstract class Stripe {
   private static volatile String uploadBase = UPLOAD_API_BASE;
   private static volatile Proxy connectionProxy = null;
   private static volatile PasswordAuthentication proxyCredential = null;
+  private static volatile HttpClient httpClient = null;
+  private static volatile boolean responseStreamingEnabled = false;
+  private static volatile boolean lazyDeserializationEnabled = false;
+  private static volatile boolean rawJsonRecordingEnabled = false;
+  private static volatile ResponseRetention responseRetention = ResponseRetention.FULL;
 
   private static volatile Map<String, String> appInfo = null;
 
@@ -132,6 +140,25 @@ public abstract class Stripe {
     readTimeout = timeout;
   }
 
+  /**
+   * Returns the call timeout.
+   *
+   * @return timeout value in milliseconds, or 0 if requests have no overall time limit
+   */
+  public static int getCallTimeout() {
+    return callTimeout;
+  }
+
+  /**
+   * Sets the total time allowed for a request, including all its retries and the delays between
+   * them (in milliseconds). Zero means no limit.
+   *
+   * @param timeout timeout value in milliseconds
+   */
+  public static void setCallTimeout(final int timeout) {
+    callTimeout = timeout;
+  }
+
   /**
    * Returns the maximum number of times requests will be retried.
    *
@@ -163,6 +190,105 @@ public abstract class Stripe {
     return proxyCredential;
   }
 
+  /**
+   * Sets the HTTP client used to send requests to Stripe's API, e.g. a {@link
+   * com.stripe.net.PooledHttpClient}. This applies to all requests made through a {@link
+   * com.stripe.net.LiveStripeResponseGetter} that was not initialized with its own HTTP client. If
+   * {@code null}, a {@link com.stripe.net.HttpURLConnectionClient} is used.
+   *
+   * @param client the HTTP client
+   */
+  public static void setHttpClient(final HttpClient client) {
+    httpClient = client;
+  }
+
+  public static HttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  /**
+   * Returns whether response bodies are deserialized directly from the network stream by default.
+   *
+   * @return whether response bodies are streamed by default
+   */
+  public static boolean isResponseStreamingEnabled() {
+    return responseStreamingEnabled;
+  }
+
+  /**
+   * Sets whether response bodies are deserialized directly from the network stream by default,
+   * instead of being read into a string first. When enabled, the raw body of responses is not
+   * retained on the returned objects. This can be overridden per request with {@link
+   * com.stripe.net.RequestOptions.RequestOptionsBuilder#setResponseStreamingEnabled(boolean)}.
+   *
+   * @param enabled whether response bodies should be streamed by default
+   */
+  public static void setResponseStreamingEnabled(final boolean enabled) {
+    responseStreamingEnabled = enabled;
+  }
+
+  /**
+   * Returns whether the lists of objects and the expanded objects of responses are deserialized
+   * lazily by default.
+   *
+   * @return whether responses are deserialized lazily by default
+   */
+  public static boolean isLazyDeserializationEnabled() {
+    return lazyDeserializationEnabled;
+  }
+
+  /**
+   * Sets whether the lists of objects and the expanded objects of responses are deserialized
+   * lazily by default, when first accessed. This can be overridden per request with {@link
+   * com.stripe.net.RequestOptions.RequestOptionsBuilder#setLazyDeserializationEnabled(boolean)}.
+   *
+   * @param enabled whether responses should be deserialized lazily by default
+   */
+  public static void setLazyDeserializationEnabled(final boolean enabled) {
+    lazyDeserializationEnabled = enabled;
+  }
+
+  /**
+   * Returns whether the JSON of responses is recorded while they are deserialized by default.
+   *
+   * @return whether the JSON of responses is recorded by default
+   */
+  public static boolean isRawJsonRecordingEnabled() {
+    return rawJsonRecordingEnabled;
+  }
+
+  /**
+   * Sets whether the JSON of responses is recorded while they are deserialized by default, so that
+   * {@code getRawJsonObject()} does not parse the body a second time. This can be overridden per
+   * request with {@link
+   * com.stripe.net.RequestOptions.RequestOptionsBuilder#setRawJsonRecordingEnabled(boolean)}.
+   *
+   * @param enabled whether the JSON of responses should be recorded by default
+   */
+  public static void setRawJsonRecordingEnabled(final boolean enabled) {
+    rawJsonRecordingEnabled = enabled;
+  }
+
+  /**
+   * Returns what the objects returned by requests retain of their response by default.
+   *
+   * @return the default response retention
+   */
+  public static ResponseRetention getResponseRetention() {
+    return responseRetention;
+  }
+
+  /**
+   * Sets what the objects returned by requests retain of their response by default, as {@code
+   * getLastResponse()}. This can be overridden per request with {@link
+   * com.stripe.net.RequestOptions.RequestOptionsBuilder#setResponseRetention(ResponseRetention)}.
+   *
+   * @param retention what to retain by default; {@code null} for {@link ResponseRetention#FULL}
+   */
+  public static void setResponseRetention(final ResponseRetention retention) {
+    responseRetention = (retention != null) ? retention : ResponseRetention.FULL;
+  }
+
   public static void setAppInfo(String name) {
     setAppInfo(name, null, null, null);
   }
@@ -184,14 +310,15 @@ public abstract class Stripe {
    * @param partnerId Your Stripe Partner ID (e.g. "pp_partner_1234")
    */
   public static void setAppInfo(String name, String version, String url, String partnerId) {
-    if (appInfo == null) {
-      appInfo = new HashMap<String, String>();
-    }
+    // A new map is published on each change, which lets HTTP clients detect that the headers
+    // computed from the app info must be rebuilt.
+    Map<String, String> newAppInfo = new HashMap<String, String>();
+    newAppInfo.put("name", name);
+    newAppInfo.put("version", version);
+    newAppInfo.put("url", url);
+    newAppInfo.put("partner_id", partnerId);
 
-    appInfo.put("name", name);
-    appInfo.put("version", version);
-    appInfo.put("url", url);
-    appInfo.put("partner_id", partnerId);
+    appInfo = newAppInfo;
   }
 
   public static Map<String, String> getAppInfo() {
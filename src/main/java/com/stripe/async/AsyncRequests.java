@@ -0,0 +1,95 @@
+package com.stripe.async;
+
+import com.stripe.Stripe;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.StripeCollectionInterface;
+import com.stripe.model.StripeObjectInterface;
+import com.stripe.net.ApiRequestParams;
+import com.stripe.net.ApiResource;
+import com.stripe.net.RequestOptions;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/** Sends the asynchronous requests of the API methods of this package. */
+final class AsyncRequests {
+  private AsyncRequests() {}
+
+  static <T extends StripeObjectInterface> CompletableFuture<T> request(
+      ApiResource.RequestMethod method,
+      String path,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    return ApiResource.requestAsync(method, url(path), params, clazz, options);
+  }
+
+  static <T extends StripeObjectInterface> CompletableFuture<T> request(
+      ApiResource.RequestMethod method,
+      String path,
+      ApiRequestParams params,
+      Class<T> clazz,
+      RequestOptions options) {
+    return ApiResource.requestAsync(method, url(path), params, clazz, options);
+  }
+
+  /**
+   * Sends a request to the path of a resource, given as a format string such as {@code
+   * "/v1/charges/%s"}. The returned future is completed exceptionally if the ID is {@code null}.
+   */
+  static <T extends StripeObjectInterface> CompletableFuture<T> request(
+      ApiResource.RequestMethod method,
+      String pathFormat,
+      String id,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    try {
+      return request(method, resourcePath(pathFormat, id), params, clazz, options);
+    } catch (InvalidRequestException e) {
+      return failedFuture(e);
+    }
+  }
+
+  /**
+   * Sends a request to the path of a resource, given as a format string such as {@code
+   * "/v1/charges/%s"}. The returned future is completed exceptionally if the ID is {@code null}.
+   */
+  static <T extends StripeObjectInterface> CompletableFuture<T> request(
+      ApiResource.RequestMethod method,
+      String pathFormat,
+      String id,
+      ApiRequestParams params,
+      Class<T> clazz,
+      RequestOptions options) {
+    try {
+      return request(method, resourcePath(pathFormat, id), params, clazz, options);
+    } catch (InvalidRequestException e) {
+      return failedFuture(e);
+    }
+  }
+
+  static <T extends StripeCollectionInterface<?>> CompletableFuture<T> requestCollection(
+      String path, Map<String, Object> params, Class<T> clazz, RequestOptions options) {
+    return ApiResource.requestCollectionAsync(url(path), params, clazz, options);
+  }
+
+  static <T extends StripeCollectionInterface<?>> CompletableFuture<T> requestCollection(
+      String path, ApiRequestParams params, Class<T> clazz, RequestOptions options) {
+    return ApiResource.requestCollectionAsync(url(path), params, clazz, options);
+  }
+
+  private static String url(String path) {
+    return String.format("%s%s", Stripe.getApiBase(), path);
+  }
+
+  private static String resourcePath(String pathFormat, String id)
+      throws InvalidRequestException {
+    return String.format(pathFormat, ApiResource.urlEncodeId(id));
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(throwable);
+    return future;
+  }
+}
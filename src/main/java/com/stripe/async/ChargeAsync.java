@@ -0,0 +1,172 @@
+package com.stripe.async;
+
+import com.stripe.model.Charge;
+import com.stripe.model.ChargeCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.ChargeCaptureParams;
+import com.stripe.param.ChargeCreateParams;
+import com.stripe.param.ChargeListParams;
+import com.stripe.param.ChargeRetrieveParams;
+import com.stripe.param.ChargeUpdateParams;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous versions of the {@link Charge} API methods. The requests are sent without blocking
+ * the calling thread, and the returned futures are completed exceptionally with a {@link
+ * com.stripe.exception.StripeException} if they fail.
+ */
+public final class ChargeAsync {
+  private ChargeAsync() {}
+
+  /** Asynchronous version of {@link Charge#list(Map)}. */
+  public static CompletableFuture<ChargeCollection> list(Map<String, Object> params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#list(Map, RequestOptions)}. */
+  public static CompletableFuture<ChargeCollection> list(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.requestCollection("/v1/charges", params, ChargeCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Charge#list(ChargeListParams)}. */
+  public static CompletableFuture<ChargeCollection> list(ChargeListParams params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#list(ChargeListParams, RequestOptions)}. */
+  public static CompletableFuture<ChargeCollection> list(
+      ChargeListParams params, RequestOptions options) {
+    return AsyncRequests.requestCollection("/v1/charges", params, ChargeCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Charge#create(Map)}. */
+  public static CompletableFuture<Charge> create(Map<String, Object> params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#create(Map, RequestOptions)}. */
+  public static CompletableFuture<Charge> create(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/charges", params, Charge.class, options);
+  }
+
+  /** Asynchronous version of {@link Charge#create(ChargeCreateParams)}. */
+  public static CompletableFuture<Charge> create(ChargeCreateParams params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#create(ChargeCreateParams, RequestOptions)}. */
+  public static CompletableFuture<Charge> create(
+      ChargeCreateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/charges", params, Charge.class, options);
+  }
+
+  /** Asynchronous version of {@link Charge#retrieve(String)}. */
+  public static CompletableFuture<Charge> retrieve(String charge) {
+    return retrieve(charge, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#retrieve(String, RequestOptions)}. */
+  public static CompletableFuture<Charge> retrieve(String charge, RequestOptions options) {
+    return retrieve(charge, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link Charge#retrieve(String, Map, RequestOptions)}. */
+  public static CompletableFuture<Charge> retrieve(
+      String charge, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET, "/v1/charges/%s", charge, params, Charge.class, options);
+  }
+
+  /**
+   * Asynchronous version of {@link Charge#retrieve(String, ChargeRetrieveParams, RequestOptions)}.
+   */
+  public static CompletableFuture<Charge> retrieve(
+      String charge, ChargeRetrieveParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET, "/v1/charges/%s", charge, params, Charge.class, options);
+  }
+
+  /** Asynchronous version of {@link Charge#update(Map)}. */
+  public static CompletableFuture<Charge> update(Charge charge, Map<String, Object> params) {
+    return update(charge, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#update(Map, RequestOptions)}. */
+  public static CompletableFuture<Charge> update(
+      Charge charge, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/charges/%s",
+        charge.getId(),
+        params,
+        Charge.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Charge#update(ChargeUpdateParams)}. */
+  public static CompletableFuture<Charge> update(Charge charge, ChargeUpdateParams params) {
+    return update(charge, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#update(ChargeUpdateParams, RequestOptions)}. */
+  public static CompletableFuture<Charge> update(
+      Charge charge, ChargeUpdateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/charges/%s",
+        charge.getId(),
+        params,
+        Charge.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Charge#capture()}. */
+  public static CompletableFuture<Charge> capture(Charge charge) {
+    return capture(charge, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#capture(RequestOptions)}. */
+  public static CompletableFuture<Charge> capture(Charge charge, RequestOptions options) {
+    return capture(charge, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link Charge#capture(Map)}. */
+  public static CompletableFuture<Charge> capture(Charge charge, Map<String, Object> params) {
+    return capture(charge, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#capture(Map, RequestOptions)}. */
+  public static CompletableFuture<Charge> capture(
+      Charge charge, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/charges/%s/capture",
+        charge.getId(),
+        params,
+        Charge.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Charge#capture(ChargeCaptureParams)}. */
+  public static CompletableFuture<Charge> capture(Charge charge, ChargeCaptureParams params) {
+    return capture(charge, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Charge#capture(ChargeCaptureParams, RequestOptions)}. */
+  public static CompletableFuture<Charge> capture(
+      Charge charge, ChargeCaptureParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/charges/%s/capture",
+        charge.getId(),
+        params,
+        Charge.class,
+        options);
+  }
+}
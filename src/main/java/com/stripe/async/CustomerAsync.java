@@ -0,0 +1,140 @@
+package com.stripe.async;
+
+import com.stripe.model.Customer;
+import com.stripe.model.CustomerCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import com.stripe.param.CustomerListParams;
+import com.stripe.param.CustomerRetrieveParams;
+import com.stripe.param.CustomerUpdateParams;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous versions of the {@link Customer} API methods. The requests are sent without blocking
+ * the calling thread, and the returned futures are completed exceptionally with a {@link
+ * com.stripe.exception.StripeException} if they fail.
+ */
+public final class CustomerAsync {
+  private CustomerAsync() {}
+
+  /** Asynchronous version of {@link Customer#list(Map)}. */
+  public static CompletableFuture<CustomerCollection> list(Map<String, Object> params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#list(Map, RequestOptions)}. */
+  public static CompletableFuture<CustomerCollection> list(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.requestCollection(
+        "/v1/customers", params, CustomerCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Customer#list(CustomerListParams)}. */
+  public static CompletableFuture<CustomerCollection> list(CustomerListParams params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#list(CustomerListParams, RequestOptions)}. */
+  public static CompletableFuture<CustomerCollection> list(
+      CustomerListParams params, RequestOptions options) {
+    return AsyncRequests.requestCollection(
+        "/v1/customers", params, CustomerCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Customer#create(Map)}. */
+  public static CompletableFuture<Customer> create(Map<String, Object> params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#create(Map, RequestOptions)}. */
+  public static CompletableFuture<Customer> create(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/customers", params, Customer.class, options);
+  }
+
+  /** Asynchronous version of {@link Customer#create(CustomerCreateParams)}. */
+  public static CompletableFuture<Customer> create(CustomerCreateParams params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#create(CustomerCreateParams, RequestOptions)}. */
+  public static CompletableFuture<Customer> create(
+      CustomerCreateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/customers", params, Customer.class, options);
+  }
+
+  /** Asynchronous version of {@link Customer#retrieve(String)}. */
+  public static CompletableFuture<Customer> retrieve(String customer) {
+    return retrieve(customer, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#retrieve(String, RequestOptions)}. */
+  public static CompletableFuture<Customer> retrieve(String customer, RequestOptions options) {
+    return retrieve(customer, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link Customer#retrieve(String, Map, RequestOptions)}. */
+  public static CompletableFuture<Customer> retrieve(
+      String customer, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET,
+        "/v1/customers/%s",
+        customer,
+        params,
+        Customer.class,
+        options);
+  }
+
+  /**
+   * Asynchronous version of {@link Customer#retrieve(String, CustomerRetrieveParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<Customer> retrieve(
+      String customer, CustomerRetrieveParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET,
+        "/v1/customers/%s",
+        customer,
+        params,
+        Customer.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Customer#update(Map)}. */
+  public static CompletableFuture<Customer> update(Customer customer, Map<String, Object> params) {
+    return update(customer, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#update(Map, RequestOptions)}. */
+  public static CompletableFuture<Customer> update(
+      Customer customer, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/customers/%s",
+        customer.getId(),
+        params,
+        Customer.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Customer#update(CustomerUpdateParams)}. */
+  public static CompletableFuture<Customer> update(Customer customer, CustomerUpdateParams params) {
+    return update(customer, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Customer#update(CustomerUpdateParams, RequestOptions)}. */
+  public static CompletableFuture<Customer> update(
+      Customer customer, CustomerUpdateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/customers/%s",
+        customer.getId(),
+        params,
+        Customer.class,
+        options);
+  }
+}
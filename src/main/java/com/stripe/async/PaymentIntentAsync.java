@@ -0,0 +1,311 @@
+package com.stripe.async;
+
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentIntentCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCancelParams;
+import com.stripe.param.PaymentIntentCaptureParams;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentRetrieveParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous versions of the {@link PaymentIntent} API methods. The requests are sent without
+ * blocking the calling thread, and the returned futures are completed exceptionally with a {@link
+ * com.stripe.exception.StripeException} if they fail.
+ */
+public final class PaymentIntentAsync {
+  private PaymentIntentAsync() {}
+
+  /** Asynchronous version of {@link PaymentIntent#create(Map)}. */
+  public static CompletableFuture<PaymentIntent> create(Map<String, Object> params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#create(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> create(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents",
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#create(PaymentIntentCreateParams)}. */
+  public static CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#create(PaymentIntentCreateParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> create(
+      PaymentIntentCreateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents",
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#list(Map)}. */
+  public static CompletableFuture<PaymentIntentCollection> list(Map<String, Object> params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#list(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntentCollection> list(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.requestCollection(
+        "/v1/payment_intents", params, PaymentIntentCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#list(PaymentIntentListParams)}. */
+  public static CompletableFuture<PaymentIntentCollection> list(PaymentIntentListParams params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#list(PaymentIntentListParams, RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntentCollection> list(
+      PaymentIntentListParams params, RequestOptions options) {
+    return AsyncRequests.requestCollection(
+        "/v1/payment_intents", params, PaymentIntentCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#retrieve(String)}. */
+  public static CompletableFuture<PaymentIntent> retrieve(String intent) {
+    return retrieve(intent, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#retrieve(String, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> retrieve(String intent, RequestOptions options) {
+    return retrieve(intent, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#retrieve(String, Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> retrieve(
+      String intent, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET,
+        "/v1/payment_intents/%s",
+        intent,
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#retrieve(String, PaymentIntentRetrieveParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> retrieve(
+      String intent, PaymentIntentRetrieveParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET,
+        "/v1/payment_intents/%s",
+        intent,
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#update(Map)}. */
+  public static CompletableFuture<PaymentIntent> update(
+      PaymentIntent intent, Map<String, Object> params) {
+    return update(intent, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#update(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> update(
+      PaymentIntent intent, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#update(PaymentIntentUpdateParams)}. */
+  public static CompletableFuture<PaymentIntent> update(
+      PaymentIntent intent, PaymentIntentUpdateParams params) {
+    return update(intent, params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#update(PaymentIntentUpdateParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> update(
+      PaymentIntent intent, PaymentIntentUpdateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#confirm()}. */
+  public static CompletableFuture<PaymentIntent> confirm(PaymentIntent intent) {
+    return confirm(intent, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#confirm(RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> confirm(
+      PaymentIntent intent, RequestOptions options) {
+    return confirm(intent, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#confirm(Map)}. */
+  public static CompletableFuture<PaymentIntent> confirm(
+      PaymentIntent intent, Map<String, Object> params) {
+    return confirm(intent, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#confirm(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> confirm(
+      PaymentIntent intent, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/confirm",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#confirm(PaymentIntentConfirmParams)}. */
+  public static CompletableFuture<PaymentIntent> confirm(
+      PaymentIntent intent, PaymentIntentConfirmParams params) {
+    return confirm(intent, params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#confirm(PaymentIntentConfirmParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> confirm(
+      PaymentIntent intent, PaymentIntentConfirmParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/confirm",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#cancel()}. */
+  public static CompletableFuture<PaymentIntent> cancel(PaymentIntent intent) {
+    return cancel(intent, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#cancel(RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> cancel(
+      PaymentIntent intent, RequestOptions options) {
+    return cancel(intent, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#cancel(Map)}. */
+  public static CompletableFuture<PaymentIntent> cancel(
+      PaymentIntent intent, Map<String, Object> params) {
+    return cancel(intent, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#cancel(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> cancel(
+      PaymentIntent intent, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/cancel",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#cancel(PaymentIntentCancelParams)}. */
+  public static CompletableFuture<PaymentIntent> cancel(
+      PaymentIntent intent, PaymentIntentCancelParams params) {
+    return cancel(intent, params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#cancel(PaymentIntentCancelParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> cancel(
+      PaymentIntent intent, PaymentIntentCancelParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/cancel",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#capture()}. */
+  public static CompletableFuture<PaymentIntent> capture(PaymentIntent intent) {
+    return capture(intent, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#capture(RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> capture(
+      PaymentIntent intent, RequestOptions options) {
+    return capture(intent, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#capture(Map)}. */
+  public static CompletableFuture<PaymentIntent> capture(
+      PaymentIntent intent, Map<String, Object> params) {
+    return capture(intent, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#capture(Map, RequestOptions)}. */
+  public static CompletableFuture<PaymentIntent> capture(
+      PaymentIntent intent, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/capture",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link PaymentIntent#capture(PaymentIntentCaptureParams)}. */
+  public static CompletableFuture<PaymentIntent> capture(
+      PaymentIntent intent, PaymentIntentCaptureParams params) {
+    return capture(intent, params, (RequestOptions) null);
+  }
+
+  /**
+   * Asynchronous version of {@link PaymentIntent#capture(PaymentIntentCaptureParams,
+   * RequestOptions)}.
+   */
+  public static CompletableFuture<PaymentIntent> capture(
+      PaymentIntent intent, PaymentIntentCaptureParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/payment_intents/%s/capture",
+        intent.getId(),
+        params,
+        PaymentIntent.class,
+        options);
+  }
+}
@@ -0,0 +1,127 @@
+package com.stripe.async;
+
+import com.stripe.model.Refund;
+import com.stripe.model.RefundCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.RefundCreateParams;
+import com.stripe.param.RefundListParams;
+import com.stripe.param.RefundRetrieveParams;
+import com.stripe.param.RefundUpdateParams;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous versions of the {@link Refund} API methods. The requests are sent without blocking
+ * the calling thread, and the returned futures are completed exceptionally with a {@link
+ * com.stripe.exception.StripeException} if they fail.
+ */
+public final class RefundAsync {
+  private RefundAsync() {}
+
+  /** Asynchronous version of {@link Refund#list(Map)}. */
+  public static CompletableFuture<RefundCollection> list(Map<String, Object> params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#list(Map, RequestOptions)}. */
+  public static CompletableFuture<RefundCollection> list(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.requestCollection("/v1/refunds", params, RefundCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Refund#list(RefundListParams)}. */
+  public static CompletableFuture<RefundCollection> list(RefundListParams params) {
+    return list(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#list(RefundListParams, RequestOptions)}. */
+  public static CompletableFuture<RefundCollection> list(
+      RefundListParams params, RequestOptions options) {
+    return AsyncRequests.requestCollection("/v1/refunds", params, RefundCollection.class, options);
+  }
+
+  /** Asynchronous version of {@link Refund#create(Map)}. */
+  public static CompletableFuture<Refund> create(Map<String, Object> params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#create(Map, RequestOptions)}. */
+  public static CompletableFuture<Refund> create(
+      Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/refunds", params, Refund.class, options);
+  }
+
+  /** Asynchronous version of {@link Refund#create(RefundCreateParams)}. */
+  public static CompletableFuture<Refund> create(RefundCreateParams params) {
+    return create(params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#create(RefundCreateParams, RequestOptions)}. */
+  public static CompletableFuture<Refund> create(
+      RefundCreateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST, "/v1/refunds", params, Refund.class, options);
+  }
+
+  /** Asynchronous version of {@link Refund#retrieve(String)}. */
+  public static CompletableFuture<Refund> retrieve(String refund) {
+    return retrieve(refund, (Map<String, Object>) null, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#retrieve(String, RequestOptions)}. */
+  public static CompletableFuture<Refund> retrieve(String refund, RequestOptions options) {
+    return retrieve(refund, (Map<String, Object>) null, options);
+  }
+
+  /** Asynchronous version of {@link Refund#retrieve(String, Map, RequestOptions)}. */
+  public static CompletableFuture<Refund> retrieve(
+      String refund, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET, "/v1/refunds/%s", refund, params, Refund.class, options);
+  }
+
+  /**
+   * Asynchronous version of {@link Refund#retrieve(String, RefundRetrieveParams, RequestOptions)}.
+   */
+  public static CompletableFuture<Refund> retrieve(
+      String refund, RefundRetrieveParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.GET, "/v1/refunds/%s", refund, params, Refund.class, options);
+  }
+
+  /** Asynchronous version of {@link Refund#update(Map)}. */
+  public static CompletableFuture<Refund> update(Refund refund, Map<String, Object> params) {
+    return update(refund, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#update(Map, RequestOptions)}. */
+  public static CompletableFuture<Refund> update(
+      Refund refund, Map<String, Object> params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/refunds/%s",
+        refund.getId(),
+        params,
+        Refund.class,
+        options);
+  }
+
+  /** Asynchronous version of {@link Refund#update(RefundUpdateParams)}. */
+  public static CompletableFuture<Refund> update(Refund refund, RefundUpdateParams params) {
+    return update(refund, params, (RequestOptions) null);
+  }
+
+  /** Asynchronous version of {@link Refund#update(RefundUpdateParams, RequestOptions)}. */
+  public static CompletableFuture<Refund> update(
+      Refund refund, RefundUpdateParams params, RequestOptions options) {
+    return AsyncRequests.request(
+        ApiResource.RequestMethod.POST,
+        "/v1/refunds/%s",
+        refund.getId(),
+        params,
+        Refund.class,
+        options);
+  }
+}
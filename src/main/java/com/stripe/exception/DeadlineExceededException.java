@@ -0,0 +1,18 @@
+package com.stripe.exception;
+
+/**
+ * Thrown when a request sent with retries did not complete within the call timeout of its request
+ * options, either because its last attempt ran out of time, or because the time left was not enough
+ * to retry it.
+ */
+public class DeadlineExceededException extends ApiConnectionException {
+  private static final long serialVersionUID = 2L;
+
+  public DeadlineExceededException(String message) {
+    this(message, null);
+  }
+
+  public DeadlineExceededException(String message, Throwable e) {
+    super(message, e);
+  }
+}
@@ -0,0 +1,14 @@
+package com.stripe.exception;
+
+/**
+ * Thrown when the thread sending a request was interrupted while the request waited to be sent.
+ * The request was not sent, and is neither retried nor counted as a failure of the API. The
+ * interrupt status of the thread is restored before it is thrown.
+ */
+public class RequestInterruptedException extends StripeException {
+  private static final long serialVersionUID = 2L;
+
+  public RequestInterruptedException(String message, InterruptedException e) {
+    super(message, null, null, 0, e);
+  }
+}
@@ -1,5 +1,7 @@
 package com.stripe.model;
 
+import java.util.function.Supplier;
+
 // This class is meant to be used for expandable fields in the Stripe API.
 // For example, ExpandableField<BalanceTransaction> in Charge.
 // The class should always contain a String id, and may have a null or type T expandedObject.
@@ -8,13 +10,23 @@ public class ExpandableField<T extends HasId> {
   private String id;
   private T expandedObject;
 
+  // When deserialized lazily, supplies the expanded object the first time it is accessed, and is
+  // then cleared. The expanded object is published by the write of this volatile field.
+  private transient volatile Supplier<T> expandedObjectSupplier;
+
   public ExpandableField(String id, T expandedObject) {
     this.id = id;
     this.expandedObject = expandedObject;
   }
 
+  static <T extends HasId> ExpandableField<T> lazy(String id, Supplier<T> expandedObjectSupplier) {
+    ExpandableField<T> field = new ExpandableField<>(id, (T) null);
+    field.expandedObjectSupplier = expandedObjectSupplier;
+    return field;
+  }
+
   public boolean isExpanded() {
-    return expandedObject != null;
+    return expandedObjectSupplier != null || expandedObject != null;
   }
 
   public String getId() {
@@ -26,10 +38,24 @@ public class ExpandableField<T extends HasId> {
   }
 
   public T getExpanded() {
+    if (expandedObjectSupplier != null) {
+      materialize();
+    }
     return expandedObject;
   }
 
   public void setExpanded(T expandedObject) {
-    this.expandedObject = expandedObject;
+    synchronized (this) {
+      this.expandedObject = expandedObject;
+      this.expandedObjectSupplier = null;
+    }
+  }
+
+  private synchronized void materialize() {
+    Supplier<T> supplier = expandedObjectSupplier;
+    if (supplier != null) {
+      expandedObject = supplier.get();
+      expandedObjectSupplier = null;
+    }
   }
 }
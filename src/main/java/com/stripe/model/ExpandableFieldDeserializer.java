@@ -10,6 +10,22 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
 public class ExpandableFieldDeserializer implements JsonDeserializer<ExpandableField<?>> {
+  private final boolean lazy;
+
+  public ExpandableFieldDeserializer() {
+    this(false);
+  }
+
+  /**
+   * Initializes a new instance of the {@link ExpandableFieldDeserializer}.
+   *
+   * @param lazy whether expanded objects are only deserialized when first accessed. Their JSON tree
+   *     is then kept until they are
+   */
+  public ExpandableFieldDeserializer(boolean lazy) {
+    this.lazy = lazy;
+  }
+
   /**
    * Deserializes an expandable field JSON payload (i.e. either a string with just the ID, or a full
    * JSON object) into an {@link ExpandableField} object.
@@ -44,7 +60,11 @@ public class ExpandableFieldDeserializer implements JsonDeserializer<ExpandableF
       // We need to get the type inside the generic ExpandableField to make sure fromJson correctly
       // serializes the JsonObject:
       Type clazz = ((ParameterizedType) typeOfT).getActualTypeArguments()[0];
-      expandableField = new ExpandableField<>(id, (HasId) context.deserialize(json, clazz));
+      if (this.lazy) {
+        expandableField = ExpandableField.lazy(id, () -> context.deserialize(json, clazz));
+      } else {
+        expandableField = new ExpandableField<>(id, (HasId) context.deserialize(json, clazz));
+      }
       return expandableField;
     }
 
@@ -0,0 +1,119 @@
+package com.stripe.model;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list whose elements are only deserialized when first accessed, from where they are in the JSON
+ * source they were skipped over in. Each element is deserialized at most once, and the list is
+ * thread-safe. The source is released once all the elements were deserialized.
+ */
+final class LazyList<E> extends AbstractList<E> implements RandomAccess {
+  private final TypeAdapter<E> elementAdapter;
+
+  /** The elements, or their bounds until they are accessed. Guarded by this list. */
+  private final List<Object> elements;
+
+  /** The JSON source, or {@code null} once no element is pending. Guarded by this list. */
+  private String source;
+
+  private int pendingCount;
+
+  /**
+   * Initializes a new instance of the {@link LazyList}.
+   *
+   * @param elementAdapter the adapter of the elements
+   * @param source the JSON source
+   * @param bounds the start and end offsets of each element in the source
+   */
+  LazyList(TypeAdapter<E> elementAdapter, String source, int[] bounds) {
+    this.elementAdapter = elementAdapter;
+    this.elements = new ArrayList<>(bounds.length / 2);
+    for (int i = 0; i < bounds.length; i += 2) {
+      this.elements.add(new Pending(bounds[i], bounds[i + 1]));
+    }
+    this.pendingCount = this.elements.size();
+    this.source = (this.pendingCount > 0) ? source : null;
+  }
+
+  @Override
+  public synchronized E get(int index) {
+    Object element = elements.get(index);
+    if (element instanceof Pending) {
+      element = this.read((Pending) element);
+      elements.set(index, element);
+      this.release();
+    }
+    @SuppressWarnings("unchecked")
+    E result = (E) element;
+    return result;
+  }
+
+  @Override
+  public synchronized int size() {
+    return elements.size();
+  }
+
+  @Override
+  public synchronized E set(int index, E element) {
+    E previous = get(index);
+    elements.set(index, element);
+    return previous;
+  }
+
+  @Override
+  public synchronized void add(int index, E element) {
+    elements.add(index, element);
+    modCount++;
+  }
+
+  @Override
+  public synchronized E remove(int index) {
+    Object previous = elements.remove(index);
+    modCount++;
+    if (previous instanceof Pending) {
+      previous = this.read((Pending) previous);
+      this.release();
+    }
+    @SuppressWarnings("unchecked")
+    E result = (E) previous;
+    return result;
+  }
+
+  private E read(Pending pending) {
+    try {
+      return elementAdapter.read(
+          new SourceJsonReader(this.source, pending.start, pending.end, false));
+    } catch (MalformedJsonException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /** Releases the source once no element is pending. */
+  private void release() {
+    if (--this.pendingCount == 0) {
+      this.source = null;
+    }
+  }
+
+  /** The bounds of an element not accessed yet. */
+  private static final class Pending {
+    final int start;
+
+    final int end;
+
+    Pending(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+}
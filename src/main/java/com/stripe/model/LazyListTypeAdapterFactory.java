@@ -0,0 +1,86 @@
+package com.stripe.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Creates type adapter for lists of Stripe objects, such as the {@code data} of collections, that
+ * only deserializes each object when it is first accessed. When reading from a reader returned by
+ * {@link #jsonReader(String)}, the objects are skipped over and only their offsets in the JSON are
+ * recorded, so reading a few fields of a large response neither builds all of its objects nor
+ * parses them into a tree. Lists nested in the objects of a lazy list, and lists read from other
+ * readers, are deserialized eagerly.
+ */
+public class LazyListTypeAdapterFactory implements TypeAdapterFactory {
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (type.getRawType() != List.class || !(type.getType() instanceof ParameterizedType)) {
+      return null;
+    }
+    Type elementType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+    if (!(elementType instanceof Class)
+        || !StripeObject.class.isAssignableFrom((Class<?>) elementType)) {
+      return null;
+    }
+    final TypeAdapter<List<Object>> delegate =
+        (TypeAdapter<List<Object>>) gson.getDelegateAdapter(this, type);
+    final TypeAdapter<Object> elementAdapter =
+        (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(elementType));
+
+    TypeAdapter<List<Object>> resultCustomTypeAdapter =
+        new TypeAdapter<List<Object>>() {
+          @Override
+          public void write(JsonWriter out, List<Object> value) throws IOException {
+            delegate.write(out, value);
+          }
+
+          @Override
+          public List<Object> read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_ARRAY || !(in instanceof SourceJsonReader)) {
+              return delegate.read(in);
+            }
+            SourceJsonReader reader = (SourceJsonReader) in;
+            int[] bounds = reader.elementBounds();
+            if (bounds == null) {
+              return delegate.read(in);
+            }
+
+            // Skipping the elements also validates them.
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+              in.skipValue();
+              count++;
+            }
+            in.endArray();
+            if (2 * count != bounds.length) {
+              throw new JsonSyntaxException(
+                  "Located " + bounds.length / 2 + " elements of a list of " + count + ".");
+            }
+            return new LazyList<>(elementAdapter, reader.getSource(), bounds);
+          }
+        };
+    return (TypeAdapter<T>) resultCustomTypeAdapter.nullSafe();
+  }
+
+  /**
+   * Returns a reader of the given JSON, from which the lists of Stripe objects are read lazily.
+   *
+   * @param json the JSON
+   * @return the reader
+   */
+  public static JsonReader jsonReader(String json) {
+    return new SourceJsonReader(json, 0, json.length(), true);
+  }
+}
@@ -0,0 +1,180 @@
+package com.stripe.model;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.ApiResource;
+import com.stripe.net.StripeResponseStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Passes the objects of all the pages of a list to a consumer, like {@link PagingIterator} iterates
+ * over them, but parses the pages following the first one as they are streamed from the network.
+ * Each object is passed to the consumer as soon as it is parsed, so that only one object of these
+ * pages is held in memory at a time, however large the pages and their expansions are.
+ */
+final class PagingStreamer<T extends HasId> {
+  private final String url;
+
+  private final StripeCollectionInterface<T> firstCollection;
+
+  private final TypeAdapter<T> elementAdapter;
+
+  PagingStreamer(final StripeCollectionInterface<T> stripeCollection) {
+    this.url = Stripe.getApiBase() + stripeCollection.getUrl();
+    this.firstCollection = stripeCollection;
+    this.elementAdapter = ApiResource.GSON.getAdapter(elementType(stripeCollection.getClass()));
+  }
+
+  void forEach(Consumer<? super T> consumer) throws StripeException {
+    String lastId = null;
+    for (T object : firstCollection.getData()) {
+      consumer.accept(object);
+      lastId = object.getId();
+    }
+
+    boolean hasMore = Boolean.TRUE.equals(firstCollection.getHasMore());
+    while (hasMore && lastId != null) {
+      Map<String, Object> params = new HashMap<>();
+
+      // copy all the parameters from the initial request
+      Map<String, Object> initialParams = firstCollection.getRequestParams();
+      if (initialParams != null) {
+        params.putAll(initialParams);
+      }
+
+      // then put our new page start in
+      params.put("starting_after", lastId);
+
+      String pageLastId = null;
+      try (PageReader<T> page =
+          new PageReader<>(
+              ApiResource.requestStream(
+                  ApiResource.RequestMethod.GET, url, params, firstCollection.getRequestOptions()),
+              elementAdapter)) {
+        for (T object = page.next(); object != null; object = page.next()) {
+          consumer.accept(object);
+          pageLastId = object.getId();
+        }
+        hasMore = page.hasMore;
+      }
+
+      // An empty page ends the iteration, like an exhausted one.
+      lastId = pageLastId;
+    }
+  }
+
+  /** Reads the objects of a streamed page one at a time. */
+  private static final class PageReader<T> implements Closeable {
+    private final StripeResponseStream responseStream;
+
+    private final JsonReader reader;
+
+    private final TypeAdapter<T> elementAdapter;
+
+    private boolean started;
+
+    private boolean inData;
+
+    boolean hasMore;
+
+    PageReader(StripeResponseStream responseStream, TypeAdapter<T> elementAdapter) {
+      this.responseStream = responseStream;
+      this.reader =
+          new JsonReader(new InputStreamReader(responseStream.body(), ApiResource.CHARSET));
+      this.elementAdapter = elementAdapter;
+    }
+
+    /**
+     * Returns the next object of the page, or {@code null} once the whole page is read, after which
+     * {@link #hasMore} is set.
+     */
+    T next() throws StripeException {
+      try {
+        if (!started) {
+          reader.beginObject();
+          started = true;
+        }
+        while (true) {
+          if (inData) {
+            if (reader.hasNext()) {
+              return elementAdapter.read(reader);
+            }
+            reader.endArray();
+            inData = false;
+          }
+          if (!reader.hasNext()) {
+            reader.endObject();
+            return null;
+          }
+          switch (reader.nextName()) {
+            case "data":
+              reader.beginArray();
+              inData = true;
+              break;
+            case "has_more":
+              hasMore = reader.nextBoolean();
+              break;
+            default:
+              reader.skipValue();
+              break;
+          }
+        }
+      } catch (MalformedJsonException | JsonParseException | IllegalStateException e) {
+        throw new ApiException(
+            String.format(
+                "Invalid response object from API: (streamed body). (HTTP response code was %d). "
+                    + "Additional details: %s.",
+                responseStream.code(), e.getMessage()),
+            responseStream.requestId(),
+            null,
+            responseStream.code(),
+            e);
+      } catch (IOException e) {
+        throw new ApiConnectionException(
+            String.format(
+                "IOException while reading response from Stripe (%s): %s",
+                Stripe.getApiBase(), e.getMessage()),
+            e);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        // Failure to close the body stream does not affect the objects already read.
+      }
+    }
+  }
+
+  /** Returns the type of the objects of the given collection class, e.g. {@code Charge}. */
+  @SuppressWarnings("unchecked")
+  private static <T> Class<T> elementType(Class<?> collectionType) {
+    for (Class<?> clazz = collectionType; clazz != null; clazz = clazz.getSuperclass()) {
+      Type superclass = clazz.getGenericSuperclass();
+      if (superclass instanceof ParameterizedType
+          && ((ParameterizedType) superclass).getRawType() == StripeCollection.class) {
+        Type elementType = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+        if (elementType instanceof Class) {
+          return (Class<T>) elementType;
+        }
+      }
+    }
+    throw new IllegalArgumentException(
+        "The type of the objects of " + collectionType.getName() + " is unknown.");
+  }
+}
@@ -0,0 +1,240 @@
+package com.stripe.model;
+
+import com.google.gson.stream.JsonReader;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * JSON reader of a region of a string, which can locate the values it reads in the string. This
+ * lets {@link LazyListTypeAdapterFactory} skip over the elements of lists and only record where
+ * they are, rather than parse them.
+ *
+ * <p>Values are located by the path of the reader, e.g. {@code $.data}, following the names of the
+ * objects' members and the indices of the arrays' elements from the start of the region. Values
+ * whose path is ambiguous, e.g. because of duplicate or dotted names, or goes through names with
+ * escape sequences, are not located.
+ *
+ * <p>Readers of the elements of a list do not locate the lists nested in them: an element is
+ * deserialized when accessed, and reading its nested lists in the same pass is cheaper than
+ * skipping over them and reading each of their elements with its own reader.
+ */
+final class SourceJsonReader extends JsonReader {
+  private static final int NOT_FOUND = -1;
+
+  private static final int AMBIGUOUS = -2;
+
+  private final String source;
+
+  private final int start;
+
+  private final int end;
+
+  private final boolean locating;
+
+  /**
+   * Initializes a new instance of the {@link SourceJsonReader}, reading the JSON value between the
+   * given offsets of the given string.
+   *
+   * @param source the string
+   * @param start the offset of the start of the value
+   * @param end the offset of the end of the value
+   * @param locating whether the arrays read are located, or always read in full
+   */
+  SourceJsonReader(String source, int start, int end, boolean locating) {
+    super(new RegionReader(source, start, end));
+    this.source = source;
+    this.start = start;
+    this.end = end;
+    this.locating = locating;
+    this.setLenient(true);
+  }
+
+  String getSource() {
+    return this.source;
+  }
+
+  /**
+   * Returns the bounds of the elements of the array the reader is at, as pairs of start and end
+   * offsets in the source, without reading it.
+   *
+   * @return the bounds of the elements, or {@code null} if the array cannot be located or the
+   *     reader does not locate arrays
+   */
+  int[] elementBounds() {
+    if (!this.locating) {
+      return null;
+    }
+    int pos = this.resolve(this.skipWhitespace(this.start), this.getPath(), 1);
+    if (pos < 0 || this.charAt(pos) != '[') {
+      return null;
+    }
+
+    int[] bounds = new int[16];
+    int count = 0;
+    int element = this.skipWhitespace(pos + 1);
+    while (element < this.end && this.charAt(element) != ']') {
+      if (count == bounds.length) {
+        bounds = Arrays.copyOf(bounds, 2 * count);
+      }
+      bounds[count++] = element;
+      bounds[count++] = this.skipValue(element);
+      int next = this.skipWhitespace(bounds[count - 1]);
+      if (this.charAt(next) != ',') {
+        break;
+      }
+      element = this.skipWhitespace(next + 1);
+    }
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * Returns the offset of the value at the given path, from its {@code pathIndex}-th character,
+   * relative to the value at the given offset.
+   */
+  private int resolve(int pos, String path, int pathIndex) {
+    if (pathIndex == path.length()) {
+      return pos;
+    }
+
+    if (path.charAt(pathIndex) == '[') {
+      int close = path.indexOf(']', pathIndex);
+      if (close < 0 || this.charAt(pos) != '[') {
+        return NOT_FOUND;
+      }
+      int index;
+      try {
+        index = Integer.parseInt(path.substring(pathIndex + 1, close));
+      } catch (NumberFormatException e) {
+        return NOT_FOUND;
+      }
+      int element = this.skipWhitespace(pos + 1);
+      for (int i = 0; i < index; i++) {
+        element = this.skipWhitespace(this.skipValue(element));
+        if (this.charAt(element) != ',') {
+          return NOT_FOUND;
+        }
+        element = this.skipWhitespace(element + 1);
+      }
+      return (this.charAt(element) == ']') ? NOT_FOUND : this.resolve(element, path, close + 1);
+    }
+
+    if (path.charAt(pathIndex) != '.' || this.charAt(pos) != '{') {
+      return NOT_FOUND;
+    }
+    int found = NOT_FOUND;
+    int name = this.skipWhitespace(pos + 1);
+    while (this.charAt(name) == '"') {
+      int nameEnd = this.skipString(name);
+      int value = this.skipWhitespace(this.skipWhitespace(nameEnd) + 1);
+
+      // Names may contain the path's separators: try each name the rest of the path starts with.
+      int length = nameEnd - name - 2;
+      int next = pathIndex + 1 + length;
+      if (path.regionMatches(pathIndex + 1, this.source, name + 1, length)
+          && (next == path.length() || path.charAt(next) == '.' || path.charAt(next) == '[')
+          && this.source.lastIndexOf('\\', nameEnd - 2) <= name) {
+        int resolved = this.resolve(value, path, next);
+        if (resolved == AMBIGUOUS || (resolved >= 0 && found >= 0)) {
+          return AMBIGUOUS;
+        }
+        if (resolved >= 0) {
+          found = resolved;
+        }
+      }
+
+      int after = this.skipWhitespace(this.skipValue(value));
+      if (this.charAt(after) != ',') {
+        break;
+      }
+      name = this.skipWhitespace(after + 1);
+    }
+    return found;
+  }
+
+  /** Returns the offset after the value at the given offset. */
+  private int skipValue(int pos) {
+    char c = this.charAt(pos);
+    if (c == '"') {
+      return this.skipString(pos);
+    }
+    if (c == '{' || c == '[') {
+      int depth = 0;
+      for (int i = pos; i < this.end; i++) {
+        char d = this.source.charAt(i);
+        if (d == '"') {
+          i = this.skipString(i) - 1;
+        } else if (d == '{' || d == '[') {
+          depth++;
+        } else if ((d == '}' || d == ']') && --depth == 0) {
+          return i + 1;
+        }
+      }
+      return this.end;
+    }
+    int i = pos;
+    while (i < this.end && ",:]} \t\r\n".indexOf(this.source.charAt(i)) < 0) {
+      i++;
+    }
+    return i;
+  }
+
+  /** Returns the offset after the string whose opening quote is at the given offset. */
+  private int skipString(int pos) {
+    int quote = pos;
+    while (true) {
+      quote = this.source.indexOf('"', quote + 1);
+      if (quote < 0 || quote >= this.end) {
+        return this.end;
+      }
+      // The quote closes the string unless escaped by an odd number of backslashes.
+      int backslashes = 0;
+      while (this.source.charAt(quote - 1 - backslashes) == '\\') {
+        backslashes++;
+      }
+      if (backslashes % 2 == 0) {
+        return quote + 1;
+      }
+    }
+  }
+
+  private int skipWhitespace(int pos) {
+    int i = pos;
+    while (i < this.end && Character.isWhitespace(this.source.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private char charAt(int pos) {
+    return (pos >= 0 && pos < this.end) ? this.source.charAt(pos) : '\0';
+  }
+
+  /** Reader of a region of a string, without copying it. */
+  private static final class RegionReader extends Reader {
+    private final String source;
+
+    private final int end;
+
+    private int pos;
+
+    RegionReader(String source, int start, int end) {
+      this.source = source;
+      this.pos = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+      if (this.pos >= this.end) {
+        return -1;
+      }
+      int count = Math.min(length, this.end - this.pos);
+      this.source.getChars(this.pos, this.pos + count, buffer, offset);
+      this.pos += count;
+      return count;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
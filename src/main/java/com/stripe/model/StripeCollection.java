@@ -1,8 +1,10 @@
 package com.stripe.model;
 
+import com.stripe.exception.StripeException;
 import com.stripe.net.RequestOptions;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -78,4 +80,35 @@ public abstract class StripeCollection<T extends HasId> extends StripeObject
     this.setRequestParams(params);
     return new PagingIterable<>(this);
   }
+
+  /**
+   * Passes all objects across all pages to the given consumer, like iterating over {@link
+   * #autoPagingIterable()} does. The pages following this one are parsed as they are streamed from
+   * the network, and each of their objects is passed to the consumer as soon as it is parsed, so
+   * that only one of them is held in memory at a time. This suits exports of large lists with
+   * expanded objects.
+   *
+   * @param consumer the consumer of the objects
+   * @throws StripeException if the request for a page fails
+   */
+  public void autoPagingForEach(Consumer<? super T> consumer) throws StripeException {
+    new PagingStreamer<>(this).forEach(consumer);
+  }
+
+  /**
+   * Passes all objects across all pages to the given consumer, streaming the following pages. See
+   * {@link #autoPagingForEach(Consumer)}.
+   *
+   * @param params request parameters (will override the parameters from the initial list request)
+   * @param options request options (will override the options from the initial list request)
+   * @param consumer the consumer of the objects
+   * @throws StripeException if the request for a page fails
+   */
+  public void autoPagingForEach(
+      Map<String, Object> params, RequestOptions options, Consumer<? super T> consumer)
+      throws StripeException {
+    this.setRequestOptions(options);
+    this.setRequestParams(params);
+    new PagingStreamer<>(this).forEach(consumer);
+  }
 }
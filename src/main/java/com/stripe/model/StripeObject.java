@@ -50,13 +50,19 @@ public abstract class StripeObject implements StripeObjectInterface {
    * Java library might move off Gson in the future and this method would be removed or change
    * significantly.
    *
-   * @return The raw JsonObject.
+   * @return The raw JsonObject, or {@code null} if the response body was neither retained nor
+   *     recorded.
    */
   public JsonObject getRawJsonObject() {
-    // Lazily initialize this the first time the getter is called.
+    // Lazily initialize this the first time the getter is called, from the JSON recorded while the
+    // response was deserialized if any. The body is not retained when the response was streamed.
     if ((this.rawJsonObject == null) && (this.getLastResponse() != null)) {
-      this.rawJsonObject =
-          ApiResource.GSON.fromJson(this.getLastResponse().body(), JsonObject.class);
+      if (this.getLastResponse().jsonBody() != null) {
+        this.rawJsonObject = this.getLastResponse().jsonBody();
+      } else if (this.getLastResponse().body() != null) {
+        this.rawJsonObject =
+            ApiResource.GSON.fromJson(this.getLastResponse().body(), JsonObject.class);
+      }
     }
 
     return this.rawJsonObject;
@@ -5,4 +5,13 @@ import com.google.gson.JsonObject;
 /** Fallback class for when we do not recognize the object that we have received. */
 public class StripeRawJsonObject extends StripeObject {
   JsonObject json;
+
+  /**
+   * Returns the JSON object as it was received.
+   *
+   * @return the JSON object
+   */
+  public JsonObject getJson() {
+    return json;
+  }
 }
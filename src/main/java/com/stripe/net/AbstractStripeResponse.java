@@ -0,0 +1,115 @@
+package com.stripe.net;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Base class for the responses from Stripe's API, whatever the representation of their body.
+ *
+ * @param <T> the type of the response body
+ */
+@EqualsAndHashCode
+@Accessors(fluent = true)
+public abstract class AbstractStripeResponse<T> {
+  /** The HTTP status code of the response. */
+  @Getter final int code;
+
+  /** The HTTP headers of the response. */
+  @Getter final HttpHeaders headers;
+
+  /** The body of the response. */
+  @Getter final T body;
+
+  /** Number of times the request was retried. Used for internal tests only. */
+  @Getter(AccessLevel.PACKAGE)
+  @Setter(AccessLevel.PACKAGE)
+  int numRetries;
+
+  /**
+   * The number of bytes of the body received over the network, i.e. before decompression, or {@code
+   * -1} if unknown.
+   */
+  @Getter
+  @Setter(AccessLevel.PACKAGE)
+  long compressedSize = -1;
+
+  /** The number of bytes of the body after decompression, or {@code -1} if unknown. */
+  @Getter
+  @Setter(AccessLevel.PACKAGE)
+  long uncompressedSize = -1;
+
+  /**
+   * The time spent establishing the connection, or {@code null} if the HTTP client does not report
+   * it. Close to zero when an open connection was reused.
+   */
+  @EqualsAndHashCode.Exclude
+  @Getter
+  @Setter(AccessLevel.PACKAGE)
+  Duration connectDuration;
+
+  /**
+   * The time between sending the request and receiving the response headers, or {@code null} if the
+   * HTTP client does not report it.
+   */
+  @EqualsAndHashCode.Exclude
+  @Getter
+  @Setter(AccessLevel.PACKAGE)
+  Duration timeToFirstByte;
+
+  /**
+   * Initializes a new instance of the {@link AbstractStripeResponse} class.
+   *
+   * @param code the HTTP status code of the response
+   * @param headers the HTTP headers of the response
+   * @param body the body of the response
+   * @throws NullPointerException if {@code headers} is {@code null}
+   */
+  protected AbstractStripeResponse(int code, HttpHeaders headers, T body) {
+    requireNonNull(headers);
+
+    this.code = code;
+    this.headers = headers;
+    this.body = body;
+  }
+
+  /**
+   * Gets the date of the request, as returned by Stripe.
+   *
+   * @return the date of the request, as returned by Stripe
+   */
+  public Instant date() {
+    Optional<String> dateStr = this.headers.firstValue("Date");
+    if (!dateStr.isPresent()) {
+      return null;
+    }
+    return ZonedDateTime.parse(dateStr.get(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+  }
+
+  /**
+   * Gets the idempotency key of the request, as returned by Stripe.
+   *
+   * @return the idempotency key of the request, as returned by Stripe
+   */
+  public String idempotencyKey() {
+    return this.headers.firstValue("Idempotency-Key").orElse(null);
+  }
+
+  /**
+   * Gets the ID of the request, as returned by Stripe.
+   *
+   * @return the ID of the request, as returned by Stripe
+   */
+  public String requestId() {
+    return this.headers.firstValue("Request-Id").orElse(null);
+  }
+}
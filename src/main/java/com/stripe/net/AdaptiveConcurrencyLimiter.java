@@ -0,0 +1,381 @@
+package com.stripe.net;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import com.stripe.util.Stopwatch;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of attempts in flight for each API key, adjusting the limit automatically to
+ * the highest concurrency Stripe sustains, instead of relying on hand-tuned thread pools.
+ *
+ * <p>The limit follows an additive-increase/multiplicative-decrease (AIMD) scheme. Each time
+ * attempts as many as the limit complete while the limit is in use, it is raised by one. It is
+ * multiplied by the {@link AdaptiveConcurrencyLimiterOptions#getBackoffRatio() backoff ratio} when
+ * an attempt shows that Stripe is overloaded: it was rate limited ({@code 429 Too Many Requests}),
+ * Stripe asked for it to be retried with the {@code Stripe-Should-Retry} header, it timed out, or
+ * the recent latency of the API key's attempts to its endpoint rose above the {@link
+ * AdaptiveConcurrencyLimiterOptions#getLatencyTolerance() tolerance} times their long-term latency.
+ * Latencies are tracked per endpoint, e.g. {@code GET /v1/customers/{id}}, so that a shift towards
+ * slower endpoints is not taken for an overload. The limit is lowered at most once per long-term
+ * latency, so that a burst of rate limited responses to attempts sent together counts as a single
+ * signal.
+ *
+ * <p>Attempts beyond the limit wait for one to complete, and are rejected with a {@link
+ * RateLimitException} after the maximum wait, or with a {@link RequestInterruptedException}, which
+ * is not retried, when interrupted while they wait. The limiter is an {@link Interceptor}, meant to
+ * be added around each attempt. A slot taken by a streamed response is held until its body is
+ * closed:
+ *
+ * <pre>{@code
+ * AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+ * limiter.addListener((apiKey, from, to) -> limitGauge.set(to));
+ * client.addAttemptInterceptor(limiter);
+ * }</pre>
+ */
+public class AdaptiveConcurrencyLimiter implements Interceptor {
+  /** Listener notified of the changes of the limits. */
+  @FunctionalInterface
+  public interface LimitChangeListener {
+    /**
+     * Called after the limit of an API key changed. This is called on the thread that completed
+     * the attempt causing the change, and should not block.
+     *
+     * @param apiKey the API key, redacted to its prefix and last four characters
+     * @param from the previous limit
+     * @param to the new limit
+     */
+    void onLimitChange(String apiKey, int from, int to);
+  }
+
+  /** The weight of each attempt in the recent latency. */
+  private static final double SHORT_SMOOTHING = 0.1;
+
+  /** The weight of each attempt in the long-term latency. */
+  private static final double LONG_SMOOTHING = 0.01;
+
+  /**
+   * The number of attempts of an API key to an endpoint before their latency is compared to the
+   * tolerance.
+   */
+  private static final int WARMUP_SAMPLES = 20;
+
+  private final AdaptiveConcurrencyLimiterOptions options;
+
+  private final ConcurrentHashMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+  private final List<LimitChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final LongAdder rejected = new LongAdder();
+
+  /** Initializes a new instance of the {@link AdaptiveConcurrencyLimiter} with default options. */
+  public AdaptiveConcurrencyLimiter() {
+    this(AdaptiveConcurrencyLimiterOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link AdaptiveConcurrencyLimiter}.
+   *
+   * @param options the limiter options
+   */
+  public AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimiterOptions options) {
+    this.options = options;
+  }
+
+  public AdaptiveConcurrencyLimiterOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Adds a listener notified of the changes of the limits.
+   *
+   * @param listener the listener
+   */
+  public void addListener(LimitChangeListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener previously added with {@link #addListener(LimitChangeListener)}.
+   *
+   * @param listener the listener
+   */
+  public void removeListener(LimitChangeListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Returns the current limit of the API key of the given request options.
+   *
+   * @param options the request options
+   * @return the number of attempts the API key may have in flight
+   */
+  public int getLimit(RequestOptions options) {
+    Limit limit = this.limits.get(key(options));
+    if (limit == null) {
+      return this.options.getInitialLimit();
+    }
+    limit.lock.lock();
+    try {
+      return limit.current();
+    } finally {
+      limit.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of attempts of the API key of the given request options currently in
+   * flight.
+   *
+   * @param options the request options
+   * @return the number of attempts in flight
+   */
+  public int getInFlightCount(RequestOptions options) {
+    Limit limit = this.limits.get(key(options));
+    if (limit == null) {
+      return 0;
+    }
+    limit.lock.lock();
+    try {
+      return limit.inFlight;
+    } finally {
+      limit.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of attempts rejected after waiting longer than the maximum wait.
+   *
+   * @return the number of rejected attempts
+   */
+  public long getRejectedCount() {
+    return this.rejected.sum();
+  }
+
+  @Override
+  public AbstractStripeResponse<?> intercept(StripeRequest request, Chain chain)
+      throws StripeException {
+    String key = key(request.options());
+    Limit limit = this.limits.computeIfAbsent(key, k -> new Limit(redact(k)));
+    String endpoint =
+        request.method().name()
+            + " "
+            + RequestMetricsEvent.endpointTemplate(request.url().getPath());
+    limit.acquire();
+
+    // The slot is released when the attempt completes, or handed to the body of a streamed
+    // response, whatever the attempt throws.
+    boolean handedOff = false;
+    try {
+      Stopwatch stopwatch = Stopwatch.startNew();
+      AbstractStripeResponse<?> response;
+      try {
+        response = chain.proceed(request);
+      } catch (ApiConnectionException e) {
+        stopwatch.stop();
+        if (e.getCause() instanceof SocketTimeoutException) {
+          this.complete(limit, endpoint, stopwatch.getElapsed().toNanos(), true);
+        } else {
+          this.complete(limit, endpoint, -1, false);
+        }
+        throw e;
+      } catch (StripeException | RuntimeException e) {
+        this.complete(limit, endpoint, -1, false);
+        throw e;
+      }
+      stopwatch.stop();
+
+      this.complete(limit, endpoint, stopwatch.getElapsed().toNanos(), isOverloaded(response));
+
+      if (response instanceof StripeResponseStream) {
+        StripeResponseStream responseStream = (StripeResponseStream) response;
+        AbstractStripeResponse<?> result =
+            responseStream.withBody(
+                ConnectionPermits.releaseOnClose(responseStream.body(), limit::release));
+        handedOff = true;
+        return result;
+      }
+      return response;
+    } finally {
+      if (!handedOff) {
+        limit.release();
+      }
+    }
+  }
+
+  /**
+   * Records the outcome of an attempt to the given endpoint with the given latency, or without a
+   * latency if {@code latencyNanos} is negative. The attempt still holds its slot, released by the
+   * caller.
+   */
+  void complete(Limit limit, String endpoint, long latencyNanos, boolean overloaded) {
+    int from;
+    int to;
+    limit.lock.lock();
+    try {
+      from = limit.current();
+      limit.update(endpoint, latencyNanos, overloaded, System.nanoTime());
+      to = limit.current();
+      if (to > from) {
+        limit.available.signalAll();
+      }
+    } finally {
+      limit.lock.unlock();
+    }
+
+    if (from != to) {
+      for (LimitChangeListener listener : this.listeners) {
+        listener.onLimitChange(limit.label, from, to);
+      }
+    }
+  }
+
+  /** Returns whether the given response was rate limited, or asks for its request to be retried. */
+  private static boolean isOverloaded(AbstractStripeResponse<?> response) {
+    if (response.code() == 429) {
+      return true;
+    }
+    return response.headers() != null
+        && "true".equals(response.headers().firstValue("Stripe-Should-Retry").orElse(null));
+  }
+
+  private static String key(RequestOptions options) {
+    return (options.getApiKey() != null) ? options.getApiKey() : "";
+  }
+
+  /** Redacts an API key to its prefix and last four characters, e.g. {@code sk_live_...abcd}. */
+  private static String redact(String apiKey) {
+    if (apiKey.length() <= 8) {
+      return "...";
+    }
+    int prefixEnd = apiKey.lastIndexOf('_', apiKey.length() - 5);
+    String prefix = (prefixEnd > 0) ? apiKey.substring(0, prefixEnd + 1) : "";
+    return prefix + "..." + apiKey.substring(apiKey.length() - 4);
+  }
+
+  /** The limit of one API key. All fields are guarded by the instance's lock. */
+  final class Limit {
+    final String label;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    final Condition available = this.lock.newCondition();
+
+    double limit = AdaptiveConcurrencyLimiter.this.options.getInitialLimit();
+
+    int inFlight;
+
+    /** The latencies of the attempts, by endpoint. */
+    final Map<String, Latency> latencies = new HashMap<>();
+
+    /** Whether the limit was ever lowered, i.e. whether {@link #lastDecreaseNanos} is set. */
+    boolean decreased;
+
+    long lastDecreaseNanos;
+
+    Limit(String label) {
+      this.label = label;
+    }
+
+    int current() {
+      return (int) this.limit;
+    }
+
+    void acquire() throws StripeException {
+      Duration maxWait = AdaptiveConcurrencyLimiter.this.options.getMaxWait();
+      long waitNanos = maxWait.toNanos();
+      this.lock.lock();
+      try {
+        while (this.inFlight >= this.current()) {
+          if (waitNanos <= 0) {
+            AdaptiveConcurrencyLimiter.this.rejected.increment();
+            throw new RateLimitException(
+                String.format(
+                    "Request was not sent because the %d attempts this API key may currently have "
+                        + "in flight were all in use for more than the maximum wait of %d ms.",
+                    this.current(), maxWait.toMillis()),
+                null,
+                null,
+                null,
+                null,
+                null);
+          }
+          waitNanos = this.available.awaitNanos(waitNanos);
+        }
+        this.inFlight++;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RequestInterruptedException(
+            "Interrupted while waiting for the concurrency limit of this API key.", e);
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    void release() {
+      this.lock.lock();
+      try {
+        this.inFlight--;
+        this.available.signal();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    void update(String endpoint, long latencyNanos, boolean overloaded, long nowNanos) {
+      AdaptiveConcurrencyLimiterOptions options = AdaptiveConcurrencyLimiter.this.options;
+
+      Latency latency = this.latencies.computeIfAbsent(endpoint, k -> new Latency());
+      if (latencyNanos >= 0 && !overloaded) {
+        latency.record(latencyNanos);
+        overloaded =
+            latency.samples >= WARMUP_SAMPLES
+                && latency.shortNanos > options.getLatencyTolerance() * latency.longNanos;
+      }
+
+      if (overloaded) {
+        if (!this.decreased || nowNanos - this.lastDecreaseNanos >= latency.longNanos) {
+          this.limit = Math.max(options.getMinLimit(), this.limit * options.getBackoffRatio());
+          this.decreased = true;
+          this.lastDecreaseNanos = nowNanos;
+        }
+      } else if (latencyNanos >= 0 && 2 * this.inFlight >= this.current()) {
+        // Only raise the limit while it is in use, so that it cannot grow unbounded while idle.
+        this.limit = Math.min(options.getMaxLimit(), this.limit + 1 / this.limit);
+      }
+    }
+  }
+
+  /** The latency of the attempts of one API key to one endpoint. Guarded by the limit's lock. */
+  static final class Latency {
+    /** The number of attempts whose latency was recorded. */
+    long samples;
+
+    /** The exponentially smoothed latency of the recent attempts. */
+    double shortNanos;
+
+    /** The exponentially smoothed latency of the attempts over a longer period. */
+    double longNanos;
+
+    void record(long latencyNanos) {
+      if (this.samples++ == 0) {
+        this.shortNanos = latencyNanos;
+        this.longNanos = latencyNanos;
+      } else {
+        this.shortNanos += SHORT_SMOOTHING * (latencyNanos - this.shortNanos);
+        this.longNanos += LONG_SMOOTHING * (latencyNanos - this.longNanos);
+      }
+    }
+  }
+}
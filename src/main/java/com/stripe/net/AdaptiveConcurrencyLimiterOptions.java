@@ -0,0 +1,189 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link AdaptiveConcurrencyLimiter}. */
+@EqualsAndHashCode(callSuper = false)
+public class AdaptiveConcurrencyLimiterOptions {
+  public static final int DEFAULT_INITIAL_LIMIT = 20;
+  public static final int DEFAULT_MIN_LIMIT = 1;
+  public static final int DEFAULT_MAX_LIMIT = 200;
+  public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+  public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final double latencyTolerance;
+  private final Duration maxWait;
+
+  public static AdaptiveConcurrencyLimiterOptions getDefault() {
+    return new AdaptiveConcurrencyLimiterOptionsBuilder().build();
+  }
+
+  private AdaptiveConcurrencyLimiterOptions(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double backoffRatio,
+      double latencyTolerance,
+      Duration maxWait) {
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTolerance = latencyTolerance;
+    this.maxWait = maxWait;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public double getLatencyTolerance() {
+    return latencyTolerance;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+
+  public static AdaptiveConcurrencyLimiterOptionsBuilder builder() {
+    return new AdaptiveConcurrencyLimiterOptionsBuilder();
+  }
+
+  public static final class AdaptiveConcurrencyLimiterOptionsBuilder {
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+    private int minLimit = DEFAULT_MIN_LIMIT;
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+    private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+    private Duration maxWait = DEFAULT_MAX_WAIT;
+
+    public int getInitialLimit() {
+      return initialLimit;
+    }
+
+    /**
+     * Sets the number of attempts each API key may have in flight before any has completed.
+     *
+     * @param initialLimit the initial limit
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setInitialLimit(int initialLimit) {
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    public int getMinLimit() {
+      return minLimit;
+    }
+
+    /**
+     * Sets the limit below which the number of attempts in flight is never lowered.
+     *
+     * @param minLimit the minimum limit
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    public int getMaxLimit() {
+      return maxLimit;
+    }
+
+    /**
+     * Sets the limit above which the number of attempts in flight is never raised.
+     *
+     * @param maxLimit the maximum limit
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    public double getBackoffRatio() {
+      return backoffRatio;
+    }
+
+    /**
+     * Sets the factor the limit is multiplied by when Stripe shows signs of overload.
+     *
+     * @param backoffRatio the backoff ratio, between 0 and 1 exclusive
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setBackoffRatio(double backoffRatio) {
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    public double getLatencyTolerance() {
+      return latencyTolerance;
+    }
+
+    /**
+     * Sets how many times slower than usual recent attempts may get before the limit is lowered,
+     * e.g. 2 lowers the limit once the recent latency is more than twice the long-term latency.
+     *
+     * @param latencyTolerance the latency tolerance, greater than 1
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setLatencyTolerance(double latencyTolerance) {
+      this.latencyTolerance = latencyTolerance;
+      return this;
+    }
+
+    public Duration getMaxWait() {
+      return maxWait;
+    }
+
+    /**
+     * Sets the maximum time an attempt waits for the number of attempts in flight to drop below the
+     * limit, before being rejected with a {@link com.stripe.exception.RateLimitException}.
+     *
+     * @param maxWait the maximum wait
+     */
+    public AdaptiveConcurrencyLimiterOptionsBuilder setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    /** Constructs a {@link AdaptiveConcurrencyLimiterOptions} with the specified values. */
+    public AdaptiveConcurrencyLimiterOptions build() {
+      if (minLimit <= 0) {
+        throw new IllegalArgumentException("minLimit must be positive.");
+      }
+      if (maxLimit < minLimit) {
+        throw new IllegalArgumentException("maxLimit must not be lower than minLimit.");
+      }
+      if (initialLimit < minLimit || initialLimit > maxLimit) {
+        throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit.");
+      }
+      if (!(backoffRatio > 0 && backoffRatio < 1)) {
+        throw new IllegalArgumentException("backoffRatio must be between 0 and 1 exclusive.");
+      }
+      if (!(latencyTolerance > 1)) {
+        throw new IllegalArgumentException("latencyTolerance must be greater than 1.");
+      }
+      if (maxWait == null || maxWait.isNegative()) {
+        throw new IllegalArgumentException("maxWait must not be negative.");
+      }
+
+      return new AdaptiveConcurrencyLimiterOptions(
+          initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance, maxWait);
+    }
+  }
+}
@@ -15,7 +15,9 @@ import com.stripe.model.EventRequest;
 import com.stripe.model.EventRequestDeserializer;
 import com.stripe.model.ExpandableField;
 import com.stripe.model.ExpandableFieldDeserializer;
+import com.stripe.model.GeneratedTypeAdapterFactory;
 import com.stripe.model.HasId;
+import com.stripe.model.LazyListTypeAdapterFactory;
 import com.stripe.model.StripeCollectionInterface;
 import com.stripe.model.StripeObject;
 import com.stripe.model.StripeObjectInterface;
@@ -28,31 +30,44 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class ApiResource extends StripeObject {
   public static final Charset CHARSET = StandardCharsets.UTF_8;
 
   private static StripeResponseGetter stripeResponseGetter = new LiveStripeResponseGetter();
 
-  public static final Gson GSON = createGson();
+  public static final Gson GSON = createGson(false);
+
+  /**
+   * Deserializes the lists of objects and the expanded objects of responses lazily, for the
+   * requests with {@link RequestOptions#isLazyDeserializationEnabled()}.
+   */
+  static final Gson LAZY_GSON = createGson(true);
 
   public static void setStripeResponseGetter(StripeResponseGetter srg) {
     ApiResource.stripeResponseGetter = srg;
   }
 
-  private static Gson createGson() {
+  private static Gson createGson(boolean lazy) {
+    // Factories registered later take precedence: register the adapters generated for the models
+    // first, so that the deserializers and interface factories below override them.
     GsonBuilder builder =
         new GsonBuilder()
             .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())
             .registerTypeAdapter(EphemeralKey.class, new EphemeralKeyDeserializer())
             .registerTypeAdapter(EventData.class, new EventDataDeserializer())
             .registerTypeAdapter(EventRequest.class, new EventRequestDeserializer())
-            .registerTypeAdapter(ExpandableField.class, new ExpandableFieldDeserializer())
+            .registerTypeAdapter(ExpandableField.class, new ExpandableFieldDeserializer(lazy))
             .registerTypeAdapter(StripeRawJsonObject.class, new StripeRawJsonObjectDeserializer());
 
     for (TypeAdapterFactory factory : ApiResourceTypeAdapterFactoryProvider.getAll()) {
       builder.registerTypeAdapterFactory(factory);
     }
+    if (lazy) {
+      builder.registerTypeAdapterFactory(new LazyListTypeAdapterFactory());
+    }
     return builder.create();
   }
 
@@ -179,6 +194,38 @@ public abstract class ApiResource extends StripeObject {
     return ApiResource.stripeResponseGetter.request(method, url, params, clazz, options);
   }
 
+  /**
+   * Similar to #request, but sends the request asynchronously. The returned future is completed
+   * exceptionally with a {@link StripeException} if the request fails, or with an {@link
+   * IllegalArgumentException} if the params are {@code null}.
+   */
+  public static <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      ApiRequestParams params,
+      Class<T> clazz,
+      RequestOptions options) {
+    try {
+      checkNullTypedParams(url, params);
+    } catch (IllegalArgumentException e) {
+      return failedFuture(e);
+    }
+    return requestAsync(method, url, params.toMap(), clazz, options);
+  }
+
+  /**
+   * Similar to #request, but sends the request asynchronously. The returned future is completed
+   * exceptionally with a {@link StripeException} if the request fails.
+   */
+  public static <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    return ApiResource.stripeResponseGetter.requestAsync(method, url, params, clazz, options);
+  }
+
   public static <T extends StripeCollectionInterface<?>> T requestCollection(
       String url, ApiRequestParams params, Class<T> clazz, RequestOptions options)
       throws StripeException {
@@ -206,6 +253,50 @@ public abstract class ApiResource extends StripeObject {
     return collection;
   }
 
+  /**
+   * Similar to #requestCollection, but sends the request asynchronously. The returned future is
+   * completed exceptionally with an {@link IllegalArgumentException} if the params are {@code
+   * null}.
+   */
+  public static <T extends StripeCollectionInterface<?>>
+      CompletableFuture<T> requestCollectionAsync(
+          String url, ApiRequestParams params, Class<T> clazz, RequestOptions options) {
+    try {
+      checkNullTypedParams(url, params);
+    } catch (IllegalArgumentException e) {
+      return failedFuture(e);
+    }
+    return requestCollectionAsync(url, params.toMap(), clazz, options);
+  }
+
+  /** Similar to #requestCollection, but sends the request asynchronously. */
+  public static <T extends StripeCollectionInterface<?>>
+      CompletableFuture<T> requestCollectionAsync(
+          String url, Map<String, Object> params, Class<T> clazz, RequestOptions options) {
+    return requestAsync(RequestMethod.GET, url, params, clazz, options)
+        .thenApply(
+            collection -> {
+              if (collection != null) {
+                collection.setRequestOptions(options);
+                collection.setRequestParams(params);
+              }
+              return collection;
+            });
+  }
+
+  /**
+   * Similar to #request, but returns the response without reading its body, for the caller to
+   * parse it as it is received. The caller must close the body of the returned response.
+   */
+  public static StripeResponseStream requestStream(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      RequestOptions options)
+      throws StripeException {
+    return ApiResource.stripeResponseGetter.requestStream(method, url, params, options);
+  }
+
   /**
    * Invalidate null typed parameters.
    *
@@ -222,6 +313,12 @@ public abstract class ApiResource extends StripeObject {
     }
   }
 
+  private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(throwable);
+    return future;
+  }
+
   /**
    * When setting a String ID for an ExpandableField, we need to be careful about keeping the String
    * ID and the expanded object in sync. If they specify a new String ID that is different from the
@@ -0,0 +1,262 @@
+package com.stripe.net;
+
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent requests of each family of resources, so that a family of
+ * requests cannot take all the connections of a client, e.g. batch exports paging through balance
+ * transactions starving interactive payment requests.
+ *
+ * <p>Requests are assigned to a partition by the path of their resource, or explicitly with {@link
+ * RequestOptions.RequestOptionsBuilder#setBulkheadPartition(String)}. Each partition lets a limited
+ * number of requests in flight at once, and a limited number of requests wait for one of its slots.
+ * Requests that find the queue full, or wait longer than the maximum wait, are rejected with a
+ * {@link RateLimitException}, and requests interrupted while they wait are rejected with a {@link
+ * RequestInterruptedException}, which is not retried. Requests of no partition are not limited.
+ *
+ * <p>The bulkhead is an {@link Interceptor}, meant to be added around each attempt so that requests
+ * do not hold a slot while waiting to be retried. A slot taken by a streamed response is held until
+ * its body is closed:
+ *
+ * <pre>{@code
+ * Bulkhead bulkhead =
+ *     new Bulkhead(
+ *         BulkheadOptions.builder()
+ *             .setPartition("batch", 4, 100)
+ *             .setResourcePartition(BalanceTransaction.class, "batch")
+ *             .setResourcePartition(Charge.class, "batch")
+ *             .build());
+ * client.addAttemptInterceptor(bulkhead);
+ * }</pre>
+ */
+public class Bulkhead implements Interceptor {
+  private final BulkheadOptions options;
+
+  private final Map<String, Partition> partitions;
+
+  /**
+   * Initializes a new instance of the {@link Bulkhead} class.
+   *
+   * @param options the bulkhead options
+   */
+  public Bulkhead(BulkheadOptions options) {
+    this.options = options;
+
+    Map<String, Partition> partitions = new HashMap<>();
+    for (Map.Entry<String, BulkheadOptions.Partition> entry : options.getPartitions().entrySet()) {
+      partitions.put(entry.getKey(), new Partition(entry.getKey(), entry.getValue()));
+    }
+    this.partitions = Collections.unmodifiableMap(partitions);
+  }
+
+  public BulkheadOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the partition of the given name, to report its usage.
+   *
+   * @param name the name of the partition
+   * @return the partition, or {@code null} if there is no partition of that name
+   */
+  public Partition getPartition(String name) {
+    return this.partitions.get(name);
+  }
+
+  @Override
+  public AbstractStripeResponse<?> intercept(StripeRequest request, Chain chain)
+      throws StripeException {
+    Partition partition = this.partitionFor(request);
+    if (partition == null) {
+      return chain.proceed(request);
+    }
+
+    partition.acquire(this.options.getMaxWait().toNanos());
+    AbstractStripeResponse<?> response;
+    try {
+      response = chain.proceed(request);
+    } catch (StripeException | RuntimeException e) {
+      partition.semaphore.release();
+      throw e;
+    }
+
+    if (response instanceof StripeResponseStream) {
+      StripeResponseStream responseStream = (StripeResponseStream) response;
+      return responseStream.withBody(
+          ConnectionPermits.releaseOnClose(responseStream.body(), partition.semaphore));
+    }
+    partition.semaphore.release();
+    return response;
+  }
+
+  /** Returns the partition of the given request, or {@code null} if it is not limited. */
+  Partition partitionFor(StripeRequest request) {
+    String name = request.options().getBulkheadPartition();
+    if (name != null) {
+      return this.partitions.get(name);
+    }
+
+    Map<String, String> pathPartitions = this.options.getPathPartitions();
+    if (pathPartitions.isEmpty()) {
+      return null;
+    }
+
+    // Try the whole path, then each of its parents, so that the longest prefix wins.
+    String path = request.url().getPath();
+    int end = path.length();
+    while (end > 0) {
+      name = pathPartitions.get(path.substring(0, end));
+      if (name != null) {
+        return this.partitions.get(name);
+      }
+      end = path.lastIndexOf('/', end - 1);
+    }
+    return null;
+  }
+
+  /** A partition of the bulkhead, with its current usage and statistics. */
+  public static final class Partition {
+    private final String name;
+
+    private final BulkheadOptions.Partition limits;
+
+    private final Semaphore semaphore;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    Partition(String name, BulkheadOptions.Partition limits) {
+      this.name = name;
+      this.limits = limits;
+      this.semaphore = new Semaphore(limits.getMaxConcurrentCalls(), true);
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Returns the number of requests of the partition currently in flight.
+     *
+     * @return the number of requests in flight
+     */
+    public int getActiveCount() {
+      return this.limits.getMaxConcurrentCalls() - this.semaphore.availablePermits();
+    }
+
+    /**
+     * Returns the number of requests of the partition currently waiting for a slot.
+     *
+     * @return the number of waiting requests
+     */
+    public int getQueuedCount() {
+      return this.queued.get();
+    }
+
+    /**
+     * Returns the number of requests of the partition that were given a slot.
+     *
+     * @return the number of accepted requests
+     */
+    public long getAcceptedCount() {
+      return this.accepted.sum();
+    }
+
+    /**
+     * Returns the number of requests of the partition that were rejected, because its queue was
+     * full or they waited longer than the maximum wait.
+     *
+     * @return the number of rejected requests
+     */
+    public long getRejectedCount() {
+      return this.rejected.sum();
+    }
+
+    /**
+     * Returns the histogram of the times requests of the partition waited for a slot, including
+     * requests that were rejected after waiting. Requests given a slot immediately are recorded as
+     * a zero wait.
+     *
+     * @return the histogram of wait times
+     */
+    public LatencyHistogram getWaitTimes() {
+      return this.waitTimes;
+    }
+
+    void acquire(long maxWaitNanos) throws StripeException {
+      boolean acquired;
+      try {
+        acquired = this.semaphore.tryAcquire(0, TimeUnit.NANOSECONDS);
+        if (acquired) {
+          this.waitTimes.recordNanos(0);
+        } else {
+          acquired = this.awaitSlot(maxWaitNanos);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        this.rejected.increment();
+        throw new RequestInterruptedException(
+            String.format(
+                "Interrupted while waiting for a slot of the bulkhead partition %s.", this.name),
+            e);
+      }
+
+      if (!acquired) {
+        this.rejected.increment();
+        throw new RateLimitException(
+            String.format(
+                "Request was not sent because the %d slots of the bulkhead partition %s were all "
+                    + "in use for more than the maximum wait of %d ms.",
+                this.limits.getMaxConcurrentCalls(),
+                this.name,
+                Duration.ofNanos(maxWaitNanos).toMillis()),
+            null,
+            null,
+            null,
+            null,
+            null);
+      }
+      this.accepted.increment();
+    }
+
+    private boolean awaitSlot(long maxWaitNanos) throws StripeException, InterruptedException {
+      if (this.queued.incrementAndGet() > this.limits.getMaxQueueDepth()) {
+        this.queued.decrementAndGet();
+        this.rejected.increment();
+        throw new RateLimitException(
+            String.format(
+                "Request was not sent because the %d slots of the bulkhead partition %s were all "
+                    + "in use and %d requests were already waiting.",
+                this.limits.getMaxConcurrentCalls(), this.name, this.limits.getMaxQueueDepth()),
+            null,
+            null,
+            null,
+            null,
+            null);
+      }
+
+      long startNanos = System.nanoTime();
+      try {
+        return this.semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+      } finally {
+        this.queued.decrementAndGet();
+        this.waitTimes.recordNanos(System.nanoTime() - startNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.stripe.net;
+
+import com.stripe.model.StripeObjectInterface;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/** Settings for the {@link Bulkhead}. */
+@EqualsAndHashCode(callSuper = false)
+public class BulkheadOptions {
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+  private final Map<String, Partition> partitions;
+  private final Map<String, String> pathPartitions;
+  private final Duration maxWait;
+
+  private BulkheadOptions(
+      Map<String, Partition> partitions, Map<String, String> pathPartitions, Duration maxWait) {
+    this.partitions = partitions;
+    this.pathPartitions = pathPartitions;
+    this.maxWait = maxWait;
+  }
+
+  /**
+   * Returns the limits of the partitions, by partition name.
+   *
+   * @return an unmodifiable map of the partition names to their limits
+   */
+  public Map<String, Partition> getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * Returns the partitions assigned to resources, by path prefix, e.g. {@code /v1/charges}.
+   *
+   * @return an unmodifiable map of the path prefixes to the partition names
+   */
+  public Map<String, String> getPathPartitions() {
+    return pathPartitions;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+
+  public static BulkheadOptionsBuilder builder() {
+    return new BulkheadOptionsBuilder();
+  }
+
+  /** The limits of a bulkhead partition. */
+  @Value
+  public static class Partition {
+    /** The maximum number of requests of the partition in flight at once. */
+    int maxConcurrentCalls;
+
+    /** The maximum number of requests of the partition waiting for one of its slots. */
+    int maxQueueDepth;
+  }
+
+  public static final class BulkheadOptionsBuilder {
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private final Map<String, String> pathPartitions = new HashMap<>();
+    private Duration maxWait = DEFAULT_MAX_WAIT;
+
+    /**
+     * Adds a partition, or replaces the limits of an existing one.
+     *
+     * @param name the name of the partition, e.g. {@code "batch"}
+     * @param maxConcurrentCalls the maximum number of requests of the partition in flight at once
+     * @param maxQueueDepth the maximum number of requests of the partition waiting for one of its
+     *     slots, further requests are rejected immediately
+     */
+    public BulkheadOptionsBuilder setPartition(
+        String name, int maxConcurrentCalls, int maxQueueDepth) {
+      this.partitions.put(name, new Partition(maxConcurrentCalls, maxQueueDepth));
+      return this;
+    }
+
+    /**
+     * Assigns the requests to the resources of the given class to a partition, e.g. {@code
+     * BalanceTransaction.class} to {@code "batch"}. This covers the requests whose path starts with
+     * the collection path the resource requests, e.g. {@code /v1/balance_transactions}.
+     *
+     * @param clazz the resource class
+     * @param partition the name of the partition
+     * @throws IllegalArgumentException if the class is not a resource with a collection path of its
+     *     own, e.g. a resource only requested under another one such as {@code Capability}, whose
+     *     requests can be assigned with {@link #setPathPartition(String, String)} instead
+     */
+    public BulkheadOptionsBuilder setResourcePartition(
+        Class<? extends StripeObjectInterface> clazz, String partition) {
+      String path = GeneratedResourcePaths.collectionPath(clazz.getName());
+      if (path == null) {
+        throw new IllegalArgumentException(
+            String.format(
+                "%s has no collection path of its own, assign its requests with "
+                    + "setPathPartition instead.",
+                clazz.getName()));
+      }
+      return this.setPathPartition(path, partition);
+    }
+
+    /**
+     * Assigns the requests whose path starts with the given prefix to a partition. When several
+     * prefixes match a request, the longest one is used.
+     *
+     * @param pathPrefix the path prefix, e.g. {@code /v1/charges}, matched on whole path segments
+     * @param partition the name of the partition
+     */
+    public BulkheadOptionsBuilder setPathPartition(String pathPrefix, String partition) {
+      String prefix = pathPrefix.startsWith("/") ? pathPrefix : "/" + pathPrefix;
+      if (prefix.length() > 1 && prefix.endsWith("/")) {
+        prefix = prefix.substring(0, prefix.length() - 1);
+      }
+      this.pathPartitions.put(prefix, partition);
+      return this;
+    }
+
+    public Duration getMaxWait() {
+      return maxWait;
+    }
+
+    /**
+     * Sets the maximum time a request waits for a slot of its partition before being rejected with
+     * a {@link com.stripe.exception.RateLimitException}.
+     *
+     * @param maxWait the maximum wait
+     */
+    public BulkheadOptionsBuilder setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    /** Constructs a {@link BulkheadOptions} with the specified values. */
+    public BulkheadOptions build() {
+      for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+        if (entry.getValue().getMaxConcurrentCalls() <= 0) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "maxConcurrentCalls of partition %s must be positive.", entry.getKey()));
+        }
+        if (entry.getValue().getMaxQueueDepth() < 0) {
+          throw new IllegalArgumentException(
+              String.format("maxQueueDepth of partition %s must not be negative.", entry.getKey()));
+        }
+      }
+      for (Map.Entry<String, String> entry : pathPartitions.entrySet()) {
+        if (!partitions.containsKey(entry.getValue())) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "%s is assigned to partition %s, which was not set.",
+                  entry.getKey(), entry.getValue()));
+        }
+      }
+      if (maxWait == null || maxWait.isNegative()) {
+        throw new IllegalArgumentException("maxWait must not be negative.");
+      }
+
+      return new BulkheadOptions(
+          Collections.unmodifiableMap(new HashMap<>(partitions)),
+          Collections.unmodifiableMap(new HashMap<>(pathPartitions)),
+          maxWait);
+    }
+  }
+}
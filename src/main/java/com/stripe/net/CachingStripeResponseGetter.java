@@ -0,0 +1,383 @@
+package com.stripe.net;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.StripeObjectInterface;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Response getter that caches the responses of {@code GET} requests for resources that rarely
+ * change, such as prices, products or tax rates.
+ *
+ * <p>Only resources of the classes given a time-to-live in the {@link ResponseCacheOptions} are
+ * cached. Responses are cached per URL and query string, API key, connected account ({@code
+ * Stripe-Account}), API version ({@code Stripe-Version}) and response options (lazy
+ * deserialization, raw JSON recording and response retention), and each caller is given its own
+ * copy of the resource. Once the cache is full, the least recently used responses are evicted first.
+ *
+ * <p>Concurrent requests missing the same response wait for a single request to Stripe. When
+ * stale-while-revalidate is enabled, a response that expired less than that duration ago is still
+ * returned, while a single request refreshes it in the background on the {@link
+ * #setRefreshExecutor(Executor) refresh executor}.
+ *
+ * <p>Requests that are not {@code GET} requests are always passed through to the delegate getter,
+ * and do not invalidate cached responses: use {@link #invalidateAll()} after modifying cached
+ * resources if they must be seen immediately.
+ *
+ * <pre>{@code
+ * ApiResource.setStripeResponseGetter(
+ *     new CachingStripeResponseGetter(
+ *         new LiveStripeResponseGetter(),
+ *         ResponseCacheOptions.builder()
+ *             .setTtl(Price.class, Duration.ofMinutes(5))
+ *             .setTtl(TaxRate.class, Duration.ofMinutes(5))
+ *             .setTtl(CountrySpec.class, Duration.ofHours(1))
+ *             .build()));
+ * }</pre>
+ */
+public class CachingStripeResponseGetter implements StripeResponseGetter {
+  private final StripeResponseGetter delegate;
+
+  private final ResponseCacheOptions options;
+
+  private final LongSupplier nanoClock;
+
+  /** The cached responses, in access order. Guarded by itself. */
+  private final LinkedHashMap<RequestKey, CachedResponse> entries;
+
+  /** The requests filling missing entries, by key. */
+  private final ConcurrentHashMap<RequestKey, CompletableFuture<StripeObjectInterface>> fills =
+      new ConcurrentHashMap<>();
+
+  private volatile Executor refreshExecutor;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder staleHits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Initializes a new instance of the {@link CachingStripeResponseGetter} class.
+   *
+   * @param delegate the response getter sending the requests whose responses are cached
+   * @param options the cache options
+   */
+  public CachingStripeResponseGetter(StripeResponseGetter delegate, ResponseCacheOptions options) {
+    this(delegate, options, System::nanoTime);
+  }
+
+  CachingStripeResponseGetter(
+      StripeResponseGetter delegate, ResponseCacheOptions options, LongSupplier nanoClock) {
+    this.delegate = delegate;
+    this.options = options;
+    this.nanoClock = nanoClock;
+    this.entries =
+        new LinkedHashMap<RequestKey, CachedResponse>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<RequestKey, CachedResponse> eldest) {
+            return size() > options.getMaxEntries();
+          }
+        };
+  }
+
+  public ResponseCacheOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Sets the executor refreshing stale responses in the background. If {@code null}, a shared pool
+   * of daemon threads is used.
+   *
+   * @param refreshExecutor the executor
+   */
+  public void setRefreshExecutor(Executor refreshExecutor) {
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * Returns the number of requests answered from the cache with a fresh response.
+   *
+   * @return the number of hits
+   */
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of requests answered from the cache with an expired response, while it was
+   * refreshed in the background.
+   *
+   * @return the number of stale hits
+   */
+  public long getStaleHitCount() {
+    return this.staleHits.sum();
+  }
+
+  /**
+   * Returns the number of cacheable requests not answered from the cache, which were sent to Stripe
+   * or waited for an identical request sent to Stripe.
+   *
+   * @return the number of misses
+   */
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the fraction of cacheable requests answered from the cache, fresh or stale.
+   *
+   * @return the hit rate, or 0 if no cacheable request was made
+   */
+  public double getHitRate() {
+    long hitCount = this.getHitCount() + this.getStaleHitCount();
+    long total = hitCount + this.getMissCount();
+    return (total > 0) ? hitCount / (double) total : 0;
+  }
+
+  /**
+   * Returns the number of cached responses, including expired ones not yet evicted.
+   *
+   * @return the number of cached responses
+   */
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  /** Removes all the cached responses. */
+  public void invalidateAll() {
+    synchronized (this.entries) {
+      this.entries.clear();
+    }
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> T request(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options)
+      throws StripeException {
+    Duration ttl = this.options.getTtl(clazz);
+    if (method != ApiResource.RequestMethod.GET || ttl == null) {
+      return this.delegate.request(method, url, params, clazz, options);
+    }
+
+    StripeRequest request = new StripeRequest(method, url, params, options);
+    RequestKey key = RequestKey.of(request, clazz);
+    CachedResponse entry = this.lookup(key);
+    if (entry != null) {
+      if (entry.isStale(this.nanoClock.getAsLong())) {
+        this.refresh(key, entry, method, url, params, clazz, options);
+      }
+      return CoalescingStripeResponseGetter.copy(entry.resource, clazz, request.options());
+    }
+
+    this.misses.increment();
+    CompletableFuture<StripeObjectInterface> fill = new CompletableFuture<>();
+    CompletableFuture<StripeObjectInterface> existing = this.fills.putIfAbsent(key, fill);
+    if (existing != null) {
+      return CoalescingStripeResponseGetter.copy(
+          CoalescingStripeResponseGetter.await(existing), clazz, request.options());
+    }
+
+    try {
+      T resource = this.delegate.request(method, url, params, clazz, options);
+      this.store(key, resource, ttl);
+      fill.complete(resource);
+      return CoalescingStripeResponseGetter.copy(resource, clazz, request.options());
+    } catch (StripeException | RuntimeException e) {
+      fill.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.fills.remove(key, fill);
+    }
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    Duration ttl = this.options.getTtl(clazz);
+    if (method != ApiResource.RequestMethod.GET || ttl == null) {
+      return this.delegate.requestAsync(method, url, params, clazz, options);
+    }
+
+    StripeRequest request;
+    try {
+      request = new StripeRequest(method, url, params, options);
+    } catch (StripeException e) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    RequestKey key = RequestKey.of(request, clazz);
+    CachedResponse entry = this.lookup(key);
+    if (entry != null) {
+      if (entry.isStale(this.nanoClock.getAsLong())) {
+        this.refresh(key, entry, method, url, params, clazz, options);
+      }
+      return CompletableFuture.completedFuture(
+          CoalescingStripeResponseGetter.copy(entry.resource, clazz, request.options()));
+    }
+
+    this.misses.increment();
+    CompletableFuture<StripeObjectInterface> fill = new CompletableFuture<>();
+    CompletableFuture<StripeObjectInterface> existing = this.fills.putIfAbsent(key, fill);
+    if (existing != null) {
+      return existing.thenApply(
+          resource -> CoalescingStripeResponseGetter.copy(resource, clazz, request.options()));
+    }
+
+    CompletableFuture<T> result;
+    try {
+      result = this.delegate.requestAsync(method, url, params, clazz, options);
+    } catch (RuntimeException e) {
+      this.fills.remove(key, fill);
+      fill.completeExceptionally(e);
+      throw e;
+    }
+    result.whenComplete(
+        (resource, throwable) -> {
+          if (throwable != null) {
+            this.fills.remove(key, fill);
+            fill.completeExceptionally(
+                (throwable instanceof CompletionException && throwable.getCause() != null)
+                    ? throwable.getCause()
+                    : throwable);
+          } else {
+            this.store(key, resource, ttl);
+            this.fills.remove(key, fill);
+            fill.complete(resource);
+          }
+        });
+    return result.thenApply(
+        resource -> CoalescingStripeResponseGetter.copy(resource, clazz, request.options()));
+  }
+
+  /** Streamed responses are not cached: the request is passed through to the delegate getter. */
+  @Override
+  public StripeResponseStream requestStream(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      RequestOptions options)
+      throws StripeException {
+    return this.delegate.requestStream(method, url, params, options);
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> T oauthRequest(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options)
+      throws StripeException {
+    return this.delegate.oauthRequest(method, url, params, clazz, options);
+  }
+
+  /**
+   * Returns the entry usable for the given key, fresh or stale, and counts the hit. Entries past
+   * their stale-while-revalidate window are removed.
+   */
+  private CachedResponse lookup(RequestKey key) {
+    long now = this.nanoClock.getAsLong();
+
+    CachedResponse entry;
+    synchronized (this.entries) {
+      entry = this.entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (now - entry.expiresNanos >= this.options.getStaleWhileRevalidate().toNanos()) {
+        this.entries.remove(key);
+        return null;
+      }
+    }
+
+    if (entry.isStale(now)) {
+      this.staleHits.increment();
+    } else {
+      this.hits.increment();
+    }
+    return entry;
+  }
+
+  private void store(RequestKey key, StripeObjectInterface resource, Duration ttl) {
+    CachedResponse entry = new CachedResponse(resource, this.nanoClock.getAsLong() + ttl.toNanos());
+    synchronized (this.entries) {
+      this.entries.put(key, entry);
+    }
+  }
+
+  /** Refreshes a stale entry in the background, unless it is already being refreshed. */
+  private <T extends StripeObjectInterface> void refresh(
+      RequestKey key,
+      CachedResponse entry,
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    Duration ttl = this.options.getTtl(clazz);
+    Executor executor = this.refreshExecutor;
+    try {
+      // The refresh is sent synchronously on the executor, so that it does not block the caller
+      // even with a delegate whose asynchronous requests are synchronous.
+      CompletableFuture.runAsync(
+              () -> {
+                try {
+                  this.store(key, this.delegate.request(method, url, params, clazz, options), ttl);
+                } catch (StripeException e) {
+                  throw new CompletionException(e);
+                }
+              },
+              (executor != null) ? executor : HttpClient.DefaultExecutors.ASYNC_EXECUTOR)
+          .whenComplete(
+              (unused, throwable) -> {
+                if (throwable != null) {
+                  // Let a later request try again, until the entry is past its stale window.
+                  entry.refreshing.set(false);
+                }
+              });
+    } catch (RuntimeException e) {
+      // The executor rejected the refresh.
+      entry.refreshing.set(false);
+    }
+  }
+
+  private static final class CachedResponse {
+    final StripeObjectInterface resource;
+    final long expiresNanos;
+    final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    CachedResponse(StripeObjectInterface resource, long expiresNanos) {
+      this.resource = resource;
+      this.expiresNanos = expiresNanos;
+    }
+
+    boolean isStale(long now) {
+      return now - this.expiresNanos >= 0;
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package com.stripe.net;
+
+import com.stripe.exception.ApiConnectionException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker used by {@link HttpClient} to stop sending requests to an API base that keeps
+ * failing, e.g. during an incident or a network partition.
+ *
+ * <p>Each API base (scheme, host and port) has its own circuit. While it is {@link State#CLOSED},
+ * the outcome of each attempt is recorded over a sliding time window; connection errors and {@code
+ * 5xx} responses count as failures. Once the window holds enough attempts and the failure rate
+ * reaches the threshold, the circuit {@link State#OPEN opens}: requests fail immediately with an
+ * {@link ApiConnectionException}, without being sent or retried. After the open duration, the
+ * circuit becomes {@link State#HALF_OPEN half-open} and lets a few probe requests through. It
+ * closes if they all succeed, and opens again as soon as one fails.
+ */
+public class CircuitBreaker {
+  /** The state of a circuit. */
+  public enum State {
+    /** Requests are sent, and their outcomes recorded. */
+    CLOSED,
+    /** Requests fail immediately. */
+    OPEN,
+    /** A limited number of probe requests are sent to test whether the API base recovered. */
+    HALF_OPEN
+  }
+
+  /** Listener notified of the state transitions of the circuits. */
+  @FunctionalInterface
+  public interface StateTransitionListener {
+    /**
+     * Called after the circuit of an API base transitioned from one state to another. This is
+     * called on the thread that recorded the outcome causing the transition, and should not block.
+     *
+     * @param apiBase the API base, e.g. {@code https://api.stripe.com}
+     * @param from the previous state
+     * @param to the new state
+     */
+    void onStateTransition(String apiBase, State from, State to);
+  }
+
+  /** The number of buckets the sliding window is divided into. */
+  private static final int WINDOW_BUCKETS = 10;
+
+  private final CircuitBreakerOptions options;
+
+  private final LongSupplier nanoClock;
+
+  private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+  private final List<StateTransitionListener> listeners = new CopyOnWriteArrayList<>();
+
+  /** Initializes a new instance of the {@link CircuitBreaker} with default options. */
+  public CircuitBreaker() {
+    this(CircuitBreakerOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link CircuitBreaker}.
+   *
+   * @param options the circuit breaker options
+   */
+  public CircuitBreaker(CircuitBreakerOptions options) {
+    this(options, System::nanoTime);
+  }
+
+  CircuitBreaker(CircuitBreakerOptions options, LongSupplier nanoClock) {
+    this.options = options;
+    this.nanoClock = nanoClock;
+  }
+
+  public CircuitBreakerOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Adds a listener notified of the state transitions of the circuits.
+   *
+   * @param listener the listener
+   */
+  public void addListener(StateTransitionListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener previously added with {@link #addListener(StateTransitionListener)}.
+   *
+   * @param listener the listener
+   */
+  public void removeListener(StateTransitionListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Returns the current state of the circuit of the given API base.
+   *
+   * @param apiBase the API base, e.g. {@code https://api.stripe.com}
+   * @return the state of the circuit
+   */
+  public State getState(String apiBase) {
+    Circuit circuit = this.circuits.get(apiBase);
+    if (circuit == null) {
+      return State.CLOSED;
+    }
+    synchronized (circuit) {
+      return circuit.state;
+    }
+  }
+
+  /**
+   * Acquires the permission to send an attempt of the given request.
+   *
+   * @param request the request
+   * @return the permit, whose outcome must be recorded with {@link #onSuccess(Permit)} or {@link
+   *     #onFailure(Permit)}
+   * @throws ApiConnectionException if the circuit of the request's API base is open
+   */
+  Permit acquirePermission(StripeRequest request) throws ApiConnectionException {
+    String apiBase = apiBase(request.url());
+    Circuit circuit = this.circuits.computeIfAbsent(apiBase, k -> new Circuit(k, this.now()));
+
+    long generation;
+    State from = null;
+    synchronized (circuit) {
+      if (circuit.state == State.OPEN
+          && this.now() - circuit.openedAtNanos >= this.options.getOpenDuration().toNanos()) {
+        from = circuit.state;
+        circuit.transition(State.HALF_OPEN);
+      }
+
+      if (circuit.state == State.OPEN
+          || (circuit.state == State.HALF_OPEN
+              && circuit.halfOpenCalls >= this.options.getPermittedHalfOpenCalls())) {
+        throw new ApiConnectionException(
+            String.format(
+                "Request to %s was not sent because the circuit breaker is %s after too many "
+                    + "failed requests.",
+                apiBase, (circuit.state == State.OPEN) ? "open" : "waiting for probe requests"));
+      }
+
+      if (circuit.state == State.HALF_OPEN) {
+        circuit.halfOpenCalls++;
+      }
+      generation = circuit.generation;
+    }
+    this.notifyTransition(apiBase, from, State.HALF_OPEN);
+
+    return new Permit(circuit, generation);
+  }
+
+  /**
+   * Records that the attempt sent with the given permit succeeded.
+   *
+   * @param permit the permit
+   */
+  void onSuccess(Permit permit) {
+    this.record(permit, false);
+  }
+
+  /**
+   * Records that the attempt sent with the given permit failed.
+   *
+   * @param permit the permit
+   */
+  void onFailure(Permit permit) {
+    this.record(permit, true);
+  }
+
+  /**
+   * Releases the given permit without recording an outcome, e.g. because the attempt was not sent
+   * or failed for a reason unrelated to the health of the API base.
+   *
+   * @param permit the permit
+   */
+  void release(Permit permit) {
+    Circuit circuit = permit.circuit;
+    synchronized (circuit) {
+      if (permit.generation == circuit.generation && circuit.state == State.HALF_OPEN) {
+        circuit.halfOpenCalls--;
+      }
+    }
+  }
+
+  private void record(Permit permit, boolean failure) {
+    Circuit circuit = permit.circuit;
+    State from = null;
+    State to = null;
+    synchronized (circuit) {
+      // Ignore the outcomes of attempts that started before the last transition.
+      if (permit.generation != circuit.generation) {
+        return;
+      }
+
+      if (circuit.state == State.HALF_OPEN) {
+        if (failure) {
+          from = circuit.state;
+          to = State.OPEN;
+          circuit.openedAtNanos = this.now();
+          circuit.transition(to);
+        } else if (++circuit.halfOpenSuccesses >= this.options.getPermittedHalfOpenCalls()) {
+          from = circuit.state;
+          to = State.CLOSED;
+          circuit.transition(to);
+        }
+      } else if (circuit.state == State.CLOSED) {
+        long now = this.now();
+        circuit.recordInWindow(now, failure);
+        if (circuit.windowCalls >= this.options.getMinimumNumberOfCalls()
+            && circuit.windowFailures
+                >= this.options.getFailureRateThreshold() * circuit.windowCalls) {
+          from = circuit.state;
+          to = State.OPEN;
+          circuit.openedAtNanos = now;
+          circuit.transition(to);
+        }
+      }
+    }
+    this.notifyTransition(circuit.apiBase, from, to);
+  }
+
+  private void notifyTransition(String apiBase, State from, State to) {
+    if (from == null) {
+      return;
+    }
+    for (StateTransitionListener listener : this.listeners) {
+      listener.onStateTransition(apiBase, from, to);
+    }
+  }
+
+  private long now() {
+    return this.nanoClock.getAsLong();
+  }
+
+  private static String apiBase(URL url) {
+    return url.getProtocol()
+        + "://"
+        + url.getHost()
+        + ((url.getPort() != -1) ? ":" + url.getPort() : "");
+  }
+
+  /** The permission to send one attempt, and record its outcome. */
+  static final class Permit {
+    final Circuit circuit;
+    final long generation;
+
+    Permit(Circuit circuit, long generation) {
+      this.circuit = circuit;
+      this.generation = generation;
+    }
+  }
+
+  /** The state of the circuit of one API base. All fields are guarded by the instance's lock. */
+  private final class Circuit {
+    final String apiBase;
+    final long originNanos;
+    final long bucketNanos;
+
+    final long[] bucketEpochs = new long[WINDOW_BUCKETS];
+    final int[] bucketCalls = new int[WINDOW_BUCKETS];
+    final int[] bucketFailures = new int[WINDOW_BUCKETS];
+
+    State state = State.CLOSED;
+    long generation;
+    long openedAtNanos;
+    int halfOpenCalls;
+    int halfOpenSuccesses;
+    int windowCalls;
+    int windowFailures;
+
+    Circuit(String apiBase, long now) {
+      this.apiBase = apiBase;
+      this.originNanos = now;
+      this.bucketNanos =
+          Math.max(1, CircuitBreaker.this.options.getWindow().toNanos() / WINDOW_BUCKETS);
+      Arrays.fill(this.bucketEpochs, -1);
+    }
+
+    void transition(State to) {
+      this.state = to;
+      this.generation++;
+      this.halfOpenCalls = 0;
+      this.halfOpenSuccesses = 0;
+      Arrays.fill(this.bucketEpochs, -1);
+      Arrays.fill(this.bucketCalls, 0);
+      Arrays.fill(this.bucketFailures, 0);
+      this.windowCalls = 0;
+      this.windowFailures = 0;
+    }
+
+    void recordInWindow(long now, boolean failure) {
+      long epoch = (now - this.originNanos) / this.bucketNanos;
+      int slot = (int) (epoch % WINDOW_BUCKETS);
+      if (this.bucketEpochs[slot] != epoch) {
+        this.bucketEpochs[slot] = epoch;
+        this.bucketCalls[slot] = 0;
+        this.bucketFailures[slot] = 0;
+      }
+      this.bucketCalls[slot]++;
+      if (failure) {
+        this.bucketFailures[slot]++;
+      }
+
+      this.windowCalls = 0;
+      this.windowFailures = 0;
+      for (int i = 0; i < WINDOW_BUCKETS; i++) {
+        if (this.bucketEpochs[i] > epoch - WINDOW_BUCKETS) {
+          this.windowCalls += this.bucketCalls[i];
+          this.windowFailures += this.bucketFailures[i];
+        }
+      }
+    }
+  }
+}
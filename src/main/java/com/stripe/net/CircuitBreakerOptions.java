@@ -0,0 +1,164 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link CircuitBreaker}. */
+@EqualsAndHashCode(callSuper = false)
+public class CircuitBreakerOptions {
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+  public static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 20;
+  public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+  public static final int DEFAULT_PERMITTED_HALF_OPEN_CALLS = 3;
+
+  private final double failureRateThreshold;
+  private final int minimumNumberOfCalls;
+  private final Duration window;
+  private final Duration openDuration;
+  private final int permittedHalfOpenCalls;
+
+  public static CircuitBreakerOptions getDefault() {
+    return new CircuitBreakerOptionsBuilder().build();
+  }
+
+  private CircuitBreakerOptions(
+      double failureRateThreshold,
+      int minimumNumberOfCalls,
+      Duration window,
+      Duration openDuration,
+      int permittedHalfOpenCalls) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+    this.window = window;
+    this.openDuration = openDuration;
+    this.permittedHalfOpenCalls = permittedHalfOpenCalls;
+  }
+
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public int getMinimumNumberOfCalls() {
+    return minimumNumberOfCalls;
+  }
+
+  public Duration getWindow() {
+    return window;
+  }
+
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  public int getPermittedHalfOpenCalls() {
+    return permittedHalfOpenCalls;
+  }
+
+  public static CircuitBreakerOptionsBuilder builder() {
+    return new CircuitBreakerOptionsBuilder();
+  }
+
+  public static final class CircuitBreakerOptionsBuilder {
+    private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private int minimumNumberOfCalls = DEFAULT_MINIMUM_NUMBER_OF_CALLS;
+    private Duration window = DEFAULT_WINDOW;
+    private Duration openDuration = DEFAULT_OPEN_DURATION;
+    private int permittedHalfOpenCalls = DEFAULT_PERMITTED_HALF_OPEN_CALLS;
+
+    public double getFailureRateThreshold() {
+      return failureRateThreshold;
+    }
+
+    /**
+     * Sets the fraction of failed attempts, between 0 (exclusive) and 1 (inclusive), above which
+     * the circuit opens.
+     *
+     * @param failureRateThreshold the failure rate threshold
+     */
+    public CircuitBreakerOptionsBuilder setFailureRateThreshold(double failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    public int getMinimumNumberOfCalls() {
+      return minimumNumberOfCalls;
+    }
+
+    /**
+     * Sets the minimum number of attempts within the window before the failure rate is evaluated.
+     *
+     * @param minimumNumberOfCalls the minimum number of attempts
+     */
+    public CircuitBreakerOptionsBuilder setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+      this.minimumNumberOfCalls = minimumNumberOfCalls;
+      return this;
+    }
+
+    public Duration getWindow() {
+      return window;
+    }
+
+    /**
+     * Sets the duration of the sliding window over which the failure rate is computed.
+     *
+     * @param window the duration of the sliding window
+     */
+    public CircuitBreakerOptionsBuilder setWindow(Duration window) {
+      this.window = window;
+      return this;
+    }
+
+    public Duration getOpenDuration() {
+      return openDuration;
+    }
+
+    /**
+     * Sets how long the circuit stays open, failing all requests immediately, before probe requests
+     * are let through.
+     *
+     * @param openDuration the duration of the open state
+     */
+    public CircuitBreakerOptionsBuilder setOpenDuration(Duration openDuration) {
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    public int getPermittedHalfOpenCalls() {
+      return permittedHalfOpenCalls;
+    }
+
+    /**
+     * Sets the number of probe requests let through while the circuit is half-open. The circuit
+     * closes once they all succeed, and opens again as soon as one fails.
+     *
+     * @param permittedHalfOpenCalls the number of probe requests
+     */
+    public CircuitBreakerOptionsBuilder setPermittedHalfOpenCalls(int permittedHalfOpenCalls) {
+      this.permittedHalfOpenCalls = permittedHalfOpenCalls;
+      return this;
+    }
+
+    /** Constructs a {@link CircuitBreakerOptions} with the specified values. */
+    public CircuitBreakerOptions build() {
+      if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+        throw new IllegalArgumentException("failureRateThreshold must be in (0, 1].");
+      }
+      if (minimumNumberOfCalls <= 0) {
+        throw new IllegalArgumentException("minimumNumberOfCalls must be positive.");
+      }
+      if (window == null || window.isNegative() || window.isZero()) {
+        throw new IllegalArgumentException("window must be positive.");
+      }
+      if (openDuration == null || openDuration.isNegative() || openDuration.isZero()) {
+        throw new IllegalArgumentException("openDuration must be positive.");
+      }
+      if (permittedHalfOpenCalls <= 0) {
+        throw new IllegalArgumentException("permittedHalfOpenCalls must be positive.");
+      }
+
+      return new CircuitBreakerOptions(
+          failureRateThreshold, minimumNumberOfCalls, window, openDuration, permittedHalfOpenCalls);
+    }
+  }
+}
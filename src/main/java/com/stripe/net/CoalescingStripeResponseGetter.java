@@ -0,0 +1,203 @@
+package com.stripe.net;
+
+import com.google.gson.Gson;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.ExpandableField;
+import com.stripe.model.ExpandableFieldSerializer;
+import com.stripe.model.StripeObjectInterface;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Response getter that coalesces concurrent identical {@code GET} requests into a single request.
+ *
+ * <p>While a {@code GET} request is in flight, other requests for the same URL and query string,
+ * sent with the same API key, connected account ({@code Stripe-Account}), API version ({@code
+ * Stripe-Version}) and response options (lazy deserialization, raw JSON recording and response
+ * retention), wait for its response instead of being sent. Each of them is then given its own
+ * copy of the resource, deserialized again from the shared response, so that callers can freely
+ * modify the objects they get. Errors are shared the same way.
+ *
+ * <p>Requests that are not {@code GET} requests are always passed through to the delegate getter.
+ *
+ * <p>To use it, set it as the response getter of {@link ApiResource}:
+ *
+ * <pre>{@code
+ * ApiResource.setStripeResponseGetter(new CoalescingStripeResponseGetter());
+ * }</pre>
+ */
+public class CoalescingStripeResponseGetter implements StripeResponseGetter {
+  /**
+   * Serializes resources back to the JSON of the API, to copy the resources whose response body was
+   * not retained. Expandable fields are written as their ID or their expanded object, which
+   * materializes the lazily deserialized ones.
+   */
+  private static final Gson COPY_GSON =
+      ApiResource.GSON
+          .newBuilder()
+          .registerTypeAdapter(ExpandableField.class, new ExpandableFieldSerializer())
+          .create();
+
+  private final StripeResponseGetter delegate;
+
+  private final ConcurrentHashMap<RequestKey, CompletableFuture<StripeObjectInterface>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Initializes a new instance of the {@link CoalescingStripeResponseGetter} class, sending
+   * requests with a default {@link LiveStripeResponseGetter}.
+   */
+  public CoalescingStripeResponseGetter() {
+    this(new LiveStripeResponseGetter());
+  }
+
+  /**
+   * Initializes a new instance of the {@link CoalescingStripeResponseGetter} class.
+   *
+   * @param delegate the response getter sending the coalesced requests
+   */
+  public CoalescingStripeResponseGetter(StripeResponseGetter delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> T request(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options)
+      throws StripeException {
+    if (method != ApiResource.RequestMethod.GET) {
+      return this.delegate.request(method, url, params, clazz, options);
+    }
+
+    StripeRequest request = new StripeRequest(method, url, params, options);
+    RequestKey key = RequestKey.of(request, clazz);
+    CompletableFuture<StripeObjectInterface> future = new CompletableFuture<>();
+    CompletableFuture<StripeObjectInterface> existing = this.inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return copy(await(existing), clazz, request.options());
+    }
+
+    try {
+      T resource = this.delegate.request(method, url, params, clazz, options);
+      future.complete(resource);
+      return resource;
+    } catch (StripeException | RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.inFlight.remove(key, future);
+    }
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    if (method != ApiResource.RequestMethod.GET) {
+      return this.delegate.requestAsync(method, url, params, clazz, options);
+    }
+
+    StripeRequest request;
+    try {
+      request = new StripeRequest(method, url, params, options);
+    } catch (StripeException e) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    RequestKey key = RequestKey.of(request, clazz);
+    CompletableFuture<StripeObjectInterface> future = new CompletableFuture<>();
+    CompletableFuture<StripeObjectInterface> existing = this.inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return existing.thenApply(resource -> copy(resource, clazz, request.options()));
+    }
+
+    CompletableFuture<T> result = this.delegate.requestAsync(method, url, params, clazz, options);
+    result.whenComplete(
+        (resource, throwable) -> {
+          this.inFlight.remove(key, future);
+          if (throwable != null) {
+            future.completeExceptionally(
+                (throwable instanceof CompletionException && throwable.getCause() != null)
+                    ? throwable.getCause()
+                    : throwable);
+          } else {
+            future.complete(resource);
+          }
+        });
+    return result;
+  }
+
+  /** Streamed requests are not coalesced: the request is passed through to the delegate getter. */
+  @Override
+  public StripeResponseStream requestStream(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      RequestOptions options)
+      throws StripeException {
+    return this.delegate.requestStream(method, url, params, options);
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> T oauthRequest(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options)
+      throws StripeException {
+    return this.delegate.oauthRequest(method, url, params, clazz, options);
+  }
+
+  static StripeObjectInterface await(CompletableFuture<StripeObjectInterface> future)
+      throws StripeException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof StripeException) {
+        throw (StripeException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CompletionException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ApiConnectionException(
+          "Interrupted while waiting for the response of an identical request to Stripe.", e);
+    }
+  }
+
+  /**
+   * Returns a copy of the given resource, for a request with the given options. The copy is
+   * deserialized from the body of the shared response when it was retained, and from the resource
+   * itself otherwise. The JSON recorded for the response, if any, is copied too.
+   */
+  static <T extends StripeObjectInterface> T copy(
+      StripeObjectInterface resource, Class<T> clazz, RequestOptions options) {
+    StripeResponse response = resource.getLastResponse();
+    Gson gson = LiveStripeResponseGetter.gson(options);
+
+    T copy;
+    if (response != null && response.body() != null) {
+      copy = gson.fromJson(response.body(), clazz);
+    } else {
+      copy = gson.fromJson(COPY_GSON.toJsonTree(resource), clazz);
+    }
+    copy.setLastResponse((response != null) ? response.withCopiedJsonBody() : null);
+
+    return copy;
+  }
+}
@@ -0,0 +1,118 @@
+package com.stripe.net;
+
+import com.stripe.exception.ApiConnectionException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Helper class used by {@link PooledHttpClient} to bound the number of requests in flight to each
+ * host.
+ */
+class ConnectionPermits {
+  private final int maxPerHost;
+
+  private final ConcurrentHashMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+  ConnectionPermits(int maxPerHost) {
+    this.maxPerHost = maxPerHost;
+  }
+
+  /**
+   * Acquires a permit for the host of the given URL, waiting up to {@code timeoutMillis}
+   * milliseconds for one to become available. A timeout of zero waits indefinitely.
+   *
+   * @param url the request URL
+   * @param timeoutMillis the maximum time to wait, in milliseconds
+   * @return the semaphore the permit was acquired from, to be passed to {@link #release(Semaphore)}
+   * @throws ApiConnectionException if no permit could be acquired in time
+   */
+  Semaphore acquire(URL url, int timeoutMillis) throws ApiConnectionException {
+    Semaphore semaphore = semaphores.computeIfAbsent(hostKey(url), k -> new Semaphore(maxPerHost));
+
+    boolean acquired;
+    try {
+      if (timeoutMillis > 0) {
+        acquired = semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+      } else {
+        semaphore.acquire();
+        acquired = true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ApiConnectionException(
+          String.format("Interrupted while waiting for a connection to %s.", url.getHost()), e);
+    }
+
+    if (!acquired) {
+      throw new ApiConnectionException(
+          String.format(
+              "Timed out after %d ms waiting for one of the %d pooled connections to %s.",
+              timeoutMillis, maxPerHost, url.getHost()));
+    }
+
+    return semaphore;
+  }
+
+  /**
+   * Acquires a permit for the host of the given URL only if one is available at the time of
+   * invocation.
+   *
+   * @param url the request URL
+   * @return the semaphore the permit was acquired from, or {@code null} if none was available
+   */
+  Semaphore tryAcquire(URL url) {
+    Semaphore semaphore = semaphores.computeIfAbsent(hostKey(url), k -> new Semaphore(maxPerHost));
+    return semaphore.tryAcquire() ? semaphore : null;
+  }
+
+  void release(Semaphore semaphore) {
+    semaphore.release();
+  }
+
+  /**
+   * Wraps the given stream so that the permit is released when the stream is closed. The permit is
+   * released only once, no matter how many times the stream is closed.
+   *
+   * @param stream the response body stream
+   * @param semaphore the semaphore the permit was acquired from
+   * @return the wrapped stream
+   */
+  static InputStream releaseOnClose(InputStream stream, Semaphore semaphore) {
+    return releaseOnClose(stream, semaphore::release);
+  }
+
+  /**
+   * Wraps the given stream so that the given action is run when the stream is closed. The action
+   * is run only once, no matter how many times the stream is closed.
+   *
+   * @param stream the response body stream
+   * @param release the action releasing what the response holds
+   * @return the wrapped stream
+   */
+  static InputStream releaseOnClose(InputStream stream, Runnable release) {
+    final AtomicBoolean released = new AtomicBoolean(false);
+    return new FilterInputStream(stream) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          if (released.compareAndSet(false, true)) {
+            release.run();
+          }
+        }
+      }
+    };
+  }
+
+  private static String hostKey(URL url) {
+    int port = (url.getPort() != -1) ? url.getPort() : url.getDefaultPort();
+    return url.getProtocol() + "://" + url.getHost() + ":" + port;
+  }
+}
@@ -0,0 +1,136 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the connection pool maintained by {@link PooledHttpClient}. */
+@EqualsAndHashCode(callSuper = false)
+public class ConnectionPoolOptions {
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(60);
+  public static final Duration DEFAULT_KEEP_ALIVE_TTL = Duration.ofMinutes(5);
+
+  private final int maxConnectionsPerHost;
+  private final Duration idleTimeout;
+  private final Duration keepAliveTtl;
+  private final boolean http2Enabled;
+
+  public static ConnectionPoolOptions getDefault() {
+    return new ConnectionPoolOptionsBuilder().build();
+  }
+
+  private ConnectionPoolOptions(
+      int maxConnectionsPerHost,
+      Duration idleTimeout,
+      Duration keepAliveTtl,
+      boolean http2Enabled) {
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+    this.idleTimeout = idleTimeout;
+    this.keepAliveTtl = keepAliveTtl;
+    this.http2Enabled = http2Enabled;
+  }
+
+  public int getMaxConnectionsPerHost() {
+    return maxConnectionsPerHost;
+  }
+
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public Duration getKeepAliveTtl() {
+    return keepAliveTtl;
+  }
+
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  public static ConnectionPoolOptionsBuilder builder() {
+    return new ConnectionPoolOptionsBuilder();
+  }
+
+  public static final class ConnectionPoolOptionsBuilder {
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private Duration keepAliveTtl = DEFAULT_KEEP_ALIVE_TTL;
+    private boolean http2Enabled = true;
+
+    public int getMaxConnectionsPerHost() {
+      return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the maximum number of requests that may be in flight to a single host at any given time.
+     * With HTTP/1.1 this is the maximum number of open connections per host; with HTTP/2 it bounds
+     * the number of concurrent streams multiplexed over the host's connection.
+     *
+     * @param maxConnectionsPerHost the maximum number of connections per host
+     */
+    public ConnectionPoolOptionsBuilder setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+      this.maxConnectionsPerHost = maxConnectionsPerHost;
+      return this;
+    }
+
+    public Duration getIdleTimeout() {
+      return idleTimeout;
+    }
+
+    /**
+     * Sets the duration after which a pool that did not serve any request is evicted, closing its
+     * connections.
+     *
+     * @param idleTimeout the idle timeout
+     */
+    public ConnectionPoolOptionsBuilder setIdleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    public Duration getKeepAliveTtl() {
+      return keepAliveTtl;
+    }
+
+    /**
+     * Sets the maximum lifetime of pooled connections. Once elapsed, new requests are sent over
+     * fresh connections and the previous ones are closed after their in-flight requests complete.
+     *
+     * @param keepAliveTtl the maximum lifetime of pooled connections
+     */
+    public ConnectionPoolOptionsBuilder setKeepAliveTtl(Duration keepAliveTtl) {
+      this.keepAliveTtl = keepAliveTtl;
+      return this;
+    }
+
+    public boolean isHttp2Enabled() {
+      return http2Enabled;
+    }
+
+    /**
+     * Sets whether HTTP/2 should be negotiated when the runtime supports it. Has no effect on Java
+     * 8, where requests are always sent using HTTP/1.1.
+     *
+     * @param http2Enabled whether HTTP/2 should be negotiated
+     */
+    public ConnectionPoolOptionsBuilder setHttp2Enabled(boolean http2Enabled) {
+      this.http2Enabled = http2Enabled;
+      return this;
+    }
+
+    /** Constructs a {@link ConnectionPoolOptions} with the specified values. */
+    public ConnectionPoolOptions build() {
+      if (maxConnectionsPerHost <= 0) {
+        throw new IllegalArgumentException("maxConnectionsPerHost must be positive.");
+      }
+      if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+        throw new IllegalArgumentException("idleTimeout must be positive.");
+      }
+      if (keepAliveTtl == null || keepAliveTtl.isNegative() || keepAliveTtl.isZero()) {
+        throw new IllegalArgumentException("keepAliveTtl must be positive.");
+      }
+
+      return new ConnectionPoolOptions(
+          maxConnectionsPerHost, idleTimeout, keepAliveTtl, http2Enabled);
+    }
+  }
+}
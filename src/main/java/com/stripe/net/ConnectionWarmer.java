@@ -0,0 +1,165 @@
+package com.stripe.net;
+
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pays the first-use costs of the library ahead of the first real request, typically right after
+ * startup, so that it already sees steady-state latency.
+ *
+ * <p>{@link #warmUp()} builds the JSON type adapters of the {@link WarmUpOptions#getModelClasses()
+ * model classes}, which also loads them and the classes they reference, and opens connections to
+ * the API bases by sending concurrent requests straight to the client's transport, bypassing
+ * retries, interceptors and metrics. The connections are then kept by the client's pool, or by the
+ * JDK's keep-alive cache for {@link HttpURLConnectionClient}, for the real requests to reuse.
+ *
+ * <p>Connections are pooled by proxy and, on Java 11 and later, by connect timeout. The warm-up
+ * requests use the {@link RequestOptions#getDefault() default request options}, so they warm the
+ * connections of requests sent with the default proxy and timeouts.
+ *
+ * <pre>{@code
+ * ConnectionWarmer warmer = new ConnectionWarmer(client, WarmUpOptions.getDefault());
+ * warmer.warmUp();
+ * warmer.keepWarm(Duration.ofSeconds(30));
+ * }</pre>
+ */
+public class ConnectionWarmer implements Closeable {
+  private final HttpClient client;
+
+  private final WarmUpOptions options;
+
+  private ScheduledFuture<?> keepWarmTask;
+
+  /**
+   * Initializes a new instance of the {@link ConnectionWarmer} with default options, warming up the
+   * HTTP client set with {@link Stripe#setHttpClient(HttpClient)}.
+   */
+  public ConnectionWarmer() {
+    this(null, WarmUpOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link ConnectionWarmer}.
+   *
+   * @param client the HTTP client to warm up. If {@code null}, the client set with {@link
+   *     Stripe#setHttpClient(HttpClient)} is used, or else an {@link HttpURLConnectionClient},
+   *     which shares the JDK's keep-alive cache with the default client.
+   * @param options the warm-up options
+   */
+  public ConnectionWarmer(HttpClient client, WarmUpOptions options) {
+    if (client == null) {
+      client = Stripe.getHttpClient();
+    }
+    this.client = (client != null) ? client : new HttpURLConnectionClient();
+    this.options = options;
+  }
+
+  public WarmUpOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Builds the type adapters of the model classes, then opens the connections to the API bases and
+   * waits for them to be established, up to the {@link WarmUpOptions#getTimeout() timeout}.
+   *
+   * @return the number of warm-up requests that completed, whatever their response status
+   * @throws StripeException if the warm-up requests cannot be built, e.g. because no API key is set
+   */
+  public int warmUp() throws StripeException {
+    this.buildTypeAdapters();
+
+    List<CompletableFuture<StripeResponse>> futures = this.sendWarmUpRequests();
+
+    long deadlineNanos = System.nanoTime() + this.options.getTimeout().toNanos();
+    int completed = 0;
+    for (CompletableFuture<StripeResponse> future : futures) {
+      try {
+        future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        completed++;
+      } catch (ExecutionException | TimeoutException e) {
+        // The connection could not be opened in time; the real requests will open it.
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return completed;
+  }
+
+  /**
+   * Keeps the connections open by sending the warm-up requests again at the given interval, on the
+   * client's retry scheduler, so that idle connections are not closed between bursts of traffic.
+   * The interval should be shorter than the idle timeout of the connections. Calling this method
+   * again replaces the previous interval.
+   *
+   * @param interval the interval between two warm-ups
+   */
+  public synchronized void keepWarm(Duration interval) {
+    if (interval == null || interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("interval must be positive.");
+    }
+    if (this.keepWarmTask != null) {
+      this.keepWarmTask.cancel(false);
+    }
+    this.keepWarmTask =
+        this.client
+            .getRetryScheduler()
+            .scheduleAtFixedRate(
+                () -> {
+                  try {
+                    this.sendWarmUpRequests();
+                  } catch (StripeException | RuntimeException e) {
+                    // Keeping connections warm is best effort, and must not stop the schedule.
+                  }
+                },
+                interval.toNanos(),
+                interval.toNanos(),
+                TimeUnit.NANOSECONDS);
+  }
+
+  /** Stops keeping the connections open. Open connections are left to the client's pool. */
+  @Override
+  public synchronized void close() {
+    if (this.keepWarmTask != null) {
+      this.keepWarmTask.cancel(false);
+      this.keepWarmTask = null;
+    }
+  }
+
+  void buildTypeAdapters() {
+    for (Class<?> clazz : this.options.getModelClasses()) {
+      ApiResource.GSON.getAdapter(clazz);
+    }
+  }
+
+  private List<CompletableFuture<StripeResponse>> sendWarmUpRequests() throws StripeException {
+    List<String> apiBases = this.options.getApiBases();
+    if (apiBases.isEmpty()) {
+      apiBases = Arrays.asList(Stripe.getApiBase(), Stripe.getUploadBase());
+    }
+
+    List<CompletableFuture<StripeResponse>> futures = new ArrayList<>();
+    for (String apiBase : apiBases) {
+      StripeRequest request =
+          new StripeRequest(
+              ApiResource.RequestMethod.GET,
+              apiBase + this.options.getPath(),
+              null,
+              RequestOptions.getDefault());
+      for (int i = 0; i < this.options.getConnectionsPerBase(); i++) {
+        futures.add(this.client.requestAsync(request));
+      }
+    }
+    return futures;
+  }
+}
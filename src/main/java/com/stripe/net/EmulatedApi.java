@@ -0,0 +1,897 @@
+package com.stripe.net;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.stripe.Stripe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * The in-memory state and endpoints of the {@link StripeEmulator}: customers, payment intents,
+ * charges, refunds and events.
+ *
+ * <p>This class is not thread-safe. The emulator holds its read lock while serving {@code GET}
+ * requests, and its write lock while serving the other requests.
+ */
+final class EmulatedApi {
+  /** The payment methods and sources whose payments are declined. */
+  private static final List<String> DECLINED_PAYMENT_METHODS =
+      Arrays.asList("pm_card_chargeDeclined", "tok_chargeDeclined");
+
+  private static final int DEFAULT_LIST_LIMIT = 10;
+
+  private static final int ID_LENGTH = 24;
+
+  private static final String ID_CHARACTERS =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+  /** An error answered by the API, with the status and the fields of the error object. */
+  static final class ApiError extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    final int status;
+
+    final JsonObject error = new JsonObject();
+
+    ApiError(int status, String type, String code, String param, String message) {
+      super(message, null, false, false);
+      this.status = status;
+      this.error.addProperty("type", type);
+      if (code != null) {
+        this.error.addProperty("code", code);
+      }
+      if (param != null) {
+        this.error.addProperty("param", param);
+      }
+      this.error.addProperty("message", message);
+    }
+
+    String toJson() {
+      JsonObject body = new JsonObject();
+      body.add("error", this.error);
+      return body.toString();
+    }
+  }
+
+  private final Table customers = new Table("cus", "customer", "/v1/customers");
+
+  private final Table paymentIntents = new Table("pi", "payment_intent", "/v1/payment_intents");
+
+  private final Table charges = new Table("ch", "charge", "/v1/charges");
+
+  private final Table refunds = new Table("re", "refund", "/v1/refunds");
+
+  private final Table events = new Table("evt", "event", "/v1/events");
+
+  private final Map<String, List<String>> chargesByPaymentIntent = new HashMap<>();
+
+  private final Map<String, List<String>> refundsByCharge = new HashMap<>();
+
+  /** The request being served, referenced by the events it causes. */
+  private JsonObject request;
+
+  /** Drops all the objects. */
+  void clear() {
+    for (Table table : Arrays.asList(customers, paymentIntents, charges, refunds, events)) {
+      table.rows.clear();
+      table.positions.clear();
+    }
+    this.chargesByPaymentIntent.clear();
+    this.refundsByCharge.clear();
+  }
+
+  /**
+   * Serves a request.
+   *
+   * @param method the HTTP method
+   * @param path the path of the URL, e.g. {@code /v1/customers/cus_123}
+   * @param params the form-decoded parameters
+   * @param requestId the ID of the request
+   * @param idempotencyKey the idempotency key of the request, or {@code null}
+   * @return the object answered with a {@code 200 OK}
+   * @throws ApiError if the request fails
+   */
+  JsonObject handle(
+      String method,
+      String path,
+      Map<String, String> params,
+      String requestId,
+      String idempotencyKey)
+      throws ApiError {
+    if (!"GET".equals(method)) {
+      // Only the requests served under the write lock change the state and cause events.
+      this.request = new JsonObject();
+      this.request.addProperty("id", requestId);
+      this.request.addProperty("idempotency_key", idempotencyKey);
+    }
+
+    String[] segments = path.split("/", -1);
+    JsonObject response = null;
+    if (segments.length >= 3 && segments.length <= 5 && "v1".equals(segments[1])) {
+      String id = (segments.length > 3) ? segments[3] : null;
+      String action = (segments.length > 4) ? segments[4] : null;
+      switch (segments[2]) {
+        case "customers":
+          response = (action == null) ? this.customers(method, id, params) : null;
+          break;
+        case "payment_intents":
+          response = this.paymentIntents(method, id, action, params);
+          break;
+        case "charges":
+          response = this.charges(method, id, action, params);
+          break;
+        case "refunds":
+          response = (action == null) ? this.refunds(method, id, params) : null;
+          break;
+        case "events":
+          response = (action == null && "GET".equals(method)) ? this.events(id, params) : null;
+          break;
+        default:
+          break;
+      }
+    }
+
+    if (response == null) {
+      throw new ApiError(
+          404,
+          "invalid_request_error",
+          null,
+          null,
+          String.format("Unrecognized request URL (%s: %s).", method, path));
+    }
+    return response;
+  }
+
+  private JsonObject customers(String method, String id, Map<String, String> params)
+      throws ApiError {
+    if (id == null) {
+      if ("GET".equals(method)) {
+        return this.list(this.customers, params, matching(params, "email"));
+      }
+      if ("POST".equals(method)) {
+        JsonObject customer = this.newObject(this.customers);
+        customer.addProperty("balance", 0L);
+        customer.addProperty("description", (String) null);
+        customer.addProperty("email", (String) null);
+        customer.addProperty("name", (String) null);
+        customer.addProperty("phone", (String) null);
+        customer.add("metadata", new JsonObject());
+        updateFields(customer, params, "description", "email", "name", "phone");
+        this.customers.add(customer);
+        this.emit("customer.created", customer);
+        return customer.deepCopy();
+      }
+      return null;
+    }
+
+    JsonObject customer = this.customers.get(id);
+    switch (method) {
+      case "GET":
+        return customer.deepCopy();
+      case "POST":
+        updateFields(customer, params, "description", "email", "name", "phone");
+        this.emit("customer.updated", customer);
+        return customer.deepCopy();
+      case "DELETE":
+        this.customers.remove(id);
+        this.emit("customer.deleted", customer);
+        JsonObject deleted = new JsonObject();
+        deleted.addProperty("id", id);
+        deleted.addProperty("object", "customer");
+        deleted.addProperty("deleted", true);
+        return deleted;
+      default:
+        return null;
+    }
+  }
+
+  private JsonObject paymentIntents(
+      String method, String id, String action, Map<String, String> params) throws ApiError {
+    if (id == null) {
+      if ("GET".equals(method)) {
+        return this.list(this.paymentIntents, params, matching(params, "customer"));
+      }
+      if ("POST".equals(method)) {
+        return this.createPaymentIntent(params);
+      }
+      return null;
+    }
+
+    JsonObject paymentIntent = this.paymentIntents.get(id);
+    if ("GET".equals(method) && action == null) {
+      return this.render(this.paymentIntents, paymentIntent);
+    }
+    if (!"POST".equals(method)) {
+      return null;
+    }
+
+    if (action == null) {
+      requireStatus(paymentIntent, "update", "requires_payment_method", "requires_confirmation");
+      if (params.containsKey("amount")) {
+        paymentIntent.addProperty("amount", amount(params, "amount"));
+      }
+      if (params.containsKey("customer")) {
+        this.customers.get(params.get("customer"));
+      }
+      updateFields(paymentIntent, params, "currency", "customer", "description", "payment_method");
+      if (paymentIntent.get("payment_method").isJsonPrimitive()) {
+        paymentIntent.addProperty("status", "requires_confirmation");
+      }
+      this.emit("payment_intent.updated", paymentIntent);
+      return this.render(this.paymentIntents, paymentIntent);
+    }
+
+    switch (action) {
+      case "confirm":
+        this.confirm(paymentIntent, params);
+        break;
+      case "capture":
+        requireStatus(paymentIntent, "capture", "requires_capture");
+        long capturable = paymentIntent.get("amount_capturable").getAsLong();
+        long amount =
+            params.containsKey("amount_to_capture")
+                ? amount(params, "amount_to_capture")
+                : capturable;
+        if (amount > capturable) {
+          throw invalid(
+              "amount_to_capture",
+              String.format(
+                  "The amount to capture (%d) must not exceed the capturable amount (%d).",
+                  amount, capturable));
+        }
+        this.capture(this.latestCharge(paymentIntent), amount);
+        break;
+      case "cancel":
+        requireStatus(
+            paymentIntent,
+            "cancel",
+            "requires_payment_method",
+            "requires_confirmation",
+            "requires_capture");
+        if ("requires_capture".equals(paymentIntent.get("status").getAsString())) {
+          JsonObject charge = this.latestCharge(paymentIntent);
+          this.refund(charge, charge.get("amount").getAsLong(), "requested_by_customer");
+        }
+        paymentIntent.addProperty("status", "canceled");
+        paymentIntent.addProperty("amount_capturable", 0L);
+        paymentIntent.addProperty("canceled_at", now());
+        paymentIntent.addProperty("cancellation_reason", params.get("cancellation_reason"));
+        this.emit("payment_intent.canceled", paymentIntent);
+        break;
+      default:
+        return null;
+    }
+    return this.render(this.paymentIntents, paymentIntent);
+  }
+
+  private JsonObject createPaymentIntent(Map<String, String> params) throws ApiError {
+    long amount = amount(params, "amount");
+    String currency = required(params, "currency");
+    if (params.containsKey("customer")) {
+      this.customers.get(params.get("customer"));
+    }
+    String captureMethod = params.getOrDefault("capture_method", "automatic");
+    if (!"automatic".equals(captureMethod) && !"manual".equals(captureMethod)) {
+      throw invalid("capture_method", "Invalid capture_method: must be automatic or manual.");
+    }
+
+    JsonObject paymentIntent = this.newObject(this.paymentIntents);
+    paymentIntent.addProperty("amount", amount);
+    paymentIntent.addProperty("amount_capturable", 0L);
+    paymentIntent.addProperty("amount_received", 0L);
+    paymentIntent.addProperty("canceled_at", (Number) null);
+    paymentIntent.addProperty("cancellation_reason", (String) null);
+    paymentIntent.addProperty("capture_method", captureMethod);
+    paymentIntent.addProperty(
+        "client_secret", paymentIntent.get("id").getAsString() + "_secret_" + randomId(ID_LENGTH));
+    paymentIntent.addProperty("confirmation_method", "automatic");
+    paymentIntent.addProperty("currency", currency.toLowerCase());
+    paymentIntent.addProperty("customer", params.get("customer"));
+    paymentIntent.addProperty("description", params.get("description"));
+    paymentIntent.add("last_payment_error", null);
+    paymentIntent.add("metadata", new JsonObject());
+    paymentIntent.addProperty("payment_method", params.get("payment_method"));
+    JsonArray paymentMethodTypes = new JsonArray();
+    paymentMethodTypes.add("card");
+    paymentIntent.add("payment_method_types", paymentMethodTypes);
+    paymentIntent.addProperty(
+        "status",
+        params.containsKey("payment_method") ? "requires_confirmation" : "requires_payment_method");
+    updateMetadata(paymentIntent, params);
+    this.paymentIntents.add(paymentIntent);
+    this.emit("payment_intent.created", paymentIntent);
+
+    if ("true".equals(params.get("confirm"))) {
+      this.confirm(paymentIntent, params);
+    }
+    return this.render(this.paymentIntents, paymentIntent);
+  }
+
+  private void confirm(JsonObject paymentIntent, Map<String, String> params) throws ApiError {
+    requireStatus(paymentIntent, "confirm", "requires_payment_method", "requires_confirmation");
+    if (params.containsKey("payment_method")) {
+      paymentIntent.addProperty("payment_method", params.get("payment_method"));
+    }
+    if (!paymentIntent.get("payment_method").isJsonPrimitive()) {
+      throw new ApiError(
+          400,
+          "invalid_request_error",
+          "payment_intent_unexpected_state",
+          null,
+          "You cannot confirm this PaymentIntent because it's missing a payment method.");
+    }
+
+    boolean manual = "manual".equals(paymentIntent.get("capture_method").getAsString());
+    JsonObject charge =
+        this.createCharge(
+            paymentIntent.get("amount").getAsLong(),
+            paymentIntent.get("currency").getAsString(),
+            stringOrNull(paymentIntent, "customer"),
+            paymentIntent.get("payment_method").getAsString(),
+            paymentIntent.get("id").getAsString(),
+            !manual,
+            paymentIntent);
+
+    if ("failed".equals(charge.get("status").getAsString())) {
+      ApiError declined = declined(charge);
+      paymentIntent.addProperty("status", "requires_payment_method");
+      paymentIntent.add("last_payment_error", declined.error.deepCopy());
+      this.emit("payment_intent.payment_failed", paymentIntent);
+      declined.error.add("payment_intent", this.render(this.paymentIntents, paymentIntent));
+      throw declined;
+    }
+
+    paymentIntent.add("last_payment_error", null);
+    if (manual) {
+      paymentIntent.addProperty("status", "requires_capture");
+      paymentIntent.add("amount_capturable", paymentIntent.get("amount"));
+      this.emit("payment_intent.amount_capturable_updated", paymentIntent);
+    } else {
+      paymentIntent.addProperty("status", "succeeded");
+      paymentIntent.add("amount_received", paymentIntent.get("amount"));
+      this.emit("payment_intent.succeeded", paymentIntent);
+    }
+  }
+
+  private JsonObject charges(String method, String id, String action, Map<String, String> params)
+      throws ApiError {
+    if (id == null) {
+      if ("GET".equals(method)) {
+        return this.list(this.charges, params, matching(params, "customer", "payment_intent"));
+      }
+      if ("POST".equals(method)) {
+        long amount = amount(params, "amount");
+        String currency = required(params, "currency");
+        String customer = params.get("customer");
+        String source = params.get("source");
+        if (customer == null && source == null) {
+          throw new ApiError(
+              400,
+              "invalid_request_error",
+              "parameter_missing",
+              "source",
+              "Must provide source or customer.");
+        }
+        if (customer != null) {
+          this.customers.get(customer);
+        }
+        JsonObject template = new JsonObject();
+        template.addProperty("description", (String) null);
+        template.add("metadata", new JsonObject());
+        updateFields(template, params, "description");
+        JsonObject charge =
+            this.createCharge(
+                amount,
+                currency.toLowerCase(),
+                customer,
+                (source != null) ? source : "card_" + randomId(ID_LENGTH),
+                null,
+                !"false".equals(params.get("capture")),
+                template);
+        if ("failed".equals(charge.get("status").getAsString())) {
+          throw declined(charge);
+        }
+        return this.render(this.charges, charge);
+      }
+      return null;
+    }
+
+    JsonObject charge = this.charges.get(id);
+    if ("GET".equals(method) && action == null) {
+      return this.render(this.charges, charge);
+    }
+    if (!"POST".equals(method)) {
+      return null;
+    }
+
+    if (action == null) {
+      updateFields(charge, params, "description");
+      this.emit("charge.updated", charge);
+    } else if ("capture".equals(action)) {
+      if (charge.get("captured").getAsBoolean() || !charge.get("paid").getAsBoolean()) {
+        throw new ApiError(
+            400,
+            "invalid_request_error",
+            "charge_already_captured",
+            null,
+            String.format("Charge %s has already been captured.", id));
+      }
+      long amount =
+          params.containsKey("amount")
+              ? amount(params, "amount")
+              : charge.get("amount").getAsLong();
+      if (amount > charge.get("amount").getAsLong()) {
+        throw invalid("amount", "The amount to capture must not exceed the amount of the charge.");
+      }
+      this.capture(charge, amount);
+    } else {
+      return null;
+    }
+    return this.render(this.charges, charge);
+  }
+
+  private JsonObject createCharge(
+      long amount,
+      String currency,
+      String customer,
+      String paymentMethod,
+      String paymentIntent,
+      boolean capture,
+      JsonObject template) {
+    boolean declined = DECLINED_PAYMENT_METHODS.contains(paymentMethod);
+
+    JsonObject charge = this.newObject(this.charges);
+    charge.addProperty("amount", amount);
+    charge.addProperty("amount_captured", (capture && !declined) ? amount : 0L);
+    charge.addProperty("amount_refunded", 0L);
+    charge.addProperty("captured", capture && !declined);
+    charge.addProperty("currency", currency);
+    charge.addProperty("customer", customer);
+    charge.add("description", template.get("description"));
+    charge.addProperty("failure_code", declined ? "card_declined" : null);
+    charge.addProperty("failure_message", declined ? "Your card was declined." : null);
+    charge.add("metadata", template.get("metadata").deepCopy());
+    charge.addProperty("paid", !declined);
+    charge.addProperty("payment_intent", paymentIntent);
+    charge.addProperty("payment_method", paymentMethod);
+    charge.addProperty("refunded", false);
+    charge.addProperty("status", declined ? "failed" : "succeeded");
+    this.charges.add(charge);
+    if (paymentIntent != null) {
+      this.chargesByPaymentIntent
+          .computeIfAbsent(paymentIntent, k -> new ArrayList<>())
+          .add(charge.get("id").getAsString());
+    }
+    this.emit(declined ? "charge.failed" : "charge.succeeded", charge);
+    return charge;
+  }
+
+  /** Captures the given amount of a charge, and completes its payment intent, if any. */
+  private void capture(JsonObject charge, long amount) throws ApiError {
+    charge.addProperty("captured", true);
+    charge.addProperty("amount_captured", amount);
+    // The part of the amount that is not captured is released, as a refund would.
+    charge.addProperty("amount_refunded", charge.get("amount").getAsLong() - amount);
+    this.emit("charge.captured", charge);
+
+    if (charge.get("payment_intent").isJsonPrimitive()) {
+      JsonObject paymentIntent =
+          this.paymentIntents.get(charge.get("payment_intent").getAsString());
+      paymentIntent.addProperty("status", "succeeded");
+      paymentIntent.addProperty("amount_capturable", 0L);
+      paymentIntent.addProperty("amount_received", amount);
+      this.emit("payment_intent.succeeded", paymentIntent);
+    }
+  }
+
+  private JsonObject latestCharge(JsonObject paymentIntent) throws ApiError {
+    List<String> chargeIds = this.chargesByPaymentIntent.get(paymentIntent.get("id").getAsString());
+    if (chargeIds == null) {
+      throw new ApiError(
+          400,
+          "invalid_request_error",
+          "charge_expired_for_capture",
+          null,
+          "This PaymentIntent does not have a successful charge.");
+    }
+    return this.charges.get(chargeIds.get(chargeIds.size() - 1));
+  }
+
+  private JsonObject refunds(String method, String id, Map<String, String> params)
+      throws ApiError {
+    if (id == null) {
+      if ("GET".equals(method)) {
+        return this.list(this.refunds, params, matching(params, "charge", "payment_intent"));
+      }
+      if (!"POST".equals(method)) {
+        return null;
+      }
+
+      JsonObject charge;
+      if (params.containsKey("charge")) {
+        charge = this.charges.get(params.get("charge"));
+      } else if (params.containsKey("payment_intent")) {
+        charge = this.latestCharge(this.paymentIntents.get(params.get("payment_intent")));
+      } else {
+        throw new ApiError(
+            400,
+            "invalid_request_error",
+            "parameter_missing",
+            "charge",
+            "One of the following params should be provided for this request: payment_intent or "
+                + "charge.");
+      }
+      long refundable =
+          charge.get("amount").getAsLong() - charge.get("amount_refunded").getAsLong();
+      if (!charge.get("paid").getAsBoolean() || refundable == 0) {
+        throw new ApiError(
+            400,
+            "invalid_request_error",
+            "charge_already_refunded",
+            null,
+            String.format("Charge %s has already been refunded.", charge.get("id").getAsString()));
+      }
+      long amount = params.containsKey("amount") ? amount(params, "amount") : refundable;
+      if (amount > refundable) {
+        throw invalid(
+            "amount",
+            String.format(
+                "Refund amount (%d) is greater than the unrefunded amount of the charge (%d).",
+                amount, refundable));
+      }
+      JsonObject refund = this.refund(charge, amount, params.get("reason"));
+      updateMetadata(refund, params);
+      return refund.deepCopy();
+    }
+
+    JsonObject refund = this.refunds.get(id);
+    switch (method) {
+      case "GET":
+        return refund.deepCopy();
+      case "POST":
+        updateMetadata(refund, params);
+        return refund.deepCopy();
+      default:
+        return null;
+    }
+  }
+
+  private JsonObject refund(JsonObject charge, long amount, String reason) {
+    JsonObject refund = this.newObject(this.refunds);
+    refund.addProperty("amount", amount);
+    refund.add("charge", charge.get("id"));
+    refund.add("currency", charge.get("currency"));
+    refund.add("metadata", new JsonObject());
+    refund.add("payment_intent", charge.get("payment_intent"));
+    refund.addProperty("reason", reason);
+    refund.addProperty("status", "succeeded");
+    this.refunds.add(refund);
+    this.refundsByCharge
+        .computeIfAbsent(charge.get("id").getAsString(), k -> new ArrayList<>())
+        .add(refund.get("id").getAsString());
+
+    long refunded = charge.get("amount_refunded").getAsLong() + amount;
+    charge.addProperty("amount_refunded", refunded);
+    charge.addProperty("refunded", refunded == charge.get("amount").getAsLong());
+    this.emit("charge.refunded", charge);
+    return refund;
+  }
+
+  private JsonObject events(String id, Map<String, String> params) throws ApiError {
+    if (id == null) {
+      return this.list(this.events, params, matching(params, "type"));
+    }
+    return this.events.get(id).deepCopy();
+  }
+
+  /**
+   * Lists the objects of a table matching the given filter, from the most recent one, paginated
+   * with the {@code limit}, {@code starting_after} and {@code ending_before} parameters.
+   */
+  private JsonObject list(Table table, Map<String, String> params, Predicate<JsonObject> filter)
+      throws ApiError {
+    long limit = params.containsKey("limit") ? integer(params, "limit") : DEFAULT_LIST_LIMIT;
+    if (limit < 1 || limit > 100) {
+      throw invalid(
+          "limit", "This value must be between 1 and 100 (it is currently " + limit + ").");
+    }
+
+    List<JsonObject> rows = new ArrayList<>();
+    boolean hasMore = false;
+    if (params.containsKey("ending_before")) {
+      for (int i = table.position(params.get("ending_before"), "ending_before") + 1;
+          i < table.rows.size();
+          i++) {
+        JsonObject row = table.rows.get(i);
+        if (row != null && filter.test(row)) {
+          if (rows.size() == limit) {
+            hasMore = true;
+            break;
+          }
+          rows.add(row);
+        }
+      }
+      Collections.reverse(rows);
+    } else {
+      int start =
+          params.containsKey("starting_after")
+              ? table.position(params.get("starting_after"), "starting_after") - 1
+              : table.rows.size() - 1;
+      for (int i = start; i >= 0; i--) {
+        JsonObject row = table.rows.get(i);
+        if (row != null && filter.test(row)) {
+          if (rows.size() == limit) {
+            hasMore = true;
+            break;
+          }
+          rows.add(row);
+        }
+      }
+    }
+
+    JsonArray data = new JsonArray();
+    for (JsonObject row : rows) {
+      data.add(this.render(table, row));
+    }
+    return listObject(data, hasMore, table.url);
+  }
+
+  /** Returns a copy of the given object, with its nested lists. */
+  private JsonObject render(Table table, JsonObject row) {
+    JsonObject rendered = row.deepCopy();
+    String id = row.get("id").getAsString();
+    if (table == this.paymentIntents) {
+      JsonArray data = new JsonArray();
+      List<String> chargeIds =
+          this.chargesByPaymentIntent.getOrDefault(id, Collections.emptyList());
+      for (String chargeId : chargeIds) {
+        data.add(this.render(this.charges, this.charges.find(chargeId)));
+      }
+      rendered.add("charges", listObject(data, false, "/v1/charges?payment_intent=" + id));
+    } else if (table == this.charges) {
+      JsonArray data = new JsonArray();
+      for (String refundId : this.refundsByCharge.getOrDefault(id, Collections.emptyList())) {
+        data.add(this.refunds.find(refundId).deepCopy());
+      }
+      rendered.add("refunds", listObject(data, false, "/v1/charges/" + id + "/refunds"));
+    }
+    return rendered;
+  }
+
+  private JsonObject newObject(Table table) {
+    JsonObject object = new JsonObject();
+    object.addProperty("id", table.prefix + "_" + randomId(ID_LENGTH));
+    object.addProperty("object", table.object);
+    object.addProperty("created", now());
+    object.addProperty("livemode", false);
+    return object;
+  }
+
+  /** Records an event of the given type, whose data is a snapshot of the given object. */
+  private void emit(String type, JsonObject object) {
+    String objectType = object.get("object").getAsString();
+    JsonObject snapshot =
+        this.render(
+            "payment_intent".equals(objectType)
+                ? this.paymentIntents
+                : "charge".equals(objectType) ? this.charges : this.customers,
+            object);
+
+    JsonObject event = this.newObject(this.events);
+    event.addProperty("api_version", Stripe.API_VERSION);
+    JsonObject data = new JsonObject();
+    data.add("object", snapshot);
+    event.add("data", data);
+    event.addProperty("pending_webhooks", 0L);
+    event.add("request", this.request.deepCopy());
+    event.addProperty("type", type);
+    this.events.add(event);
+  }
+
+  private static String randomId(int length) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    char[] id = new char[length];
+    for (int i = 0; i < length; i++) {
+      id[i] = ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length()));
+    }
+    return new String(id);
+  }
+
+  private static long now() {
+    return System.currentTimeMillis() / 1000;
+  }
+
+  private static JsonObject listObject(JsonArray data, boolean hasMore, String url) {
+    JsonObject list = new JsonObject();
+    list.addProperty("object", "list");
+    list.add("data", data);
+    list.addProperty("has_more", hasMore);
+    list.addProperty("url", url);
+    return list;
+  }
+
+  private static Predicate<JsonObject> matching(Map<String, String> params, String... fields) {
+    return row -> {
+      for (String field : fields) {
+        String value = params.get(field);
+        if (value != null) {
+          JsonElement actual = row.get(field);
+          if (actual == null || !actual.isJsonPrimitive() || !value.equals(actual.getAsString())) {
+            return false;
+          }
+        }
+      }
+      return true;
+    };
+  }
+
+  /** Sets the given string fields, and the metadata, from the parameters. */
+  private static void updateFields(
+      JsonObject object, Map<String, String> params, String... fields) {
+    for (String field : fields) {
+      if (params.containsKey(field)) {
+        String value = params.get(field);
+        object.addProperty(field, value.isEmpty() ? null : value);
+      }
+    }
+    updateMetadata(object, params);
+  }
+
+  /**
+   * Updates the metadata from the {@code metadata[key]} parameters. Empty values remove their key,
+   * and an empty {@code metadata} parameter removes all keys.
+   */
+  private static void updateMetadata(JsonObject object, Map<String, String> params) {
+    JsonObject metadata = object.getAsJsonObject("metadata");
+    if ("".equals(params.get("metadata"))) {
+      metadata = new JsonObject();
+      object.add("metadata", metadata);
+    }
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      String name = param.getKey();
+      if (name.startsWith("metadata[") && name.endsWith("]")) {
+        String key = name.substring("metadata[".length(), name.length() - 1);
+        if (param.getValue().isEmpty()) {
+          metadata.remove(key);
+        } else {
+          metadata.addProperty(key, param.getValue());
+        }
+      }
+    }
+  }
+
+  private static void requireStatus(JsonObject paymentIntent, String action, String... statuses)
+      throws ApiError {
+    String status = paymentIntent.get("status").getAsString();
+    if (!Arrays.asList(statuses).contains(status)) {
+      throw new ApiError(
+          400,
+          "invalid_request_error",
+          "payment_intent_unexpected_state",
+          null,
+          String.format(
+              "You cannot %s this PaymentIntent because it has a status of %s.", action, status));
+    }
+  }
+
+  private static ApiError declined(JsonObject charge) {
+    ApiError error =
+        new ApiError(402, "card_error", "card_declined", null, "Your card was declined.");
+    error.error.add("charge", charge.get("id"));
+    error.error.addProperty("decline_code", "generic_decline");
+    return error;
+  }
+
+  private static String stringOrNull(JsonObject object, String field) {
+    JsonElement value = object.get(field);
+    return (value != null && value.isJsonPrimitive()) ? value.getAsString() : null;
+  }
+
+  private static String required(Map<String, String> params, String name) throws ApiError {
+    String value = params.get(name);
+    if (value == null || value.isEmpty()) {
+      throw new ApiError(
+          400,
+          "invalid_request_error",
+          "parameter_missing",
+          name,
+          "Missing required param: " + name + ".");
+    }
+    return value;
+  }
+
+  private static long integer(Map<String, String> params, String name) throws ApiError {
+    String value = required(params, name);
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new ApiError(
+          400,
+          "invalid_request_error",
+          "parameter_invalid_integer",
+          name,
+          "Invalid integer: " + value);
+    }
+  }
+
+  private static long amount(Map<String, String> params, String name) throws ApiError {
+    long amount = integer(params, name);
+    if (amount <= 0) {
+      throw invalid(name, "Amount must be at least 1.");
+    }
+    return amount;
+  }
+
+  private static ApiError invalid(String param, String message) {
+    return new ApiError(400, "invalid_request_error", null, param, message);
+  }
+
+  /** The objects of one type, in creation order. Deleted objects leave a {@code null} row. */
+  private static final class Table {
+    final String prefix;
+
+    final String object;
+
+    final String url;
+
+    final List<JsonObject> rows = new ArrayList<>();
+
+    final Map<String, Integer> positions = new HashMap<>();
+
+    Table(String prefix, String object, String url) {
+      this.prefix = prefix;
+      this.object = object;
+      this.url = url;
+    }
+
+    JsonObject find(String id) {
+      Integer position = this.positions.get(id);
+      return (position != null) ? this.rows.get(position) : null;
+    }
+
+    JsonObject get(String id) throws ApiError {
+      Integer position = this.positions.get(id);
+      if (position == null) {
+        throw new ApiError(
+            404,
+            "invalid_request_error",
+            "resource_missing",
+            "id",
+            String.format("No such %s: '%s'", this.object, id));
+      }
+      return this.rows.get(position);
+    }
+
+    int position(String id, String param) throws ApiError {
+      Integer position = this.positions.get(id);
+      if (position == null) {
+        throw new ApiError(
+            400,
+            "invalid_request_error",
+            "resource_missing",
+            param,
+            String.format("No such %s: '%s'", this.object, id));
+      }
+      return position;
+    }
+
+    void add(JsonObject row) {
+      this.positions.put(row.get("id").getAsString(), this.rows.size());
+      this.rows.add(row);
+    }
+
+    void remove(String id) {
+      Integer position = this.positions.remove(id);
+      if (position != null) {
+        this.rows.set(position, null);
+      }
+    }
+  }
+}
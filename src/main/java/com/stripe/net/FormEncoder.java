@@ -7,6 +7,7 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,8 +35,13 @@ public final class FormEncoder {
               .map(kvp -> new KeyValuePair<String, String>(kvp.getKey(), (String) kvp.getValue()))
               .collect(Collectors.toList());
       return HttpContent.buildFormURLEncodedContent(flatParamsString);
-    } else {
+    } else if (flatParams.stream().anyMatch(kvp -> kvp.getValue() instanceof InputStream)) {
+      // Streams can only be read once, so they are buffered in memory for the request to be
+      // retryable.
       return HttpContent.buildMultipartFormDataContent(flatParams);
+    } else {
+      // Files are read as the request is sent, without holding them in memory.
+      return HttpContent.buildStreamingMultipartFormDataContent(flatParams);
     }
   }
 
@@ -85,11 +91,11 @@ public final class FormEncoder {
    * such parameters and expects them to be encoded in a certain way. This method takes a map of
    * parameters that can contain deeply nested parameters and return a flat list of key/value pairs.
    *
-   * <p>Values are always encoded as {@link String}s, except for {@link File} and {@link
-   * InputStream} values that are left as-is. When there is at least one {@link File} or {@link
-   * InputStream} value, the request should be encoded using {@code multipart/form-data} MIME type;
-   * otherwise (i.e. if all values are {@link String}s), the request should be encoded using {@code
-   * application/x-www-form-urlencoded} MIME type.
+   * <p>Values are always encoded as {@link String}s, except for {@link File}, {@link Path} and
+   * {@link InputStream} values that are left as-is. When there is at least one {@link File}, {@link
+   * Path} or {@link InputStream} value, the request should be encoded using {@code
+   * multipart/form-data} MIME type; otherwise (i.e. if all values are {@link String}s), the request
+   * should be encoded using {@code application/x-www-form-urlencoded} MIME type.
    *
    * <pre>{@code
    * Map<String, Object> item1 = new HashMap<>() { put("plan", "gold"); };
@@ -162,6 +168,9 @@ public final class FormEncoder {
     } else if (value instanceof File) {
       flatParams = singleParam(keyPrefix, value);
 
+    } else if (value instanceof Path) {
+      flatParams = singleParam(keyPrefix, value);
+
     } else if (value instanceof InputStream) {
       flatParams = singleParam(keyPrefix, value);
 
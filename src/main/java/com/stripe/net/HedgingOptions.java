@@ -0,0 +1,137 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link RequestHedger}. */
+@EqualsAndHashCode(callSuper = false)
+public class HedgingOptions {
+  public static final double DEFAULT_PERCENTILE = 0.95;
+  public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(10);
+  public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+  public static final int DEFAULT_MINIMUM_SAMPLES = 20;
+
+  private final double percentile;
+  private final Duration minDelay;
+  private final Duration maxDelay;
+  private final int minimumSamples;
+
+  public static HedgingOptions getDefault() {
+    return new HedgingOptionsBuilder().build();
+  }
+
+  private HedgingOptions(
+      double percentile, Duration minDelay, Duration maxDelay, int minimumSamples) {
+    this.percentile = percentile;
+    this.minDelay = minDelay;
+    this.maxDelay = maxDelay;
+    this.minimumSamples = minimumSamples;
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  public int getMinimumSamples() {
+    return minimumSamples;
+  }
+
+  public static HedgingOptionsBuilder builder() {
+    return new HedgingOptionsBuilder();
+  }
+
+  public static final class HedgingOptionsBuilder {
+    private double percentile = DEFAULT_PERCENTILE;
+    private Duration minDelay = DEFAULT_MIN_DELAY;
+    private Duration maxDelay = DEFAULT_MAX_DELAY;
+    private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+
+    public double getPercentile() {
+      return percentile;
+    }
+
+    /**
+     * Sets the percentile of the observed {@code GET} latencies after which a hedged attempt is
+     * sent, between 0 (exclusive) and 1 (exclusive). With the default of 0.95, about one request in
+     * twenty is hedged.
+     *
+     * @param percentile the latency percentile
+     */
+    public HedgingOptionsBuilder setPercentile(double percentile) {
+      this.percentile = percentile;
+      return this;
+    }
+
+    public Duration getMinDelay() {
+      return minDelay;
+    }
+
+    /**
+     * Sets the minimum time to wait for the first attempt before hedging, regardless of the
+     * observed latencies.
+     *
+     * @param minDelay the minimum hedging delay
+     */
+    public HedgingOptionsBuilder setMinDelay(Duration minDelay) {
+      this.minDelay = minDelay;
+      return this;
+    }
+
+    public Duration getMaxDelay() {
+      return maxDelay;
+    }
+
+    /**
+     * Sets the maximum time to wait for the first attempt before hedging, regardless of the
+     * observed latencies. This is also the delay used until enough latencies have been observed.
+     *
+     * @param maxDelay the maximum hedging delay
+     */
+    public HedgingOptionsBuilder setMaxDelay(Duration maxDelay) {
+      this.maxDelay = maxDelay;
+      return this;
+    }
+
+    public int getMinimumSamples() {
+      return minimumSamples;
+    }
+
+    /**
+     * Sets the number of latencies that must be observed before the hedging delay is derived from
+     * the percentile.
+     *
+     * @param minimumSamples the minimum number of observed latencies
+     */
+    public HedgingOptionsBuilder setMinimumSamples(int minimumSamples) {
+      this.minimumSamples = minimumSamples;
+      return this;
+    }
+
+    /** Constructs a {@link HedgingOptions} with the specified values. */
+    public HedgingOptions build() {
+      if (!(percentile > 0 && percentile < 1)) {
+        throw new IllegalArgumentException("percentile must be between 0 and 1 (exclusive).");
+      }
+      if (minDelay == null || minDelay.isNegative()) {
+        throw new IllegalArgumentException("minDelay must not be negative.");
+      }
+      if (maxDelay == null || maxDelay.compareTo(minDelay) < 0) {
+        throw new IllegalArgumentException("maxDelay must not be lower than minDelay.");
+      }
+      if (minimumSamples <= 0 || minimumSamples > RequestHedger.SAMPLE_SIZE) {
+        throw new IllegalArgumentException(
+            String.format("minimumSamples must be between 1 and %d.", RequestHedger.SAMPLE_SIZE));
+      }
+
+      return new HedgingOptions(percentile, minDelay, maxDelay, minimumSamples);
+    }
+  }
+}
@@ -1,16 +1,36 @@
 package com.stripe.net;
 
+import static java.util.Objects.requireNonNull;
+
 import com.stripe.Stripe;
 import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.DeadlineExceededException;
+import com.stripe.exception.RequestInterruptedException;
 import com.stripe.exception.StripeException;
 import com.stripe.util.Stopwatch;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Base abstract class for HTTP clients used to send requests to Stripe's API. */
 public abstract class HttpClient {
@@ -20,11 +40,31 @@ public abstract class HttpClient {
   /** Minimum sleep time between tries to send HTTP requests after network failure. */
   public static final Duration minNetworkRetriesDelay = Duration.ofMillis(500);
 
+  /** The client headers, cached along with the app info they were computed for. */
+  private static volatile ClientHeaders clientHeaders;
+
   private final RequestTelemetry requestTelemetry = new RequestTelemetry();
 
   /** A value indicating whether the client should sleep between automatic request retries. */
   boolean networkRetriesSleep = true;
 
+  private volatile Executor asyncExecutor;
+
+  private volatile ScheduledExecutorService retryScheduler;
+
+  private volatile RateLimiter rateLimiter;
+
+  private volatile CircuitBreaker circuitBreaker;
+
+  private volatile RequestHedger requestHedger;
+
+  private volatile RequestMetricsListener metricsListener;
+
+  private volatile RequestScheduler requestScheduler;
+
+  /** The interceptors and their chains, or {@code null} if none was added. */
+  private volatile Interceptors interceptors;
+
   /** Initializes a new instance of the {@link HttpClient} class. */
   protected HttpClient() {}
 
@@ -38,65 +78,571 @@ public abstract class HttpClient {
   public abstract StripeResponse request(StripeRequest request) throws StripeException;
 
   /**
-   * Sends the given request to Stripe's API, handling telemetry if not disabled.
+   * Sends the given request to Stripe's API asynchronously.
+   *
+   * <p>The default implementation calls {@link #request(StripeRequest)} on the {@link
+   * #setAsyncExecutor(Executor) async executor}. Clients backed by a non-blocking transport should
+   * override this method.
    *
    * @param request the request
-   * @return the response
-   * @throws StripeException If the request fails for any reason
+   * @return a future completed with the response, or completed exceptionally with a {@link
+   *     StripeException} if the request fails for any reason
    */
-  public StripeResponse requestWithTelemetry(StripeRequest request) throws StripeException {
-    Optional<String> telemetryHeaderValue = requestTelemetry.getHeaderValue(request.headers());
-    if (telemetryHeaderValue.isPresent()) {
-      request =
-          request.withAdditionalHeader(RequestTelemetry.HEADER_NAME, telemetryHeaderValue.get());
-    }
+  public CompletableFuture<StripeResponse> requestAsync(StripeRequest request) {
+    CompletableFuture<StripeResponse> future = new CompletableFuture<>();
 
-    Stopwatch stopwatch = Stopwatch.startNew();
+    try {
+      this.getAsyncExecutor()
+          .execute(
+              () -> {
+                try {
+                  future.complete(this.request(request));
+                } catch (StripeException | RuntimeException e) {
+                  future.completeExceptionally(e);
+                }
+              });
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
 
-    StripeResponse response = this.request(request);
+    return future;
+  }
 
-    stopwatch.stop();
+  /**
+   * Sends the given request to Stripe's API, and returns a response whose body is streamed from the
+   * network. The caller is responsible for closing the body of the returned response.
+   *
+   * <p>The default implementation reads the whole response with {@link #request(StripeRequest)}.
+   * Clients should override this method to stream the body directly from the connection.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException If the request fails for any reason
+   */
+  public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+    return toResponseStream(this.request(request));
+  }
 
-    requestTelemetry.maybeEnqueueMetrics(response, stopwatch.getElapsed());
+  /**
+   * Sends the given request to Stripe's API, handling telemetry if not disabled.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException If the request fails for any reason
+   */
+  public StripeResponse requestWithTelemetry(StripeRequest request) throws StripeException {
+    return this.sendWithTelemetry(request, this::request);
+  }
 
-    return response;
+  /**
+   * Sends the given request to Stripe's API, streaming the response body and handling telemetry if
+   * not disabled.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException If the request fails for any reason
+   */
+  public StripeResponseStream requestStreamWithTelemetry(StripeRequest request)
+      throws StripeException {
+    return this.sendWithTelemetry(request, this::requestStream);
   }
 
   /**
    * Sends the given request to Stripe's API, retrying the request in cases of intermittent
    * problems.
    *
+   * <p>If the request options have a {@link RequestOptions#getCallTimeout() call timeout}, each
+   * attempt's timeouts are shortened to the time left, and the request fails with a {@link
+   * DeadlineExceededException} once there is not enough time left for another attempt.
+   *
    * @param request the request
    * @return the response
    * @throws StripeException If the request fails for any reason
    */
   public StripeResponse requestWithRetries(StripeRequest request) throws StripeException {
+    Interceptors interceptors = this.interceptors;
+    if (interceptors != null) {
+      return toResponse(interceptors.chain.proceed(request));
+    }
+    return this.sendWithRetries(request, this::requestWithTelemetry);
+  }
+
+  /**
+   * Sends the given request to Stripe's API, streaming the response body and retrying the request
+   * in cases of intermittent problems. The caller is responsible for closing the body of the
+   * returned response.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException If the request fails for any reason
+   */
+  public StripeResponseStream requestStreamWithRetries(StripeRequest request)
+      throws StripeException {
+    Interceptors interceptors = this.interceptors;
+    if (interceptors != null) {
+      return toResponseStream(interceptors.streamChain.proceed(request));
+    }
+    return this.sendWithRetries(request, this::requestStreamWithTelemetry);
+  }
+
+  /**
+   * Sends the given request to Stripe's API asynchronously, handling telemetry if not disabled.
+   *
+   * @param request the request
+   * @return a future completed with the response
+   */
+  public CompletableFuture<StripeResponse> requestWithTelemetryAsync(StripeRequest request) {
+    request = this.withTelemetryHeader(request);
+
+    Stopwatch stopwatch = Stopwatch.startNew();
+
+    return this.requestAsync(request)
+        .thenApply(
+            response -> {
+              stopwatch.stop();
+
+              requestTelemetry.maybeEnqueueMetrics(response, stopwatch.getElapsed());
+
+              return response;
+            });
+  }
+
+  /**
+   * Sends the given request to Stripe's API asynchronously, retrying the request in cases of
+   * intermittent problems. Retries follow the same policy as {@link
+   * #requestWithRetries(StripeRequest)}, but are rescheduled on the {@link
+   * #setRetryScheduler(ScheduledExecutorService) retry scheduler} instead of sleeping.
+   *
+   * <p>Interceptors and the request scheduler are blocking, so when interceptors were added or a
+   * request scheduler is set, the request is instead sent with {@link
+   * #requestWithRetries(StripeRequest)} on the {@link #setAsyncExecutor(Executor) async executor}.
+   *
+   * @param request the request
+   * @return a future completed with the response, or completed exceptionally with a {@link
+   *     StripeException} if the request fails for any reason
+   */
+  public CompletableFuture<StripeResponse> requestWithRetriesAsync(StripeRequest request) {
+    CompletableFuture<StripeResponse> future = new CompletableFuture<>();
+
+    if (this.interceptors != null || this.requestScheduler != null) {
+      try {
+        this.getAsyncExecutor()
+            .execute(
+                () -> {
+                  try {
+                    future.complete(this.requestWithRetries(request));
+                  } catch (StripeException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                  }
+                });
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
+
+    this.attemptAsync(request, 0, null, System.nanoTime(), future);
+
+    return future;
+  }
+
+  /**
+   * Sets the executor used by {@link #requestAsync(StripeRequest)} to run blocking requests. If
+   * {@code null}, a shared pool of daemon threads is used.
+   *
+   * @param asyncExecutor the executor
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Sets the scheduler used by {@link #requestWithRetriesAsync(StripeRequest)} to schedule retries.
+   * If {@code null}, a shared single daemon thread is used.
+   *
+   * @param retryScheduler the scheduler
+   */
+  public void setRetryScheduler(ScheduledExecutorService retryScheduler) {
+    this.retryScheduler = retryScheduler;
+  }
+
+  /**
+   * Sets the client-side rate limiter applied to requests sent with retries. Each attempt waits for
+   * the rate limiter's budget before being sent, and requests answered with {@code 429 Too Many
+   * Requests} are retried. If {@code null}, requests are not rate limited.
+   *
+   * @param rateLimiter the rate limiter
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  public RateLimiter getRateLimiter() {
+    return this.rateLimiter;
+  }
+
+  /**
+   * Sets the circuit breaker applied to requests sent with retries. While the circuit of a
+   * request's API base is open, the request fails immediately with an {@link
+   * ApiConnectionException} instead of being sent and retried. If {@code null}, no circuit breaker
+   * is used.
+   *
+   * @param circuitBreaker the circuit breaker
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return this.circuitBreaker;
+  }
+
+  /**
+   * Sets the hedger applied to {@code GET} requests sent with retries. When the first attempt of a
+   * {@code GET} request is slower than the hedger's delay, a second attempt is sent and the first
+   * one to complete is used. Other requests are never hedged. If {@code null}, requests are not
+   * hedged.
+   *
+   * @param requestHedger the request hedger
+   */
+  public void setRequestHedger(RequestHedger requestHedger) {
+    this.requestHedger = requestHedger;
+  }
+
+  public RequestHedger getRequestHedger() {
+    return this.requestHedger;
+  }
+
+  /**
+   * Sets the listener notified of the metrics of each attempt and of each request sent with
+   * retries. If {@code null}, no metrics are reported.
+   *
+   * @param metricsListener the metrics listener, e.g. a {@link RequestMetricsRecorder}
+   */
+  public void setMetricsListener(RequestMetricsListener metricsListener) {
+    this.metricsListener = metricsListener;
+  }
+
+  public RequestMetricsListener getMetricsListener() {
+    return this.metricsListener;
+  }
+
+  /**
+   * Sets the scheduler dispatching the attempts of requests sent with retries by priority class.
+   * Each attempt waits to be dispatched, then waits for the budget of the client's {@link
+   * RateLimiter} before the next attempt is dispatched, so that the rate budget is handed out by
+   * priority. If {@code null}, attempts are sent in arrival order.
+   *
+   * @param requestScheduler the request scheduler
+   */
+  public void setRequestScheduler(RequestScheduler requestScheduler) {
+    this.requestScheduler = requestScheduler;
+  }
+
+  public RequestScheduler getRequestScheduler() {
+    return this.requestScheduler;
+  }
+
+  /**
+   * Adds an interceptor around requests sent with retries. The interceptor is called once per
+   * request, and its chain sends the request with all its retries. Interceptors are called in the
+   * order they were added.
+   *
+   * @param interceptor the interceptor
+   */
+  public synchronized void addInterceptor(Interceptor interceptor) {
+    requireNonNull(interceptor);
+    List<Interceptor> callInterceptors = new ArrayList<>(this.getInterceptors());
+    callInterceptors.add(interceptor);
+    this.interceptors = new Interceptors(callInterceptors, this.getAttemptInterceptors());
+  }
+
+  /**
+   * Adds an interceptor around each attempt of requests sent with retries. The interceptor is
+   * called once per attempt, after the circuit breaker and the rate limiter let the attempt
+   * through, and its chain sends the attempt. Interceptors are called in the order they were added.
+   *
+   * @param interceptor the interceptor
+   */
+  public synchronized void addAttemptInterceptor(Interceptor interceptor) {
+    requireNonNull(interceptor);
+    List<Interceptor> attemptInterceptors = new ArrayList<>(this.getAttemptInterceptors());
+    attemptInterceptors.add(interceptor);
+    this.interceptors = new Interceptors(this.getInterceptors(), attemptInterceptors);
+  }
+
+  /**
+   * Returns the interceptors around requests sent with retries.
+   *
+   * @return an unmodifiable list of the interceptors, in the order they are called
+   */
+  public List<Interceptor> getInterceptors() {
+    Interceptors interceptors = this.interceptors;
+    return (interceptors != null) ? interceptors.callInterceptors : Collections.emptyList();
+  }
+
+  /**
+   * Returns the interceptors around each attempt of requests sent with retries.
+   *
+   * @return an unmodifiable list of the interceptors, in the order they are called
+   */
+  public List<Interceptor> getAttemptInterceptors() {
+    Interceptors interceptors = this.interceptors;
+    return (interceptors != null) ? interceptors.attemptInterceptors : Collections.emptyList();
+  }
+
+  protected Executor getAsyncExecutor() {
+    Executor executor = this.asyncExecutor;
+    return (executor != null) ? executor : DefaultExecutors.ASYNC_EXECUTOR;
+  }
+
+  protected ScheduledExecutorService getRetryScheduler() {
+    ScheduledExecutorService scheduler = this.retryScheduler;
+    return (scheduler != null) ? scheduler : DefaultExecutors.RETRY_SCHEDULER;
+  }
+
+  private void attemptAsync(
+      StripeRequest request,
+      int retry,
+      RetryReason retryReason,
+      long requestStartNanos,
+      CompletableFuture<StripeResponse> future) {
+    CircuitBreaker.Permit permit;
+    try {
+      permit = this.acquireCircuitPermission(request);
+    } catch (StripeException e) {
+      this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+      future.completeExceptionally(e);
+      return;
+    }
+
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter != null) {
+      long waitNanos;
+      try {
+        waitNanos = rateLimiter.reserve(request);
+        if (waitNanos > 0 && waitNanos >= remainingNanos(request, requestStartNanos)) {
+          throw deadlineExceeded(request, null);
+        }
+      } catch (StripeException e) {
+        this.releaseCircuitPermission(permit);
+        this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+        future.completeExceptionally(e);
+        return;
+      }
+      if (waitNanos > 0) {
+        try {
+          this.getRetryScheduler()
+              .schedule(
+                  () ->
+                      this.sendAttemptAsync(
+                          request, retry, retryReason, requestStartNanos, permit, future),
+                  waitNanos,
+                  TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+          this.releaseCircuitPermission(permit);
+          future.completeExceptionally(e);
+        }
+        return;
+      }
+    }
+
+    this.sendAttemptAsync(request, retry, retryReason, requestStartNanos, permit, future);
+  }
+
+  private void sendAttemptAsync(
+      StripeRequest request,
+      int retry,
+      RetryReason retryReason,
+      long requestStartNanos,
+      CircuitBreaker.Permit permit,
+      CompletableFuture<StripeResponse> future) {
+    StripeRequest attemptRequest;
+    try {
+      attemptRequest = this.withRemainingTime(request, requestStartNanos);
+    } catch (DeadlineExceededException e) {
+      this.releaseCircuitPermission(permit);
+      this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+      future.completeExceptionally(e);
+      return;
+    }
+
+    long attemptStartNanos = System.nanoTime();
+    this.sendHedgedAsync(attemptRequest)
+        .whenComplete(
+            (response, throwable) -> {
+              if (response != null) {
+                this.onRateLimiterResponse(request, response);
+              }
+
+              Throwable cause =
+                  (throwable instanceof CompletionException && throwable.getCause() != null)
+                      ? throwable.getCause()
+                      : throwable;
+
+              if ((cause != null) && !(cause instanceof ApiConnectionException)) {
+                this.releaseCircuitPermission(permit);
+                if (cause instanceof StripeException) {
+                  StripeException e = (StripeException) cause;
+                  this.onAttemptMetrics(request, retry, retryReason, null, e, attemptStartNanos);
+                  this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+                }
+                future.completeExceptionally(cause);
+                return;
+              }
+
+              ApiConnectionException requestException = (ApiConnectionException) cause;
+              this.recordCircuitOutcome(permit, requestException, response);
+
+              RetryReason nextRetryReason =
+                  this.retryReason(retry, requestException, request, response);
+              this.onAttemptMetrics(
+                  request, retry, retryReason, response, requestException, attemptStartNanos);
+
+              if (nextRetryReason != null) {
+                int nextRetry = retry + 1;
+                long sleepNanos = this.sleepTime(nextRetry).toNanos();
+                if (sleepNanos >= remainingNanos(request, requestStartNanos)) {
+                  DeadlineExceededException e = deadlineExceeded(request, requestException);
+                  this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+                  future.completeExceptionally(e);
+                  return;
+                }
+                try {
+                  this.getRetryScheduler()
+                      .schedule(
+                          () ->
+                              this.attemptAsync(
+                                  request, nextRetry, nextRetryReason, requestStartNanos, future),
+                          sleepNanos,
+                          TimeUnit.NANOSECONDS);
+                } catch (RuntimeException e) {
+                  future.completeExceptionally(e);
+                }
+                return;
+              }
+
+              if (requestException != null && remainingNanos(request, requestStartNanos) <= 0) {
+                requestException = deadlineExceeded(request, requestException);
+              }
+
+              this.onRequestMetrics(
+                  request, retry, retryReason, response, requestException, requestStartNanos);
+
+              if (requestException != null) {
+                future.completeExceptionally(requestException);
+                return;
+              }
+
+              response.numRetries(retry);
+              future.complete(response);
+            });
+  }
+
+  private <T extends AbstractStripeResponse<?>> T sendWithTelemetry(
+      StripeRequest request, RequestSendFunction<T> send) throws StripeException {
+    request = this.withTelemetryHeader(request);
+
+    Stopwatch stopwatch = Stopwatch.startNew();
+
+    T response = send.apply(request);
+
+    stopwatch.stop();
+
+    requestTelemetry.maybeEnqueueMetrics(response, stopwatch.getElapsed());
+
+    return response;
+  }
+
+  private <T extends AbstractStripeResponse<?>> T sendWithRetries(
+      StripeRequest request, RequestSendFunction<T> send) throws StripeException {
     ApiConnectionException requestException = null;
-    StripeResponse response = null;
+    T response = null;
     int retry = 0;
+    RetryReason retryReason = null;
+    long requestStartNanos = System.nanoTime();
 
     while (true) {
       requestException = null;
 
+      CircuitBreaker.Permit permit = null;
+      RequestScheduler.Ticket ticket = null;
+      long attemptStartNanos;
       try {
-        response = this.requestWithTelemetry(request);
-      } catch (ApiConnectionException e) {
-        requestException = e;
+        permit = this.acquireCircuitPermission(request);
+        ticket = this.awaitTurn(request, requestStartNanos);
+        StripeRequest attemptRequest = this.withRemainingTime(request, requestStartNanos);
+
+        attemptStartNanos = System.nanoTime();
+        try {
+          response = this.sendHedged(attemptRequest, send);
+          this.onRateLimiterResponse(request, response);
+        } catch (ApiConnectionException e) {
+          requestException = e;
+        }
+        if (ticket != null) {
+          if (requestException == null) {
+            response = ticket.releaseWith(response);
+          } else {
+            ticket.release();
+          }
+          ticket = null;
+        }
+      } catch (StripeException | RuntimeException e) {
+        this.releaseCircuitPermission(permit);
+        if (ticket != null) {
+          ticket.release();
+        }
+        if (e instanceof StripeException) {
+          this.onRequestMetrics(
+              request, retry, retryReason, null, (StripeException) e, requestStartNanos);
+        }
+        throw e;
       }
+      this.recordCircuitOutcome(permit, requestException, response);
+
+      RetryReason nextRetryReason = this.retryReason(retry, requestException, request, response);
+      this.onAttemptMetrics(
+          request, retry, retryReason, response, requestException, attemptStartNanos);
 
-      if (!this.shouldRetry(retry, requestException, request, response)) {
+      if (nextRetryReason == null) {
         break;
       }
 
+      // Release the connection of the response we are about to discard.
+      if ((response != null) && (response.body() instanceof Closeable)) {
+        try {
+          ((Closeable) response.body()).close();
+        } catch (IOException e) {
+          // ignore, the response is discarded anyway
+        }
+      }
+
+      // Fail now rather than sleep through the rest of the call timeout.
+      Duration sleepTime = this.sleepTime(retry + 1);
+      if (sleepTime.toNanos() >= remainingNanos(request, requestStartNanos)) {
+        DeadlineExceededException e = deadlineExceeded(request, requestException);
+        this.onRequestMetrics(request, retry, retryReason, null, e, requestStartNanos);
+        throw e;
+      }
+
       retry += 1;
+      retryReason = nextRetryReason;
 
       try {
-        Thread.sleep(this.sleepTime(retry).toMillis());
+        Thread.sleep(sleepTime.toMillis());
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
       }
     }
 
+    if (requestException != null && remainingNanos(request, requestStartNanos) <= 0) {
+      requestException = deadlineExceeded(request, requestException);
+    }
+
+    this.onRequestMetrics(
+        request, retry, retryReason, response, requestException, requestStartNanos);
+
     if (requestException != null) {
       throw requestException;
     }
@@ -106,19 +652,291 @@ public abstract class HttpClient {
     return response;
   }
 
+  private <T extends AbstractStripeResponse<?>> T sendHedged(
+      StripeRequest request, RequestSendFunction<T> send) throws StripeException {
+    RequestHedger requestHedger = this.requestHedger;
+    if (requestHedger == null || request.method() != ApiResource.RequestMethod.GET) {
+      return send.apply(request);
+    }
+    return requestHedger.send(request, send, this.getAsyncExecutor(), this.rateLimiter);
+  }
+
+  private CompletableFuture<StripeResponse> sendHedgedAsync(StripeRequest request) {
+    RequestHedger requestHedger = this.requestHedger;
+    if (requestHedger == null || request.method() != ApiResource.RequestMethod.GET) {
+      return this.requestWithTelemetryAsync(request);
+    }
+    return requestHedger.sendAsync(
+        request, this::requestWithTelemetryAsync, this.getRetryScheduler(), this.rateLimiter);
+  }
+
+  private CircuitBreaker.Permit acquireCircuitPermission(StripeRequest request)
+      throws ApiConnectionException {
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    return (circuitBreaker != null) ? circuitBreaker.acquirePermission(request) : null;
+  }
+
+  private void releaseCircuitPermission(CircuitBreaker.Permit permit) {
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    if (permit != null && circuitBreaker != null) {
+      circuitBreaker.release(permit);
+    }
+  }
+
+  private void recordCircuitOutcome(
+      CircuitBreaker.Permit permit,
+      ApiConnectionException exception,
+      AbstractStripeResponse<?> response) {
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    if (permit == null || circuitBreaker == null) {
+      return;
+    }
+
+    if (exception != null || response == null || response.code() >= 500) {
+      circuitBreaker.onFailure(permit);
+    } else {
+      circuitBreaker.onSuccess(permit);
+    }
+  }
+
+  private void onAttemptMetrics(
+      StripeRequest request,
+      int attempt,
+      RetryReason retryReason,
+      AbstractStripeResponse<?> response,
+      StripeException exception,
+      long startNanos) {
+    RequestMetricsListener metricsListener = this.metricsListener;
+    if (metricsListener == null) {
+      return;
+    }
+
+    try {
+      metricsListener.onAttempt(
+          RequestMetricsEvent.of(
+              request,
+              attempt,
+              retryReason,
+              (exception == null) ? response : null,
+              exception,
+              System.nanoTime() - startNanos));
+    } catch (RuntimeException e) {
+      // Metrics must not fail the request.
+    }
+  }
+
+  private void onRequestMetrics(
+      StripeRequest request,
+      int attempt,
+      RetryReason retryReason,
+      AbstractStripeResponse<?> response,
+      StripeException exception,
+      long startNanos) {
+    RequestMetricsListener metricsListener = this.metricsListener;
+    if (metricsListener == null) {
+      return;
+    }
+
+    try {
+      metricsListener.onRequest(
+          RequestMetricsEvent.of(
+              request,
+              attempt,
+              retryReason,
+              (exception == null) ? response : null,
+              exception,
+              System.nanoTime() - startNanos));
+    } catch (RuntimeException e) {
+      // Metrics must not fail the request.
+    }
+  }
+
   /**
-   * Builds the value of the {@code User-Agent} header.
+   * Waits for the given request's turn with the request scheduler, if any, and for the budget of
+   * the rate limiter.
    *
-   * @return a string containing the value of the {@code User-Agent} header
+   * @return the ticket of the dispatched attempt, or {@code null} if there is no request scheduler
    */
-  protected static String buildUserAgentString() {
-    String userAgent = String.format("Stripe/v1 JavaBindings/%s", Stripe.VERSION);
+  private RequestScheduler.Ticket awaitTurn(StripeRequest request, long requestStartNanos)
+      throws StripeException {
+    RequestScheduler requestScheduler = this.requestScheduler;
+    if (requestScheduler == null) {
+      this.awaitRateLimit(request, requestStartNanos);
+      return null;
+    }
+    return requestScheduler.acquire(
+        request,
+        remainingNanos(request, requestStartNanos),
+        () -> this.awaitRateLimit(request, requestStartNanos));
+  }
 
-    if (Stripe.getAppInfo() != null) {
-      userAgent += " " + formatAppInfo(Stripe.getAppInfo());
+  private void awaitRateLimit(StripeRequest request, long requestStartNanos)
+      throws StripeException {
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter == null) {
+      return;
     }
 
-    return userAgent;
+    long waitNanos = rateLimiter.reserve(request);
+    if (waitNanos > 0) {
+      if (waitNanos >= remainingNanos(request, requestStartNanos)) {
+        throw deadlineExceeded(request, null);
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RequestInterruptedException(
+            "Interrupted while waiting for the client-side rate limit.", e);
+      }
+    }
+  }
+
+  private static StripeResponse toResponse(AbstractStripeResponse<?> response)
+      throws ApiConnectionException {
+    if (response instanceof StripeResponse) {
+      return (StripeResponse) response;
+    }
+
+    try {
+      return ((StripeResponseStream) response).unstream();
+    } catch (IOException e) {
+      throw new ApiConnectionException(
+          String.format(
+              "IOException while reading response from Stripe (%s): %s",
+              Stripe.getApiBase(), e.getMessage()),
+          e);
+    }
+  }
+
+  private static StripeResponseStream toResponseStream(AbstractStripeResponse<?> response) {
+    if (response instanceof StripeResponseStream) {
+      return (StripeResponseStream) response;
+    }
+
+    StripeResponse stripeResponse = (StripeResponse) response;
+    StripeResponseStream responseStream =
+        new StripeResponseStream(
+            stripeResponse.code(),
+            stripeResponse.headers(),
+            new ByteArrayInputStream(stripeResponse.body().getBytes(ApiResource.CHARSET)));
+    responseStream.numRetries(stripeResponse.numRetries());
+    responseStream.compressedSize(stripeResponse.compressedSize());
+    responseStream.uncompressedSize(stripeResponse.uncompressedSize());
+    responseStream.connectDuration(stripeResponse.connectDuration());
+    responseStream.timeToFirstByte(stripeResponse.timeToFirstByte());
+    return responseStream;
+  }
+
+  /**
+   * Returns the given request with its timeouts shortened to the time left before its call timeout.
+   *
+   * @throws DeadlineExceededException if no time is left
+   */
+  private StripeRequest withRemainingTime(StripeRequest request, long requestStartNanos)
+      throws DeadlineExceededException {
+    if (request.options().getCallTimeout() <= 0) {
+      return request;
+    }
+
+    long remainingNanos = remainingNanos(request, requestStartNanos);
+    if (remainingNanos <= 0) {
+      throw deadlineExceeded(request, null);
+    }
+    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999_999);
+    return this.withRemainingTimeout(request, (int) Math.min(Integer.MAX_VALUE, remainingMillis));
+  }
+
+  /**
+   * Returns the given request with its timeouts shortened so that an attempt does not outlast the
+   * time left before the call timeout of the request.
+   *
+   * <p>The default implementation caps both the connect and read timeouts of the request options.
+   * Clients whose timeouts work differently may override this method.
+   *
+   * @param request the request
+   * @param remainingMillis the time left before the call timeout, in milliseconds
+   * @return the request with shortened timeouts
+   */
+  protected StripeRequest withRemainingTimeout(StripeRequest request, int remainingMillis) {
+    RequestOptions options = request.options();
+    return request.withTimeouts(
+        capTimeout(options.getConnectTimeout(), remainingMillis),
+        capTimeout(options.getReadTimeout(), remainingMillis));
+  }
+
+  /** Caps the given timeout, where zero means no timeout. */
+  static int capTimeout(int timeout, int maxMillis) {
+    return (timeout <= 0 || timeout > maxMillis) ? maxMillis : timeout;
+  }
+
+  /**
+   * Returns the time left before the call timeout of the given request.
+   *
+   * @return the time left in nanoseconds, or {@link Long#MAX_VALUE} if the request has no call
+   *     timeout
+   */
+  private static long remainingNanos(StripeRequest request, long requestStartNanos) {
+    int callTimeout = request.options().getCallTimeout();
+    if (callTimeout <= 0) {
+      return Long.MAX_VALUE;
+    }
+    return requestStartNanos + TimeUnit.MILLISECONDS.toNanos(callTimeout) - System.nanoTime();
+  }
+
+  static DeadlineExceededException deadlineExceeded(StripeRequest request, Throwable cause) {
+    return new DeadlineExceededException(
+        String.format(
+            "Request to Stripe (%s) did not complete within its call timeout of %d ms.",
+            request.url(), request.options().getCallTimeout()),
+        cause);
+  }
+
+  private void onRateLimiterResponse(StripeRequest request, AbstractStripeResponse<?> response) {
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter != null) {
+      rateLimiter.onResponse(request, response);
+    }
+  }
+
+  private StripeRequest withTelemetryHeader(StripeRequest request) {
+    Optional<String> telemetryHeaderValue = requestTelemetry.getHeaderValue(request.headers());
+    if (telemetryHeaderValue.isPresent()) {
+      request =
+          request.withAdditionalHeader(RequestTelemetry.HEADER_NAME, telemetryHeaderValue.get());
+    }
+    return request;
+  }
+
+  /**
+   * Returns the headers that identify this library to Stripe's API ({@code User-Agent} and {@code
+   * X-Stripe-Client-User-Agent}) along with the {@code Accept-Encoding} header. These are the same
+   * for all requests, so they are computed once and shared, and only rebuilt after {@link
+   * Stripe#setAppInfo} is called.
+   *
+   * @return an unmodifiable map of the header names to their values
+   */
+  static Map<String, String> getClientHeaders() {
+    Map<String, String> appInfo = Stripe.getAppInfo();
+    ClientHeaders cached = clientHeaders;
+    if (cached == null || cached.appInfo != appInfo) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      headers.put("User-Agent", buildUserAgentString(appInfo));
+      headers.put("X-Stripe-Client-User-Agent", buildXStripeClientUserAgentString(appInfo));
+      headers.put("Accept-Encoding", StripeResponseStream.ACCEPT_ENCODING);
+      cached = new ClientHeaders(appInfo, Collections.unmodifiableMap(headers));
+      clientHeaders = cached;
+    }
+    return cached.headers;
+  }
+
+  /**
+   * Builds the value of the {@code User-Agent} header.
+   *
+   * @return a string containing the value of the {@code User-Agent} header
+   */
+  protected static String buildUserAgentString() {
+    return buildUserAgentString(Stripe.getAppInfo());
   }
 
   /**
@@ -127,6 +945,20 @@ public abstract class HttpClient {
    * @return a string containing the value of the {@code X-Stripe-Client-User-Agent} header
    */
   protected static String buildXStripeClientUserAgentString() {
+    return buildXStripeClientUserAgentString(Stripe.getAppInfo());
+  }
+
+  private static String buildUserAgentString(Map<String, String> appInfo) {
+    String userAgent = String.format("Stripe/v1 JavaBindings/%s", Stripe.VERSION);
+
+    if (appInfo != null) {
+      userAgent += " " + formatAppInfo(appInfo);
+    }
+
+    return userAgent;
+  }
+
+  private static String buildXStripeClientUserAgentString(Map<String, String> appInfo) {
     String[] propertyNames = {
       "os.name",
       "os.version",
@@ -144,8 +976,8 @@ public abstract class HttpClient {
     propertyMap.put("bindings.version", Stripe.VERSION);
     propertyMap.put("lang", "Java");
     propertyMap.put("publisher", "Stripe");
-    if (Stripe.getAppInfo() != null) {
-      propertyMap.put("application", ApiResource.GSON.toJson(Stripe.getAppInfo()));
+    if (appInfo != null) {
+      propertyMap.put("application", ApiResource.GSON.toJson(appInfo));
     }
 
     return ApiResource.GSON.toJson(propertyMap);
@@ -165,11 +997,19 @@ public abstract class HttpClient {
     return str;
   }
 
-  private boolean shouldRetry(
-      int numRetries, StripeException exception, StripeRequest request, StripeResponse response) {
+  /**
+   * Returns the reason the given attempt should be retried for.
+   *
+   * @return the retry reason, or {@code null} if the attempt should not be retried
+   */
+  private RetryReason retryReason(
+      int numRetries,
+      StripeException exception,
+      StripeRequest request,
+      AbstractStripeResponse<?> response) {
     // Do not retry if we are out of retries.
     if (numRetries >= request.options().getMaxNetworkRetries()) {
-      return false;
+      return null;
     }
 
     // Retry on connection error.
@@ -177,7 +1017,7 @@ public abstract class HttpClient {
         && (exception.getCause() != null)
         && (exception.getCause() instanceof ConnectException
             || exception.getCause() instanceof SocketTimeoutException)) {
-      return true;
+      return RetryReason.CONNECTION_ERROR;
     }
 
     // The API may ask us not to retry (eg; if doing so would be a no-op)
@@ -186,17 +1026,23 @@ public abstract class HttpClient {
       String value = response.headers().firstValue("Stripe-Should-Retry").orElse(null);
 
       if ("true".equals(value)) {
-        return true;
+        return RetryReason.STRIPE_SHOULD_RETRY;
       }
 
       if ("false".equals(value)) {
-        return false;
+        return null;
       }
     }
 
+    // Retry on rate limited requests when a rate limiter is set, as it has lowered the rate and
+    // will space the next attempt accordingly.
+    if ((response != null) && (response.code() == 429) && (this.rateLimiter != null)) {
+      return RetryReason.RATE_LIMITED;
+    }
+
     // Retry on conflict errors.
     if ((response != null) && (response.code() == 409)) {
-      return true;
+      return RetryReason.CONFLICT;
     }
 
     // Retry on 500, 503, and other internal errors.
@@ -205,10 +1051,10 @@ public abstract class HttpClient {
     // in most cases when a 500 is returned, since our idempotency framework
     // would typically replay it anyway.
     if ((response != null) && (response.code() >= 500)) {
-      return true;
+      return RetryReason.SERVER_ERROR;
     }
 
-    return false;
+    return null;
   }
 
   private Duration sleepTime(int numRetries) {
@@ -238,4 +1084,76 @@ public abstract class HttpClient {
 
     return delay;
   }
+
+  /** The client headers computed for a given app info. */
+  private static final class ClientHeaders {
+    final Map<String, String> appInfo;
+    final Map<String, String> headers;
+
+    ClientHeaders(Map<String, String> appInfo, Map<String, String> headers) {
+      this.appInfo = appInfo;
+      this.headers = headers;
+    }
+  }
+
+  /**
+   * The interceptors added to a client, and the chains built from them. Attempt chains send each
+   * attempt, and are themselves called by the retry loop at the end of the request chains.
+   */
+  private final class Interceptors {
+    final List<Interceptor> callInterceptors;
+    final List<Interceptor> attemptInterceptors;
+    final InterceptorChain chain;
+    final InterceptorChain streamChain;
+
+    Interceptors(List<Interceptor> callInterceptors, List<Interceptor> attemptInterceptors) {
+      this.callInterceptors = Collections.unmodifiableList(new ArrayList<>(callInterceptors));
+      this.attemptInterceptors = Collections.unmodifiableList(new ArrayList<>(attemptInterceptors));
+
+      InterceptorChain attemptChain =
+          InterceptorChain.build(
+              this.attemptInterceptors, HttpClient.this::requestWithTelemetry, false);
+      InterceptorChain streamAttemptChain =
+          InterceptorChain.build(
+              this.attemptInterceptors, HttpClient.this::requestStreamWithTelemetry, true);
+      RequestSendFunction<StripeResponse> attempt =
+          attemptRequest -> toResponse(attemptChain.proceed(attemptRequest));
+      RequestSendFunction<StripeResponseStream> streamAttempt =
+          attemptRequest -> toResponseStream(streamAttemptChain.proceed(attemptRequest));
+
+      this.chain =
+          InterceptorChain.build(
+              this.callInterceptors,
+              request -> HttpClient.this.sendWithRetries(request, attempt),
+              false);
+      this.streamChain =
+          InterceptorChain.build(
+              this.callInterceptors,
+              request -> HttpClient.this.sendWithRetries(request, streamAttempt),
+              true);
+    }
+  }
+
+  @FunctionalInterface
+  interface RequestSendFunction<R> {
+    R apply(StripeRequest request) throws StripeException;
+  }
+
+  /** Lazily initialized executors shared by all clients that were not given their own. */
+  static class DefaultExecutors {
+    static final ExecutorService ASYNC_EXECUTOR =
+        Executors.newCachedThreadPool(daemonThreadFactory("stripe-async-request"));
+
+    static final ScheduledExecutorService RETRY_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("stripe-retry-scheduler"));
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      return runnable -> {
+        Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+  }
 }
@@ -2,13 +2,23 @@ package com.stripe.net;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Value;
 import lombok.experimental.Accessors;
 
@@ -20,15 +30,83 @@ import lombok.experimental.Accessors;
 @Value
 @Accessors(fluent = true)
 public class HttpContent {
-  /** The request's content, as a byte array. */
+  /** The request's content, as a byte array, or {@code null} if the content is streamed. */
+  @Getter(AccessLevel.NONE)
   byte[] byteArrayContent;
 
   /** The value of the {@code Content-Type} header. */
   String contentType;
 
+  /** The parts of streamed {@code multipart/form-data} content, or {@code null}. */
+  @Getter(AccessLevel.NONE)
+  Collection<KeyValuePair<String, Object>> multipartParts;
+
+  /** The boundary of streamed {@code multipart/form-data} content, or {@code null}. */
+  @Getter(AccessLevel.NONE)
+  String boundary;
+
+  /** The length of the request's content in bytes, or {@code -1} if unknown. */
+  long contentLength;
+
   private HttpContent(byte[] byteArrayContent, String contentType) {
     this.byteArrayContent = byteArrayContent;
     this.contentType = contentType;
+    this.multipartParts = null;
+    this.boundary = null;
+    this.contentLength = byteArrayContent.length;
+  }
+
+  private HttpContent(
+      Collection<KeyValuePair<String, Object>> multipartParts,
+      String boundary,
+      long contentLength) {
+    this.byteArrayContent = null;
+    this.contentType = String.format("multipart/form-data; boundary=%s", boundary);
+    this.multipartParts = multipartParts;
+    this.boundary = boundary;
+    this.contentLength = contentLength;
+  }
+
+  /**
+   * The request's content, as a byte array. Streamed content is read into memory each time this
+   * method is called; prefer {@link #writeTo(OutputStream)} to send it.
+   */
+  public byte[] byteArrayContent() {
+    if (this.byteArrayContent != null) {
+      return this.byteArrayContent;
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try {
+      this.writeTo(baos);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return baos.toByteArray();
+  }
+
+  /**
+   * Whether the request's content is written to the connection as it is read from its sources (e.g.
+   * files), rather than held in memory.
+   */
+  public boolean isStreamed() {
+    return this.byteArrayContent == null;
+  }
+
+  /**
+   * Writes the request's content to the given stream. Streamed content reads its files at this
+   * point, so this can be called again if the request needs to be retried.
+   *
+   * @param outputStream the stream to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    if (this.byteArrayContent != null) {
+      outputStream.write(this.byteArrayContent);
+      return;
+    }
+
+    writeMultipart(outputStream, this.multipartParts, this.boundary, true);
   }
 
   /**
@@ -93,6 +171,10 @@ public class HttpContent {
         if (value instanceof File) {
           File file = (File) value;
           multipartProcessor.addFileField(key, file.getName(), new FileInputStream(file));
+        } else if (value instanceof Path) {
+          Path path = (Path) value;
+          multipartProcessor.addFileField(
+              key, path.getFileName().toString(), Files.newInputStream(path));
         } else if (value instanceof InputStream) {
           multipartProcessor.addFileField(key, "blob", (InputStream) value);
         } else {
@@ -108,4 +190,116 @@ public class HttpContent {
     return new HttpContent(
         baos.toByteArray(), String.format("multipart/form-data; boundary=%s", boundary));
   }
+
+  /**
+   * Builds a new HttpContent for name/value tuples encoded using {@code multipart/form-data} MIME
+   * type, which is streamed to the connection when the request is sent instead of being held in
+   * memory. Files are read each time the content is written, which lets the request be retried.
+   *
+   * @param nameValueCollection the collection of name/value tuples to encode, whose values must be
+   *     {@link String}, {@link File} or {@link Path} instances
+   * @return the encoded HttpContent instance
+   * @throws IllegalArgumentException if a value is not a {@link String}, {@link File} or {@link
+   *     Path}
+   * @throws IOException if the size of a file cannot be read
+   */
+  public static HttpContent buildStreamingMultipartFormDataContent(
+      Collection<KeyValuePair<String, Object>> nameValueCollection) throws IOException {
+    String boundary = UUID.randomUUID().toString();
+    return buildStreamingMultipartFormDataContent(nameValueCollection, boundary);
+  }
+
+  /**
+   * Builds a new HttpContent for name/value tuples encoded using {@code multipart/form-data} MIME
+   * type, which is streamed to the connection when the request is sent instead of being held in
+   * memory. Files are read each time the content is written, which lets the request be retried.
+   *
+   * @param nameValueCollection the collection of name/value tuples to encode, whose values must be
+   *     {@link String}, {@link File} or {@link Path} instances
+   * @param boundary the boundary
+   * @return the encoded HttpContent instance
+   * @throws IllegalArgumentException if a value is not a {@link String}, {@link File} or {@link
+   *     Path}
+   * @throws IOException if the size of a file cannot be read
+   */
+  public static HttpContent buildStreamingMultipartFormDataContent(
+      Collection<KeyValuePair<String, Object>> nameValueCollection, String boundary)
+      throws IOException {
+    requireNonNull(nameValueCollection);
+
+    List<KeyValuePair<String, Object>> parts = new ArrayList<>(nameValueCollection);
+    for (KeyValuePair<String, Object> entry : parts) {
+      Object value = entry.getValue();
+      if (!(value instanceof String || value instanceof File || value instanceof Path)) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Streamed multipart content only supports String, File and Path values, but the "
+                    + "value of `%s` is a %s.",
+                entry.getKey(), (value == null) ? "null" : value.getClass().getName()));
+      }
+    }
+
+    // Measure the multipart framing, then add the size of the files, so that the content can be
+    // sent with a fixed length.
+    CountingOutputStream counter = new CountingOutputStream();
+    writeMultipart(counter, parts, boundary, false);
+    long contentLength = counter.count;
+    for (KeyValuePair<String, Object> entry : parts) {
+      if (entry.getValue() instanceof File) {
+        contentLength += Files.size(((File) entry.getValue()).toPath());
+      } else if (entry.getValue() instanceof Path) {
+        contentLength += Files.size((Path) entry.getValue());
+      }
+    }
+
+    return new HttpContent(Collections.unmodifiableList(parts), boundary, contentLength);
+  }
+
+  private static void writeMultipart(
+      OutputStream outputStream,
+      Collection<KeyValuePair<String, Object>> parts,
+      String boundary,
+      boolean withFileContents)
+      throws IOException {
+    MultipartProcessor multipartProcessor = null;
+    try {
+      multipartProcessor = new MultipartProcessor(outputStream, boundary, ApiResource.CHARSET);
+
+      for (KeyValuePair<String, Object> entry : parts) {
+        String key = entry.getKey();
+        Object value = entry.getValue();
+
+        if (value instanceof String) {
+          multipartProcessor.addFormField(key, (String) value);
+          continue;
+        }
+
+        Path path = (value instanceof File) ? ((File) value).toPath() : (Path) value;
+        String fileName = path.getFileName().toString();
+        if (withFileContents) {
+          multipartProcessor.addFileField(key, fileName, path);
+        } else {
+          multipartProcessor.addFileField(key, fileName, new ByteArrayInputStream(new byte[0]));
+        }
+      }
+    } finally {
+      if (multipartProcessor != null) {
+        multipartProcessor.finish();
+      }
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
 }
@@ -2,15 +2,12 @@ package com.stripe.net;
 
 import com.stripe.Stripe;
 import com.stripe.exception.ApiConnectionException;
-import com.stripe.util.StreamUtils;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.Authenticator;
 import java.net.HttpURLConnection;
-import java.net.PasswordAuthentication;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import lombok.Cleanup;
@@ -30,47 +27,67 @@ public class HttpURLConnectionClient extends HttpClient {
    */
   @Override
   public StripeResponse request(StripeRequest request) throws ApiConnectionException {
+    final StripeResponseStream responseStream = this.requestStream(request);
+    try {
+      return responseStream.unstream();
+    } catch (IOException e) {
+      throw buildConnectionException(e);
+    }
+  }
+
+  /**
+   * Sends the given request to Stripe's API, and returns a response whose body is read directly
+   * from the connection. The caller is responsible for closing the body of the returned response.
+   *
+   * @param request the request
+   * @return the response
+   * @throws ApiConnectionException if an error occurs when sending the request or receiving the
+   *     response headers
+   */
+  @Override
+  public StripeResponseStream requestStream(StripeRequest request) throws ApiConnectionException {
     try {
       final HttpURLConnection conn = createStripeConnection(request);
 
+      // Connecting explicitly tells the connection time apart from the time to first byte.
+      final long startNanos = System.nanoTime();
+      conn.connect();
+      final Duration connectDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+      writeContent(conn, request);
+
       // Calling `getResponseCode()` triggers the request.
       final int responseCode = conn.getResponseCode();
+      final Duration timeToFirstByte = Duration.ofNanos(System.nanoTime() - startNanos);
 
       final HttpHeaders headers = HttpHeaders.of(conn.getHeaderFields());
 
-      final InputStream responseStream =
+      InputStream responseStream =
           (responseCode >= 200 && responseCode < 300)
               ? conn.getInputStream()
               : conn.getErrorStream();
 
-      final String responseBody = StreamUtils.readToEnd(responseStream, ApiResource.CHARSET);
-
-      responseStream.close();
-
-      return new StripeResponse(responseCode, headers, responseBody);
+      // The error stream is null when the server did not send any body.
+      if (responseStream == null) {
+        responseStream = new ByteArrayInputStream(new byte[0]);
+      }
+
+      try {
+        StripeResponseStream response =
+            StripeResponseStream.decode(responseCode, headers, responseStream);
+        response.connectDuration(connectDuration);
+        response.timeToFirstByte(timeToFirstByte);
+        return response;
+      } catch (IOException e) {
+        responseStream.close();
+        throw e;
+      }
 
     } catch (IOException e) {
-      throw new ApiConnectionException(
-          String.format(
-              "IOException during API request to Stripe (%s): %s "
-                  + "Please check your internet connection and try again. If this problem persists,"
-                  + "you should check Stripe's service status at https://twitter.com/stripestatus,"
-                  + " or let us know at support@stripe.com.",
-              Stripe.getApiBase(), e.getMessage()),
-          e);
+      throw buildConnectionException(e);
     }
   }
 
-  static HttpHeaders getHeaders(StripeRequest request) {
-    Map<String, List<String>> userAgentHeadersMap = new HashMap<>();
-
-    userAgentHeadersMap.put("User-Agent", Arrays.asList(buildUserAgentString()));
-    userAgentHeadersMap.put(
-        "X-Stripe-Client-User-Agent", Arrays.asList(buildXStripeClientUserAgentString()));
-
-    return request.headers().withAdditionalHeaders(userAgentHeadersMap);
-  }
-
   private static HttpURLConnection createStripeConnection(StripeRequest request)
       throws IOException, ApiConnectionException {
     HttpURLConnection conn = null;
@@ -78,13 +95,8 @@ public class HttpURLConnectionClient extends HttpClient {
     if (request.options().getConnectionProxy() != null) {
       conn =
           (HttpURLConnection) request.url().openConnection(request.options().getConnectionProxy());
-      Authenticator.setDefault(
-          new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-              return request.options().getProxyCredential();
-            }
-          });
+      ProxyAuthenticators.apply(
+          conn, request.options().getConnectionProxy(), request.options().getProxyCredential());
     } else {
       conn = (HttpURLConnection) request.url().openConnection();
     }
@@ -92,9 +104,12 @@ public class HttpURLConnectionClient extends HttpClient {
     conn.setConnectTimeout(request.options().getConnectTimeout());
     conn.setReadTimeout(request.options().getReadTimeout());
     conn.setUseCaches(false);
-    for (Map.Entry<String, List<String>> entry : getHeaders(request).map().entrySet()) {
+    for (Map.Entry<String, List<String>> entry : request.headers().map().entrySet()) {
       conn.setRequestProperty(entry.getKey(), String.join(",", entry.getValue()));
     }
+    for (Map.Entry<String, String> entry : getClientHeaders().entrySet()) {
+      conn.setRequestProperty(entry.getKey(), entry.getValue());
+    }
 
     conn.setRequestMethod(request.method().name());
 
@@ -102,10 +117,35 @@ public class HttpURLConnectionClient extends HttpClient {
       conn.setDoOutput(true);
       conn.setRequestProperty("Content-Type", request.content().contentType());
 
-      @Cleanup OutputStream output = conn.getOutputStream();
-      output.write(request.content().byteArrayContent());
+      if (request.content().isStreamed()) {
+        // Send the content as it is written instead of buffering it in the connection.
+        if (request.content().contentLength() >= 0) {
+          conn.setFixedLengthStreamingMode(request.content().contentLength());
+        } else {
+          conn.setChunkedStreamingMode(0);
+        }
+      }
     }
 
     return conn;
   }
+
+  private static void writeContent(HttpURLConnection conn, StripeRequest request)
+      throws IOException {
+    if (request.content() != null) {
+      @Cleanup OutputStream output = conn.getOutputStream();
+      request.content().writeTo(output);
+    }
+  }
+
+  private static ApiConnectionException buildConnectionException(IOException e) {
+    return new ApiConnectionException(
+        String.format(
+            "IOException during API request to Stripe (%s): %s "
+                + "Please check your internet connection and try again. If this problem persists,"
+                + "you should check Stripe's service status at https://twitter.com/stripestatus,"
+                + " or let us know at support@stripe.com.",
+            Stripe.getApiBase(), e.getMessage()),
+        e);
+  }
 }
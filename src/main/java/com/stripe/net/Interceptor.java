@@ -0,0 +1,72 @@
+package com.stripe.net;
+
+import com.stripe.exception.StripeException;
+
+/**
+ * Observes, modifies or short-circuits the requests sent by an {@link HttpClient}.
+ *
+ * <p>Interceptors are added to a client either around the whole request with its retries, with
+ * {@link HttpClient#addInterceptor(Interceptor)}, or around each attempt, with {@link
+ * HttpClient#addAttemptInterceptor(Interceptor)}. They are called in the order they were added,
+ * each one passing the request on to the next with {@link Chain#proceed(StripeRequest)}:
+ *
+ * <pre>{@code
+ * client.addInterceptor(
+ *     (request, chain) -> {
+ *       long start = System.nanoTime();
+ *       AbstractStripeResponse<?> response = chain.proceed(request);
+ *       logger.info("{} {} took {}ns", request.method(), request.url(), System.nanoTime() - start);
+ *       return response;
+ *     });
+ * }</pre>
+ *
+ * <p>An interceptor may pass on a modified request, e.g. {@link
+ * StripeRequest#withAdditionalHeader(String, String) with an additional header}, return a response
+ * without calling {@link Chain#proceed(StripeRequest)}, e.g. to serve it from a cache, or throw a
+ * {@link StripeException} to reject the request.
+ *
+ * <p>The response is a {@link StripeResponseStream} when the caller streams the response body, as
+ * told by {@link Chain#isStreaming()}, and a {@link StripeResponse} otherwise. Interceptors may
+ * return either kind: the client converts the returned response to the kind its caller expects.
+ * Interceptors that replace a streamed response must close the body of the response they discard.
+ *
+ * <p>Interceptors are called concurrently by all the threads sending requests through the client,
+ * and must be thread-safe.
+ */
+@FunctionalInterface
+public interface Interceptor {
+  /**
+   * Intercepts the given request.
+   *
+   * @param request the request, as passed on by the previous interceptor
+   * @param chain the rest of the chain, which sends the request
+   * @return the response, must not be {@code null}
+   * @throws StripeException if the request fails or is rejected
+   */
+  AbstractStripeResponse<?> intercept(StripeRequest request, Chain chain) throws StripeException;
+
+  /**
+   * The interceptors following an interceptor, and ultimately the client sending the request.
+   *
+   * <p>Chains are built once when interceptors are added, and shared by all requests: the request
+   * is passed along the chain explicitly rather than held by it.
+   */
+  interface Chain {
+    /**
+     * Passes the request on to the next interceptor, or sends it if there is none left.
+     *
+     * @param request the request
+     * @return the response
+     * @throws StripeException if the request fails for any reason
+     */
+    AbstractStripeResponse<?> proceed(StripeRequest request) throws StripeException;
+
+    /**
+     * Returns whether the caller streams the response body, i.e. whether {@link
+     * #proceed(StripeRequest)} returns a {@link StripeResponseStream}.
+     *
+     * @return {@code true} if the response body is streamed
+     */
+    boolean isStreaming();
+  }
+}
@@ -0,0 +1,68 @@
+package com.stripe.net;
+
+import com.stripe.exception.StripeException;
+import java.util.List;
+
+/**
+ * A link of an immutable chain of interceptors. Each link calls its interceptor with the next link
+ * as chain, and the last link sends the request. Links are built once for a list of interceptors,
+ * so that running the chain does not allocate anything.
+ */
+final class InterceptorChain implements Interceptor.Chain {
+  private final Interceptor interceptor;
+
+  private final InterceptorChain next;
+
+  private final HttpClient.RequestSendFunction<? extends AbstractStripeResponse<?>> send;
+
+  private final boolean streaming;
+
+  private InterceptorChain(
+      Interceptor interceptor,
+      InterceptorChain next,
+      HttpClient.RequestSendFunction<? extends AbstractStripeResponse<?>> send,
+      boolean streaming) {
+    this.interceptor = interceptor;
+    this.next = next;
+    this.send = send;
+    this.streaming = streaming;
+  }
+
+  /**
+   * Builds the chain running the given interceptors in order, then the given send function.
+   *
+   * @param interceptors the interceptors
+   * @param send the function sending the request once all interceptors proceeded
+   * @param streaming whether the send function returns a {@link StripeResponseStream}
+   * @return the first link of the chain
+   */
+  static InterceptorChain build(
+      List<Interceptor> interceptors,
+      HttpClient.RequestSendFunction<? extends AbstractStripeResponse<?>> send,
+      boolean streaming) {
+    InterceptorChain chain = new InterceptorChain(null, null, send, streaming);
+    for (int i = interceptors.size() - 1; i >= 0; i--) {
+      chain = new InterceptorChain(interceptors.get(i), chain, null, streaming);
+    }
+    return chain;
+  }
+
+  @Override
+  public AbstractStripeResponse<?> proceed(StripeRequest request) throws StripeException {
+    if (this.interceptor == null) {
+      return this.send.apply(request);
+    }
+
+    AbstractStripeResponse<?> response = this.interceptor.intercept(request, this.next);
+    if (response == null) {
+      throw new IllegalStateException(
+          String.format("Interceptor %s returned a null response.", this.interceptor));
+    }
+    return response;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return this.streaming;
+  }
+}
@@ -0,0 +1,263 @@
+package com.stripe.net;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * JSON reader that records the JSON tree of the values it reads, including the ones that are
+ * skipped. This lets a response be deserialized into a typed object and into a {@link JsonObject}
+ * in a single pass over its body.
+ */
+class JsonTreeRecordingReader extends JsonReader {
+  /** The objects and arrays being read, innermost first. */
+  private final Deque<JsonElement> containers = new ArrayDeque<>();
+
+  /** The name of the next member of the innermost object, or {@code null} if not read yet. */
+  private String pendingName;
+
+  private JsonElement root;
+
+  JsonTreeRecordingReader(Reader in) {
+    super(in);
+  }
+
+  /**
+   * Returns the tree of the first value read.
+   *
+   * @return the tree, or {@code null} if no value was read completely
+   */
+  JsonElement getRecordedTree() {
+    return containers.isEmpty() ? root : null;
+  }
+
+  @Override
+  public void beginArray() throws IOException {
+    super.beginArray();
+    JsonArray array = new JsonArray();
+    record(array);
+    containers.push(array);
+  }
+
+  @Override
+  public void endArray() throws IOException {
+    super.endArray();
+    containers.pop();
+  }
+
+  @Override
+  public void beginObject() throws IOException {
+    super.beginObject();
+    JsonObject object = new JsonObject();
+    record(object);
+    containers.push(object);
+  }
+
+  @Override
+  public void endObject() throws IOException {
+    super.endObject();
+    containers.pop();
+  }
+
+  @Override
+  public String nextName() throws IOException {
+    String name = super.nextName();
+    pendingName = name;
+    return name;
+  }
+
+  @Override
+  public String nextString() throws IOException {
+    if (expectsName()) {
+      // The name of a map entry, which the map adapter reads as a value.
+      String name = super.nextString();
+      pendingName = name;
+      return name;
+    }
+    JsonToken token = peek();
+    String value = super.nextString();
+    record(
+        (token == JsonToken.NUMBER)
+            ? new JsonPrimitive(new NumberLiteral(value))
+            : new JsonPrimitive(value));
+    return value;
+  }
+
+  @Override
+  public boolean nextBoolean() throws IOException {
+    boolean value = super.nextBoolean();
+    record(new JsonPrimitive(value));
+    return value;
+  }
+
+  @Override
+  public void nextNull() throws IOException {
+    super.nextNull();
+    record(JsonNull.INSTANCE);
+  }
+
+  @Override
+  public double nextDouble() throws IOException {
+    if (!isNumberOrString()) {
+      return super.nextDouble();
+    }
+    String literal = nextString();
+    double value = Double.parseDouble(literal);
+    if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+      throw new MalformedJsonException("JSON forbids NaN and infinities: " + value);
+    }
+    return value;
+  }
+
+  @Override
+  public long nextLong() throws IOException {
+    if (!isNumberOrString()) {
+      return super.nextLong();
+    }
+    return parseLong(nextString());
+  }
+
+  @Override
+  public int nextInt() throws IOException {
+    if (!isNumberOrString()) {
+      return super.nextInt();
+    }
+    long value = parseLong(nextString());
+    if (value != (int) value) {
+      throw new NumberFormatException("Expected an int but was " + value);
+    }
+    return (int) value;
+  }
+
+  @Override
+  public void skipValue() throws IOException {
+    switch (peek()) {
+      case BEGIN_ARRAY:
+        beginArray();
+        while (hasNext()) {
+          skipValue();
+        }
+        endArray();
+        break;
+      case BEGIN_OBJECT:
+        beginObject();
+        while (hasNext()) {
+          nextName();
+          skipValue();
+        }
+        endObject();
+        break;
+      case NAME:
+        nextName();
+        skipValue();
+        break;
+      case STRING:
+      case NUMBER:
+        nextString();
+        break;
+      case BOOLEAN:
+        nextBoolean();
+        break;
+      case NULL:
+        nextNull();
+        break;
+      default:
+        super.skipValue();
+        break;
+    }
+  }
+
+  private boolean expectsName() {
+    return (containers.peek() instanceof JsonObject) && (pendingName == null);
+  }
+
+  private boolean isNumberOrString() throws IOException {
+    JsonToken token = peek();
+    return (token == JsonToken.NUMBER) || (token == JsonToken.STRING);
+  }
+
+  private void record(JsonElement value) {
+    JsonElement container = containers.peek();
+    if (container == null) {
+      if (root == null) {
+        root = value;
+      }
+    } else if (container instanceof JsonArray) {
+      ((JsonArray) container).add(value);
+    } else {
+      ((JsonObject) container).add(pendingName, value);
+      pendingName = null;
+    }
+  }
+
+  private static long parseLong(String literal) {
+    try {
+      return Long.parseLong(literal);
+    } catch (NumberFormatException e) {
+      // Like JsonReader, accept numbers such as 1.0 or 1e3 that have an exact long value.
+      BigDecimal value = new BigDecimal(literal);
+      try {
+        return value.longValueExact();
+      } catch (ArithmeticException notExact) {
+        throw new NumberFormatException("Expected a long but was " + literal);
+      }
+    }
+  }
+
+  /**
+   * A JSON number kept as its literal, so that the recorded tree prints numbers as they were in
+   * the body.
+   */
+  private static final class NumberLiteral extends Number {
+    private static final long serialVersionUID = 1L;
+
+    private final String value;
+
+    NumberLiteral(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public int intValue() {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        return (int) longValue();
+      }
+    }
+
+    @Override
+    public long longValue() {
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        return new BigDecimal(value).longValue();
+      }
+    }
+
+    @Override
+    public float floatValue() {
+      return Float.parseFloat(value);
+    }
+
+    @Override
+    public double doubleValue() {
+      return Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+      return value;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations, with log-linear buckets.
+ *
+ * <p>Each power of two is split into 32 linear buckets, so that any recorded duration is reported
+ * with a relative error below 1/32 (about 3%), whatever its magnitude, using a fixed amount of
+ * memory. Recording a duration is a single atomic increment.
+ *
+ * <p>Histograms are mergeable: the histograms of several endpoints, or of several processes, can be
+ * {@link #add(LatencyHistogram) added} together to get the percentiles of their combined durations.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+
+  /** The number of linear buckets per power of two. */
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Values below {@link #SUB_BUCKETS} have a bucket each, then each power of two has its own. */
+  private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a duration.
+   *
+   * @param duration the duration, negative durations are recorded as zero
+   */
+  public void record(Duration duration) {
+    this.recordNanos(duration.toNanos());
+  }
+
+  /**
+   * Records a duration in nanoseconds.
+   *
+   * @param nanos the duration in nanoseconds, negative durations are recorded as zero
+   */
+  public void recordNanos(long nanos) {
+    long value = Math.max(0, nanos);
+    this.buckets.incrementAndGet(bucketIndex(value));
+    this.count.increment();
+    this.sum.add(value);
+    this.max.accumulate(value);
+  }
+
+  /**
+   * Adds the durations recorded by the given histogram to this histogram.
+   *
+   * @param other the histogram to add
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long bucketCount = other.buckets.get(i);
+      if (bucketCount > 0) {
+        this.buckets.addAndGet(i, bucketCount);
+        this.count.add(bucketCount);
+      }
+    }
+    this.sum.add(other.sum.sum());
+    this.max.accumulate(other.max.get());
+  }
+
+  /**
+   * Returns the number of recorded durations.
+   *
+   * @return the number of recorded durations
+   */
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  /**
+   * Returns the longest recorded duration.
+   *
+   * @return the longest recorded duration, or zero if none was recorded
+   */
+  public Duration getMax() {
+    return Duration.ofNanos(this.max.get());
+  }
+
+  /**
+   * Returns the mean of the recorded durations.
+   *
+   * @return the mean duration, or zero if none was recorded
+   */
+  public Duration getMean() {
+    long countValue = this.count.sum();
+    return (countValue > 0) ? Duration.ofNanos(this.sum.sum() / countValue) : Duration.ZERO;
+  }
+
+  /**
+   * Returns the duration below which the given fraction of the recorded durations fall, e.g. the
+   * median for {@code 0.5} or the 99.9th percentile for {@code 0.999}.
+   *
+   * @param percentile the percentile, between 0 and 1
+   * @return the duration at the given percentile, or zero if none was recorded
+   */
+  public Duration getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("percentile must be between 0 and 1.");
+    }
+
+    // Buckets are read one by one while durations may still be recorded, so the rank is computed
+    // from their own sum rather than from the count.
+    long[] snapshot = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = this.buckets.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return Duration.ZERO;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    if (rank >= total) {
+      return this.getMax();
+    }
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Duration.ofNanos(Math.min(bucketMidpoint(i), this.max.get()));
+      }
+    }
+    return this.getMax();
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketMidpoint(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+    return lowerBound + ((1L << shift) >>> 1);
+  }
+}
@@ -1,7 +1,12 @@
 package com.stripe.net;
 
-import com.google.gson.JsonObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
 import com.stripe.exception.ApiException;
 import com.stripe.exception.AuthenticationException;
 import com.stripe.exception.CardException;
@@ -16,18 +21,26 @@ import com.stripe.exception.oauth.InvalidScopeException;
 import com.stripe.exception.oauth.OAuthException;
 import com.stripe.exception.oauth.UnsupportedGrantTypeException;
 import com.stripe.exception.oauth.UnsupportedResponseTypeException;
+import com.stripe.model.LazyListTypeAdapterFactory;
 import com.stripe.model.StripeError;
 import com.stripe.model.StripeObject;
 import com.stripe.model.StripeObjectInterface;
 import com.stripe.model.oauth.OAuthError;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class LiveStripeResponseGetter implements StripeResponseGetter {
   private final HttpClient httpClient;
 
+  private final HttpClient defaultHttpClient;
+
   /**
    * Initializes a new instance of the {@link LiveStripeResponseGetter} class with default
-   * parameters.
+   * parameters. Requests are sent with the HTTP client set by {@link Stripe#setHttpClient}, if any.
    */
   public LiveStripeResponseGetter() {
     this(null);
@@ -39,7 +52,8 @@ public class LiveStripeResponseGetter implements StripeResponseGetter {
    * @param httpClient the HTTP client to use
    */
   public LiveStripeResponseGetter(HttpClient httpClient) {
-    this.httpClient = (httpClient != null) ? httpClient : buildDefaultHttpClient();
+    this.httpClient = httpClient;
+    this.defaultHttpClient = (httpClient != null) ? null : buildDefaultHttpClient();
   }
 
   @Override
@@ -51,26 +65,64 @@ public class LiveStripeResponseGetter implements StripeResponseGetter {
       RequestOptions options)
       throws StripeException {
     StripeRequest request = new StripeRequest(method, url, params, options);
-    StripeResponse response = httpClient.requestWithRetries(request);
 
-    int responseCode = response.code();
-    String responseBody = response.body();
-    String requestId = response.requestId();
+    if (request.options().isResponseStreamingEnabled()) {
+      StripeResponseStream responseStream = getHttpClient().requestStreamWithRetries(request);
 
-    if (responseCode < 200 || responseCode >= 300) {
-      handleApiError(response);
+      return processResponseStream(responseStream, clazz, request.options());
     }
 
-    T resource = null;
+    StripeResponse response = getHttpClient().requestWithRetries(request);
+
+    return processResponse(response, clazz, request.options());
+  }
+
+  @Override
+  public <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    StripeRequest request;
     try {
-      resource = ApiResource.GSON.fromJson(responseBody, clazz);
-    } catch (JsonSyntaxException e) {
-      raiseMalformedJsonError(responseBody, responseCode, requestId, e);
+      request = new StripeRequest(method, url, params, options);
+    } catch (StripeException e) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
     }
 
-    resource.setLastResponse(response);
+    return getHttpClient()
+        .requestWithRetriesAsync(request)
+        .thenCompose(
+            response -> {
+              CompletableFuture<T> future = new CompletableFuture<>();
+              try {
+                future.complete(processResponse(response, clazz, request.options()));
+              } catch (StripeException e) {
+                future.completeExceptionally(e);
+              }
+              return future;
+            });
+  }
 
-    return resource;
+  @Override
+  public StripeResponseStream requestStream(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      RequestOptions options)
+      throws StripeException {
+    StripeRequest request = new StripeRequest(method, url, params, options);
+    StripeResponseStream responseStream = getHttpClient().requestStreamWithRetries(request);
+
+    int responseCode = responseStream.code();
+    if (responseCode < 200 || responseCode >= 300) {
+      handleApiError(unstream(responseStream));
+    }
+
+    return responseStream;
   }
 
   @Override
@@ -82,7 +134,7 @@ public class LiveStripeResponseGetter implements StripeResponseGetter {
       RequestOptions options)
       throws StripeException {
     StripeRequest request = new StripeRequest(method, url, params, options);
-    StripeResponse response = this.httpClient.requestWithRetries(request);
+    StripeResponse response = getHttpClient().requestWithRetries(request);
 
     int responseCode = response.code();
     String responseBody = response.body();
@@ -101,12 +153,159 @@ public class LiveStripeResponseGetter implements StripeResponseGetter {
 
     if (resource instanceof StripeObject) {
       StripeObject obj = (StripeObject) resource;
-      obj.setLastResponse(response);
+      obj.setLastResponse(retainedResponse(response, request.options()));
+    }
+
+    return resource;
+  }
+
+  /** Returns the Gson instance to deserialize the responses to requests with the given options. */
+  static Gson gson(RequestOptions options) {
+    return options.isLazyDeserializationEnabled() ? ApiResource.LAZY_GSON : ApiResource.GSON;
+  }
+
+  /** Reads the body of a streamed response, e.g. of an error, into a string. */
+  private static StripeResponse unstream(StripeResponseStream responseStream)
+      throws ApiConnectionException {
+    try {
+      return responseStream.unstream();
+    } catch (IOException e) {
+      throw new ApiConnectionException(
+          String.format(
+              "IOException while reading response from Stripe (%s): %s",
+              Stripe.getApiBase(), e.getMessage()),
+          e);
+    }
+  }
+
+  /** Returns what the returned resource retains of the response, according to the options. */
+  private static StripeResponse retainedResponse(StripeResponse response, RequestOptions options) {
+    switch (options.getResponseRetention()) {
+      case NONE:
+        return null;
+      case HEADERS_ONLY:
+        return response.withoutBody();
+      default:
+        return response;
+    }
+  }
+
+  /**
+   * Returns a JSON reader of the given body, which records the JSON it reads if enabled by the
+   * options.
+   */
+  private static JsonReader jsonReader(Reader body, RequestOptions options) {
+    return options.isRawJsonRecordingEnabled()
+        ? new JsonTreeRecordingReader(body)
+        : new JsonReader(body);
+  }
+
+  /**
+   * Deserializes the resource from the given reader. If the reader records the JSON it reads, the
+   * JSON of the body is kept on the response, for {@link StripeObject#getRawJsonObject()}.
+   */
+  private static <T> T fromJson(
+      JsonReader reader, Class<T> clazz, RequestOptions options, StripeResponse response) {
+    T resource = gson(options).fromJson(reader, clazz);
+    if (reader instanceof JsonTreeRecordingReader) {
+      JsonElement tree = ((JsonTreeRecordingReader) reader).getRecordedTree();
+      if (tree != null && tree.isJsonObject()) {
+        response.jsonBody(tree.getAsJsonObject());
+      }
+    }
+    return resource;
+  }
+
+  private static <T extends StripeObjectInterface> T processResponse(
+      StripeResponse response, Class<T> clazz, RequestOptions options) throws StripeException {
+    int responseCode = response.code();
+    String responseBody = response.body();
+    String requestId = response.requestId();
+
+    if (responseCode < 200 || responseCode >= 300) {
+      handleApiError(response);
+    }
+
+    T resource = null;
+    try {
+      if (options.isRawJsonRecordingEnabled()) {
+        // The recording reader parses the whole body, so lists are read eagerly even if lazy
+        // deserialization is enabled: it does not locate their elements in the body.
+        resource =
+            fromJson(jsonReader(new StringReader(responseBody), options), clazz, options, response);
+      } else if (options.isLazyDeserializationEnabled()) {
+        // Lists are only read lazily from this reader, which locates their elements in the body.
+        resource =
+            ApiResource.LAZY_GSON.fromJson(
+                LazyListTypeAdapterFactory.jsonReader(responseBody), clazz);
+      } else {
+        resource = gson(options).fromJson(responseBody, clazz);
+      }
+    } catch (JsonSyntaxException e) {
+      raiseMalformedJsonError(responseBody, responseCode, requestId, e);
+    }
+
+    resource.setLastResponse(retainedResponse(response, options));
+
+    return resource;
+  }
+
+  /**
+   * Deserializes the resource directly from the body stream, without retaining the body. Error
+   * responses are small and are read into a string so that they can be reported in full.
+   */
+  private static <T extends StripeObjectInterface> T processResponseStream(
+      StripeResponseStream responseStream, Class<T> clazz, RequestOptions options)
+      throws StripeException {
+    int responseCode = responseStream.code();
+
+    if (responseCode < 200 || responseCode >= 300) {
+      handleApiError(unstream(responseStream));
     }
 
+    StripeResponse response =
+        StripeResponse.withoutBody(responseStream.code(), responseStream.headers());
+    T resource = null;
+    try (JsonReader reader =
+        jsonReader(
+            new InputStreamReader(responseStream.body(), ApiResource.CHARSET), options)) {
+      resource = fromJson(reader, clazz, options, response);
+    } catch (JsonIOException e) {
+      throw new ApiConnectionException(
+          String.format(
+              "IOException while reading response from Stripe (%s): %s",
+              Stripe.getApiBase(), e.getMessage()),
+          e);
+    } catch (JsonSyntaxException e) {
+      raiseMalformedJsonError("(streamed body)", responseCode, responseStream.requestId(), e);
+    } catch (IOException e) {
+      // Failure to close the body stream does not affect the already deserialized resource.
+    }
+
+    if (resource == null) {
+      raiseMalformedJsonError("(empty body)", responseCode, responseStream.requestId(), null);
+    }
+
+    response.compressedSize(responseStream.compressedSize());
+    response.uncompressedSize(responseStream.uncompressedSize());
+    resource.setLastResponse(retainedResponse(response, options));
+
     return resource;
   }
 
+  private HttpClient getHttpClient() {
+    if (this.httpClient != null) {
+      return this.httpClient;
+    }
+
+    HttpClient globalHttpClient = Stripe.getHttpClient();
+    if (globalHttpClient != null) {
+      return globalHttpClient;
+    }
+
+    return this.defaultHttpClient;
+  }
+
   private static HttpClient buildDefaultHttpClient() {
     return new HttpURLConnectionClient();
   }
@@ -124,15 +323,36 @@ public class LiveStripeResponseGetter implements StripeResponseGetter {
         e);
   }
 
+  /**
+   * Reads the {@code error} member of the body of an error response, in a single pass over the
+   * body, without building its JSON tree.
+   *
+   * @return the error, or {@code null} if the body has none
+   * @throws IOException if the body is not valid JSON
+   * @throws IllegalStateException if the body is not an object, or its error is not an error
+   */
+  private static StripeError readError(String body) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(body));
+    StripeError error = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("error".equals(reader.nextName())) {
+        error = ApiResource.GSON.getAdapter(StripeError.class).read(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return error;
+  }
+
   private static void handleApiError(StripeResponse response) throws StripeException {
     StripeError error = null;
     StripeException exception = null;
 
     try {
-      JsonObject jsonObject =
-          ApiResource.GSON.fromJson(response.body(), JsonObject.class).getAsJsonObject("error");
-      error = ApiResource.GSON.fromJson(jsonObject, StripeError.class);
-    } catch (JsonSyntaxException e) {
+      error = readError(response.body());
+    } catch (IOException | IllegalStateException e) {
       raiseMalformedJsonError(response.body(), response.code(), response.requestId(), e);
     }
     if (error == null) {
@@ -6,7 +6,12 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class MultipartProcessor {
   private final String boundary;
@@ -48,6 +53,46 @@ public class MultipartProcessor {
    */
   public void addFileField(String name, String fileName, InputStream inputStream)
       throws IOException {
+    writeFileFieldHeader(name, fileName);
+
+    streamToOutput(inputStream);
+
+    writer.append(LINE_BREAK);
+    writer.flush();
+  }
+
+  /**
+   * Adds a file field to the multipart message, copying the file's contents straight to the
+   * outputStream without reading them into memory.
+   *
+   * @param name Field name
+   * @param fileName Name of the "file" being uploaded.
+   * @param path Path of the file to upload.
+   * @throws IOException Thrown when writing / reading from streams fails.
+   */
+  public void addFileField(String name, String fileName, Path path) throws IOException {
+    writeFileFieldHeader(name, fileName);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(outputStream);
+      long position = 0;
+      long size = channel.size();
+      while (position < size) {
+        long transferred = channel.transferTo(position, size - position, target);
+        if (transferred <= 0) {
+          // The file was truncated while it was being uploaded.
+          break;
+        }
+        position += transferred;
+      }
+    }
+    outputStream.flush();
+
+    writer.append(LINE_BREAK);
+    writer.flush();
+  }
+
+  private void writeFileFieldHeader(String name, String fileName) {
     writer.append("--").append(boundary).append(LINE_BREAK);
     writer
         .append("Content-Disposition: form-data; name=\"")
@@ -62,11 +107,6 @@ public class MultipartProcessor {
     writer.append("Content-Transfer-Encoding: binary").append(LINE_BREAK);
     writer.append(LINE_BREAK);
     writer.flush();
-
-    streamToOutput(inputStream);
-
-    writer.append(LINE_BREAK);
-    writer.flush();
   }
 
   /**
@@ -0,0 +1,93 @@
+package com.stripe.net;
+
+import com.stripe.exception.StripeException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP client that sends requests over an explicitly managed pool of connections.
+ *
+ * <p>On Java 11 and later, this class is replaced at runtime (through the multi-release jar) by an
+ * implementation based on {@code java.net.http.HttpClient} that keeps its own connection pool per
+ * proxy, evicts idle pools, recycles connections once their keep-alive TTL is reached and
+ * multiplexes requests over HTTP/2 when the server supports it.
+ *
+ * <p>On Java 8, requests are sent with {@code HttpURLConnection} and connections are kept alive by
+ * the JDK's keep-alive cache (see the {@code http.keepAlive} and {@code http.maxConnections} system
+ * properties). Only the per-host connection limit of {@link ConnectionPoolOptions} applies.
+ */
+public class PooledHttpClient extends HttpClient {
+  private final ConnectionPoolOptions poolOptions;
+
+  private final ConnectionPermits permits;
+
+  private final HttpURLConnectionClient transport = new HttpURLConnectionClient();
+
+  /** Initializes a new instance of the {@link PooledHttpClient} with default pool options. */
+  public PooledHttpClient() {
+    this(ConnectionPoolOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link PooledHttpClient}.
+   *
+   * @param poolOptions the connection pool options
+   */
+  public PooledHttpClient(ConnectionPoolOptions poolOptions) {
+    super();
+    this.poolOptions = poolOptions;
+    this.permits = new ConnectionPermits(poolOptions.getMaxConnectionsPerHost());
+  }
+
+  /**
+   * Returns whether this client can negotiate HTTP/2 on the current runtime.
+   *
+   * @return {@code true} if HTTP/2 is supported, {@code false} otherwise
+   */
+  public static boolean isHttp2Supported() {
+    return false;
+  }
+
+  public ConnectionPoolOptions getPoolOptions() {
+    return poolOptions;
+  }
+
+  /**
+   * Sends the given request to Stripe's API.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException if an error occurs when sending or receiving
+   */
+  @Override
+  public StripeResponse request(StripeRequest request) throws StripeException {
+    Semaphore permit = permits.acquire(request.url(), request.options().getConnectTimeout());
+    try {
+      return transport.request(request);
+    } finally {
+      permits.release(permit);
+    }
+  }
+
+  /**
+   * Sends the given request to Stripe's API, and returns a response whose body is read directly
+   * from the connection. The connection is returned to the pool when the body is closed.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException if an error occurs when sending the request or receiving the response
+   *     headers
+   */
+  @Override
+  public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+    Semaphore permit = permits.acquire(request.url(), request.options().getConnectTimeout());
+    final StripeResponseStream response;
+    try {
+      response = transport.requestStream(request);
+    } catch (StripeException | RuntimeException e) {
+      permits.release(permit);
+      throw e;
+    }
+
+    return response.withBody(ConnectionPermits.releaseOnClose(response.body(), permit));
+  }
+}
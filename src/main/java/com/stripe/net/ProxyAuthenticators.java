@@ -0,0 +1,86 @@
+package com.stripe.net;
+
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticates the connections opened through an authenticated proxy.
+ *
+ * <p>On Java 11 and later, this class is replaced at runtime (through the multi-release jar) by an
+ * implementation that sets an authenticator on each connection, leaving the JVM-wide default
+ * authenticator untouched.
+ *
+ * <p>On Java 8, connections cannot have their own authenticator. A single default authenticator is
+ * installed the first time a credential is applied, and answers the proxies' challenges with the
+ * credential last applied to connections through each proxy. Other authentication requests are not
+ * answered, and a default authenticator installed by other libraries is replaced.
+ */
+final class ProxyAuthenticators {
+  /** The credential of each proxy, by host and port. */
+  private static final ConcurrentHashMap<String, PasswordAuthentication> CREDENTIALS =
+      new ConcurrentHashMap<>();
+
+  private static volatile boolean installed;
+
+  private ProxyAuthenticators() {}
+
+  /**
+   * Authenticates the given connection, opened through the given proxy, with the given credential.
+   *
+   * @param conn the connection
+   * @param proxy the proxy the connection is opened through
+   * @param credential the proxy credential, or {@code null} if the proxy is not authenticated
+   */
+  static void apply(HttpURLConnection conn, Proxy proxy, PasswordAuthentication credential) {
+    if (credential == null || !(proxy.address() instanceof InetSocketAddress)) {
+      return;
+    }
+
+    InetSocketAddress address = (InetSocketAddress) proxy.address();
+    String key = key(address.getHostString(), address.getPort());
+    if (CREDENTIALS.get(key) != credential) {
+      CREDENTIALS.put(key, credential);
+    }
+
+    if (!installed) {
+      synchronized (ProxyAuthenticators.class) {
+        if (!installed) {
+          Authenticator.setDefault(new RoutingAuthenticator());
+          installed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Uninstalls the default authenticator, if installed by this class, and forgets the credentials.
+   * For tests, which must not leave a JVM-wide authenticator behind.
+   */
+  static void reset() {
+    synchronized (ProxyAuthenticators.class) {
+      if (installed) {
+        Authenticator.setDefault(null);
+        installed = false;
+      }
+      CREDENTIALS.clear();
+    }
+  }
+
+  private static String key(String host, int port) {
+    return host + ":" + port;
+  }
+
+  private static class RoutingAuthenticator extends Authenticator {
+    @Override
+    protected PasswordAuthentication getPasswordAuthentication() {
+      if (getRequestorType() != RequestorType.PROXY) {
+        return null;
+      }
+      return CREDENTIALS.get(key(getRequestingHost(), getRequestingPort()));
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package com.stripe.net;
+
+import com.stripe.exception.RateLimitException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+
+/**
+ * Client-side rate limiter, used by {@link HttpClient} to avoid sending requests that Stripe would
+ * answer with {@code 429 Too Many Requests}.
+ *
+ * <p>Requests are counted against token buckets kept per API key and connected account ({@code
+ * Stripe-Account} header), with separate budgets for reads ({@code GET}) and writes. Each bucket is
+ * implemented with the generic cell rate algorithm: its whole state is a single atomic timestamp
+ * updated with compare-and-set, so that concurrent requests never block each other.
+ *
+ * <p>When {@link RateLimiterOptions#isAdaptive() adaptive}, the rate of a bucket is halved each
+ * time a request it allowed is rate limited by Stripe, and raised back by 5% of the configured rate
+ * on each subsequent successful response.
+ *
+ * <p>Buckets whose budget stayed full for a minute are dropped, forgetting their adaptation, so
+ * that the buckets of API keys and connected accounts that stopped sending requests do not pile
+ * up.
+ */
+public class RateLimiter {
+  /** The maximum factor by which adaptation can lower the configured rates. */
+  private static final double MAX_SLOWDOWN = 16;
+
+  /** The fraction of the configured rate added back on each successful response. */
+  private static final double RECOVERY_STEP = 0.05;
+
+  /** How long a bucket's budget must stay full before it is dropped, and how often to check. */
+  private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final RateLimiterOptions options;
+
+  private final ConcurrentHashMap<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+  private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+  /** Initializes a new instance of the {@link RateLimiter} with default options. */
+  public RateLimiter() {
+    this(RateLimiterOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link RateLimiter}.
+   *
+   * @param options the rate limiter options
+   */
+  public RateLimiter(RateLimiterOptions options) {
+    this.options = options;
+  }
+
+  public RateLimiterOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the current rate, in requests per second, of the budget that requests with the given
+   * options and method are counted against. This is lower than the configured rate while the
+   * limiter adapts to rate limited responses.
+   *
+   * @param options the request options
+   * @param method the request method
+   * @return the current rate in requests per second
+   */
+  public double getCurrentRate(RequestOptions options, ApiResource.RequestMethod method) {
+    Bucket bucket = this.buckets.get(bucketKey(options, method));
+    if (bucket == null) {
+      return (method == ApiResource.RequestMethod.GET)
+          ? this.options.getReadRate()
+          : this.options.getWriteRate();
+    }
+    return TimeUnit.SECONDS.toNanos(1) / (double) bucket.intervalNanos;
+  }
+
+  /**
+   * Reserves a slot in the budget of the given request.
+   *
+   * @param request the request
+   * @return the time to wait before sending the request, in nanoseconds
+   * @throws RateLimitException if the request would have to wait longer than the maximum wait
+   */
+  long reserve(StripeRequest request) throws RateLimitException {
+    BucketKey key = bucketKey(request.options(), request.method());
+    long waitNanos = this.reserve(key, this.options.getMaxWait().toNanos());
+    if (waitNanos < 0) {
+      throw new RateLimitException(
+          String.format(
+              "Request was not sent because it would exceed the client-side rate limit of %.1f %s "
+                  + "requests per second for this API key and account within the maximum wait of "
+                  + "%d ms.",
+              this.getCurrentRate(request.options(), request.method()),
+              key.write ? "write" : "read",
+              this.options.getMaxWait().toMillis()),
+          null,
+          null,
+          null,
+          null,
+          null);
+    }
+    return waitNanos;
+  }
+
+  /**
+   * Reserves a slot in the budget of the given request only if the request can be sent without
+   * waiting. Used for optional requests, such as hedged attempts, that should rather be skipped
+   * than delayed.
+   *
+   * @param request the request
+   * @return {@code true} if a slot was reserved, {@code false} otherwise
+   */
+  boolean tryReserve(StripeRequest request) {
+    return this.reserve(bucketKey(request.options(), request.method()), 0) >= 0;
+  }
+
+  /**
+   * Adapts the budget of the given request to the response Stripe returned for it.
+   *
+   * @param request the request
+   * @param response the response
+   */
+  void onResponse(StripeRequest request, AbstractStripeResponse<?> response) {
+    if (!this.options.isAdaptive()) {
+      return;
+    }
+
+    Bucket bucket = this.buckets.get(bucketKey(request.options(), request.method()));
+    if (bucket == null) {
+      return;
+    }
+
+    if (response.code() == 429) {
+      bucket.slowDown();
+    } else if (response.code() >= 200 && response.code() < 300) {
+      bucket.recover();
+    }
+  }
+
+  /** Returns the time to wait in nanoseconds, or -1 if it would exceed {@code maxWaitNanos}. */
+  private long reserve(BucketKey key, long maxWaitNanos) {
+    long now = System.nanoTime();
+    this.maybeSweep(now);
+    while (true) {
+      Bucket bucket = this.buckets.computeIfAbsent(key, this::newBucket);
+      long waitNanos = bucket.reserve(now, maxWaitNanos);
+      if (waitNanos != Bucket.RETIRED) {
+        return waitNanos;
+      }
+      // The bucket was dropped after this request looked it up, use a new one.
+      this.buckets.remove(key, bucket);
+    }
+  }
+
+  /** Sweeps the buckets at most once per idle period. */
+  private void maybeSweep(long now) {
+    long lastSweep = this.lastSweepNanos.get();
+    if (now - lastSweep >= IDLE_NANOS && this.lastSweepNanos.compareAndSet(lastSweep, now)) {
+      this.sweep(now);
+    }
+  }
+
+  /** Drops the buckets whose budget stayed full for the idle period as of the given time. */
+  void sweep(long now) {
+    for (Map.Entry<BucketKey, Bucket> entry : this.buckets.entrySet()) {
+      if (entry.getValue().retire(now)) {
+        this.buckets.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /** Returns the number of buckets. For tests. */
+  int getBucketCount() {
+    return this.buckets.size();
+  }
+
+  private Bucket newBucket(BucketKey key) {
+    double rate = key.write ? this.options.getWriteRate() : this.options.getReadRate();
+    int capacity =
+        (this.options.getBurst() > 0) ? this.options.getBurst() : (int) Math.max(1, rate);
+    return new Bucket(rate, capacity, System.nanoTime());
+  }
+
+  private static BucketKey bucketKey(RequestOptions options, ApiResource.RequestMethod method) {
+    return new BucketKey(
+        options.getApiKey(), options.getStripeAccount(), method != ApiResource.RequestMethod.GET);
+  }
+
+  @Value
+  private static class BucketKey {
+    String apiKey;
+    String stripeAccount;
+    boolean write;
+  }
+
+  private static class Bucket {
+    /** Returned by {@link #reserve} once the bucket was dropped. */
+    static final long RETIRED = Long.MIN_VALUE;
+
+    final double configuredRate;
+    final long configuredIntervalNanos;
+    final int capacity;
+
+    /** The time between two requests at the current rate. */
+    volatile long intervalNanos;
+
+    /** The theoretical arrival time of the next request if requests were evenly spaced. */
+    final AtomicLong theoreticalArrivalNanos;
+
+    Bucket(double rate, int capacity, long now) {
+      this.configuredRate = rate;
+      this.configuredIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+      this.capacity = capacity;
+      this.intervalNanos = this.configuredIntervalNanos;
+      this.theoreticalArrivalNanos = new AtomicLong(now);
+    }
+
+    /** Returns the time to wait in nanoseconds, or -1 if it would exceed {@code maxWaitNanos}. */
+    long reserve(long now, long maxWaitNanos) {
+      while (true) {
+        long interval = this.intervalNanos;
+        long tat = this.theoreticalArrivalNanos.get();
+        if (tat == RETIRED) {
+          return RETIRED;
+        }
+        long newTat = Math.max(tat, now) + interval;
+        long waitNanos = newTat - now - this.capacity * interval;
+        if (waitNanos > maxWaitNanos) {
+          return -1;
+        }
+        if (this.theoreticalArrivalNanos.compareAndSet(tat, newTat)) {
+          return Math.max(0, waitNanos);
+        }
+      }
+    }
+
+    /**
+     * Retires the bucket if its budget stayed full for the idle period, so that it no longer
+     * reserves slots. Returns whether the bucket is retired.
+     */
+    boolean retire(long now) {
+      long tat = this.theoreticalArrivalNanos.get();
+      return tat == RETIRED
+          || (now - tat >= IDLE_NANOS && this.theoreticalArrivalNanos.compareAndSet(tat, RETIRED));
+    }
+
+    void slowDown() {
+      long maxInterval = (long) (this.configuredIntervalNanos * MAX_SLOWDOWN);
+      this.intervalNanos = Math.min(maxInterval, this.intervalNanos * 2);
+    }
+
+    void recover() {
+      long interval = this.intervalNanos;
+      if (interval <= this.configuredIntervalNanos) {
+        return;
+      }
+      double rate = TimeUnit.SECONDS.toNanos(1) / (double) interval;
+      rate = Math.min(this.configuredRate, rate + this.configuredRate * RECOVERY_STEP);
+      this.intervalNanos =
+          Math.max(this.configuredIntervalNanos, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the client-side {@link RateLimiter}. */
+@EqualsAndHashCode(callSuper = false)
+public class RateLimiterOptions {
+  public static final double DEFAULT_READ_RATE = 100;
+  public static final double DEFAULT_WRITE_RATE = 100;
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+  private final double readRate;
+  private final double writeRate;
+  private final int burst;
+  private final Duration maxWait;
+  private final boolean adaptive;
+
+  public static RateLimiterOptions getDefault() {
+    return new RateLimiterOptionsBuilder().build();
+  }
+
+  private RateLimiterOptions(
+      double readRate, double writeRate, int burst, Duration maxWait, boolean adaptive) {
+    this.readRate = readRate;
+    this.writeRate = writeRate;
+    this.burst = burst;
+    this.maxWait = maxWait;
+    this.adaptive = adaptive;
+  }
+
+  public double getReadRate() {
+    return readRate;
+  }
+
+  public double getWriteRate() {
+    return writeRate;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+
+  public boolean isAdaptive() {
+    return adaptive;
+  }
+
+  public static RateLimiterOptionsBuilder builder() {
+    return new RateLimiterOptionsBuilder();
+  }
+
+  public static final class RateLimiterOptionsBuilder {
+    private double readRate = DEFAULT_READ_RATE;
+    private double writeRate = DEFAULT_WRITE_RATE;
+    private int burst = 0;
+    private Duration maxWait = DEFAULT_MAX_WAIT;
+    private boolean adaptive = true;
+
+    public double getReadRate() {
+      return readRate;
+    }
+
+    /**
+     * Sets the maximum number of read requests ({@code GET}) per second, for each API key and
+     * connected account.
+     *
+     * @param readRate the number of read requests per second
+     */
+    public RateLimiterOptionsBuilder setReadRate(double readRate) {
+      this.readRate = readRate;
+      return this;
+    }
+
+    public double getWriteRate() {
+      return writeRate;
+    }
+
+    /**
+     * Sets the maximum number of write requests ({@code POST} and {@code DELETE}) per second, for
+     * each API key and connected account.
+     *
+     * @param writeRate the number of write requests per second
+     */
+    public RateLimiterOptionsBuilder setWriteRate(double writeRate) {
+      this.writeRate = writeRate;
+      return this;
+    }
+
+    public int getBurst() {
+      return burst;
+    }
+
+    /**
+     * Sets the number of requests that may be sent at once after a period of inactivity, i.e. the
+     * capacity of the token buckets. If zero, the capacity is one second's worth of requests.
+     *
+     * @param burst the capacity of the token buckets
+     */
+    public RateLimiterOptionsBuilder setBurst(int burst) {
+      this.burst = burst;
+      return this;
+    }
+
+    public Duration getMaxWait() {
+      return maxWait;
+    }
+
+    /**
+     * Sets the maximum time a request waits for the budget to allow it. Requests that would have to
+     * wait longer fail immediately with a {@link com.stripe.exception.RateLimitException}. Use
+     * {@link Duration#ZERO} to always fail fast.
+     *
+     * @param maxWait the maximum time to wait
+     */
+    public RateLimiterOptionsBuilder setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    public boolean isAdaptive() {
+      return adaptive;
+    }
+
+    /**
+     * Sets whether the rates are lowered when Stripe answers with {@code 429 Too Many Requests},
+     * and progressively raised back to their configured values on subsequent successful responses.
+     *
+     * @param adaptive whether the rates adapt to rate limited responses
+     */
+    public RateLimiterOptionsBuilder setAdaptive(boolean adaptive) {
+      this.adaptive = adaptive;
+      return this;
+    }
+
+    /** Constructs a {@link RateLimiterOptions} with the specified values. */
+    public RateLimiterOptions build() {
+      if (!(readRate > 0)) {
+        throw new IllegalArgumentException("readRate must be positive.");
+      }
+      if (!(writeRate > 0)) {
+        throw new IllegalArgumentException("writeRate must be positive.");
+      }
+      if (burst < 0) {
+        throw new IllegalArgumentException("burst must not be negative.");
+      }
+      if (maxWait == null || maxWait.isNegative()) {
+        throw new IllegalArgumentException("maxWait must not be negative.");
+      }
+
+      return new RateLimiterOptions(readRate, writeRate, burst, maxWait, adaptive);
+    }
+  }
+}
@@ -0,0 +1,486 @@
+package com.stripe.net;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Sends hedged {@code GET} requests for {@link HttpClient}, to cut the tail latency caused by
+ * occasional slow connections.
+ *
+ * <p>If the first attempt of a request has not completed after a delay derived from a percentile of
+ * the recently observed latencies, a second, identical attempt is sent and whichever completes
+ * first is used. The response of the other attempt is discarded. A first attempt that loses is left
+ * to complete, so that its latency is still observed; a losing hedged attempt is abandoned, or
+ * cancelled if sent asynchronously. Hedged attempts are only sent if the client's {@link
+ * RateLimiter} allows them without waiting.
+ *
+ * <p>Hedging is only ever applied to {@code GET} requests, which have no side effects. The counts
+ * of hedged attempts and of the hedged attempts that completed first are exposed to help tune the
+ * percentile.
+ */
+public class RequestHedger {
+  /** The number of most recent latencies the hedging delay is derived from. */
+  static final int SAMPLE_SIZE = 256;
+
+  /** The number of latencies recorded between two computations of the hedging delay. */
+  private static final int RECOMPUTE_INTERVAL = 16;
+
+  private final HedgingOptions options;
+
+  private final long[] samples = new long[SAMPLE_SIZE];
+
+  private long recordedSamples;
+
+  private volatile long delayNanos;
+
+  private final LongAdder requests = new LongAdder();
+
+  private final LongAdder hedges = new LongAdder();
+
+  private final LongAdder hedgeWins = new LongAdder();
+
+  /** Initializes a new instance of the {@link RequestHedger} with default options. */
+  public RequestHedger() {
+    this(HedgingOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link RequestHedger}.
+   *
+   * @param options the hedging options
+   */
+  public RequestHedger(HedgingOptions options) {
+    this.options = options;
+    this.delayNanos = options.getMaxDelay().toNanos();
+  }
+
+  public HedgingOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the time after which a hedged attempt is currently sent for requests whose first
+   * attempt has not completed.
+   *
+   * @return the hedging delay
+   */
+  public Duration getCurrentDelay() {
+    return Duration.ofNanos(this.delayNanos);
+  }
+
+  /**
+   * Returns the number of requests eligible for hedging sent so far.
+   *
+   * @return the number of requests
+   */
+  public long getRequestCount() {
+    return this.requests.sum();
+  }
+
+  /**
+   * Returns the number of hedged attempts sent so far.
+   *
+   * @return the number of hedged attempts
+   */
+  public long getHedgeCount() {
+    return this.hedges.sum();
+  }
+
+  /**
+   * Returns the number of hedged attempts whose response was used because they completed before the
+   * first attempt of their request.
+   *
+   * @return the number of winning hedged attempts
+   */
+  public long getHedgeWinCount() {
+    return this.hedgeWins.sum();
+  }
+
+  /**
+   * Returns the fraction of hedged attempts that completed before the first attempt of their
+   * request. A low win rate means that hedging mostly adds load, and that the percentile should be
+   * raised.
+   *
+   * @return the hedge win rate, or 0 if no attempt was hedged
+   */
+  public double getHedgeWinRate() {
+    long hedgeCount = this.getHedgeCount();
+    return (hedgeCount > 0) ? this.getHedgeWinCount() / (double) hedgeCount : 0;
+  }
+
+  /**
+   * Sends the given request, hedging it if the first attempt is slower than the current delay.
+   * Attempts are run on the given executor while the calling thread waits for the first one to
+   * complete.
+   *
+   * @param request the request
+   * @param send the function sending one attempt
+   * @param executor the executor running the attempts
+   * @param rateLimiter the rate limiter hedged attempts must be allowed by, or {@code null}
+   * @return the response of the attempt that completed first
+   * @throws StripeException if the request fails for any reason
+   */
+  <T extends AbstractStripeResponse<?>> T send(
+      StripeRequest request,
+      HttpClient.RequestSendFunction<T> send,
+      Executor executor,
+      RateLimiter rateLimiter)
+      throws StripeException {
+    this.requests.increment();
+
+    BlockingQueue<Attempt<T>> completed = new ArrayBlockingQueue<>(2);
+    Attempt<T> primary = new Attempt<>(request, send, completed, this::recordLatency);
+    Attempt<T> hedge = null;
+    executor.execute(primary);
+
+    Attempt<T> winner;
+    try {
+      winner = completed.poll(this.delayNanos, TimeUnit.NANOSECONDS);
+      int pending = 1;
+      if (winner == null) {
+        if (tryReserve(rateLimiter, request)) {
+          hedge = new Attempt<>(request, send, completed, null);
+          try {
+            executor.execute(hedge);
+            this.hedges.increment();
+            pending += 1;
+          } catch (RuntimeException e) {
+            // The hedge is optional, keep waiting for the first attempt.
+            hedge = null;
+          }
+        }
+        winner = completed.take();
+      }
+      pending -= 1;
+
+      // A connection failure of one attempt does not fail the request while the other is pending.
+      while (winner.exception instanceof ApiConnectionException && pending > 0) {
+        winner = completed.take();
+        pending -= 1;
+      }
+    } catch (InterruptedException e) {
+      discard(primary.cancel());
+      if (hedge != null) {
+        discard(hedge.cancel());
+      }
+      Thread.currentThread().interrupt();
+      throw new ApiConnectionException(
+          "Interrupted while waiting for the response of a request to Stripe.", e);
+    }
+
+    if (winner == hedge) {
+      this.hedgeWins.increment();
+    }
+    if (winner != primary) {
+      discard(primary.abandon());
+    }
+    if (hedge != null && winner != hedge) {
+      discard(hedge.abandon());
+    }
+
+    if (winner.exception instanceof StripeException) {
+      throw (StripeException) winner.exception;
+    }
+    if (winner.exception instanceof RuntimeException) {
+      throw (RuntimeException) winner.exception;
+    }
+    return winner.response;
+  }
+
+  /**
+   * Sends the given request asynchronously, hedging it if the first attempt is slower than the
+   * current delay.
+   *
+   * @param request the request
+   * @param send the function sending one attempt
+   * @param scheduler the scheduler used to send the hedged attempt after the delay
+   * @param rateLimiter the rate limiter hedged attempts must be allowed by, or {@code null}
+   * @return a future completed with the response of the attempt that completed first
+   */
+  CompletableFuture<StripeResponse> sendAsync(
+      StripeRequest request,
+      Function<StripeRequest, CompletableFuture<StripeResponse>> send,
+      ScheduledExecutorService scheduler,
+      RateLimiter rateLimiter) {
+    this.requests.increment();
+
+    CompletableFuture<StripeResponse> result = new CompletableFuture<>();
+    AtomicBoolean settled = new AtomicBoolean(false);
+    AtomicInteger pending = new AtomicInteger(1);
+    AtomicReference<CompletableFuture<StripeResponse>> hedge = new AtomicReference<>();
+
+    long startNanos = System.nanoTime();
+    CompletableFuture<StripeResponse> primary = send.apply(request);
+
+    ScheduledFuture<?> timer = null;
+    try {
+      timer =
+          scheduler.schedule(
+              () -> {
+                if (primary.isDone() || result.isDone() || !tryReserve(rateLimiter, request)) {
+                  return;
+                }
+                pending.incrementAndGet();
+                this.hedges.increment();
+                CompletableFuture<StripeResponse> hedgeFuture = send.apply(request);
+                hedge.set(hedgeFuture);
+                hedgeFuture.whenComplete(
+                    (response, throwable) ->
+                        onAttemptComplete(result, settled, pending, response, throwable, true));
+                if (result.isDone()) {
+                  hedgeFuture.cancel(true);
+                }
+              },
+              this.delayNanos,
+              TimeUnit.NANOSECONDS);
+    } catch (RuntimeException e) {
+      // The hedge is optional, only wait for the first attempt.
+    }
+
+    final ScheduledFuture<?> hedgeTimer = timer;
+    primary.whenComplete(
+        (response, throwable) -> {
+          if (hedgeTimer != null) {
+            hedgeTimer.cancel(false);
+          }
+          // A cancelled attempt did not complete on its own, its latency is unknown.
+          if (!primary.isCancelled()) {
+            this.recordLatency(System.nanoTime() - startNanos);
+          }
+          onAttemptComplete(result, settled, pending, response, throwable, false);
+        });
+
+    result.whenComplete(
+        (response, throwable) -> {
+          // The first attempt is left to complete unless the caller cancels the request.
+          if (result.isCancelled()) {
+            primary.cancel(true);
+          }
+          CompletableFuture<StripeResponse> hedgeFuture = hedge.get();
+          if (hedgeFuture != null) {
+            hedgeFuture.cancel(true);
+          }
+        });
+
+    return result;
+  }
+
+  private void onAttemptComplete(
+      CompletableFuture<StripeResponse> result,
+      AtomicBoolean settled,
+      AtomicInteger pending,
+      StripeResponse response,
+      Throwable throwable,
+      boolean isHedge) {
+    int remaining = pending.decrementAndGet();
+
+    if (throwable != null) {
+      Throwable cause =
+          (throwable instanceof CompletionException && throwable.getCause() != null)
+              ? throwable.getCause()
+              : throwable;
+      // A connection failure of one attempt does not fail the request while the other is pending.
+      if (!(cause instanceof ApiConnectionException && remaining > 0)
+          && settled.compareAndSet(false, true)) {
+        result.completeExceptionally(cause);
+      }
+      return;
+    }
+
+    // The win is counted before completing the result, which runs the caller's callbacks.
+    if (settled.compareAndSet(false, true)) {
+      if (isHedge) {
+        this.hedgeWins.increment();
+      }
+      result.complete(response);
+    }
+  }
+
+  /**
+   * Returns the number of latencies recorded so far.
+   *
+   * @return the number of recorded latencies
+   */
+  long getSampleCount() {
+    synchronized (this.samples) {
+      return this.recordedSamples;
+    }
+  }
+
+  /**
+   * Records the latency of the first attempt of a request, and periodically derives the hedging
+   * delay from the recorded latencies. Only the first attempts that completed on their own are
+   * recorded.
+   *
+   * @param latencyNanos the latency in nanoseconds
+   */
+  void recordLatency(long latencyNanos) {
+    long[] sorted;
+    synchronized (this.samples) {
+      this.samples[(int) (this.recordedSamples % SAMPLE_SIZE)] = latencyNanos;
+      this.recordedSamples += 1;
+
+      if (this.recordedSamples < this.options.getMinimumSamples()
+          || (this.recordedSamples != this.options.getMinimumSamples()
+              && this.recordedSamples % RECOMPUTE_INTERVAL != 0)) {
+        return;
+      }
+      sorted = Arrays.copyOf(this.samples, (int) Math.min(this.recordedSamples, SAMPLE_SIZE));
+    }
+
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(this.options.getPercentile() * sorted.length) - 1;
+    long delay = sorted[Math.max(0, index)];
+    delay = Math.max(delay, this.options.getMinDelay().toNanos());
+    delay = Math.min(delay, this.options.getMaxDelay().toNanos());
+    this.delayNanos = delay;
+  }
+
+  private static boolean tryReserve(RateLimiter rateLimiter, StripeRequest request) {
+    return (rateLimiter == null) || rateLimiter.tryReserve(request);
+  }
+
+  private static void discard(AbstractStripeResponse<?> response) {
+    if ((response != null) && (response.body() instanceof Closeable)) {
+      try {
+        ((Closeable) response.body()).close();
+      } catch (IOException e) {
+        // ignore, the response is discarded anyway
+      }
+    }
+  }
+
+  /**
+   * One attempt of a hedged request, run on the client's async executor.
+   *
+   * <p>An attempt that lost the race is abandoned: it is not run if it has not started, and its
+   * response is discarded once it completes. It is not interrupted, since the blocking I/O of
+   * {@link java.net.HttpURLConnection} cannot be interrupted anyway. Only the attempts of a request
+   * whose caller was interrupted are cancelled, by interrupting them.
+   */
+  private static final class Attempt<T extends AbstractStripeResponse<?>> implements Runnable {
+    private final StripeRequest request;
+    private final HttpClient.RequestSendFunction<T> send;
+    private final BlockingQueue<Attempt<T>> completed;
+    private final LongConsumer latencyRecorder;
+
+    private Thread thread;
+    private boolean done;
+    private boolean abandoned;
+    private boolean cancelled;
+
+    T response;
+    Exception exception;
+
+    /**
+     * Initializes a new attempt.
+     *
+     * @param latencyRecorder records the latency of the attempt if it completes on its own, or
+     *     {@code null}
+     */
+    Attempt(
+        StripeRequest request,
+        HttpClient.RequestSendFunction<T> send,
+        BlockingQueue<Attempt<T>> completed,
+        LongConsumer latencyRecorder) {
+      this.request = request;
+      this.send = send;
+      this.completed = completed;
+      this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (this.abandoned || this.cancelled) {
+          return;
+        }
+        this.thread = Thread.currentThread();
+      }
+
+      long startNanos = System.nanoTime();
+      T attemptResponse = null;
+      Exception attemptException = null;
+      try {
+        attemptResponse = this.send.apply(this.request);
+      } catch (StripeException | RuntimeException e) {
+        attemptException = e;
+      }
+      long elapsedNanos = System.nanoTime() - startNanos;
+
+      boolean isDone;
+      boolean isCancelled;
+      synchronized (this) {
+        this.thread = null;
+        isCancelled = this.cancelled;
+        if (isCancelled) {
+          // Clear the interrupt used to cancel the attempt before the thread is reused.
+          Thread.interrupted();
+        } else if (!this.abandoned) {
+          this.done = true;
+          this.response = attemptResponse;
+          this.exception = attemptException;
+        }
+        isDone = this.done;
+      }
+
+      if (!isCancelled && this.latencyRecorder != null) {
+        this.latencyRecorder.accept(elapsedNanos);
+      }
+      if (isDone) {
+        this.completed.add(this);
+      } else {
+        discard(attemptResponse);
+      }
+    }
+
+    /**
+     * Abandons this attempt: it is not run if it has not started, and its response is discarded
+     * once it completes.
+     *
+     * @return the response of the attempt if it already completed, to be discarded by the caller
+     */
+    synchronized T abandon() {
+      if (this.done) {
+        return this.response;
+      }
+      this.abandoned = true;
+      return null;
+    }
+
+    /**
+     * Cancels this attempt, interrupting it if it is in progress. The interrupt stops the attempt
+     * while it waits between retries, but not during blocking I/O.
+     *
+     * @return the response of the attempt if it already completed, to be discarded by the caller
+     */
+    synchronized T cancel() {
+      if (this.done) {
+        return this.response;
+      }
+      this.cancelled = true;
+      if (this.thread != null) {
+        this.thread.interrupt();
+      }
+      return null;
+    }
+  }
+}
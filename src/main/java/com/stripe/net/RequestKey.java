@@ -0,0 +1,32 @@
+package com.stripe.net;
+
+import lombok.Value;
+
+/**
+ * Identifies the {@code GET} requests whose responses are interchangeable: same URL and query
+ * string, API key, connected account, API version and resource class, and same options for the
+ * deserialization and retention of the response.
+ */
+@Value
+class RequestKey {
+  String url;
+  String authorization;
+  String stripeAccount;
+  String stripeVersion;
+  Class<?> clazz;
+  ResponseRetention responseRetention;
+  boolean lazyDeserializationEnabled;
+  boolean rawJsonRecordingEnabled;
+
+  static RequestKey of(StripeRequest request, Class<?> clazz) {
+    return new RequestKey(
+        request.url().toString(),
+        request.headers().firstValue("Authorization").orElse(null),
+        request.headers().firstValue("Stripe-Account").orElse(null),
+        request.headers().firstValue("Stripe-Version").orElse(null),
+        clazz,
+        request.options().getResponseRetention(),
+        request.options().isLazyDeserializationEnabled(),
+        request.options().isRawJsonRecordingEnabled());
+  }
+}
@@ -0,0 +1,232 @@
+package com.stripe.net;
+
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The metrics of a request to Stripe's API, or of one of its attempts, passed to {@link
+ * RequestMetricsListener}.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class RequestMetricsEvent {
+  /** The namespaces of collections, e.g. {@code issuing} in {@code /v1/issuing/cards}. */
+  private static final Set<String> NAMESPACES =
+      new HashSet<>(
+          Arrays.asList(
+              "apple_pay",
+              "billing_portal",
+              "bitcoin",
+              "checkout",
+              "issuing",
+              "radar",
+              "reporting",
+              "sigma",
+              "terminal"));
+
+  /** The resources with a single instance, whose path has no ID, e.g. {@code /v1/balance}. */
+  private static final Set<String> SINGLETONS = new HashSet<>(Arrays.asList("account", "balance"));
+
+  /** The actions on whole collections, e.g. {@code upcoming} in {@code /v1/invoices/upcoming}. */
+  private static final Set<String> COLLECTION_ACTIONS =
+      new HashSet<>(Arrays.asList("preview", "search", "upcoming"));
+
+  /** The HTTP method of the request. */
+  ApiResource.RequestMethod method;
+
+  /**
+   * The path of the request with object IDs replaced by {@code {id}}, e.g. {@code
+   * /v1/customers/{id}}, suitable for grouping metrics by endpoint.
+   */
+  String endpoint;
+
+  /** The HTTP status code of the response, or {@code 0} if no response was received. */
+  int statusCode;
+
+  /** The ID of the request, as returned by Stripe, or {@code null} if unknown. */
+  String requestId;
+
+  /**
+   * The number of the attempt, starting at {@code 0} for the first one. For request events, the
+   * number of the last attempt, i.e. the number of retries.
+   */
+  int attempt;
+
+  /**
+   * The reason the previous attempt was retried, or {@code null} for the first attempt. For request
+   * events, the reason of the last retry.
+   */
+  RetryReason retryReason;
+
+  /**
+   * The number of bytes of the response body received over the network, or {@code -1} if unknown,
+   * e.g. for streamed responses whose body is read after the event.
+   */
+  long bytesIn;
+
+  /** The number of bytes of the request body, or {@code -1} if unknown. */
+  long bytesOut;
+
+  /**
+   * The time spent establishing the connection, or {@code null} if the HTTP client does not report
+   * it. Close to zero when an open connection was reused. For request events, the value of the last
+   * attempt.
+   */
+  Duration connectDuration;
+
+  /**
+   * The time between sending the request and receiving the response headers, or {@code null} if the
+   * HTTP client does not report it. For request events, the value of the last attempt.
+   */
+  Duration timeToFirstByte;
+
+  /** The total duration of the attempt, or of the request including all its attempts. */
+  Duration totalDuration;
+
+  /**
+   * The exception the attempt or request failed with, or {@code null} if a response was received.
+   */
+  StripeException exception;
+
+  static RequestMetricsEvent of(
+      StripeRequest request,
+      int attempt,
+      RetryReason retryReason,
+      AbstractStripeResponse<?> response,
+      StripeException exception,
+      long totalNanos) {
+    long bytesOut = 0;
+    if (request.content() != null) {
+      bytesOut = request.content().contentLength();
+    }
+
+    return new RequestMetricsEvent(
+        request.method(),
+        endpointTemplate(request.url().getPath()),
+        (response != null) ? response.code() : 0,
+        (response != null) ? response.requestId() : null,
+        attempt,
+        retryReason,
+        (response instanceof StripeResponse) ? response.compressedSize() : -1,
+        bytesOut,
+        (response != null) ? response.connectDuration() : null,
+        (response != null) ? response.timeToFirstByte() : null,
+        Duration.ofNanos(totalNanos),
+        exception);
+  }
+
+  /**
+   * Replaces the object IDs in the given path by {@code {id}}, following the structure of Stripe's
+   * paths rather than the shape of their segments, since IDs may look like names ({@code
+   * /v1/coupons/summer_sale}). After the version, a path names a collection, possibly within a
+   * namespace ({@code /v1/issuing/cards}), then alternates between an ID and the name of a
+   * sub-collection or action ({@code /v1/customers/cus_123/sources/card_456/verify}). The
+   * exceptions are singletons, which have no ID ({@code /v1/balance/history}), and actions on
+   * whole collections, found instead of an ID ({@code /v1/invoices/upcoming/lines}).
+   *
+   * <p>Names only contain lowercase letters and underscores, so any other segment found where a
+   * name is expected is also taken to be an ID, which bounds the number of templates of unexpected
+   * paths, and of the paths of other APIs than the versioned one, e.g. {@code /oauth/token}.
+   *
+   * @param path the path of a request URL
+   * @return the endpoint template
+   */
+  static String endpointTemplate(String path) {
+    StringBuilder sb = null;
+    Slot slot = Slot.NAME;
+    int start = path.startsWith("/") ? 1 : 0;
+    int versionEnd = path.indexOf('/', start);
+    if (versionEnd < 0) {
+      versionEnd = path.length();
+    }
+    boolean versioned = isVersion(path, start, versionEnd);
+    if (versioned) {
+      slot = Slot.COLLECTION;
+      start = versionEnd + 1;
+    }
+
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = path.length();
+      }
+      String segment = path.substring(start, end);
+
+      // Empty segments, e.g. of a trailing slash, are kept and do not fill a slot.
+      boolean isId = false;
+      if (!segment.isEmpty()) {
+        switch (slot) {
+          case COLLECTION:
+            if (SINGLETONS.contains(segment)) {
+              slot = Slot.NAME;
+            } else if (!NAMESPACES.contains(segment)) {
+              slot = Slot.ID;
+            }
+            break;
+          case ID:
+            isId = !COLLECTION_ACTIONS.contains(segment);
+            slot = Slot.NAME;
+            break;
+          default:
+            isId = !isName(segment);
+            slot = (isId || !versioned) ? Slot.NAME : Slot.ID;
+            break;
+        }
+      }
+
+      if (isId && sb == null) {
+        sb = new StringBuilder(path.length());
+        sb.append(path, 0, start);
+      }
+      if (sb != null) {
+        sb.append(isId ? "{id}" : segment);
+        if (end < path.length()) {
+          sb.append('/');
+        }
+      }
+
+      start = end + 1;
+    }
+    return (sb != null) ? sb.toString() : path;
+  }
+
+  /** Returns whether the given part of the path is a version prefix, e.g. {@code v1}. */
+  private static boolean isVersion(String path, int start, int end) {
+    if (end - start < 2 || path.charAt(start) != 'v') {
+      return false;
+    }
+    for (int i = start + 1; i < end; i++) {
+      char c = path.charAt(i);
+      if (!(c >= '0' && c <= '9')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isName(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      char c = segment.charAt(i);
+      if (!(c >= 'a' && c <= 'z') && c != '_') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The segments expected in a path, see {@link #endpointTemplate(String)}. */
+  private enum Slot {
+    /** A collection, or the namespace of one. */
+    COLLECTION,
+    /** The ID of an object, or an action on the whole collection. */
+    ID,
+    /** A sub-collection or an action, or a singleton's sub-collection. */
+    NAME
+  }
+}
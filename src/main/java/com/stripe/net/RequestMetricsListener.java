@@ -0,0 +1,27 @@
+package com.stripe.net;
+
+/**
+ * Listener notified of the metrics of the requests sent by an {@link HttpClient}, set with {@link
+ * HttpClient#setMetricsListener(RequestMetricsListener)}.
+ *
+ * <p>Listeners are called on the thread that sent the request, or that completed it for
+ * asynchronous requests, so they should return quickly. Exceptions thrown by listeners are ignored.
+ *
+ * @see RequestMetricsRecorder
+ */
+public interface RequestMetricsListener {
+  /**
+   * Called after each attempt of a request, once its response headers were received or it failed.
+   *
+   * @param event the metrics of the attempt
+   */
+  default void onAttempt(RequestMetricsEvent event) {}
+
+  /**
+   * Called once a request completed, after its last attempt.
+   *
+   * @param event the metrics of the request, whose durations span all its attempts and the delays
+   *     between them
+   */
+  default void onRequest(RequestMetricsEvent event) {}
+}
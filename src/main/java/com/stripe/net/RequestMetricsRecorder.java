@@ -0,0 +1,145 @@
+package com.stripe.net;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link RequestMetricsListener}, recording latency histograms and counters per endpoint in
+ * memory.
+ *
+ * <pre>{@code
+ * RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+ * httpClient.setMetricsListener(recorder);
+ * ...
+ * EndpointMetrics metrics = recorder.getEndpointMetrics("GET /v1/customers/{id}");
+ * Duration p99 = metrics.getRequestLatency().getValueAtPercentile(0.99);
+ * }</pre>
+ */
+public class RequestMetricsRecorder implements RequestMetricsListener {
+  private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+  @Override
+  public void onAttempt(RequestMetricsEvent event) {
+    EndpointMetrics metrics = this.getOrCreate(event);
+    metrics.attempts.increment();
+    metrics.attemptLatency.record(event.getTotalDuration());
+    if (event.getTimeToFirstByte() != null) {
+      metrics.timeToFirstByte.record(event.getTimeToFirstByte());
+    }
+    if (event.getConnectDuration() != null) {
+      metrics.connectDuration.record(event.getConnectDuration());
+    }
+  }
+
+  @Override
+  public void onRequest(RequestMetricsEvent event) {
+    EndpointMetrics metrics = this.getOrCreate(event);
+    metrics.requests.increment();
+    metrics.requestLatency.record(event.getTotalDuration());
+    if (event.getException() != null || event.getStatusCode() >= 500) {
+      metrics.errors.increment();
+    }
+  }
+
+  /**
+   * Returns the metrics of the given endpoint.
+   *
+   * @param endpoint the method and endpoint template, e.g. {@code GET /v1/customers/{id}}
+   * @return the metrics of the endpoint, or {@code null} if no request was sent to it
+   */
+  public EndpointMetrics getEndpointMetrics(String endpoint) {
+    return this.endpoints.get(endpoint);
+  }
+
+  /**
+   * Returns the metrics of all the endpoints requests were sent to.
+   *
+   * @return an unmodifiable map of the method and endpoint template to the endpoint's metrics
+   */
+  public Map<String, EndpointMetrics> getEndpointMetrics() {
+    return Collections.unmodifiableMap(new TreeMap<>(this.endpoints));
+  }
+
+  /**
+   * Returns the metrics of all the endpoints combined.
+   *
+   * @return the merged metrics
+   */
+  public EndpointMetrics getTotalMetrics() {
+    EndpointMetrics total = new EndpointMetrics();
+    for (EndpointMetrics metrics : this.endpoints.values()) {
+      total.add(metrics);
+    }
+    return total;
+  }
+
+  private EndpointMetrics getOrCreate(RequestMetricsEvent event) {
+    String key = event.getMethod().name() + " " + event.getEndpoint();
+    EndpointMetrics metrics = this.endpoints.get(key);
+    if (metrics == null) {
+      metrics = this.endpoints.computeIfAbsent(key, k -> new EndpointMetrics());
+    }
+    return metrics;
+  }
+
+  /** The metrics recorded for an endpoint. */
+  public static class EndpointMetrics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final LatencyHistogram attemptLatency = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram connectDuration = new LatencyHistogram();
+
+    EndpointMetrics() {}
+
+    /** Returns the number of completed requests. */
+    public long getRequestCount() {
+      return this.requests.sum();
+    }
+
+    /** Returns the number of attempts, i.e. the number of requests plus their retries. */
+    public long getAttemptCount() {
+      return this.attempts.sum();
+    }
+
+    /** Returns the number of requests that failed with an exception or a server error. */
+    public long getErrorCount() {
+      return this.errors.sum();
+    }
+
+    /** Returns the histogram of the durations of requests, including all their attempts. */
+    public LatencyHistogram getRequestLatency() {
+      return this.requestLatency;
+    }
+
+    /** Returns the histogram of the durations of single attempts. */
+    public LatencyHistogram getAttemptLatency() {
+      return this.attemptLatency;
+    }
+
+    /** Returns the histogram of the times to first byte of attempts, when reported. */
+    public LatencyHistogram getTimeToFirstByte() {
+      return this.timeToFirstByte;
+    }
+
+    /** Returns the histogram of the connection durations of attempts, when reported. */
+    public LatencyHistogram getConnectDuration() {
+      return this.connectDuration;
+    }
+
+    private void add(EndpointMetrics other) {
+      this.requests.add(other.requests.sum());
+      this.attempts.add(other.attempts.sum());
+      this.errors.add(other.errors.sum());
+      this.requestLatency.add(other.requestLatency);
+      this.attemptLatency.add(other.attemptLatency);
+      this.timeToFirstByte.add(other.timeToFirstByte);
+      this.connectDuration.add(other.connectDuration);
+    }
+  }
+}
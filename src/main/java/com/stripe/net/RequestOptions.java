@@ -22,11 +22,24 @@ public class RequestOptions {
 
   private final int connectTimeout;
   private final int readTimeout;
+  private final int callTimeout;
 
   private final int maxNetworkRetries;
   private final Proxy connectionProxy;
   private final PasswordAuthentication proxyCredential;
 
+  private final boolean responseStreamingEnabled;
+
+  private final boolean lazyDeserializationEnabled;
+
+  private final boolean rawJsonRecordingEnabled;
+
+  private final ResponseRetention responseRetention;
+
+  private final String bulkheadPartition;
+
+  private final RequestPriority priority;
+
   public static RequestOptions getDefault() {
     return new RequestOptions(
         Stripe.apiKey,
@@ -36,9 +49,16 @@ public class RequestOptions {
         null,
         Stripe.getConnectTimeout(),
         Stripe.getReadTimeout(),
+        Stripe.getCallTimeout(),
         Stripe.getMaxNetworkRetries(),
         Stripe.getConnectionProxy(),
-        Stripe.getProxyCredential());
+        Stripe.getProxyCredential(),
+        Stripe.isResponseStreamingEnabled(),
+        Stripe.isLazyDeserializationEnabled(),
+        Stripe.isRawJsonRecordingEnabled(),
+        Stripe.getResponseRetention(),
+        null,
+        null);
   }
 
   private RequestOptions(
@@ -49,9 +69,16 @@ public class RequestOptions {
       String stripeVersionOverride,
       int connectTimeout,
       int readTimeout,
+      int callTimeout,
       int maxNetworkRetries,
       Proxy connectionProxy,
-      PasswordAuthentication proxyCredential) {
+      PasswordAuthentication proxyCredential,
+      boolean responseStreamingEnabled,
+      boolean lazyDeserializationEnabled,
+      boolean rawJsonRecordingEnabled,
+      ResponseRetention responseRetention,
+      String bulkheadPartition,
+      RequestPriority priority) {
     this.apiKey = apiKey;
     this.clientId = clientId;
     this.idempotencyKey = idempotencyKey;
@@ -59,9 +86,16 @@ public class RequestOptions {
     this.stripeVersionOverride = stripeVersionOverride;
     this.connectTimeout = connectTimeout;
     this.readTimeout = readTimeout;
+    this.callTimeout = callTimeout;
     this.maxNetworkRetries = maxNetworkRetries;
     this.connectionProxy = connectionProxy;
     this.proxyCredential = proxyCredential;
+    this.responseStreamingEnabled = responseStreamingEnabled;
+    this.lazyDeserializationEnabled = lazyDeserializationEnabled;
+    this.rawJsonRecordingEnabled = rawJsonRecordingEnabled;
+    this.responseRetention = responseRetention;
+    this.bulkheadPartition = bulkheadPartition;
+    this.priority = priority;
   }
 
   public String getApiKey() {
@@ -96,6 +130,10 @@ public class RequestOptions {
     return connectTimeout;
   }
 
+  public int getCallTimeout() {
+    return callTimeout;
+  }
+
   public int getMaxNetworkRetries() {
     return maxNetworkRetries;
   }
@@ -108,10 +146,65 @@ public class RequestOptions {
     return proxyCredential;
   }
 
+  public boolean isResponseStreamingEnabled() {
+    return responseStreamingEnabled;
+  }
+
+  public boolean isLazyDeserializationEnabled() {
+    return lazyDeserializationEnabled;
+  }
+
+  public boolean isRawJsonRecordingEnabled() {
+    return rawJsonRecordingEnabled;
+  }
+
+  public ResponseRetention getResponseRetention() {
+    return responseRetention;
+  }
+
+  public String getBulkheadPartition() {
+    return bulkheadPartition;
+  }
+
+  public RequestPriority getPriority() {
+    return priority;
+  }
+
   public static RequestOptionsBuilder builder() {
     return new RequestOptionsBuilder();
   }
 
+  /**
+   * Returns a copy of these request options with the given connect and read timeouts.
+   *
+   * @param connectTimeout the connect timeout in milliseconds
+   * @param readTimeout the read timeout in milliseconds
+   * @return the request options, or this instance if its timeouts are already the given ones
+   */
+  RequestOptions withTimeouts(int connectTimeout, int readTimeout) {
+    if (connectTimeout == this.connectTimeout && readTimeout == this.readTimeout) {
+      return this;
+    }
+    return new RequestOptions(
+        this.apiKey,
+        this.clientId,
+        this.idempotencyKey,
+        this.stripeAccount,
+        this.stripeVersionOverride,
+        connectTimeout,
+        readTimeout,
+        this.callTimeout,
+        this.maxNetworkRetries,
+        this.connectionProxy,
+        this.proxyCredential,
+        this.responseStreamingEnabled,
+        this.lazyDeserializationEnabled,
+        this.rawJsonRecordingEnabled,
+        this.responseRetention,
+        this.bulkheadPartition,
+        this.priority);
+  }
+
   /**
    * Convert request options to builder, retaining invariant values for the integration.
    *
@@ -129,9 +222,16 @@ public class RequestOptions {
     private String stripeVersionOverride;
     private int connectTimeout;
     private int readTimeout;
+    private int callTimeout;
     private int maxNetworkRetries;
     private Proxy connectionProxy;
     private PasswordAuthentication proxyCredential;
+    private boolean responseStreamingEnabled;
+    private boolean lazyDeserializationEnabled;
+    private boolean rawJsonRecordingEnabled;
+    private ResponseRetention responseRetention;
+    private String bulkheadPartition;
+    private RequestPriority priority;
 
     /**
      * Constructs a request options builder with the global parameters (API key and client ID) as
@@ -142,9 +242,14 @@ public class RequestOptions {
       this.clientId = Stripe.clientId;
       this.connectTimeout = Stripe.getConnectTimeout();
       this.readTimeout = Stripe.getReadTimeout();
+      this.callTimeout = Stripe.getCallTimeout();
       this.maxNetworkRetries = Stripe.getMaxNetworkRetries();
       this.connectionProxy = Stripe.getConnectionProxy();
       this.proxyCredential = Stripe.getProxyCredential();
+      this.responseStreamingEnabled = Stripe.isResponseStreamingEnabled();
+      this.lazyDeserializationEnabled = Stripe.isLazyDeserializationEnabled();
+      this.rawJsonRecordingEnabled = Stripe.isRawJsonRecordingEnabled();
+      this.responseRetention = Stripe.getResponseRetention();
     }
 
     public String getApiKey() {
@@ -213,6 +318,23 @@ public class RequestOptions {
       return this;
     }
 
+    public int getCallTimeout() {
+      return callTimeout;
+    }
+
+    /**
+     * Sets the total time allowed for a request, including all its retries and the delays between
+     * them (in milliseconds). Each attempt's connect and read timeouts are shortened to the time
+     * left, and the request fails with a {@link com.stripe.exception.DeadlineExceededException}
+     * once no time is left for another attempt. Zero means no limit.
+     *
+     * @param timeout timeout value in milliseconds
+     */
+    public RequestOptionsBuilder setCallTimeout(int timeout) {
+      this.callTimeout = timeout;
+      return this;
+    }
+
     public int getMaxNetworkRetries() {
       return maxNetworkRetries;
     }
@@ -245,6 +367,113 @@ public class RequestOptions {
       return this;
     }
 
+    public boolean isResponseStreamingEnabled() {
+      return responseStreamingEnabled;
+    }
+
+    /**
+     * Sets whether response bodies are deserialized directly from the network stream, without first
+     * being read into a string. This reduces memory usage on large responses such as list pages,
+     * but the raw body is then not retained: {@code getLastResponse().body()} returns {@code null}
+     * and {@code getRawJsonObject()} is not available on the returned objects.
+     *
+     * @param responseStreamingEnabled whether response bodies should be streamed
+     */
+    public RequestOptionsBuilder setResponseStreamingEnabled(boolean responseStreamingEnabled) {
+      this.responseStreamingEnabled = responseStreamingEnabled;
+      return this;
+    }
+
+    public boolean isLazyDeserializationEnabled() {
+      return lazyDeserializationEnabled;
+    }
+
+    /**
+     * Sets whether the lists of objects and the expanded objects of responses are deserialized
+     * lazily. When enabled, each object of a list is only located in the body, and each expanded
+     * object is kept as parsed JSON, and they are only deserialized when first accessed, which
+     * saves work when only a few fields of large responses are read. The returned objects otherwise
+     * behave the same.
+     *
+     * <p>Expanded objects are still parsed into a JSON tree, which they keep until first accessed,
+     * so they only save the work of building the objects. The lists of streamed responses, and of
+     * responses whose raw JSON is {@link #setRawJsonRecordingEnabled(boolean) recorded}, are
+     * parsed as they are read and are deserialized eagerly: only their expanded objects are lazy.
+     *
+     * @param lazyDeserializationEnabled whether responses should be deserialized lazily
+     */
+    public RequestOptionsBuilder setLazyDeserializationEnabled(boolean lazyDeserializationEnabled) {
+      this.lazyDeserializationEnabled = lazyDeserializationEnabled;
+      return this;
+    }
+
+    public boolean isRawJsonRecordingEnabled() {
+      return rawJsonRecordingEnabled;
+    }
+
+    /**
+     * Sets whether the JSON of responses is recorded while they are deserialized, so that {@code
+     * getRawJsonObject()} on the returned objects does not parse the body a second time. This
+     * makes deserialization slower, but reading unmodelled fields faster, and also makes {@code
+     * getRawJsonObject()} available on streamed responses. Since the whole body is then parsed, the
+     * lists of objects are deserialized eagerly even if {@link
+     * #setLazyDeserializationEnabled(boolean) lazy deserialization} is enabled.
+     *
+     * @param rawJsonRecordingEnabled whether the JSON of responses should be recorded
+     */
+    public RequestOptionsBuilder setRawJsonRecordingEnabled(boolean rawJsonRecordingEnabled) {
+      this.rawJsonRecordingEnabled = rawJsonRecordingEnabled;
+      return this;
+    }
+
+    public ResponseRetention getResponseRetention() {
+      return responseRetention;
+    }
+
+    /**
+     * Sets what the returned objects retain of the response, as {@code getLastResponse()}. Not
+     * retaining the body of responses reduces the memory used by objects that are kept, e.g. in a
+     * cache. Errors always retain their whole response.
+     *
+     * @param responseRetention what to retain, e.g. {@link ResponseRetention#HEADERS_ONLY} to keep
+     *     the request ID but not the body; {@code null} for {@link ResponseRetention#FULL}
+     */
+    public RequestOptionsBuilder setResponseRetention(ResponseRetention responseRetention) {
+      this.responseRetention = responseRetention;
+      return this;
+    }
+
+    public String getBulkheadPartition() {
+      return bulkheadPartition;
+    }
+
+    /**
+     * Sets the partition of the {@link Bulkhead} the request is sent through, overriding the
+     * partition the bulkhead assigns to the request's resource. If the client's bulkhead has no
+     * partition of that name, the request is not limited.
+     *
+     * @param bulkheadPartition the name of the bulkhead partition, e.g. {@code "batch"}
+     */
+    public RequestOptionsBuilder setBulkheadPartition(String bulkheadPartition) {
+      this.bulkheadPartition = bulkheadPartition;
+      return this;
+    }
+
+    public RequestPriority getPriority() {
+      return priority;
+    }
+
+    /**
+     * Sets the priority class the {@link RequestScheduler} dispatches the request with. If {@code
+     * null}, the request is dispatched as {@link RequestPriority#STANDARD}.
+     *
+     * @param priority the priority class, e.g. {@link RequestPriority#BACKGROUND} for exports
+     */
+    public RequestOptionsBuilder setPriority(RequestPriority priority) {
+      this.priority = priority;
+      return this;
+    }
+
     public RequestOptionsBuilder clearIdempotencyKey() {
       this.idempotencyKey = null;
       return this;
@@ -302,9 +531,16 @@ public class RequestOptions {
           normalizeStripeVersion(this.stripeVersionOverride),
           connectTimeout,
           readTimeout,
+          callTimeout,
           maxNetworkRetries,
           connectionProxy,
-          proxyCredential);
+          proxyCredential,
+          responseStreamingEnabled,
+          lazyDeserializationEnabled,
+          rawJsonRecordingEnabled,
+          (responseRetention != null) ? responseRetention : ResponseRetention.FULL,
+          bulkheadPartition,
+          priority);
     }
   }
 
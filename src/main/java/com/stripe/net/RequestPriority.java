@@ -0,0 +1,16 @@
+package com.stripe.net;
+
+/**
+ * The priority classes of requests, used by the {@link RequestScheduler} to share a client between
+ * latency-sensitive and batch traffic.
+ */
+public enum RequestPriority {
+  /** Requests a user is waiting for, e.g. creating a payment intent during checkout. */
+  INTERACTIVE,
+
+  /** Requests of no particular priority. This is the priority of requests that set none. */
+  STANDARD,
+
+  /** Batch requests that should yield to the others, e.g. exports or reconciliation jobs. */
+  BACKGROUND
+}
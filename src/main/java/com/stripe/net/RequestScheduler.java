@@ -0,0 +1,433 @@
+package com.stripe.net;
+
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatches the attempts of requests sent with retries by priority class, so that batch traffic
+ * yields to latency-sensitive traffic sharing the same {@link HttpClient}.
+ *
+ * <p>Each request belongs to the {@link RequestPriority} set with {@link
+ * RequestOptions.RequestOptionsBuilder#setPriority(RequestPriority)}, or to {@link
+ * RequestPriority#STANDARD} if none is set. Attempts are dispatched one at a time: a dispatched
+ * attempt takes one of the scheduler's slots, if their number is limited, then waits for the budget
+ * of the client's {@link RateLimiter} before the next attempt is dispatched. The rate budget is
+ * thus shared across the classes in dispatch order, rather than in arrival order.
+ *
+ * <p>While several classes have requests waiting, they are dispatched with weighted fair queuing:
+ * each class gets a share of the dispatches in proportion to its {@link
+ * RequestSchedulerOptions#getWeight(RequestPriority) weight}, and a class with no waiting requests
+ * leaves its share to the others. Background work therefore runs at full speed when the client is
+ * otherwise idle, and automatically yields when interactive load rises.
+ *
+ * <p>Requests that find the queue of their class full, or wait longer than the maximum wait, are
+ * rejected with a {@link RateLimitException}, and requests interrupted while they wait with a
+ * {@link RequestInterruptedException}, which is not retried. The number of waiting, dispatched and
+ * rejected requests and the time they waited are reported per class.
+ */
+public class RequestScheduler {
+  private final RequestSchedulerOptions options;
+
+  private final Map<RequestPriority, PriorityClass> classes;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** The number of requests waiting in all classes. */
+  private int queuedCount;
+
+  /** The number of dispatched attempts that have not completed. */
+  private int activeCount;
+
+  /** Whether a dispatched attempt is waiting for the rate budget. */
+  private boolean dispatching;
+
+  /** The start tag of the last dispatched request, in the virtual time of fair queuing. */
+  private double virtualTime;
+
+  /** Initializes a new instance of the {@link RequestScheduler} with default options. */
+  public RequestScheduler() {
+    this(RequestSchedulerOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link RequestScheduler}.
+   *
+   * @param options the scheduler options
+   */
+  public RequestScheduler(RequestSchedulerOptions options) {
+    this.options = options;
+
+    Map<RequestPriority, PriorityClass> classes = new EnumMap<>(RequestPriority.class);
+    for (RequestPriority priority : RequestPriority.values()) {
+      classes.put(priority, new PriorityClass(priority, options.getWeight(priority)));
+    }
+    this.classes = Collections.unmodifiableMap(classes);
+  }
+
+  public RequestSchedulerOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the priority class of the given priority, to report its usage.
+   *
+   * @param priority the priority
+   * @return the priority class
+   */
+  public PriorityClass getPriorityClass(RequestPriority priority) {
+    return this.classes.get(priority);
+  }
+
+  /**
+   * Returns the number of dispatched attempts that have not completed, across all classes.
+   *
+   * @return the number of attempts in flight
+   */
+  public int getActiveCount() {
+    this.lock.lock();
+    try {
+      return this.activeCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for the given request to be dispatched, then runs the given admission, typically the
+   * rate limiter wait, before dispatching the next request.
+   *
+   * @param request the request
+   * @param remainingNanos the time left before the call timeout of the request
+   * @param admission the wait to run once the request is dispatched
+   * @return the ticket of the dispatched attempt, to be released once the attempt completes
+   * @throws StripeException if the request is rejected, or if the admission fails
+   */
+  Ticket acquire(StripeRequest request, long remainingNanos, Admission admission)
+      throws StripeException {
+    RequestPriority priority = request.options().getPriority();
+    PriorityClass priorityClass =
+        this.classes.get((priority != null) ? priority : RequestPriority.STANDARD);
+    long startNanos = System.nanoTime();
+
+    this.lock.lock();
+    try {
+      if (this.queuedCount == 0 && this.canDispatch()) {
+        this.dispatch(priorityClass.startTag());
+      } else {
+        this.await(request, priorityClass, remainingNanos, startNanos);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+
+    try {
+      admission.await();
+    } catch (StripeException | RuntimeException e) {
+      priorityClass.waitTimes.recordNanos(System.nanoTime() - startNanos);
+      this.complete(true);
+      throw e;
+    }
+    priorityClass.waitTimes.recordNanos(System.nanoTime() - startNanos);
+    priorityClass.accepted.increment();
+    this.complete(false);
+
+    return new Ticket();
+  }
+
+  /** Waits in the queue of the given class until dispatched. Must be called with the lock held. */
+  private void await(
+      StripeRequest request, PriorityClass priorityClass, long remainingNanos, long startNanos)
+      throws StripeException {
+    if (priorityClass.waiters.size() >= this.options.getMaxQueueDepth()) {
+      priorityClass.rejected.increment();
+      throw new RateLimitException(
+          String.format(
+              "Request was not sent because %d %s requests were already waiting to be "
+                  + "dispatched.",
+              this.options.getMaxQueueDepth(), priorityClass.priority),
+          null,
+          null,
+          null,
+          null,
+          null);
+    }
+
+    double arrivalTime = this.virtualTime;
+    double startTag = priorityClass.startTag();
+    Waiter waiter =
+        new Waiter(
+            arrivalTime, startTag, startTag + priorityClass.cost, this.lock.newCondition());
+    priorityClass.waiters.add(waiter);
+    this.queuedCount++;
+
+    long maxWaitNanos = this.options.getMaxWait().toNanos();
+    long waitNanos = Math.min(maxWaitNanos, remainingNanos);
+    try {
+      while (!waiter.dispatched) {
+        if (waitNanos <= 0) {
+          this.abandon(priorityClass, waiter);
+          priorityClass.waitTimes.recordNanos(System.nanoTime() - startNanos);
+          priorityClass.rejected.increment();
+          if (remainingNanos < maxWaitNanos) {
+            throw HttpClient.deadlineExceeded(request, null);
+          }
+          throw new RateLimitException(
+              String.format(
+                  "Request was not sent because it waited more than the maximum wait of %d ms to "
+                      + "be dispatched.",
+                  Duration.ofNanos(maxWaitNanos).toMillis()),
+              null,
+              null,
+              null,
+              null,
+              null);
+        }
+        waitNanos = waiter.condition.awaitNanos(waitNanos);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (waiter.dispatched) {
+        this.activeCount--;
+        this.dispatching = false;
+        this.dispatchNext();
+      } else {
+        this.abandon(priorityClass, waiter);
+      }
+      priorityClass.rejected.increment();
+      throw new RequestInterruptedException(
+          String.format(
+              "Interrupted while waiting for a %s request to be dispatched.",
+              priorityClass.priority),
+          e);
+    }
+  }
+
+  /**
+   * Removes a waiter that will not be dispatched from the queue of its class, and moves the tags of
+   * the requests of the class that arrived after it back, as if it never arrived. Must be called
+   * with the lock held.
+   */
+  private void abandon(PriorityClass priorityClass, Waiter waiter) {
+    // The waiter's start tag is the finish tag the requests after it would have followed.
+    double finishTag = waiter.startTag;
+    boolean after = false;
+    for (Waiter next : priorityClass.waiters) {
+      if (after) {
+        next.startTag = Math.max(next.arrivalTime, finishTag);
+        next.finishTag = next.startTag + priorityClass.cost;
+        finishTag = next.finishTag;
+      }
+      after = after || next == waiter;
+    }
+    priorityClass.lastFinishTag = finishTag;
+    this.dequeue(priorityClass, waiter);
+  }
+
+  private void dequeue(PriorityClass priorityClass, Waiter waiter) {
+    priorityClass.waiters.remove(waiter);
+    this.queuedCount--;
+  }
+
+  private boolean canDispatch() {
+    return !this.dispatching
+        && (this.options.getMaxConcurrentCalls() == 0
+            || this.activeCount < this.options.getMaxConcurrentCalls());
+  }
+
+  /** Dispatches the request of the given start tag. Must be called with the lock held. */
+  private void dispatch(double startTag) {
+    this.virtualTime = Math.max(this.virtualTime, startTag);
+    this.activeCount++;
+    this.dispatching = true;
+  }
+
+  /**
+   * Dispatches the waiting request with the earliest finish tag, if any and if possible. Must be
+   * called with the lock held.
+   */
+  private void dispatchNext() {
+    if (this.queuedCount == 0 || !this.canDispatch()) {
+      return;
+    }
+
+    Waiter next = null;
+    PriorityClass nextClass = null;
+    for (PriorityClass priorityClass : this.classes.values()) {
+      Waiter head = priorityClass.waiters.peek();
+      if (head != null && (next == null || head.finishTag < next.finishTag)) {
+        next = head;
+        nextClass = priorityClass;
+      }
+    }
+
+    this.dequeue(nextClass, next);
+    this.dispatch(next.startTag);
+    next.dispatched = true;
+    next.condition.signal();
+  }
+
+  /** Ends the dispatch of an attempt, and also releases its slot if it was not sent. */
+  private void complete(boolean release) {
+    this.lock.lock();
+    try {
+      this.dispatching = false;
+      if (release) {
+        this.activeCount--;
+      }
+      this.dispatchNext();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void release() {
+    this.lock.lock();
+    try {
+      this.activeCount--;
+      this.dispatchNext();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /** The wait run by a dispatched attempt before the next attempt is dispatched. */
+  @FunctionalInterface
+  interface Admission {
+    void await() throws StripeException;
+  }
+
+  /** The slot held by a dispatched attempt. */
+  final class Ticket {
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    /** Releases the slot. Releasing a ticket more than once has no effect. */
+    void release() {
+      if (this.released.compareAndSet(false, true)) {
+        RequestScheduler.this.release();
+      }
+    }
+
+    /**
+     * Releases the slot once the given response is consumed: when its body is closed if it is
+     * streamed, immediately otherwise.
+     *
+     * @param response the response of the attempt
+     * @return the response to use in place of the given one
+     */
+    @SuppressWarnings("unchecked")
+    <T extends AbstractStripeResponse<?>> T releaseWith(T response) {
+      if (response instanceof StripeResponseStream) {
+        StripeResponseStream responseStream = (StripeResponseStream) response;
+        return (T)
+            responseStream.withBody(
+                ConnectionPermits.releaseOnClose(responseStream.body(), this::release));
+      }
+      this.release();
+      return response;
+    }
+  }
+
+  private static final class Waiter {
+    /** The virtual time when the request arrived. */
+    final double arrivalTime;
+
+    double startTag;
+    double finishTag;
+    final Condition condition;
+    boolean dispatched;
+
+    Waiter(double arrivalTime, double startTag, double finishTag, Condition condition) {
+      this.arrivalTime = arrivalTime;
+      this.startTag = startTag;
+      this.finishTag = finishTag;
+      this.condition = condition;
+    }
+  }
+
+  /** A priority class of the scheduler, with its waiting requests and statistics. */
+  public final class PriorityClass {
+    private final RequestPriority priority;
+
+    private final double cost;
+
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /** The finish tag of the last request of the class. */
+    private double lastFinishTag;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    PriorityClass(RequestPriority priority, int weight) {
+      this.priority = priority;
+      this.cost = 1.0 / weight;
+    }
+
+    public RequestPriority getPriority() {
+      return this.priority;
+    }
+
+    /**
+     * Returns the number of requests of the class currently waiting to be dispatched.
+     *
+     * @return the number of waiting requests
+     */
+    public int getQueuedCount() {
+      RequestScheduler.this.lock.lock();
+      try {
+        return this.waiters.size();
+      } finally {
+        RequestScheduler.this.lock.unlock();
+      }
+    }
+
+    /**
+     * Returns the number of requests of the class that were dispatched.
+     *
+     * @return the number of dispatched requests
+     */
+    public long getAcceptedCount() {
+      return this.accepted.sum();
+    }
+
+    /**
+     * Returns the number of requests of the class that were rejected, because its queue was full,
+     * they waited longer than the maximum wait or they were interrupted while waiting.
+     *
+     * @return the number of rejected requests
+     */
+    public long getRejectedCount() {
+      return this.rejected.sum();
+    }
+
+    /**
+     * Returns the histogram of the times requests of the class waited to be dispatched, including
+     * their rate limiter wait and the requests that were rejected after waiting.
+     *
+     * @return the histogram of wait times
+     */
+    public LatencyHistogram getWaitTimes() {
+      return this.waitTimes;
+    }
+
+    /** Returns the start tag of a new request of the class. Must be called with the lock held. */
+    private double startTag() {
+      double startTag = Math.max(RequestScheduler.this.virtualTime, this.lastFinishTag);
+      this.lastFinishTag = startTag + this.cost;
+      return startTag;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link RequestScheduler}. */
+@EqualsAndHashCode(callSuper = false)
+public class RequestSchedulerOptions {
+  public static final int DEFAULT_INTERACTIVE_WEIGHT = 16;
+  public static final int DEFAULT_STANDARD_WEIGHT = 4;
+  public static final int DEFAULT_BACKGROUND_WEIGHT = 1;
+  public static final int DEFAULT_MAX_QUEUE_DEPTH = 1000;
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+  private final int maxConcurrentCalls;
+  private final Map<RequestPriority, Integer> weights;
+  private final int maxQueueDepth;
+  private final Duration maxWait;
+
+  public static RequestSchedulerOptions getDefault() {
+    return new RequestSchedulerOptionsBuilder().build();
+  }
+
+  private RequestSchedulerOptions(
+      int maxConcurrentCalls,
+      Map<RequestPriority, Integer> weights,
+      int maxQueueDepth,
+      Duration maxWait) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.weights = weights;
+    this.maxQueueDepth = maxQueueDepth;
+    this.maxWait = maxWait;
+  }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  /**
+   * Returns the weight of the given priority class.
+   *
+   * @param priority the priority class
+   * @return the weight of the priority class
+   */
+  public int getWeight(RequestPriority priority) {
+    return weights.get(priority);
+  }
+
+  public int getMaxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+
+  public static RequestSchedulerOptionsBuilder builder() {
+    return new RequestSchedulerOptionsBuilder();
+  }
+
+  public static final class RequestSchedulerOptionsBuilder {
+    private int maxConcurrentCalls = 0;
+    private final Map<RequestPriority, Integer> weights = new EnumMap<>(RequestPriority.class);
+    private int maxQueueDepth = DEFAULT_MAX_QUEUE_DEPTH;
+    private Duration maxWait = DEFAULT_MAX_WAIT;
+
+    public RequestSchedulerOptionsBuilder() {
+      this.weights.put(RequestPriority.INTERACTIVE, DEFAULT_INTERACTIVE_WEIGHT);
+      this.weights.put(RequestPriority.STANDARD, DEFAULT_STANDARD_WEIGHT);
+      this.weights.put(RequestPriority.BACKGROUND, DEFAULT_BACKGROUND_WEIGHT);
+    }
+
+    public int getMaxConcurrentCalls() {
+      return maxConcurrentCalls;
+    }
+
+    /**
+     * Sets the maximum number of attempts in flight at once, across all priority classes. If zero,
+     * the number of attempts in flight is not limited, and requests are only queued while waiting
+     * for the client's {@link RateLimiter}.
+     *
+     * @param maxConcurrentCalls the maximum number of attempts in flight
+     */
+    public RequestSchedulerOptionsBuilder setMaxConcurrentCalls(int maxConcurrentCalls) {
+      this.maxConcurrentCalls = maxConcurrentCalls;
+      return this;
+    }
+
+    public int getWeight(RequestPriority priority) {
+      return weights.get(priority);
+    }
+
+    /**
+     * Sets the weight of a priority class. While several classes have queued requests, each class
+     * is dispatched in proportion to its weight, e.g. with weights of 16 and 1, an interactive
+     * request waits behind at most one background request for every 16 interactive ones.
+     *
+     * @param priority the priority class
+     * @param weight the weight of the priority class
+     */
+    public RequestSchedulerOptionsBuilder setWeight(RequestPriority priority, int weight) {
+      this.weights.put(priority, weight);
+      return this;
+    }
+
+    public int getMaxQueueDepth() {
+      return maxQueueDepth;
+    }
+
+    /**
+     * Sets the maximum number of requests of each priority class waiting to be dispatched. Further
+     * requests of that class are rejected immediately with a {@link
+     * com.stripe.exception.RateLimitException}.
+     *
+     * @param maxQueueDepth the maximum number of waiting requests per priority class
+     */
+    public RequestSchedulerOptionsBuilder setMaxQueueDepth(int maxQueueDepth) {
+      this.maxQueueDepth = maxQueueDepth;
+      return this;
+    }
+
+    public Duration getMaxWait() {
+      return maxWait;
+    }
+
+    /**
+     * Sets the maximum time a request waits to be dispatched before being rejected with a {@link
+     * com.stripe.exception.RateLimitException}.
+     *
+     * @param maxWait the maximum wait
+     */
+    public RequestSchedulerOptionsBuilder setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    /** Constructs a {@link RequestSchedulerOptions} with the specified values. */
+    public RequestSchedulerOptions build() {
+      if (maxConcurrentCalls < 0) {
+        throw new IllegalArgumentException("maxConcurrentCalls must not be negative.");
+      }
+      for (Map.Entry<RequestPriority, Integer> entry : weights.entrySet()) {
+        if (entry.getValue() <= 0) {
+          throw new IllegalArgumentException(
+              String.format("weight of priority %s must be positive.", entry.getKey()));
+        }
+      }
+      if (maxQueueDepth < 0) {
+        throw new IllegalArgumentException("maxQueueDepth must not be negative.");
+      }
+      if (maxWait == null || maxWait.isNegative()) {
+        throw new IllegalArgumentException("maxWait must not be negative.");
+      }
+
+      return new RequestSchedulerOptions(
+          maxConcurrentCalls, new EnumMap<>(weights), maxQueueDepth, maxWait);
+    }
+  }
+}
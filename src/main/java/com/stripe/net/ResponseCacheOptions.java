@@ -0,0 +1,125 @@
+package com.stripe.net;
+
+import com.stripe.model.StripeObjectInterface;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link CachingStripeResponseGetter}. */
+@EqualsAndHashCode(callSuper = false)
+public class ResponseCacheOptions {
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private final Map<Class<?>, Duration> ttls;
+  private final int maxEntries;
+  private final Duration staleWhileRevalidate;
+
+  private ResponseCacheOptions(
+      Map<Class<?>, Duration> ttls, int maxEntries, Duration staleWhileRevalidate) {
+    this.ttls = ttls;
+    this.maxEntries = maxEntries;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  /**
+   * Returns the time-to-live of the cached resources of the given class.
+   *
+   * @param clazz the resource class
+   * @return the time-to-live, or {@code null} if resources of this class are not cached
+   */
+  public Duration getTtl(Class<?> clazz) {
+    return ttls.get(clazz);
+  }
+
+  /**
+   * Returns the time-to-live of the cached resources, by resource class.
+   *
+   * @return an unmodifiable map of the resource classes to their time-to-live
+   */
+  public Map<Class<?>, Duration> getTtls() {
+    return ttls;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public Duration getStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  public static ResponseCacheOptionsBuilder builder() {
+    return new ResponseCacheOptionsBuilder();
+  }
+
+  public static final class ResponseCacheOptionsBuilder {
+    private final Map<Class<?>, Duration> ttls = new HashMap<>();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private Duration staleWhileRevalidate = Duration.ZERO;
+
+    /**
+     * Sets the time-to-live of the cached resources of the given class. Only resources of classes
+     * with a time-to-live are cached.
+     *
+     * @param clazz the resource class, e.g. {@code Price.class}
+     * @param ttl the time-to-live
+     */
+    public ResponseCacheOptionsBuilder setTtl(
+        Class<? extends StripeObjectInterface> clazz, Duration ttl) {
+      this.ttls.put(clazz, ttl);
+      return this;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of cached responses. Once reached, the least recently used responses
+     * are evicted first.
+     *
+     * @param maxEntries the maximum number of cached responses
+     */
+    public ResponseCacheOptionsBuilder setMaxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    public Duration getStaleWhileRevalidate() {
+      return staleWhileRevalidate;
+    }
+
+    /**
+     * Sets the time during which an expired response is still returned while it is refreshed in the
+     * background. Use {@link Duration#ZERO} to always wait for the refreshed response.
+     *
+     * @param staleWhileRevalidate the time expired responses may still be returned
+     */
+    public ResponseCacheOptionsBuilder setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+      this.staleWhileRevalidate = staleWhileRevalidate;
+      return this;
+    }
+
+    /** Constructs a {@link ResponseCacheOptions} with the specified values. */
+    public ResponseCacheOptions build() {
+      for (Map.Entry<Class<?>, Duration> entry : ttls.entrySet()) {
+        Duration ttl = entry.getValue();
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+          throw new IllegalArgumentException(
+              String.format("ttl of %s must be positive.", entry.getKey().getSimpleName()));
+        }
+      }
+      if (maxEntries <= 0) {
+        throw new IllegalArgumentException("maxEntries must be positive.");
+      }
+      if (staleWhileRevalidate == null || staleWhileRevalidate.isNegative()) {
+        throw new IllegalArgumentException("staleWhileRevalidate must not be negative.");
+      }
+
+      return new ResponseCacheOptions(
+          Collections.unmodifiableMap(new HashMap<>(ttls)), maxEntries, staleWhileRevalidate);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.stripe.net;
+
+/**
+ * What the objects returned by requests retain of the response they were deserialized from, as
+ * {@code getLastResponse()}.
+ */
+public enum ResponseRetention {
+  /** The whole response, including its body. This is the default. */
+  FULL,
+
+  /**
+   * The status code and headers of the response, e.g. its request ID and idempotency key, but not
+   * its body: {@link StripeResponse#body()} then returns {@code null}, as does {@code
+   * getRawJsonObject()}.
+   */
+  HEADERS_ONLY,
+
+  /**
+   * Nothing: {@code getLastResponse()} and {@code getRawJsonObject()} return {@code null}. For
+   * objects kept in caches, where the response is of no use.
+   */
+  NONE
+}
@@ -0,0 +1,19 @@
+package com.stripe.net;
+
+/** The reasons for which {@link HttpClient} retries a request. */
+public enum RetryReason {
+  /** The connection failed or timed out. */
+  CONNECTION_ERROR,
+
+  /** Stripe asked for the request to be retried with the {@code Stripe-Should-Retry} header. */
+  STRIPE_SHOULD_RETRY,
+
+  /** The request was rate limited while a client-side {@link RateLimiter} is set. */
+  RATE_LIMITED,
+
+  /** The request conflicted with another request ({@code 409 Conflict}). */
+  CONFLICT,
+
+  /** Stripe answered with a server error ({@code 5xx}). */
+  SERVER_ERROR
+}
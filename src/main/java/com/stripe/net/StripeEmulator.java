@@ -0,0 +1,356 @@
+package com.stripe.net;
+
+import com.google.gson.JsonObject;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.util.StreamUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-process, in-memory emulator of Stripe's API, to load test an integration and the retry and
+ * pagination paths of the library at high throughput, without a network.
+ *
+ * <p>The emulator keeps the state of customers, payment intents, charges and refunds, records the
+ * events their changes cause, and paginates lists like Stripe does. Payments with the {@code
+ * pm_card_chargeDeclined} payment method or the {@code tok_chargeDeclined} source are declined.
+ * Requests with an idempotency key are replayed like Stripe does, so retried requests are not
+ * processed twice. All API keys share the same state, and the state is kept until {@link #reset()}
+ * is called. Other endpoints, and the {@code expand} parameter, are not supported.
+ *
+ * <p>The emulator can add latency to the requests, and answer a fraction of them with {@code 500
+ * Internal Server Error} or {@code 429 Too Many Requests} responses, without processing them.
+ *
+ * <p>The emulator is an {@link HttpClient}, whatever the API base of the requests:
+ *
+ * <pre>{@code
+ * Stripe.setHttpClient(new StripeEmulator());
+ * }</pre>
+ *
+ * <p>It can also listen for requests on the loopback interface, for integrations using their own
+ * HTTP client:
+ *
+ * <pre>{@code
+ * StripeEmulator emulator = new StripeEmulator();
+ * Stripe.overrideApiBase(emulator.listen(0));
+ * }</pre>
+ */
+public class StripeEmulator extends HttpClient implements Closeable {
+  /** The maximum number of responses kept for idempotent replays, the oldest ones being dropped. */
+  private static final int MAX_IDEMPOTENT_RESPONSES = 10_000;
+
+  private final StripeEmulatorOptions options;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** The state of the API. Guarded by {@link #lock}. */
+  private final EmulatedApi api = new EmulatedApi();
+
+  /** The responses to the requests with an idempotency key. Guarded by the write lock. */
+  private final Map<String, Response> idempotentResponses =
+      new LinkedHashMap<String, Response>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+          return size() > MAX_IDEMPOTENT_RESPONSES;
+        }
+      };
+
+  private HttpServer server;
+
+  private ExecutorService serverExecutor;
+
+  /** Initializes a new instance of the {@link StripeEmulator} with default options. */
+  public StripeEmulator() {
+    this(StripeEmulatorOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link StripeEmulator}.
+   *
+   * @param options the emulator options
+   */
+  public StripeEmulator(StripeEmulatorOptions options) {
+    super();
+    this.options = options;
+  }
+
+  public StripeEmulatorOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Serves the given request.
+   *
+   * @param request the request
+   * @return the response
+   * @throws ApiConnectionException if interrupted while emulating the latency
+   */
+  @Override
+  public StripeResponse request(StripeRequest request) throws StripeException {
+    String query;
+    if (request.method() == ApiResource.RequestMethod.POST) {
+      query = (request.params() != null) ? FormEncoder.createQueryString(request.params()) : null;
+    } else {
+      query = request.url().getRawQuery();
+    }
+
+    try {
+      Response response =
+          this.serve(request.method().name(), request.url().getPath(), query, request.headers());
+      return new StripeResponse(response.status, response.headers(), response.body);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ApiConnectionException("Interrupted while waiting for the emulated response.", e);
+    }
+  }
+
+  /**
+   * Starts listening for requests on the loopback interface.
+   *
+   * @param port the port to listen on, or 0 to pick a free port
+   * @return the API base to send the requests to, e.g. {@code http://127.0.0.1:12111}, to be set
+   *     with {@link Stripe#overrideApiBase(String)}
+   * @throws IOException if the server cannot be started
+   * @throws IllegalStateException if the emulator is already listening
+   */
+  public synchronized String listen(int port) throws IOException {
+    if (this.server != null) {
+      throw new IllegalStateException("The emulator is already listening.");
+    }
+
+    InetAddress address = InetAddress.getLoopbackAddress();
+    HttpServer httpServer = HttpServer.create(new InetSocketAddress(address, port), 0);
+    this.serverExecutor =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread = new Thread(runnable, "stripe-emulator");
+              thread.setDaemon(true);
+              return thread;
+            });
+    httpServer.setExecutor(this.serverExecutor);
+    httpServer.createContext("/", this::serveExchange);
+    httpServer.start();
+    this.server = httpServer;
+
+    return "http://" + address.getHostAddress() + ":" + httpServer.getAddress().getPort();
+  }
+
+  /** Stops listening for requests, if listening. The state of the API is kept. */
+  @Override
+  public synchronized void close() {
+    if (this.server != null) {
+      this.server.stop(0);
+      this.serverExecutor.shutdownNow();
+      this.server = null;
+      this.serverExecutor = null;
+    }
+  }
+
+  /** Drops all the objects and events, and forgets the responses to idempotent requests. */
+  public void reset() {
+    this.lock.writeLock().lock();
+    try {
+      this.api.clear();
+      this.idempotentResponses.clear();
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private void serveExchange(HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      String body = StreamUtils.readToEnd(exchange.getRequestBody(), StandardCharsets.UTF_8);
+      Response response =
+          this.serve(
+              method,
+              exchange.getRequestURI().getPath(),
+              "POST".equals(method) ? body : exchange.getRequestURI().getRawQuery(),
+              HttpHeaders.of(exchange.getRequestHeaders()));
+
+      byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().putAll(response.headers().map());
+      exchange.sendResponseHeaders(response.status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private Response serve(String method, String path, String query, HttpHeaders headers)
+      throws InterruptedException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    long latencyNanos = this.options.getLatency().toNanos();
+    long jitterNanos = this.options.getLatencyJitter().toNanos();
+    if (jitterNanos > 0) {
+      latencyNanos += random.nextLong(jitterNanos + 1);
+    }
+    if (latencyNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(latencyNanos);
+    }
+
+    String requestId = "req_" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+    String idempotencyKey =
+        "POST".equals(method) ? headers.firstValue("Idempotency-Key").orElse(null) : null;
+
+    double failure = random.nextDouble();
+    if (failure < this.options.getRateLimitRate()) {
+      return Response.error(
+          new EmulatedApi.ApiError(
+              429,
+              "invalid_request_error",
+              "rate_limit",
+              null,
+              "Too many requests hit the API too quickly."),
+          requestId,
+          idempotencyKey);
+    }
+    if (failure < this.options.getRateLimitRate() + this.options.getErrorRate()) {
+      return Response.error(
+          new EmulatedApi.ApiError(
+              500, "api_error", null, null, "An unknown error occurred with the emulated API."),
+          requestId,
+          idempotencyKey);
+    }
+
+    String authorization = headers.firstValue("Authorization").orElse("");
+    if (!authorization.startsWith("Bearer ") || authorization.length() == "Bearer ".length()) {
+      return Response.error(
+          new EmulatedApi.ApiError(
+              401,
+              "invalid_request_error",
+              null,
+              null,
+              "You did not provide an API key. You need to provide your API key in the "
+                  + "Authorization header, using Bearer auth."),
+          requestId,
+          idempotencyKey);
+    }
+
+    Map<String, String> params = decodeForm(query);
+    boolean write = !"GET".equals(method);
+    Lock lock = write ? this.lock.writeLock() : this.lock.readLock();
+    lock.lock();
+    try {
+      String replayKey = (idempotencyKey != null) ? authorization + " " + idempotencyKey : null;
+      if (replayKey != null) {
+        Response replayed = this.idempotentResponses.get(replayKey);
+        if (replayed != null) {
+          return replayed.replayed();
+        }
+      }
+
+      Response response;
+      try {
+        JsonObject body = this.api.handle(method, path, params, requestId, idempotencyKey);
+        response = new Response(200, body.toString(), requestId, idempotencyKey, false);
+      } catch (EmulatedApi.ApiError e) {
+        response = Response.error(e, requestId, idempotencyKey);
+      }
+
+      if (replayKey != null) {
+        this.idempotentResponses.put(replayKey, response);
+      }
+      return response;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Decodes form-encoded parameters. Only the last value of repeated parameters is kept. */
+  private static Map<String, String> decodeForm(String form) {
+    Map<String, String> params = new HashMap<>();
+    if (form == null || form.isEmpty()) {
+      return params;
+    }
+
+    for (String pair : form.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      int separator = pair.indexOf('=');
+      String name = (separator >= 0) ? pair.substring(0, separator) : pair;
+      String value = (separator >= 0) ? pair.substring(separator + 1) : "";
+      params.put(urlDecode(name), urlDecode(value));
+    }
+    return params;
+  }
+
+  private static String urlDecode(String value) {
+    try {
+      return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError("UTF-8 is unknown");
+    }
+  }
+
+  /** A response of the emulated API. */
+  private static final class Response {
+    final int status;
+
+    final String body;
+
+    final String requestId;
+
+    final String idempotencyKey;
+
+    final boolean replayed;
+
+    Response(int status, String body, String requestId, String idempotencyKey, boolean replayed) {
+      this.status = status;
+      this.body = body;
+      this.requestId = requestId;
+      this.idempotencyKey = idempotencyKey;
+      this.replayed = replayed;
+    }
+
+    static Response error(EmulatedApi.ApiError error, String requestId, String idempotencyKey) {
+      return new Response(error.status, error.toJson(), requestId, idempotencyKey, false);
+    }
+
+    Response replayed() {
+      return new Response(this.status, this.body, this.requestId, this.idempotencyKey, true);
+    }
+
+    HttpHeaders headers() {
+      Map<String, List<String>> headers = new HashMap<>();
+      headers.put("Content-Type", Arrays.asList("application/json"));
+      headers.put("Request-Id", Arrays.asList(this.requestId));
+      headers.put("Stripe-Version", Arrays.asList(Stripe.API_VERSION));
+      if (this.idempotencyKey != null) {
+        headers.put("Idempotency-Key", Arrays.asList(this.idempotencyKey));
+      }
+      if (this.replayed) {
+        headers.put("Idempotent-Replayed", Arrays.asList("true"));
+      }
+      return HttpHeaders.of(headers);
+    }
+  }
+}
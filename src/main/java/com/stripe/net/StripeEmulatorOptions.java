@@ -0,0 +1,127 @@
+package com.stripe.net;
+
+import java.time.Duration;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link StripeEmulator}. */
+@EqualsAndHashCode(callSuper = false)
+public class StripeEmulatorOptions {
+  private final Duration latency;
+  private final Duration latencyJitter;
+  private final double errorRate;
+  private final double rateLimitRate;
+
+  public static StripeEmulatorOptions getDefault() {
+    return new StripeEmulatorOptionsBuilder().build();
+  }
+
+  private StripeEmulatorOptions(
+      Duration latency, Duration latencyJitter, double errorRate, double rateLimitRate) {
+    this.latency = latency;
+    this.latencyJitter = latencyJitter;
+    this.errorRate = errorRate;
+    this.rateLimitRate = rateLimitRate;
+  }
+
+  public Duration getLatency() {
+    return latency;
+  }
+
+  public Duration getLatencyJitter() {
+    return latencyJitter;
+  }
+
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public double getRateLimitRate() {
+    return rateLimitRate;
+  }
+
+  public static StripeEmulatorOptionsBuilder builder() {
+    return new StripeEmulatorOptionsBuilder();
+  }
+
+  public static final class StripeEmulatorOptionsBuilder {
+    private Duration latency = Duration.ZERO;
+    private Duration latencyJitter = Duration.ZERO;
+    private double errorRate;
+    private double rateLimitRate;
+
+    public Duration getLatency() {
+      return latency;
+    }
+
+    /**
+     * Sets the time the emulator takes to answer each request, before any jitter.
+     *
+     * @param latency the latency
+     */
+    public StripeEmulatorOptionsBuilder setLatency(Duration latency) {
+      this.latency = latency;
+      return this;
+    }
+
+    public Duration getLatencyJitter() {
+      return latencyJitter;
+    }
+
+    /**
+     * Sets the maximum random time added to the latency of each request, drawn uniformly between
+     * zero and this value.
+     *
+     * @param latencyJitter the maximum jitter
+     */
+    public StripeEmulatorOptionsBuilder setLatencyJitter(Duration latencyJitter) {
+      this.latencyJitter = latencyJitter;
+      return this;
+    }
+
+    public double getErrorRate() {
+      return errorRate;
+    }
+
+    /**
+     * Sets the fraction of requests answered with a {@code 500 Internal Server Error}, without
+     * being processed.
+     *
+     * @param errorRate the error rate, between 0 and 1
+     */
+    public StripeEmulatorOptionsBuilder setErrorRate(double errorRate) {
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    public double getRateLimitRate() {
+      return rateLimitRate;
+    }
+
+    /**
+     * Sets the fraction of requests answered with a {@code 429 Too Many Requests}, without being
+     * processed.
+     *
+     * @param rateLimitRate the rate limited rate, between 0 and 1
+     */
+    public StripeEmulatorOptionsBuilder setRateLimitRate(double rateLimitRate) {
+      this.rateLimitRate = rateLimitRate;
+      return this;
+    }
+
+    /** Constructs a {@link StripeEmulatorOptions} with the specified values. */
+    public StripeEmulatorOptions build() {
+      if (latency == null || latency.isNegative()) {
+        throw new IllegalArgumentException("latency must not be negative.");
+      }
+      if (latencyJitter == null || latencyJitter.isNegative()) {
+        throw new IllegalArgumentException("latencyJitter must not be negative.");
+      }
+      if (!(errorRate >= 0 && rateLimitRate >= 0 && errorRate + rateLimitRate <= 1)) {
+        throw new IllegalArgumentException(
+            "errorRate and rateLimitRate must not be negative, nor add up to more than 1.");
+      }
+
+      return new StripeEmulatorOptions(latency, latencyJitter, errorRate, rateLimitRate);
+    }
+  }
+}
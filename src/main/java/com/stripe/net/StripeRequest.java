@@ -102,6 +102,23 @@ public class StripeRequest {
         this.options);
   }
 
+  /**
+   * Returns a new {@link StripeRequest} instance with the given connect and read timeouts.
+   *
+   * @param connectTimeout the connect timeout in milliseconds
+   * @param readTimeout the read timeout in milliseconds
+   * @return the new {@link StripeRequest} instance, or this instance if its timeouts are already
+   *     the given ones
+   */
+  StripeRequest withTimeouts(int connectTimeout, int readTimeout) {
+    RequestOptions timeoutOptions = this.options.withTimeouts(connectTimeout, readTimeout);
+    if (timeoutOptions == this.options) {
+      return this;
+    }
+    return new StripeRequest(
+        this.method, this.url, this.content, this.headers, this.params, timeoutOptions);
+  }
+
   private static URL buildURL(
       ApiResource.RequestMethod method, String spec, Map<String, Object> params)
       throws IOException {
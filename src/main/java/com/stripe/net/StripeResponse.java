@@ -2,35 +2,23 @@ package com.stripe.net;
 
 import static java.util.Objects.requireNonNull;
 
-import java.time.Instant;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Optional;
+import com.google.gson.JsonObject;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import lombok.Value;
 import lombok.experimental.Accessors;
-import lombok.experimental.NonFinal;
 
-/** A response from Stripe's API. */
-@Value
+/** A response from Stripe's API, with the body represented as a string. */
 @Accessors(fluent = true)
-public class StripeResponse {
-  /** The HTTP status code of the response. */
-  int code;
-
-  /** The HTTP headers of the response. */
-  HttpHeaders headers;
-
-  /** The body of the response. */
-  String body;
-
-  /** Number of times the request was retried. Used for internal tests only. */
-  @NonFinal
-  @Getter(AccessLevel.PACKAGE)
+public class StripeResponse extends AbstractStripeResponse<String> {
+  /**
+   * The body of the response as a JSON object, recorded in the same pass as the deserialization of
+   * the returned object, or {@code null} if it was not recorded. See {@link
+   * RequestOptions#isRawJsonRecordingEnabled()}.
+   */
+  @Getter
   @Setter(AccessLevel.PACKAGE)
-  int numRetries;
+  private volatile JsonObject jsonBody;
 
   /**
    * Initializes a new instance of the {@link StripeResponse} class.
@@ -41,42 +29,84 @@ public class StripeResponse {
    * @throws NullPointerException if {@code headers} or {@code body} is {@code null}
    */
   public StripeResponse(int code, HttpHeaders headers, String body) {
-    requireNonNull(headers);
-    requireNonNull(body);
+    super(code, headers, requireNonNull(body));
+  }
 
-    this.code = code;
-    this.headers = headers;
-    this.body = body;
+  /**
+   * Gets the body of the response.
+   *
+   * <p>The body is always retained by default, but is {@code null} for the responses of objects
+   * requested with {@link RequestOptions#isResponseStreamingEnabled() response streaming}, whose
+   * body was parsed as it was received, or with the {@link ResponseRetention#HEADERS_ONLY} response
+   * retention. Callers needing the JSON of such objects can serialize them, e.g. with {@code
+   * ApiResource.GSON.toJson(object)}, or use their recorded JSON, see {@link
+   * RequestOptions#isRawJsonRecordingEnabled()}.
+   *
+   * @return the body of the response, or {@code null} if it was not retained
+   */
+  @Override
+  public String body() {
+    return super.body();
+  }
+
+  private StripeResponse(int code, HttpHeaders headers) {
+    super(code, headers, null);
   }
 
   /**
-   * Gets the date of the request, as returned by Stripe.
+   * Returns a {@link StripeResponse} that only carries the status code and headers of a response,
+   * e.g. because its body was parsed as it was streamed from the network. The {@link #body()} of
+   * the returned instance is {@code null}.
    *
-   * @return the date of the request, as returned by Stripe
+   * @param code the HTTP status code of the response
+   * @param headers the HTTP headers of the response
+   * @return the {@link StripeResponse} instance
    */
-  public Instant date() {
-    Optional<String> dateStr = this.headers.firstValue("Date");
-    if (!dateStr.isPresent()) {
-      return null;
-    }
-    return ZonedDateTime.parse(dateStr.get(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+  static StripeResponse withoutBody(int code, HttpHeaders headers) {
+    return new StripeResponse(code, headers);
   }
 
   /**
-   * Gets the idempotency key of the request, as returned by Stripe.
+   * Returns a copy of this response without its body, nor its recorded JSON, but with its status
+   * code, headers and metrics.
    *
-   * @return the idempotency key of the request, as returned by Stripe
+   * @return the copy, or this instance if it has neither a body nor recorded JSON
    */
-  public String idempotencyKey() {
-    return this.headers.firstValue("Idempotency-Key").orElse(null);
+  StripeResponse withoutBody() {
+    if (this.body() == null && this.jsonBody() == null) {
+      return this;
+    }
+
+    return this.copyMetricsTo(new StripeResponse(this.code(), this.headers()));
   }
 
   /**
-   * Gets the ID of the request, as returned by Stripe.
+   * Returns a copy of this response with its own copy of the recorded JSON, so that changes made to
+   * the JSON of one resource are not seen by the other resources given the same response.
    *
-   * @return the ID of the request, as returned by Stripe
+   * @return the copy, or this instance if it has no recorded JSON
    */
-  public String requestId() {
-    return this.headers.firstValue("Request-Id").orElse(null);
+  StripeResponse withCopiedJsonBody() {
+    JsonObject jsonBody = this.jsonBody();
+    if (jsonBody == null) {
+      return this;
+    }
+
+    StripeResponse response =
+        this.copyMetricsTo(
+            (this.body() != null)
+                ? new StripeResponse(this.code(), this.headers(), this.body())
+                : new StripeResponse(this.code(), this.headers()));
+    response.jsonBody(jsonBody.deepCopy());
+    return response;
+  }
+
+  private StripeResponse copyMetricsTo(StripeResponse response) {
+    response.numRetries(this.numRetries());
+    response.compressedSize(this.compressedSize());
+    response.uncompressedSize(this.uncompressedSize());
+    response.connectDuration(this.connectDuration());
+    response.timeToFirstByte(this.timeToFirstByte());
+    return response;
   }
 }
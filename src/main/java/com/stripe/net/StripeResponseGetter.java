@@ -2,7 +2,11 @@ package com.stripe.net;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.StripeObjectInterface;
+import com.stripe.model.StripeRawJsonObject;
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface StripeResponseGetter {
   <T extends StripeObjectInterface> T request(
@@ -13,6 +17,63 @@ public interface StripeResponseGetter {
       RequestOptions options)
       throws StripeException;
 
+  /**
+   * Sends a request to Stripe's API asynchronously.
+   *
+   * <p>The default implementation sends the request synchronously with {@link
+   * #request(ApiResource.RequestMethod, String, Map, Class, RequestOptions)} and returns an already
+   * completed future.
+   *
+   * @return a future completed with the resource, or completed exceptionally with a {@link
+   *     StripeException} if the request fails for any reason
+   */
+  default <T extends StripeObjectInterface> CompletableFuture<T> requestAsync(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      Class<T> clazz,
+      RequestOptions options) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      future.complete(request(method, url, params, clazz, options));
+    } catch (StripeException | RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Sends a request to Stripe's API and returns its response without reading its body, for the
+   * caller to parse the body as it is received, e.g. to process the objects of a large list page
+   * one at a time. The caller must close the body of the returned response.
+   *
+   * <p>The default implementation sends the request with {@link
+   * #request(ApiResource.RequestMethod, String, Map, Class, RequestOptions)} and buffers its body:
+   * the returned response reads the body from memory.
+   *
+   * @return the successful response
+   * @throws StripeException if the request fails, or the response is an error
+   */
+  default StripeResponseStream requestStream(
+      ApiResource.RequestMethod method,
+      String url,
+      Map<String, Object> params,
+      RequestOptions options)
+      throws StripeException {
+    StripeRawJsonObject object = request(method, url, params, StripeRawJsonObject.class, options);
+    StripeResponse response = object.getLastResponse();
+
+    // The body is not retained with some response retentions, fall back to the parsed JSON.
+    String body =
+        ((response != null) && (response.body() != null))
+            ? response.body()
+            : ApiResource.GSON.toJson(object.getJson());
+    return new StripeResponseStream(
+        (response != null) ? response.code() : 200,
+        (response != null) ? response.headers() : HttpHeaders.of(Collections.emptyMap()),
+        new ByteArrayInputStream(body.getBytes(ApiResource.CHARSET)));
+  }
+
   <T extends StripeObjectInterface> T oauthRequest(
       ApiResource.RequestMethod method,
       String url,
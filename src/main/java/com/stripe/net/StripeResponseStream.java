@@ -0,0 +1,146 @@
+package com.stripe.net;
+
+import static java.util.Objects.requireNonNull;
+
+import com.stripe.util.StreamUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A response from Stripe's API, with the body represented as an {@link InputStream} read directly
+ * from the network. The stream must be closed once consumed to release the underlying connection.
+ */
+public class StripeResponseStream extends AbstractStripeResponse<InputStream> {
+  /** The value of the {@code Accept-Encoding} header sent by the built-in HTTP clients. */
+  static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  private final ByteCountingInputStream compressedCounter;
+
+  private final ByteCountingInputStream uncompressedCounter;
+
+  /**
+   * Initializes a new instance of the {@link StripeResponseStream} class.
+   *
+   * @param code the HTTP status code of the response
+   * @param headers the HTTP headers of the response
+   * @param body the body of the response, as a stream
+   * @throws NullPointerException if {@code headers} or {@code body} is {@code null}
+   */
+  public StripeResponseStream(int code, HttpHeaders headers, InputStream body) {
+    this(code, headers, requireNonNull(body), null, null);
+  }
+
+  private StripeResponseStream(
+      int code,
+      HttpHeaders headers,
+      InputStream body,
+      ByteCountingInputStream compressedCounter,
+      ByteCountingInputStream uncompressedCounter) {
+    super(code, headers, body);
+    this.compressedCounter = compressedCounter;
+    this.uncompressedCounter = uncompressedCounter;
+  }
+
+  /**
+   * Returns a {@link StripeResponseStream} whose body is the given raw network stream, decompressed
+   * on the fly according to the {@code Content-Encoding} header of the response. The compressed and
+   * uncompressed sizes of the body are counted as it is read.
+   *
+   * @param code the HTTP status code of the response
+   * @param headers the HTTP headers of the response
+   * @param rawBody the body of the response, as received from the network
+   * @return the {@link StripeResponseStream} instance
+   * @throws IOException if the header of a compressed body cannot be read
+   */
+  static StripeResponseStream decode(int code, HttpHeaders headers, InputStream rawBody)
+      throws IOException {
+    String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim();
+
+    ByteCountingInputStream compressedCounter = new ByteCountingInputStream(rawBody);
+    ByteCountingInputStream uncompressedCounter;
+    if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+      uncompressedCounter = new ByteCountingInputStream(new GZIPInputStream(compressedCounter));
+    } else if ("deflate".equalsIgnoreCase(encoding)) {
+      uncompressedCounter = new ByteCountingInputStream(new InflaterInputStream(compressedCounter));
+    } else {
+      uncompressedCounter = compressedCounter;
+    }
+
+    return new StripeResponseStream(
+        code, headers, uncompressedCounter, compressedCounter, uncompressedCounter);
+  }
+
+  /**
+   * Returns a copy of this response with the given body, e.g. to attach a hook to the closing of
+   * the body. The given stream must wrap the body of this response for the sizes to be counted.
+   *
+   * @param body the new body
+   * @return the {@link StripeResponseStream} instance
+   */
+  StripeResponseStream withBody(InputStream body) {
+    StripeResponseStream response =
+        new StripeResponseStream(
+            this.code(),
+            this.headers(),
+            requireNonNull(body),
+            this.compressedCounter,
+            this.uncompressedCounter);
+    response.numRetries(this.numRetries());
+    response.compressedSize(super.compressedSize());
+    response.uncompressedSize(super.uncompressedSize());
+    response.connectDuration(this.connectDuration());
+    response.timeToFirstByte(this.timeToFirstByte());
+    return response;
+  }
+
+  /**
+   * Gets the number of bytes of the body received over the network so far, i.e. before
+   * decompression, or {@code -1} if unknown.
+   *
+   * @return the compressed size of the body
+   */
+  @Override
+  public long compressedSize() {
+    return (this.compressedCounter != null)
+        ? this.compressedCounter.count()
+        : super.compressedSize();
+  }
+
+  /**
+   * Gets the number of bytes of the body read so far after decompression, or {@code -1} if unknown.
+   *
+   * @return the uncompressed size of the body
+   */
+  @Override
+  public long uncompressedSize() {
+    return (this.uncompressedCounter != null)
+        ? this.uncompressedCounter.count()
+        : super.uncompressedSize();
+  }
+
+  /**
+   * Reads the body of the response until the end and closes it.
+   *
+   * @return a {@link StripeResponse} with the same status code and headers, and the body read as a
+   *     string
+   * @throws IOException if an I/O error occurs while reading the body
+   */
+  public StripeResponse unstream() throws IOException {
+    final String bodyString;
+    try {
+      bodyString = StreamUtils.readToEnd(this.body(), ApiResource.CHARSET);
+    } finally {
+      this.body().close();
+    }
+
+    StripeResponse response = new StripeResponse(this.code(), this.headers(), bodyString);
+    response.numRetries(this.numRetries());
+    response.compressedSize(this.compressedSize());
+    response.uncompressedSize(this.uncompressedSize());
+    response.connectDuration(this.connectDuration());
+    response.timeToFirstByte(this.timeToFirstByte());
+    return response;
+  }
+}
@@ -0,0 +1,179 @@
+package com.stripe.net;
+
+import com.stripe.model.Charge;
+import com.stripe.model.Customer;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+
+/** Settings for the {@link ConnectionWarmer}. */
+@EqualsAndHashCode(callSuper = false)
+public class WarmUpOptions {
+  public static final int DEFAULT_CONNECTIONS_PER_BASE = 4;
+  public static final String DEFAULT_PATH = "/v1";
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+  private final int connectionsPerBase;
+  private final List<String> apiBases;
+  private final List<Class<?>> modelClasses;
+  private final String path;
+  private final Duration timeout;
+
+  public static WarmUpOptions getDefault() {
+    return new WarmUpOptionsBuilder().build();
+  }
+
+  private WarmUpOptions(
+      int connectionsPerBase,
+      List<String> apiBases,
+      List<Class<?>> modelClasses,
+      String path,
+      Duration timeout) {
+    this.connectionsPerBase = connectionsPerBase;
+    this.apiBases = apiBases;
+    this.modelClasses = modelClasses;
+    this.path = path;
+    this.timeout = timeout;
+  }
+
+  public int getConnectionsPerBase() {
+    return connectionsPerBase;
+  }
+
+  /**
+   * Returns the API bases connections are opened to. If empty, connections are opened to {@link
+   * com.stripe.Stripe#getApiBase()} and {@link com.stripe.Stripe#getUploadBase()}, as set at the
+   * time of the warm-up.
+   *
+   * @return an unmodifiable list of API bases
+   */
+  public List<String> getApiBases() {
+    return apiBases;
+  }
+
+  /**
+   * Returns the model classes whose JSON type adapters are built ahead of the first request.
+   *
+   * @return an unmodifiable list of model classes
+   */
+  public List<Class<?>> getModelClasses() {
+    return modelClasses;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public static WarmUpOptionsBuilder builder() {
+    return new WarmUpOptionsBuilder();
+  }
+
+  public static final class WarmUpOptionsBuilder {
+    private int connectionsPerBase = DEFAULT_CONNECTIONS_PER_BASE;
+    private final List<String> apiBases = new ArrayList<>();
+    private final List<Class<?>> modelClasses =
+        new ArrayList<>(
+            Arrays.asList(PaymentIntent.class, Charge.class, Customer.class, Event.class));
+    private String path = DEFAULT_PATH;
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    public int getConnectionsPerBase() {
+      return connectionsPerBase;
+    }
+
+    /**
+     * Sets the number of connections opened to each API base, by sending as many concurrent
+     * requests. With HTTP/2, concurrent requests share a single connection.
+     *
+     * @param connectionsPerBase the number of connections per API base, zero to only build the
+     *     type adapters
+     */
+    public WarmUpOptionsBuilder setConnectionsPerBase(int connectionsPerBase) {
+      this.connectionsPerBase = connectionsPerBase;
+      return this;
+    }
+
+    /**
+     * Adds an API base to open connections to, e.g. {@code https://api.stripe.com}. Once an API
+     * base is added, only the added ones are warmed up.
+     *
+     * @param apiBase the API base
+     */
+    public WarmUpOptionsBuilder addApiBase(String apiBase) {
+      this.apiBases.add(apiBase);
+      return this;
+    }
+
+    /**
+     * Sets the model classes whose JSON type adapters are built ahead of the first request,
+     * replacing the default ones ({@code PaymentIntent}, {@code Charge}, {@code Customer} and
+     * {@code Event}).
+     *
+     * @param modelClasses the model classes
+     */
+    public WarmUpOptionsBuilder setModelClasses(Class<?>... modelClasses) {
+      this.modelClasses.clear();
+      this.modelClasses.addAll(Arrays.asList(modelClasses));
+      return this;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * Sets the path of the requests opening the connections. Any response, whatever its status,
+     * leaves an open connection behind, so the default is a path with no side effects that Stripe
+     * answers without doing any work.
+     *
+     * @param path the path, e.g. {@code /v1}
+     */
+    public WarmUpOptionsBuilder setPath(String path) {
+      this.path = path;
+      return this;
+    }
+
+    public Duration getTimeout() {
+      return timeout;
+    }
+
+    /**
+     * Sets the maximum time to wait for the connections to be opened.
+     *
+     * @param timeout the timeout
+     */
+    public WarmUpOptionsBuilder setTimeout(Duration timeout) {
+      this.timeout = timeout;
+      return this;
+    }
+
+    /** Constructs a {@link WarmUpOptions} with the specified values. */
+    public WarmUpOptions build() {
+      if (connectionsPerBase < 0) {
+        throw new IllegalArgumentException("connectionsPerBase must not be negative.");
+      }
+      if (path == null || !path.startsWith("/")) {
+        throw new IllegalArgumentException("path must start with a slash.");
+      }
+      if (timeout == null || timeout.isNegative()) {
+        throw new IllegalArgumentException("timeout must not be negative.");
+      }
+
+      return new WarmUpOptions(
+          connectionsPerBase,
+          Collections.unmodifiableList(new ArrayList<>(apiBases)),
+          Collections.unmodifiableList(new ArrayList<>(modelClasses)),
+          path,
+          timeout);
+    }
+  }
+}
@@ -108,6 +108,15 @@ public class FileCreateParams extends ApiRequestParams {
       return this;
     }
 
+    /**
+     * A file to upload. The file should follow the specifications of RFC 2388 (which defines file
+     * transfers for the `multipart/form-data` protocol).
+     */
+    public Builder setFile(java.nio.file.Path file) {
+      this.file = file;
+      return this;
+    }
+
     /**
      * Optional parameters to automatically create a [file link](#file_links) for the newly created
      * file.
@@ -0,0 +1,407 @@
+package com.stripe.net;
+
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.Authenticator;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import lombok.Value;
+
+/**
+ * HTTP client that sends requests over an explicitly managed pool of connections.
+ *
+ * <p>This is the Java 11+ implementation, loaded through the multi-release jar. Requests are sent
+ * with {@code java.net.http.HttpClient}, with one connection pool per proxy. Pools that did not
+ * serve any request for longer than the idle timeout are evicted, and pools older than the
+ * keep-alive TTL are replaced by fresh ones (the previous pool's connections are closed once their
+ * in-flight requests complete). HTTP/2 is negotiated when enabled and supported by the server,
+ * allowing concurrent requests to be multiplexed over a single connection.
+ */
+public class PooledHttpClient extends HttpClient {
+  private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+  private final ConnectionPoolOptions poolOptions;
+
+  private final ConnectionPermits permits;
+
+  private final ConcurrentHashMap<PoolKey, Pool> pools = new ConcurrentHashMap<>();
+
+  /** Initializes a new instance of the {@link PooledHttpClient} with default pool options. */
+  public PooledHttpClient() {
+    this(ConnectionPoolOptions.getDefault());
+  }
+
+  /**
+   * Initializes a new instance of the {@link PooledHttpClient}.
+   *
+   * @param poolOptions the connection pool options
+   */
+  public PooledHttpClient(ConnectionPoolOptions poolOptions) {
+    super();
+    this.poolOptions = poolOptions;
+    this.permits = new ConnectionPermits(poolOptions.getMaxConnectionsPerHost());
+  }
+
+  /**
+   * Returns whether this client can negotiate HTTP/2 on the current runtime.
+   *
+   * @return {@code true} if HTTP/2 is supported, {@code false} otherwise
+   */
+  public static boolean isHttp2Supported() {
+    return true;
+  }
+
+  public ConnectionPoolOptions getPoolOptions() {
+    return poolOptions;
+  }
+
+  /**
+   * Sends the given request to Stripe's API.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException if an error occurs when sending or receiving
+   */
+  @Override
+  public StripeResponse request(StripeRequest request) throws StripeException {
+    final StripeResponseStream responseStream = this.requestStream(request);
+    try {
+      return responseStream.unstream();
+    } catch (IOException e) {
+      throw buildConnectionException(translateTimeout(e));
+    }
+  }
+
+  /**
+   * Sends the given request to Stripe's API, and returns a response whose body is read directly
+   * from the connection. The connection is returned to the pool when the body is closed.
+   *
+   * @param request the request
+   * @return the response
+   * @throws StripeException if an error occurs when sending the request or receiving the response
+   *     headers
+   */
+  @Override
+  public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+    Semaphore permit = permits.acquire(request.url(), request.options().getConnectTimeout());
+    // Once the body wraps the permit, closing the body is what releases it.
+    boolean bodyHoldsPermit = false;
+    try {
+      java.net.http.HttpClient client = getPool(request).client;
+
+      long startNanos = System.nanoTime();
+      HttpResponse<InputStream> response =
+          client.send(buildRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+      Duration timeToFirstByte = Duration.ofNanos(System.nanoTime() - startNanos);
+
+      InputStream body = ConnectionPermits.releaseOnClose(response.body(), permit);
+      bodyHoldsPermit = true;
+      try {
+        StripeResponseStream responseStream =
+            StripeResponseStream.decode(
+                response.statusCode(), HttpHeaders.of(response.headers().map()), body);
+        responseStream.timeToFirstByte(timeToFirstByte);
+        return responseStream;
+      } catch (IOException e) {
+        body.close();
+        throw buildConnectionException(e);
+      }
+    } catch (IOException e) {
+      throw buildConnectionException(translateTimeout(e));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw buildConnectionException(e);
+    } finally {
+      if (!bodyHoldsPermit) {
+        permits.release(permit);
+      }
+    }
+  }
+
+  /**
+   * Sends the given request to Stripe's API asynchronously, without blocking the calling thread. If
+   * all the connections to the request's host are in use, the request waits for one on the {@link
+   * #setAsyncExecutor(java.util.concurrent.Executor) async executor}.
+   *
+   * @param request the request
+   * @return a future completed with the response
+   */
+  @Override
+  public CompletableFuture<StripeResponse> requestAsync(StripeRequest request) {
+    Semaphore permit = permits.tryAcquire(request.url());
+    if (permit == null) {
+      return super.requestAsync(request);
+    }
+
+    CompletableFuture<HttpResponse<byte[]>> responseFuture;
+    try {
+      responseFuture =
+          getPool(request)
+              .client
+              .sendAsync(buildRequest(request), HttpResponse.BodyHandlers.ofByteArray());
+    } catch (ApiConnectionException | RuntimeException e) {
+      permits.release(permit);
+      CompletableFuture<StripeResponse> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    CompletableFuture<StripeResponse> future = new CompletableFuture<>();
+    responseFuture.whenComplete(
+        (response, throwable) -> {
+          permits.release(permit);
+
+          if (throwable != null) {
+            Throwable cause =
+                (throwable instanceof CompletionException && throwable.getCause() != null)
+                    ? throwable.getCause()
+                    : throwable;
+            future.completeExceptionally(
+                (cause instanceof IOException)
+                    ? buildConnectionException(translateTimeout((IOException) cause))
+                    : cause);
+            return;
+          }
+
+          try {
+            future.complete(
+                StripeResponseStream.decode(
+                        response.statusCode(),
+                        HttpHeaders.of(response.headers().map()),
+                        new ByteArrayInputStream(response.body()))
+                    .unstream());
+          } catch (IOException e) {
+            future.completeExceptionally(buildConnectionException(e));
+          }
+        });
+    return future;
+  }
+
+  private Pool getPool(StripeRequest request) {
+    RequestOptions options = request.options();
+    PasswordAuthentication credential = options.getProxyCredential();
+    // Credentials are compared by user name and password rather than by identity, so that equal
+    // credentials built for each request share a pool, like in ProxyAuthenticators.
+    PoolKey key =
+        new PoolKey(
+            (options.getConnectionProxy() != null) ? options.getConnectionProxy() : Proxy.NO_PROXY,
+            (credential != null) ? credential.getUserName() : null,
+            (credential != null) ? ProxyAuthenticators.hash(credential.getPassword()) : null,
+            options.getConnectTimeout());
+
+    long now = System.nanoTime();
+    Pool pool = pools.get(key);
+    if (pool == null || pool.isExpired(now)) {
+      // Dropping expired pools lets their connections be closed once their in-flight requests
+      // complete.
+      pools.values().removeIf(p -> p.isExpired(now));
+      pool =
+          pools.compute(
+              key,
+              (k, current) ->
+                  (current == null || current.isExpired(now))
+                      ? buildPool(k, credential, now)
+                      : current);
+    }
+    pool.lastUsedNanos = now;
+
+    return pool;
+  }
+
+  /** Returns the number of connection pools. For tests. */
+  int getPoolCount() {
+    return pools.size();
+  }
+
+  private Pool buildPool(PoolKey key, PasswordAuthentication credential, long now) {
+    java.net.http.HttpClient.Builder builder =
+        java.net.http.HttpClient.newBuilder()
+            .version(
+                poolOptions.isHttp2Enabled()
+                    ? java.net.http.HttpClient.Version.HTTP_2
+                    : java.net.http.HttpClient.Version.HTTP_1_1)
+            .followRedirects(java.net.http.HttpClient.Redirect.NEVER);
+
+    if (key.connectTimeout > 0) {
+      builder.connectTimeout(Duration.ofMillis(key.connectTimeout));
+    }
+
+    if (key.proxy.type() != Proxy.Type.DIRECT && key.proxy.address() instanceof InetSocketAddress) {
+      builder.proxy(ProxySelector.of((InetSocketAddress) key.proxy.address()));
+
+      if (credential != null) {
+        builder.authenticator(
+            new Authenticator() {
+              @Override
+              protected PasswordAuthentication getPasswordAuthentication() {
+                if (getRequestorType() == RequestorType.PROXY) {
+                  return credential;
+                }
+                return null;
+              }
+            });
+      }
+    }
+
+    return new Pool(builder.build(), now);
+  }
+
+  /**
+   * Caps only the read timeout: it is applied as the request timeout, which also bounds the time
+   * spent connecting, while the connect timeout is a setting of the pool and shortening it would
+   * build a new pool for each attempt.
+   */
+  @Override
+  protected StripeRequest withRemainingTimeout(StripeRequest request, int remainingMillis) {
+    RequestOptions options = request.options();
+    return request.withTimeouts(
+        options.getConnectTimeout(), capTimeout(options.getReadTimeout(), remainingMillis));
+  }
+
+  private HttpRequest buildRequest(StripeRequest request) throws ApiConnectionException {
+    HttpRequest.Builder builder;
+    try {
+      builder = HttpRequest.newBuilder(request.url().toURI());
+    } catch (URISyntaxException e) {
+      throw buildConnectionException(e);
+    }
+
+    if (request.options().getReadTimeout() > 0) {
+      builder.timeout(Duration.ofMillis(request.options().getReadTimeout()));
+    }
+
+    for (Map.Entry<String, List<String>> entry : request.headers().map().entrySet()) {
+      builder.setHeader(entry.getKey(), String.join(",", entry.getValue()));
+    }
+    for (Map.Entry<String, String> entry : getClientHeaders().entrySet()) {
+      builder.setHeader(entry.getKey(), entry.getValue());
+    }
+
+    if (request.content() != null) {
+      builder.setHeader("Content-Type", request.content().contentType());
+      builder.method(request.method().name(), buildBodyPublisher(request.content()));
+    } else {
+      builder.method(request.method().name(), HttpRequest.BodyPublishers.noBody());
+    }
+
+    return builder.build();
+  }
+
+  private HttpRequest.BodyPublisher buildBodyPublisher(HttpContent content) {
+    if (!content.isStreamed()) {
+      return HttpRequest.BodyPublishers.ofByteArray(content.byteArrayContent());
+    }
+
+    // The content is written to a pipe on the async executor while the client reads it, so that
+    // files are sent without being held in memory.
+    HttpRequest.BodyPublisher publisher =
+        HttpRequest.BodyPublishers.ofInputStream(
+            () -> {
+              PipedInputStream input = new PipedInputStream(PIPE_BUFFER_SIZE);
+              PipedOutputStream output;
+              try {
+                output = new PipedOutputStream(input);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+              getAsyncExecutor()
+                  .execute(
+                      () -> {
+                        try (OutputStream out = output) {
+                          content.writeTo(out);
+                        } catch (IOException e) {
+                          // Closing the read side fails the request instead of sending a
+                          // truncated body.
+                          try {
+                            input.close();
+                          } catch (IOException ignored) {
+                            // ignore
+                          }
+                        }
+                      });
+              return input;
+            });
+
+    return (content.contentLength() >= 0)
+        ? HttpRequest.BodyPublishers.fromPublisher(publisher, content.contentLength())
+        : publisher;
+  }
+
+  /**
+   * Maps the timeout exceptions of {@code java.net.http} onto the {@code java.net} ones, so that
+   * {@link HttpClient} retries them the same way it does for {@link HttpURLConnectionClient}.
+   */
+  private static Exception translateTimeout(IOException e) {
+    if (e instanceof HttpConnectTimeoutException) {
+      ConnectException translated = new ConnectException(e.getMessage());
+      translated.initCause(e);
+      return translated;
+    }
+    if (e instanceof HttpTimeoutException) {
+      SocketTimeoutException translated = new SocketTimeoutException(e.getMessage());
+      translated.initCause(e);
+      return translated;
+    }
+    return e;
+  }
+
+  private static ApiConnectionException buildConnectionException(Exception e) {
+    return new ApiConnectionException(
+        String.format(
+            "IOException during API request to Stripe (%s): %s "
+                + "Please check your internet connection and try again. If this problem persists,"
+                + "you should check Stripe's service status at https://twitter.com/stripestatus,"
+                + " or let us know at support@stripe.com.",
+            Stripe.getApiBase(), e.getMessage()),
+        e);
+  }
+
+  @Value
+  private static class PoolKey {
+    Proxy proxy;
+    String proxyUserName;
+    String proxyPasswordHash;
+    int connectTimeout;
+  }
+
+  private class Pool {
+    final java.net.http.HttpClient client;
+    final long createdNanos;
+    volatile long lastUsedNanos;
+
+    Pool(java.net.http.HttpClient client, long createdNanos) {
+      this.client = client;
+      this.createdNanos = createdNanos;
+      this.lastUsedNanos = createdNanos;
+    }
+
+    boolean isExpired(long now) {
+      return (now - createdNanos) > poolOptions.getKeepAliveTtl().toNanos()
+          || (now - lastUsedNanos) > poolOptions.getIdleTimeout().toNanos();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.stripe.net;
+
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Value;
+
+/**
+ * Authenticates the connections opened through an authenticated proxy, by setting an authenticator
+ * on each connection. The JVM-wide default authenticator is left untouched.
+ *
+ * <p>The JDK only reuses a kept-alive connection for a request with the same authenticator, so a
+ * single authenticator is shared by all the connections through the same proxy with the same
+ * credential, which then share a pool of connections. Credentials are compared by user name and
+ * password rather than by identity, so that the authenticators are not duplicated, and the map
+ * holding them does not grow, when equal credentials are built for each request.
+ */
+final class ProxyAuthenticators {
+  private static final ConcurrentHashMap<AuthenticatorKey, Authenticator> AUTHENTICATORS =
+      new ConcurrentHashMap<>();
+
+  private ProxyAuthenticators() {}
+
+  /**
+   * Authenticates the given connection, opened through the given proxy, with the given credential.
+   *
+   * @param conn the connection
+   * @param proxy the proxy the connection is opened through
+   * @param credential the proxy credential, or {@code null} if the proxy is not authenticated
+   */
+  static void apply(HttpURLConnection conn, Proxy proxy, PasswordAuthentication credential) {
+    if (credential == null) {
+      return;
+    }
+
+    conn.setAuthenticator(
+        AUTHENTICATORS.computeIfAbsent(
+            new AuthenticatorKey(proxy, credential.getUserName(), hash(credential.getPassword())),
+            k ->
+                new Authenticator() {
+                  @Override
+                  protected PasswordAuthentication getPasswordAuthentication() {
+                    if (getRequestorType() == RequestorType.PROXY) {
+                      return credential;
+                    }
+                    return null;
+                  }
+                }));
+  }
+
+  /** Forgets the authenticators. For tests. */
+  static void reset() {
+    AUTHENTICATORS.clear();
+  }
+
+  /** Returns a digest of the given password, to tell credentials apart without keeping a copy. */
+  static String hash(char[] password) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(password)));
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform implements SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Value
+  private static class AuthenticatorKey {
+    Proxy proxy;
+    String userName;
+    String passwordHash;
+  }
+}
@@ -192,6 +192,30 @@ public class BaseStripeTest {
                 : Mockito.<RequestOptions>any());
   }
 
+  /**
+   * Verifies that an asynchronous request was made with the provided method and path.
+   *
+   * @param method HTTP method (GET, POST or DELETE)
+   * @param path request path (e.g. "/v1/charges"). Can also be an abolute URL.
+   */
+  public static <T extends StripeObjectInterface> void verifyAsyncRequest(
+      ApiResource.RequestMethod method, String path) {
+    String url;
+    if (path.startsWith("/")) {
+      url = String.format("%s%s", Stripe.getApiBase(), path);
+    } else {
+      url = path;
+    }
+
+    Mockito.verify(networkSpy)
+        .requestAsync(
+            Mockito.eq(method),
+            Mockito.eq(url),
+            Mockito.<Map<String, Object>>any(),
+            Mockito.<Class<T>>any(),
+            Mockito.<RequestOptions>any());
+  }
+
   /** Verifies that no request was made. */
   public static <T> void verifyNoRequest() {
     Mockito.verifyNoInteractions(networkSpy);
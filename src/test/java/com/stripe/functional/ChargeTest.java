@@ -1,18 +1,24 @@
 package com.stripe.functional;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.collect.ImmutableMap;
 import com.stripe.BaseStripeTest;
+import com.stripe.async.ChargeAsync;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
 import com.stripe.model.ChargeCollection;
 import com.stripe.net.ApiResource;
 import com.stripe.net.RequestOptions;
 import com.stripe.param.ChargeCreateParams;
+import com.stripe.param.ChargeListParams;
 import com.stripe.param.ChargeUpdateParams;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.jupiter.api.Test;
 
 public class ChargeTest extends BaseStripeTest {
@@ -60,6 +66,25 @@ public class ChargeTest extends BaseStripeTest {
     verifyRequest(ApiResource.RequestMethod.GET, String.format("/v1/charges/%s", CHARGE_ID));
   }
 
+  @Test
+  public void testRetrieveAsync() throws Exception {
+    final Charge charge = ChargeAsync.retrieve(CHARGE_ID).get();
+
+    assertNotNull(charge);
+    verifyAsyncRequest(ApiResource.RequestMethod.GET, String.format("/v1/charges/%s", CHARGE_ID));
+  }
+
+  @Test
+  public void testAsyncWithNullTypedParams() {
+    CompletableFuture<Charge> created = ChargeAsync.create((ChargeCreateParams) null);
+    ExecutionException e = assertThrows(ExecutionException.class, created::get);
+    assertTrue(e.getCause() instanceof IllegalArgumentException);
+
+    CompletableFuture<ChargeCollection> listed = ChargeAsync.list((ChargeListParams) null);
+    e = assertThrows(ExecutionException.class, listed::get);
+    assertTrue(e.getCause() instanceof IllegalArgumentException);
+  }
+
   @Test
   public void testUpdate() throws StripeException {
     final Charge charge = getChargeFixture();
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.stripe.BaseStripeTest;
+import com.stripe.async.CustomerAsync;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Customer;
 import com.stripe.model.CustomerCollection;
@@ -40,6 +41,15 @@ public class CustomerTest extends BaseStripeTest {
     verifyRequest(ApiResource.RequestMethod.GET, String.format("/v1/customers/%s", CUSTOMER_ID));
   }
 
+  @Test
+  public void testRetrieveAsync() throws Exception {
+    final Customer customer = CustomerAsync.retrieve(CUSTOMER_ID).get();
+
+    assertNotNull(customer);
+    verifyAsyncRequest(
+        ApiResource.RequestMethod.GET, String.format("/v1/customers/%s", CUSTOMER_ID));
+  }
+
   @Test
   public void testUpdate() throws StripeException {
     final Customer customer = getCustomerFixture();
@@ -17,6 +17,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -63,6 +64,25 @@ public class FileTest extends BaseStripeTest {
         null);
   }
 
+  @Test
+  public void testCreateWithPathWithTypedParams() throws StripeException {
+    Path path = new File(getClass().getResource("/test.png").getFile()).toPath();
+    FileCreateParams fileCreateParams =
+        FileCreateParams.builder()
+            .setPurpose(FileCreateParams.Purpose.DISPUTE_EVIDENCE)
+            .setFile(path)
+            .build();
+
+    final com.stripe.model.File file = com.stripe.model.File.create(fileCreateParams);
+
+    assertNotNull(file);
+    verifyRequest(
+        ApiResource.RequestMethod.POST,
+        "/v1/files",
+        ImmutableMap.of("purpose", "dispute_evidence", "file", path),
+        null);
+  }
+
   @Test
   public void testThrowExceptionCreateWithNullTypedParams() {
     IllegalArgumentException exception =
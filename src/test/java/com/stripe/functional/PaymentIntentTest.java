@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import com.stripe.BaseStripeTest;
+import com.stripe.async.PaymentIntentAsync;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Account;
 import com.stripe.model.Application;
@@ -56,6 +57,15 @@ public class PaymentIntentTest extends BaseStripeTest {
         ApiResource.RequestMethod.GET, String.format("/v1/payment_intents/%s", PAYMENT_INTENT_ID));
   }
 
+  @Test
+  public void testRetrieveAsync() throws Exception {
+    final PaymentIntent paymentIntent = PaymentIntentAsync.retrieve(PAYMENT_INTENT_ID).get();
+
+    assertNotNull(paymentIntent);
+    verifyAsyncRequest(
+        ApiResource.RequestMethod.GET, String.format("/v1/payment_intents/%s", PAYMENT_INTENT_ID));
+  }
+
   @Test
   public void testRetrieveExpandWithTypedParam() throws StripeException {
     // expansion fields and the resulting verification is copied
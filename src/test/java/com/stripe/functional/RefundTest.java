@@ -3,6 +3,7 @@ package com.stripe.functional;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import com.stripe.BaseStripeTest;
+import com.stripe.async.RefundAsync;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Refund;
 import com.stripe.model.RefundCollection;
@@ -39,6 +40,14 @@ public class RefundTest extends BaseStripeTest {
     verifyRequest(ApiResource.RequestMethod.GET, String.format("/v1/refunds/%s", REFUND_ID));
   }
 
+  @Test
+  public void testRetrieveAsync() throws Exception {
+    final Refund refund = RefundAsync.retrieve(REFUND_ID).get();
+
+    assertNotNull(refund);
+    verifyAsyncRequest(ApiResource.RequestMethod.GET, String.format("/v1/refunds/%s", REFUND_ID));
+  }
+
   @Test
   public void testUpdate() throws StripeException {
     final Refund refund = getRefundFixture();
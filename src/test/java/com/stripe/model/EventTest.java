@@ -2,6 +2,7 @@ package com.stripe.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.stripe.BaseStripeTest;
 import com.stripe.net.ApiResource;
@@ -40,4 +41,24 @@ public class EventTest extends BaseStripeTest {
         reserializedEvent.getRequest().getIdempotencyKey(), event.getRequest().getIdempotencyKey());
     assertEquals(reserializedEvent.getType(), event.getType());
   }
+
+  @Test
+  public void testDeserializeSkipsUnknownFieldsAndNulls() {
+    final String data =
+        "{\"id\": \"evt_123\", \"object\": \"event\", \"account\": null,"
+            + " \"unknown\": {\"nested\": [1, 2]}, \"created\": \"1600000000\","
+            + " \"livemode\": false, \"pending_webhooks\": 2, \"type\": \"charge.refunded\","
+            + " \"request\": {\"id\": \"req_123\", \"idempotency_key\": \"key\"}}";
+    final Event event = ApiResource.GSON.fromJson(data, Event.class);
+
+    assertEquals("evt_123", event.getId());
+    assertNull(event.getAccount());
+    assertEquals(1600000000L, (long) event.getCreated());
+    assertEquals(false, event.getLivemode());
+    assertEquals(2L, (long) event.getPendingWebhooks());
+    assertEquals("charge.refunded", event.getType());
+    assertEquals("req_123", event.getRequest().getId());
+    assertEquals("key", event.getRequest().getIdempotencyKey());
+    assertNull(event.getData());
+  }
 }
@@ -3,8 +3,11 @@ package com.stripe.model;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.stripe.BaseStripeTest;
 import com.stripe.net.ApiResource;
@@ -62,4 +65,24 @@ public class ExpandableFieldDeserializerTest extends BaseStripeTest {
     assertEquals("an_id_here", out.getExpanded().id);
     assertEquals(12, out.getExpanded().bar);
   }
+
+  @Test
+  public void deserializeObjectLazily() {
+    final Gson lazyGson =
+        new GsonBuilder()
+            .registerTypeAdapter(ExpandableField.class, new ExpandableFieldDeserializer(true))
+            .create();
+    final String json = "{\"id\": \"an_id_here\", \"bar\": 12}";
+
+    final ExpandableField<TestObject> out =
+        lazyGson.fromJson(json, new TypeToken<ExpandableField<TestObject>>() {}.getType());
+    assertEquals("an_id_here", out.getId());
+    assertTrue(out.isExpanded());
+    assertEquals(12, out.getExpanded().bar);
+    assertSame(out.getExpanded(), out.getExpanded());
+
+    out.setExpanded(null);
+    assertFalse(out.isExpanded());
+    assertNull(out.getExpanded());
+  }
 }
@@ -0,0 +1,96 @@
+package com.stripe.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.stripe.BaseStripeTest;
+import com.stripe.net.ApiResource;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+public class GeneratedTypeAdapterFactoryTest extends BaseStripeTest {
+  /** Like {@link ApiResource#GSON}, with Gson's reflective adapters only. */
+  private static final Gson REFLECTIVE_GSON =
+      new GsonBuilder()
+          .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+          .registerTypeAdapter(EphemeralKey.class, new EphemeralKeyDeserializer())
+          .registerTypeAdapter(EventData.class, new EventDataDeserializer())
+          .registerTypeAdapter(EventRequest.class, new EventRequestDeserializer())
+          .registerTypeAdapter(ExpandableField.class, new ExpandableFieldDeserializer())
+          .registerTypeAdapter(StripeRawJsonObject.class, new StripeRawJsonObjectDeserializer())
+          .registerTypeAdapterFactory(new BalanceTransactionSourceTypeAdapterFactory())
+          .registerTypeAdapterFactory(new ExternalAccountTypeAdapterFactory())
+          .registerTypeAdapterFactory(new PaymentSourceTypeAdapterFactory())
+          .create();
+
+  private static void assertReadsLikeReflectiveAdapter(String data, Class<?> clazz) {
+    assertEquals(
+        REFLECTIVE_GSON.toJsonTree(REFLECTIVE_GSON.fromJson(data, clazz)),
+        ApiResource.GSON.toJsonTree(ApiResource.GSON.fromJson(data, clazz)));
+  }
+
+  private static boolean isGenerated(TypeAdapter<?> adapter) {
+    return adapter.getClass().getName().startsWith("com.stripe.model.");
+  }
+
+  @Test
+  public void testCreatesAdaptersOfModels() {
+    assertFalse(isGenerated(REFLECTIVE_GSON.getAdapter(Charge.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(Charge.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(Charge.Outcome.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(Account.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(Event.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(StripeError.class)));
+    assertTrue(isGenerated(ApiResource.GSON.getAdapter(com.stripe.model.checkout.Session.class)));
+  }
+
+  @Test
+  public void testDoesNotOverrideRegisteredAdapters() {
+    assertFalse(isGenerated(ApiResource.GSON.getAdapter(EphemeralKey.class)));
+    assertFalse(isGenerated(ApiResource.GSON.getAdapter(EventData.class)));
+  }
+
+  @Test
+  public void testReadsLikeReflectiveAdapter() throws IOException {
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/charge_outcome.json"), Charge.Outcome.class);
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/payment_intent.json"), PaymentIntent.class);
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/customer_with_sources_and_tax_ids.json"),
+        Customer.class);
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/invoice_with_discount_objects.json"), Invoice.class);
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/subscription.json"), Subscription.class);
+    assertReadsLikeReflectiveAdapter(
+        getResourceAsString("/api_fixtures/source_transactions.json"),
+        SourceTransactionCollection.class);
+    assertReadsLikeReflectiveAdapter(
+        "{\"type\": \"card_error\", \"code\": \"card_declined\", \"charge\": \"ch_123\","
+            + " \"payment_intent\": {\"id\": \"pi_123\", \"object\": \"payment_intent\"}}",
+        StripeError.class);
+  }
+
+  @Test
+  public void testReadsNullsAndUnknownFields() {
+    final Charge charge =
+        ApiResource.GSON.fromJson(
+            "{\"id\": \"ch_123\", \"amount\": null, \"unknown\": {\"nested\": [1, 2]},"
+                + " \"outcome\": {\"network_status\": \"approved_by_network\"}}",
+            Charge.class);
+
+    assertEquals("ch_123", charge.getId());
+    assertNull(charge.getAmount());
+    assertNotNull(charge.getOutcome());
+    assertEquals("approved_by_network", charge.getOutcome().getNetworkStatus());
+    assertNull(ApiResource.GSON.fromJson("null", Charge.class));
+  }
+}
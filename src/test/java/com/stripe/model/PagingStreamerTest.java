@@ -0,0 +1,184 @@
+package com.stripe.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.ApiResource;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.RequestOptions;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseGetter;
+import com.stripe.net.StripeResponseStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PagingStreamerTest extends BaseStripeTest {
+  /** The most simple possible model, as in {@link PagingIteratorTest}. */
+  private static class PageableModel extends ApiResource implements HasId {
+    String id;
+
+    public static PageableModelCollection list(Map<String, Object> params, RequestOptions options)
+        throws StripeException {
+      return requestCollection(
+          classUrl(PageableModel.class), params, PageableModelCollection.class, options);
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+  }
+
+  private static class PageableModelCollection extends StripeCollection<PageableModel> {}
+
+  private final List<String> streamedPages = new ArrayList<>();
+
+  /** Sets the mock first page, and the mock streamed pages that follow it. */
+  @BeforeEach
+  public void setUpMockPages() throws IOException, StripeException {
+    String firstPage = getResourceAsString("/model_fixtures/pageable_model_page_0.json");
+    streamedPages.add(getResourceAsString("/model_fixtures/pageable_model_page_1.json"));
+    streamedPages.add(getResourceAsString("/model_fixtures/pageable_model_page_2.json"));
+
+    Mockito.doAnswer(
+            invocation -> ApiResource.GSON.fromJson(firstPage, PageableModelCollection.class))
+        .when(networkSpy)
+        .request(
+            Mockito.any(ApiResource.RequestMethod.class),
+            Mockito.anyString(),
+            Mockito.<Map<String, Object>>any(),
+            Mockito.<Class<PageableModelCollection>>any(),
+            Mockito.<RequestOptions>any());
+    Mockito.doAnswer(
+            invocation ->
+                new StripeResponseStream(
+                    200,
+                    HttpHeaders.of(Collections.emptyMap()),
+                    new ByteArrayInputStream(
+                        streamedPages.remove(0).getBytes(StandardCharsets.UTF_8))))
+        .when(networkSpy)
+        .requestStream(
+            Mockito.any(ApiResource.RequestMethod.class),
+            Mockito.anyString(),
+            Mockito.<Map<String, Object>>any(),
+            Mockito.<RequestOptions>any());
+  }
+
+  @Test
+  public void testAutoPagingForEach() throws StripeException {
+    final Map<String, Object> page0Params = new HashMap<>();
+    page0Params.put("foo", "bar");
+
+    final Map<String, Object> page1Params = new HashMap<>();
+    page1Params.put("foo", "bar");
+    page1Params.put("starting_after", "pm_124");
+
+    final Map<String, Object> page2Params = new HashMap<>();
+    page2Params.put("foo", "bar");
+    page2Params.put("starting_after", "pm_126");
+
+    final PageableModelCollection collection = PageableModel.list(page0Params, null);
+
+    final List<String> ids = new ArrayList<>();
+    collection.autoPagingForEach(model -> ids.add(model.getId()));
+
+    assertEquals(5, ids.size());
+    assertEquals("pm_123", ids.get(0));
+    assertEquals("pm_124", ids.get(1));
+    assertEquals("pm_125", ids.get(2));
+    assertEquals("pm_126", ids.get(3));
+    assertEquals("pm_127", ids.get(4));
+
+    Mockito.verify(networkSpy)
+        .requestStream(
+            ApiResource.RequestMethod.GET,
+            Stripe.getApiBase() + "/v1/pageable_models",
+            page1Params,
+            null);
+    Mockito.verify(networkSpy)
+        .requestStream(
+            ApiResource.RequestMethod.GET,
+            Stripe.getApiBase() + "/v1/pageable_models",
+            page2Params,
+            null);
+  }
+
+  @Test
+  public void testObjectsArePassedAsTheyAreParsed() throws StripeException {
+    // The second page is cut in the middle of its second object.
+    String page = streamedPages.get(0);
+    streamedPages.set(0, page.substring(0, page.indexOf("pm_126")));
+
+    final PageableModelCollection collection = PageableModel.list(new HashMap<>(), null);
+
+    final List<String> ids = new ArrayList<>();
+    assertThrows(
+        ApiException.class, () -> collection.autoPagingForEach(model -> ids.add(model.getId())));
+
+    assertEquals(3, ids.size());
+    assertEquals("pm_125", ids.get(2));
+  }
+
+  @Test
+  public void testBuffersPagesOfGettersWithoutStreamedResponses() throws Exception {
+    List<String> pages = new ArrayList<>();
+    pages.add(getResourceAsString("/model_fixtures/pageable_model_page_0.json"));
+    pages.addAll(streamedPages);
+    ApiResource.setStripeResponseGetter(new BufferedStripeResponseGetter(pages));
+
+    final PageableModelCollection collection = PageableModel.list(new HashMap<>(), null);
+
+    final List<String> ids = new ArrayList<>();
+    collection.autoPagingForEach(model -> ids.add(model.getId()));
+
+    assertEquals(5, ids.size());
+    assertEquals("pm_127", ids.get(4));
+    assertTrue(pages.isEmpty());
+  }
+
+  /** A getter that only implements the required methods, answering the given pages in order. */
+  private static class BufferedStripeResponseGetter implements StripeResponseGetter {
+    private final List<String> pages;
+
+    BufferedStripeResponseGetter(List<String> pages) {
+      this.pages = pages;
+    }
+
+    @Override
+    public <T extends StripeObjectInterface> T request(
+        ApiResource.RequestMethod method,
+        String url,
+        Map<String, Object> params,
+        Class<T> clazz,
+        RequestOptions options) {
+      String body = pages.remove(0);
+      T object = ApiResource.GSON.fromJson(body, clazz);
+      object.setLastResponse(new StripeResponse(200, HttpHeaders.of(Collections.emptyMap()), body));
+      return object;
+    }
+
+    @Override
+    public <T extends StripeObjectInterface> T oauthRequest(
+        ApiResource.RequestMethod method,
+        String url,
+        Map<String, Object> params,
+        Class<T> clazz,
+        RequestOptions options) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
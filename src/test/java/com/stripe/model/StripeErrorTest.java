@@ -22,4 +22,23 @@ public class StripeErrorTest extends BaseStripeTest {
     assertEquals("foo", error.getParam());
     assertEquals("invalid_request_error", error.getType());
   }
+
+  @Test
+  public void testDeserializeNestedObjects() {
+    final String data =
+        "{\"type\": \"card_error\", \"code\": \"card_declined\", \"unknown\": true,"
+            + " \"decline_code\": \"generic_decline\", \"charge\": \"ch_123\","
+            + " \"payment_intent\": {\"id\": \"pi_123\", \"object\": \"payment_intent\"}}";
+    final StripeError error = ApiResource.GSON.fromJson(data, StripeError.class);
+
+    assertEquals("card_error", error.getType());
+    assertEquals("card_declined", error.getCode());
+    assertEquals("generic_decline", error.getDeclineCode());
+    assertEquals("ch_123", error.getCharge());
+    assertEquals("pi_123", error.getPaymentIntent().getId());
+
+    final StripeError reserialized =
+        ApiResource.GSON.fromJson(ApiResource.GSON.toJson(error), StripeError.class);
+    assertEquals(error, reserialized);
+  }
 }
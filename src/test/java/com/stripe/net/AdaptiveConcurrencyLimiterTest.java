@@ -0,0 +1,310 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class AdaptiveConcurrencyLimiterTest extends BaseStripeTest {
+  private static final String API_KEY = "sk_test_abcdefgh1234";
+
+  private static final String ENDPOINT = "GET /v1/customers/{id}";
+
+  private HttpClient client;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @BeforeEach
+  public void setUpFixtures() {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+  }
+
+  @Test
+  public void testRateLimitedResponseLowersLimit() throws StripeException {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder().setInitialLimit(10).build());
+    List<String> changes = new CopyOnWriteArrayList<>();
+    limiter.addListener((apiKey, from, to) -> changes.add(apiKey + ":" + from + "->" + to));
+    this.client.addAttemptInterceptor(limiter);
+    Mockito.doAnswer(invocation -> new StripeResponse(429, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeRequest request = request();
+    assertEquals(429, this.client.requestWithRetries(request).code());
+
+    assertEquals(9, limiter.getLimit(request.options()));
+    assertEquals(0, limiter.getInFlightCount(request.options()));
+    assertEquals(Arrays.asList("sk_test_...1234:10->9"), changes);
+  }
+
+  @Test
+  public void testSuccessesRaiseLimitWhileInUse() throws StripeException {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder().setInitialLimit(2).build());
+    RequestOptions options = request().options();
+    AdaptiveConcurrencyLimiter.Limit limit = limiter.new Limit("key");
+
+    // Idle successes do not raise the limit.
+    limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    assertEquals(2, limit.current());
+
+    limit.acquire();
+    limit.acquire();
+    limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    assertEquals(2, limit.current());
+    limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    assertEquals(3, limit.current());
+
+    // The limits of API keys that sent nothing are the initial one.
+    assertEquals(2, limiter.getLimit(options));
+  }
+
+  @Test
+  public void testLatencyIncreaseLowersLimit() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder().setInitialLimit(10).build());
+    AdaptiveConcurrencyLimiter.Limit limit = limiter.new Limit("key");
+
+    for (int i = 0; i < 20; i++) {
+      limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    }
+    assertEquals(10, limit.current());
+
+    for (int i = 0; i < 10 && limit.current() == 10; i++) {
+      limiter.complete(limit, ENDPOINT, 10_000_000, false);
+    }
+    assertEquals(9, limit.current());
+  }
+
+  @Test
+  public void testLatencyIsComparedPerEndpoint() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder().setInitialLimit(10).build());
+    AdaptiveConcurrencyLimiter.Limit limit = limiter.new Limit("key");
+
+    for (int i = 0; i < 20; i++) {
+      limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    }
+
+    // A shift towards a slower endpoint is not taken for an overload.
+    for (int i = 0; i < 100; i++) {
+      limiter.complete(limit, "POST /v1/payment_intents/{id}/confirm", 10_000_000, false);
+      limiter.complete(limit, ENDPOINT, 1_000_000, false);
+    }
+    assertEquals(10, limit.current());
+  }
+
+  @Test
+  public void testRejectsWhenLimitReached() throws Exception {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder()
+                .setInitialLimit(1)
+                .setMaxWait(Duration.ZERO)
+                .build());
+    this.client.addAttemptInterceptor(limiter);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeRequest request = request();
+    CompletableFuture<StripeResponse> first =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return this.client.requestWithRetries(request);
+              } catch (StripeException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertThrows(
+        RateLimitException.class,
+        () -> {
+          this.client.requestWithRetries(request);
+        });
+    assertEquals(1, limiter.getRejectedCount());
+
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    assertEquals(0, limiter.getInFlightCount(request.options()));
+  }
+
+  @Test
+  public void testInterruptedWaitIsNotRetried() throws Exception {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder()
+                .setInitialLimit(1)
+                .setMaxWait(Duration.ofSeconds(5))
+                .build());
+    this.client.addAttemptInterceptor(limiter);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeRequest request = request();
+    CompletableFuture<StripeResponse> first =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return this.client.requestWithRetries(request);
+              } catch (StripeException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    StripeRequest retriedRequest =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/v1/charges",
+            null,
+            RequestOptions.builder().setApiKey(API_KEY).setMaxNetworkRetries(2).build());
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          RequestInterruptedException.class,
+          () -> {
+            this.client.requestWithRetries(retriedRequest);
+          });
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    Mockito.verify(this.client, Mockito.times(1)).request(Mockito.any());
+    assertEquals(0, limiter.getInFlightCount(request.options()));
+  }
+
+  @Test
+  public void testFailedAttemptsReleaseSlots() throws StripeException {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(
+            AdaptiveConcurrencyLimiterOptions.builder()
+                .setInitialLimit(1)
+                .setMaxWait(Duration.ZERO)
+                .build());
+    this.client.addAttemptInterceptor(limiter);
+    StripeRequest request = request();
+
+    Mockito.doThrow(new ApiConnectionException("Connection refused"))
+        .when(this.client)
+        .request(Mockito.any());
+    for (int i = 0; i < 3; i++) {
+      assertThrows(
+          ApiConnectionException.class,
+          () -> {
+            this.client.requestWithRetries(request);
+          });
+      assertEquals(0, limiter.getInFlightCount(request.options()));
+    }
+
+    Mockito.doThrow(new IllegalStateException("Unexpected"))
+        .when(this.client)
+        .request(Mockito.any());
+    for (int i = 0; i < 3; i++) {
+      assertThrows(
+          IllegalStateException.class,
+          () -> {
+            this.client.requestWithRetries(request);
+          });
+      assertEquals(0, limiter.getInFlightCount(request.options()));
+    }
+
+    // The slots are still available after the failures.
+    Mockito.doAnswer(invocation -> new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+    assertEquals(200, this.client.requestWithRetries(request).code());
+    assertEquals(0, limiter.getRejectedCount());
+  }
+
+  @Test
+  public void testStreamedResponseHoldsSlotUntilClosed() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+    this.client.addAttemptInterceptor(limiter);
+    Mockito.doAnswer(
+            invocation ->
+                new StripeResponseStream(200, emptyHeaders, new ByteArrayInputStream(new byte[0])))
+        .when(this.client)
+        .requestStream(Mockito.any());
+
+    StripeRequest request = request();
+    StripeResponseStream response = this.client.requestStreamWithRetries(request);
+
+    assertEquals(1, limiter.getInFlightCount(request.options()));
+    response.body().close();
+    assertEquals(0, limiter.getInFlightCount(request.options()));
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveConcurrencyLimiterOptions.builder().setMinLimit(0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveConcurrencyLimiterOptions.builder().setInitialLimit(500).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveConcurrencyLimiterOptions.builder().setBackoffRatio(1).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveConcurrencyLimiterOptions.builder().setLatencyTolerance(1).build());
+  }
+
+  private static StripeRequest request() throws StripeException {
+    return new StripeRequest(
+        ApiResource.RequestMethod.GET,
+        "http://example.com/v1/charges",
+        null,
+        RequestOptions.builder().setApiKey(API_KEY).setMaxNetworkRetries(0).build());
+  }
+}
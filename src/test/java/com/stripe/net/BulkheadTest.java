@@ -0,0 +1,297 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.ApplePayDomain;
+import com.stripe.model.Balance;
+import com.stripe.model.BalanceTransaction;
+import com.stripe.model.Capability;
+import com.stripe.model.Charge;
+import com.stripe.model.File;
+import com.stripe.model.InvoiceItem;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class BulkheadTest extends BaseStripeTest {
+  private HttpClient client;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @BeforeEach
+  public void setUpFixtures() {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+  }
+
+  @Test
+  public void testPartitionForResource() throws StripeException {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 0)
+                .setPartition("refunds", 1, 0)
+                .setResourcePartition(BalanceTransaction.class, "batch")
+                .setResourcePartition(Charge.class, "batch")
+                .setPathPartition("/v1/charges/ch_123/refunds/", "refunds")
+                .build());
+
+    assertSame(
+        bulkhead.getPartition("batch"),
+        bulkhead.partitionFor(request("/v1/balance_transactions", null)));
+    assertSame(
+        bulkhead.getPartition("batch"), bulkhead.partitionFor(request("/v1/charges/ch_123", null)));
+    assertSame(
+        bulkhead.getPartition("refunds"),
+        bulkhead.partitionFor(request("/v1/charges/ch_123/refunds", null)));
+    assertNull(bulkhead.partitionFor(request("/v1/charges_other", null)));
+    assertNull(bulkhead.partitionFor(request("/v1/payment_intents", null)));
+    assertSame(
+        bulkhead.getPartition("refunds"),
+        bulkhead.partitionFor(request("/v1/payment_intents", "refunds")));
+    assertNull(bulkhead.partitionFor(request("/v1/charges", "unknown")));
+  }
+
+  @Test
+  public void testPartitionForResourceUsesRequestedPath() throws StripeException {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 0)
+                .setResourcePartition(ApplePayDomain.class, "batch")
+                .setResourcePartition(Balance.class, "batch")
+                .setResourcePartition(File.class, "batch")
+                .setResourcePartition(InvoiceItem.class, "batch")
+                .build());
+
+    assertSame(
+        bulkhead.getPartition("batch"),
+        bulkhead.partitionFor(request("/v1/apple_pay/domains/apwc_123", null)));
+    assertSame(bulkhead.getPartition("batch"), bulkhead.partitionFor(request("/v1/balance", null)));
+    assertSame(bulkhead.getPartition("batch"), bulkhead.partitionFor(request("/v1/files", null)));
+    assertSame(
+        bulkhead.getPartition("batch"), bulkhead.partitionFor(request("/v1/invoiceitems", null)));
+    assertEquals(
+        new HashSet<>(
+            Arrays.asList("/v1/apple_pay/domains", "/v1/balance", "/v1/files", "/v1/invoiceitems")),
+        bulkhead.getOptions().getPathPartitions().keySet());
+  }
+
+  @Test
+  public void testRejectsWhenQueueFull() throws Exception {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 0)
+                .setResourcePartition(Charge.class, "batch")
+                .build());
+    this.client.addAttemptInterceptor(bulkhead);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeRequest request = request("/v1/charges", null);
+    CompletableFuture<StripeResponse> first =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return this.client.requestWithRetries(request);
+              } catch (StripeException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    Bulkhead.Partition partition = bulkhead.getPartition("batch");
+    assertEquals(1, partition.getActiveCount());
+    assertThrows(
+        RateLimitException.class,
+        () -> {
+          this.client.requestWithRetries(request);
+        });
+
+    // Requests of other resources are not limited.
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    assertEquals(200, this.client.requestWithRetries(request("/v1/customers", null)).code());
+
+    assertEquals(0, partition.getActiveCount());
+    assertEquals(1, partition.getAcceptedCount());
+    assertEquals(1, partition.getRejectedCount());
+  }
+
+  @Test
+  public void testQueuedRequestWaitsForSlot() throws Exception {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 1)
+                .setResourcePartition(Charge.class, "batch")
+                .build());
+    this.client.addAttemptInterceptor(bulkhead);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              if (started.getCount() > 0) {
+                started.countDown();
+                release.await();
+              }
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeRequest request = request("/v1/charges", null);
+    CompletableFuture<StripeResponse> first =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return this.client.requestWithRetries(request);
+              } catch (StripeException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    Bulkhead.Partition partition = bulkhead.getPartition("batch");
+    CompletableFuture<StripeResponse> second =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return this.client.requestWithRetries(request);
+              } catch (StripeException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    while (partition.getQueuedCount() == 0) {
+      Thread.sleep(1);
+    }
+
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    assertEquals(200, second.get(5, TimeUnit.SECONDS).code());
+
+    assertEquals(2, partition.getAcceptedCount());
+    assertEquals(0, partition.getRejectedCount());
+    assertEquals(2, partition.getWaitTimes().getCount());
+    assertTrue(partition.getWaitTimes().getMax().compareTo(Duration.ZERO) > 0);
+  }
+
+  @Test
+  public void testInterruptedWaitIsNotRetried() throws StripeException {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 1)
+                .setResourcePartition(Charge.class, "batch")
+                .build());
+    this.client.addAttemptInterceptor(bulkhead);
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/v1/charges",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).build());
+
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          RequestInterruptedException.class,
+          () -> {
+            this.client.requestWithRetries(request);
+          });
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+
+    Mockito.verify(this.client, Mockito.never()).request(Mockito.any());
+    assertEquals(1, bulkhead.getPartition("batch").getRejectedCount());
+  }
+
+  @Test
+  public void testStreamedResponseHoldsSlotUntilClosed() throws Exception {
+    Bulkhead bulkhead =
+        new Bulkhead(
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 0)
+                .setResourcePartition(Charge.class, "batch")
+                .build());
+    this.client.addAttemptInterceptor(bulkhead);
+    Mockito.doAnswer(
+            invocation ->
+                new StripeResponseStream(200, emptyHeaders, new ByteArrayInputStream(new byte[0])))
+        .when(this.client)
+        .requestStream(Mockito.any());
+
+    StripeResponseStream response =
+        this.client.requestStreamWithRetries(request("/v1/charges", null));
+
+    Bulkhead.Partition partition = bulkhead.getPartition("batch");
+    assertEquals(1, partition.getActiveCount());
+    response.body().close();
+    assertEquals(0, partition.getActiveCount());
+    response.body().close();
+    assertEquals(0, partition.getActiveCount());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BulkheadOptions.builder().setPartition("batch", 0, 0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BulkheadOptions.builder().setPartition("batch", 1, -1).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BulkheadOptions.builder().setResourcePartition(Charge.class, "batch").build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            BulkheadOptions.builder()
+                .setPartition("batch", 1, 0)
+                .setResourcePartition(Capability.class, "batch"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BulkheadOptions.builder().setMaxWait(Duration.ofMillis(-1)).build());
+  }
+
+  private static StripeRequest request(String path, String bulkheadPartition)
+      throws StripeException {
+    return new StripeRequest(
+        ApiResource.RequestMethod.GET,
+        "http://example.com" + path,
+        null,
+        RequestOptions.builder().setBulkheadPartition(bulkheadPartition).build());
+  }
+}
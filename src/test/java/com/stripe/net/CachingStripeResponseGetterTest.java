@@ -0,0 +1,368 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.Price;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class CachingStripeResponseGetterTest extends BaseStripeTest {
+  private static final String PRICE_URL = "https://api.stripe.com/v1/prices/price_123";
+
+  private StripeResponseGetter delegate;
+
+  private AtomicLong clock;
+
+  @BeforeEach
+  public void setUpFixtures() throws StripeException {
+    this.delegate = Mockito.mock(StripeResponseGetter.class);
+    this.clock = new AtomicLong();
+
+    Mockito.when(
+            this.delegate.request(
+                ArgumentMatchers.any(),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.eq(Price.class),
+                ArgumentMatchers.any()))
+        .thenAnswer(invocation -> buildPrice("price_123", 1000));
+  }
+
+  private static Price buildPrice(String id, long unitAmount) {
+    String body =
+        String.format(
+            "{\"id\": \"%s\", \"object\": \"price\", \"unit_amount\": %d}", id, unitAmount);
+    Price price = ApiResource.GSON.fromJson(body, Price.class);
+    price.setLastResponse(new StripeResponse(200, HttpHeaders.of(Collections.emptyMap()), body));
+    return price;
+  }
+
+  private CachingStripeResponseGetter buildGetter(ResponseCacheOptions options) {
+    return new CachingStripeResponseGetter(this.delegate, options, this.clock::get);
+  }
+
+  private Price retrievePrice(CachingStripeResponseGetter getter, RequestOptions options)
+      throws StripeException {
+    return getter.request(ApiResource.RequestMethod.GET, PRICE_URL, null, Price.class, options);
+  }
+
+  @Test
+  public void testCachesConfiguredClasses() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    Price first = retrievePrice(getter, null);
+    Price second = retrievePrice(getter, null);
+
+    assertEquals("price_123", second.getId());
+    assertNotSame(first, second);
+    assertEquals(1, getter.getMissCount());
+    assertEquals(1, getter.getHitCount());
+    assertEquals(0.5, getter.getHitRate());
+    Mockito.verify(this.delegate, Mockito.times(1))
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Price.class),
+            ArgumentMatchers.any());
+  }
+
+  @Test
+  public void testCopiesStreamedResponses() throws StripeException {
+    // Streamed responses do not retain their body, so the copies are made from the resource.
+    Mockito.doAnswer(
+            invocation -> {
+              Price price =
+                  ApiResource.GSON.fromJson(
+                      "{\"id\": \"price_123\", \"object\": \"price\", "
+                          + "\"product\": \"prod_123\"}",
+                      Price.class);
+              price.setLastResponse(
+                  StripeResponse.withoutBody(200, HttpHeaders.of(Collections.emptyMap())));
+              return price;
+            })
+        .when(this.delegate)
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Price.class),
+            ArgumentMatchers.any());
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    retrievePrice(getter, null);
+    Price price = retrievePrice(getter, null);
+
+    assertEquals(1, getter.getHitCount());
+    assertEquals("prod_123", price.getProduct());
+    assertNull(price.getProductObject());
+  }
+
+  @Test
+  public void testCopiesLazilyExpandedFields() throws StripeException {
+    Mockito.doAnswer(
+            invocation -> {
+              Price price =
+                  ApiResource.LAZY_GSON.fromJson(
+                      "{\"id\": \"price_123\", \"object\": \"price\", "
+                          + "\"product\": {\"id\": \"prod_123\", \"object\": \"product\", "
+                          + "\"name\": \"T-shirt\"}}",
+                      Price.class);
+              price.setLastResponse(
+                  StripeResponse.withoutBody(200, HttpHeaders.of(Collections.emptyMap())));
+              return price;
+            })
+        .when(this.delegate)
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Price.class),
+            ArgumentMatchers.any());
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    Price price = retrievePrice(getter, null);
+
+    assertEquals("prod_123", price.getProduct());
+    assertEquals("T-shirt", price.getProductObject().getName());
+  }
+
+  @Test
+  public void testCopiesRecordedJson() throws StripeException {
+    Mockito.doAnswer(
+            invocation -> {
+              Price price = buildPrice("price_123", 1000);
+              price.getLastResponse().jsonBody(price.getRawJsonObject());
+              return price;
+            })
+        .when(this.delegate)
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Price.class),
+            ArgumentMatchers.any());
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    Price first = retrievePrice(getter, null);
+    first.getRawJsonObject().addProperty("unit_amount", 2000);
+    Price second = retrievePrice(getter, null);
+
+    assertNotSame(first.getRawJsonObject(), second.getRawJsonObject());
+    assertEquals(1000, second.getRawJsonObject().get("unit_amount").getAsLong());
+  }
+
+  @Test
+  public void testDoesNotCacheOtherClasses() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    for (int i = 0; i < 2; i++) {
+      getter.request(
+          ApiResource.RequestMethod.GET,
+          "https://api.stripe.com/v1/customers/cus_123",
+          null,
+          Customer.class,
+          null);
+    }
+
+    Mockito.verify(this.delegate, Mockito.times(2))
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Customer.class),
+            ArgumentMatchers.any());
+    assertEquals(0, getter.getMissCount());
+  }
+
+  @Test
+  public void testKeyIncludesAccount() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    retrievePrice(getter, null);
+    retrievePrice(getter, RequestOptions.builder().setStripeAccount("acct_123").build());
+
+    assertEquals(2, getter.getMissCount());
+    assertEquals(2, getter.size());
+  }
+
+  @Test
+  public void testKeyIncludesResponseOptions() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    retrievePrice(getter, null);
+    retrievePrice(
+        getter, RequestOptions.builder().setResponseRetention(ResponseRetention.NONE).build());
+    retrievePrice(getter, RequestOptions.builder().setLazyDeserializationEnabled(true).build());
+    retrievePrice(getter, RequestOptions.builder().setRawJsonRecordingEnabled(true).build());
+    Price price = retrievePrice(getter, null);
+
+    assertEquals(4, getter.getMissCount());
+    assertEquals(4, getter.size());
+    assertNotNull(price.getLastResponse());
+  }
+
+  @Test
+  public void testExpires() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    retrievePrice(getter, null);
+    this.clock.addAndGet(Duration.ofMinutes(5).toNanos());
+    retrievePrice(getter, null);
+
+    assertEquals(2, getter.getMissCount());
+    assertEquals(0, getter.getHitCount());
+  }
+
+  @Test
+  public void testStaleWhileRevalidate() throws StripeException {
+    Mockito.when(
+            this.delegate.request(
+                ArgumentMatchers.any(),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.eq(Price.class),
+                ArgumentMatchers.any()))
+        .thenAnswer(invocation -> buildPrice("price_123", 1000))
+        .thenAnswer(invocation -> buildPrice("price_123", 2000));
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder()
+                .setTtl(Price.class, Duration.ofMinutes(5))
+                .setStaleWhileRevalidate(Duration.ofMinutes(1))
+                .build());
+    List<Runnable> refreshes = new ArrayList<>();
+    getter.setRefreshExecutor(refreshes::add);
+
+    retrievePrice(getter, null);
+    this.clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+    // The refresh does not run on the caller's thread, even though the delegate is synchronous.
+    assertEquals(Long.valueOf(1000), retrievePrice(getter, null).getUnitAmount());
+    assertEquals(Long.valueOf(1000), retrievePrice(getter, null).getUnitAmount());
+    assertEquals(2, getter.getStaleHitCount());
+    assertEquals(1, refreshes.size());
+
+    refreshes.get(0).run();
+    assertEquals(Long.valueOf(2000), retrievePrice(getter, null).getUnitAmount());
+    assertEquals(1, getter.getHitCount());
+    assertEquals(1, getter.getMissCount());
+  }
+
+  @Test
+  public void testConcurrentMissesSendSingleRequest() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.when(
+            this.delegate.request(
+                ArgumentMatchers.any(),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.eq(Price.class),
+                ArgumentMatchers.any()))
+        .thenAnswer(
+            invocation -> {
+              release.await();
+              return buildPrice("price_123", 1000);
+            });
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder().setTtl(Price.class, Duration.ofMinutes(5)).build());
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Price>> prices = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        prices.add(executor.submit(() -> retrievePrice(getter, null)));
+      }
+      while (getter.getMissCount() < 2) {
+        Thread.sleep(1);
+      }
+      Thread.sleep(50);
+      release.countDown();
+
+      Price first = prices.get(0).get(5, TimeUnit.SECONDS);
+      Price second = prices.get(1).get(5, TimeUnit.SECONDS);
+      assertEquals(Long.valueOf(1000), first.getUnitAmount());
+      assertEquals(Long.valueOf(1000), second.getUnitAmount());
+      assertNotSame(first, second);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Mockito.verify(this.delegate, Mockito.times(1))
+        .request(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.any(),
+            ArgumentMatchers.eq(Price.class),
+            ArgumentMatchers.any());
+    assertEquals(1, getter.size());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws StripeException {
+    CachingStripeResponseGetter getter =
+        buildGetter(
+            ResponseCacheOptions.builder()
+                .setTtl(Price.class, Duration.ofMinutes(5))
+                .setMaxEntries(1)
+                .build());
+
+    retrievePrice(getter, null);
+    getter.request(
+        ApiResource.RequestMethod.GET,
+        "https://api.stripe.com/v1/prices/price_456",
+        null,
+        Price.class,
+        null);
+    retrievePrice(getter, null);
+
+    assertEquals(3, getter.getMissCount());
+    assertEquals(1, getter.size());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ResponseCacheOptions.builder().setTtl(Price.class, Duration.ZERO).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ResponseCacheOptions.builder().setMaxEntries(0).build());
+  }
+}
@@ -0,0 +1,135 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest extends BaseStripeTest {
+  private static final String API_BASE = "https://api.stripe.com";
+
+  private AtomicLong clock;
+
+  private CircuitBreaker circuitBreaker;
+
+  private List<String> transitions;
+
+  private StripeRequest request;
+
+  @BeforeEach
+  public void setUpFixtures() throws StripeException {
+    this.clock = new AtomicLong();
+    this.circuitBreaker =
+        new CircuitBreaker(
+            CircuitBreakerOptions.builder()
+                .setMinimumNumberOfCalls(4)
+                .setFailureRateThreshold(0.5)
+                .setWindow(Duration.ofSeconds(10))
+                .setOpenDuration(Duration.ofSeconds(30))
+                .setPermittedHalfOpenCalls(2)
+                .build(),
+            this.clock::get);
+    this.transitions = new ArrayList<>();
+    this.circuitBreaker.addListener(
+        (apiBase, from, to) -> this.transitions.add(apiBase + " " + from + "->" + to));
+    this.request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            API_BASE + "/v1/customers/cus_123",
+            null,
+            RequestOptions.getDefault());
+  }
+
+  private void record(boolean failure) throws ApiConnectionException {
+    CircuitBreaker.Permit permit = this.circuitBreaker.acquirePermission(this.request);
+    if (failure) {
+      this.circuitBreaker.onFailure(permit);
+    } else {
+      this.circuitBreaker.onSuccess(permit);
+    }
+  }
+
+  @Test
+  public void testOpensAboveFailureRate() throws ApiConnectionException {
+    record(false);
+    record(true);
+    record(false);
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(API_BASE));
+
+    record(true);
+
+    assertEquals(CircuitBreaker.State.OPEN, this.circuitBreaker.getState(API_BASE));
+    assertEquals(1, this.transitions.size());
+    assertEquals(API_BASE + " CLOSED->OPEN", this.transitions.get(0));
+    assertThrows(
+        ApiConnectionException.class, () -> this.circuitBreaker.acquirePermission(this.request));
+  }
+
+  @Test
+  public void testFailuresOutsideWindowAreForgotten() throws ApiConnectionException {
+    record(true);
+    record(true);
+    record(true);
+
+    this.clock.addAndGet(Duration.ofSeconds(11).toNanos());
+    record(true);
+    record(false);
+    record(false);
+    record(false);
+
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(API_BASE));
+  }
+
+  @Test
+  public void testHalfOpenProbesClose() throws ApiConnectionException {
+    for (int i = 0; i < 4; i++) {
+      record(true);
+    }
+    this.clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    CircuitBreaker.Permit first = this.circuitBreaker.acquirePermission(this.request);
+    CircuitBreaker.Permit second = this.circuitBreaker.acquirePermission(this.request);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, this.circuitBreaker.getState(API_BASE));
+    assertThrows(
+        ApiConnectionException.class, () -> this.circuitBreaker.acquirePermission(this.request));
+
+    this.circuitBreaker.onSuccess(first);
+    this.circuitBreaker.onSuccess(second);
+
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(API_BASE));
+    assertEquals(3, this.transitions.size());
+    assertEquals(API_BASE + " OPEN->HALF_OPEN", this.transitions.get(1));
+    assertEquals(API_BASE + " HALF_OPEN->CLOSED", this.transitions.get(2));
+  }
+
+  @Test
+  public void testHalfOpenProbeFailureReopens() throws ApiConnectionException {
+    for (int i = 0; i < 4; i++) {
+      record(true);
+    }
+    this.clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    record(true);
+
+    assertEquals(CircuitBreaker.State.OPEN, this.circuitBreaker.getState(API_BASE));
+    assertEquals(API_BASE + " HALF_OPEN->OPEN", this.transitions.get(2));
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CircuitBreakerOptions.builder().setFailureRateThreshold(0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CircuitBreakerOptions.builder().setWindow(Duration.ZERO).build());
+  }
+}
@@ -0,0 +1,193 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import lombok.Cleanup;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+public class CoalescingStripeResponseGetterTest extends BaseStripeTest {
+  private static final int WAITERS = 4;
+
+  /** Answers all requests with the given response once the latch is released. */
+  private static Dispatcher blockingDispatcher(
+      CountDownLatch received, CountDownLatch release, MockResponse response) {
+    return new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        received.countDown();
+        release.await();
+        return response;
+      }
+    };
+  }
+
+  private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+    for (Thread thread : threads) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  @Test
+  public void testCoalescesConcurrentGets() throws Exception {
+    CountDownLatch received = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.setDispatcher(
+        blockingDispatcher(
+            received,
+            release,
+            new MockResponse().setBody("{\"id\": \"cus_123\", \"object\": \"customer\"}")));
+    server.start();
+
+    CoalescingStripeResponseGetter getter = new CoalescingStripeResponseGetter();
+    String url = server.url("/v1/customers/cus_123").toString();
+
+    List<Customer> customers = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i <= WAITERS; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  customers.add(
+                      getter.request(
+                          ApiResource.RequestMethod.GET, url, null, Customer.class, null));
+                } catch (StripeException e) {
+                  throw new RuntimeException(e);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+      if (i == 0) {
+        received.await();
+      }
+    }
+    awaitWaiting(threads.subList(1, threads.size()));
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, server.getRequestCount());
+    assertEquals(WAITERS + 1, customers.size());
+    for (int i = 0; i < customers.size(); i++) {
+      assertEquals("cus_123", customers.get(i).getId());
+      for (int j = 0; j < i; j++) {
+        assertNotSame(customers.get(j), customers.get(i));
+        assertSame(customers.get(j).getLastResponse(), customers.get(i).getLastResponse());
+      }
+    }
+  }
+
+  @Test
+  public void testCoalescesConcurrentGetsAsync() throws Exception {
+    CountDownLatch received = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.setDispatcher(
+        blockingDispatcher(
+            received,
+            release,
+            new MockResponse().setBody("{\"id\": \"cus_123\", \"object\": \"customer\"}")));
+    server.start();
+
+    CoalescingStripeResponseGetter getter = new CoalescingStripeResponseGetter();
+    String url = server.url("/v1/customers/cus_123").toString();
+
+    CompletableFuture<Customer> first =
+        getter.requestAsync(ApiResource.RequestMethod.GET, url, null, Customer.class, null);
+    received.await();
+    CompletableFuture<Customer> second =
+        getter.requestAsync(ApiResource.RequestMethod.GET, url, null, Customer.class, null);
+    release.countDown();
+
+    assertEquals("cus_123", first.get().getId());
+    assertEquals("cus_123", second.get().getId());
+    assertNotSame(first.get(), second.get());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  public void testSharesErrors() throws Exception {
+    CountDownLatch received = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.setDispatcher(
+        blockingDispatcher(
+            received,
+            release,
+            new MockResponse()
+                .setResponseCode(404)
+                .setBody(
+                    "{\"error\": {\"type\": \"invalid_request_error\", "
+                        + "\"message\": \"No such customer\"}}")));
+    server.start();
+
+    CoalescingStripeResponseGetter getter = new CoalescingStripeResponseGetter();
+    String url = server.url("/v1/customers/cus_123").toString();
+
+    CompletableFuture<Customer> first =
+        getter.requestAsync(ApiResource.RequestMethod.GET, url, null, Customer.class, null);
+    received.await();
+
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    Thread waiter =
+        new Thread(
+            () -> {
+              try {
+                getter.request(ApiResource.RequestMethod.GET, url, null, Customer.class, null);
+              } catch (StripeException e) {
+                errors.add(e);
+              }
+            });
+    waiter.start();
+    awaitWaiting(Collections.singletonList(waiter));
+    release.countDown();
+    waiter.join();
+
+    ExecutionException e = assertThrows(ExecutionException.class, first::get);
+    assertEquals(InvalidRequestException.class, e.getCause().getClass());
+    assertEquals(1, errors.size());
+    assertEquals(InvalidRequestException.class, errors.get(0).getClass());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  public void testDoesNotCoalescePosts() throws Exception {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{\"id\": \"cus_123\", \"object\": \"customer\"}"));
+    server.enqueue(new MockResponse().setBody("{\"id\": \"cus_456\", \"object\": \"customer\"}"));
+    server.start();
+
+    CoalescingStripeResponseGetter getter = new CoalescingStripeResponseGetter();
+    String url = server.url("/v1/customers").toString();
+
+    CompletableFuture<Customer> first =
+        getter.requestAsync(ApiResource.RequestMethod.POST, url, null, Customer.class, null);
+    CompletableFuture<Customer> second =
+        getter.requestAsync(ApiResource.RequestMethod.POST, url, null, Customer.class, null);
+
+    assertNotEquals(first.get().getId(), second.get().getId());
+    assertEquals(2, server.getRequestCount());
+  }
+}
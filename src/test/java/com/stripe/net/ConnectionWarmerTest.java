@@ -0,0 +1,128 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ConnectionWarmerTest extends BaseStripeTest {
+  private HttpClient client;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @BeforeEach
+  public void setUpFixtures() {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+  }
+
+  @Test
+  public void testOpensConnectionsToEachApiBase() throws StripeException {
+    List<String> urls = new CopyOnWriteArrayList<>();
+    Mockito.doAnswer(
+            invocation -> {
+              StripeRequest request = invocation.getArgument(0);
+              urls.add(request.url().toString());
+              return new StripeResponse(404, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    ConnectionWarmer warmer =
+        new ConnectionWarmer(
+            this.client,
+            WarmUpOptions.builder()
+                .setConnectionsPerBase(2)
+                .addApiBase("https://api.example.com")
+                .addApiBase("https://files.example.com")
+                .build());
+
+    assertEquals(4, warmer.warmUp());
+    Collections.sort(urls);
+    assertEquals(
+        Arrays.asList(
+            "https://api.example.com/v1",
+            "https://api.example.com/v1",
+            "https://files.example.com/v1",
+            "https://files.example.com/v1"),
+        urls);
+  }
+
+  @Test
+  public void testFailedConnectionsAreNotCounted() throws StripeException {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(
+            invocation -> {
+              if (calls.getAndIncrement() == 0) {
+                throw new ApiConnectionException("Connection refused");
+              }
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    ConnectionWarmer warmer =
+        new ConnectionWarmer(
+            this.client,
+            WarmUpOptions.builder()
+                .setConnectionsPerBase(3)
+                .addApiBase("https://api.example.com")
+                .build());
+
+    assertEquals(2, warmer.warmUp());
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void testDoesNotWaitPastTimeout() throws StripeException {
+    Mockito.doReturn(new CompletableFuture<StripeResponse>())
+        .when(this.client)
+        .requestAsync(Mockito.any());
+
+    ConnectionWarmer warmer =
+        new ConnectionWarmer(
+            this.client,
+            WarmUpOptions.builder()
+                .addApiBase("https://api.example.com")
+                .setTimeout(Duration.ofMillis(10))
+                .build());
+
+    assertEquals(0, warmer.warmUp());
+  }
+
+  @Test
+  public void testZeroConnectionsOnlyBuildsTypeAdapters() throws StripeException {
+    ConnectionWarmer warmer =
+        new ConnectionWarmer(this.client, WarmUpOptions.builder().setConnectionsPerBase(0).build());
+
+    assertEquals(0, warmer.warmUp());
+    Mockito.verify(this.client, Mockito.never()).requestAsync(Mockito.any());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> WarmUpOptions.builder().setConnectionsPerBase(-1).build());
+    assertThrows(
+        IllegalArgumentException.class, () -> WarmUpOptions.builder().setPath("v1").build());
+
+    ConnectionWarmer warmer = new ConnectionWarmer(this.client, WarmUpOptions.getDefault());
+    assertThrows(IllegalArgumentException.class, () -> warmer.keepWarm(Duration.ZERO));
+  }
+}
@@ -2,6 +2,8 @@ package com.stripe.net;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.withSettings;
@@ -9,13 +11,25 @@ import static org.mockito.Mockito.withSettings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.stripe.BaseStripeTest;
+import com.stripe.Stripe;
 import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.DeadlineExceededException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
 import com.stripe.exception.StripeException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class HttpClientTest extends BaseStripeTest {
@@ -154,6 +168,137 @@ public class HttpClientTest extends BaseStripeTest {
     assertEquals(1, response.numRetries());
   }
 
+  @Test
+  public void testRequestWithRetriesRateLimitedWithRateLimiter() throws StripeException {
+    this.client.setRateLimiter(new RateLimiter());
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(429, emptyHeaders, "{}"))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{}"));
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertNotNull(response);
+    assertEquals(200, response.code());
+    assertEquals(1, response.numRetries());
+  }
+
+  @Test
+  public void testRequestWithRetriesRateLimitedWithoutRateLimiter() throws StripeException {
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(429, emptyHeaders, "{}"));
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertEquals(429, response.code());
+    assertEquals(0, response.numRetries());
+  }
+
+  @Test
+  public void testRequestWithRetriesAsyncRateLimiterFailFast() throws StripeException {
+    this.client.setRateLimiter(
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(1)
+                .setBurst(1)
+                .setMaxWait(Duration.ZERO)
+                .build()));
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{}"));
+
+    assertEquals(200, this.client.requestWithRetriesAsync(this.request).join().code());
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> this.client.requestWithRetriesAsync(this.request).get());
+    assertTrue(e.getCause() instanceof RateLimitException);
+    Mockito.verify(this.client, Mockito.times(1)).request(this.request);
+  }
+
+  @Test
+  public void testRequestWithRetriesRateLimiterWaitInterrupted() throws StripeException {
+    this.client.setRateLimiter(
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(1)
+                .setBurst(1)
+                .setMaxWait(Duration.ofSeconds(5))
+                .build()));
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{}"));
+
+    assertEquals(200, this.client.requestWithRetries(this.request).code());
+
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          RequestInterruptedException.class,
+          () -> {
+            this.client.requestWithRetries(this.request);
+          });
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+    Mockito.verify(this.client, Mockito.times(1)).request(this.request);
+  }
+
+  @Test
+  public void testRequestWithRetriesCircuitBreakerOpen() throws StripeException {
+    this.client.setCircuitBreaker(
+        new CircuitBreaker(
+            CircuitBreakerOptions.builder()
+                .setMinimumNumberOfCalls(2)
+                .setFailureRateThreshold(1)
+                .build()));
+    Mockito.when(this.client.request(this.request))
+        .thenThrow(new ApiConnectionException("1", new ConnectException("timeout 1")))
+        .thenThrow(new ApiConnectionException("2", new ConnectException("timeout 2")));
+
+    ApiConnectionException e =
+        assertThrows(
+            ApiConnectionException.class,
+            () -> {
+              this.client.requestWithRetries(this.request);
+            });
+    assertTrue(e.getMessage().contains("circuit breaker is open"));
+    Mockito.verify(this.client, Mockito.times(2)).request(this.request);
+
+    assertThrows(
+        ApiConnectionException.class,
+        () -> {
+          this.client.requestWithRetries(this.request);
+        });
+    Mockito.verify(this.client, Mockito.times(2)).request(this.request);
+  }
+
+  @Test
+  public void testRequestStreamWithRetriesConflictClosesDiscardedResponse() throws Exception {
+    InputStream conflictBody = Mockito.spy(new ByteArrayInputStream(new byte[0]));
+    Mockito.doReturn(
+            new StripeResponseStream(409, emptyHeaders, conflictBody),
+            new StripeResponseStream(200, emptyHeaders, new ByteArrayInputStream(new byte[0])))
+        .when(this.client)
+        .requestStream(this.request);
+
+    StripeResponseStream response = this.client.requestStreamWithRetries(this.request);
+
+    assertNotNull(response);
+    assertEquals(200, response.code());
+    assertEquals(1, response.numRetries());
+    Mockito.verify(conflictBody).close();
+  }
+
+  @Test
+  public void testRequestStreamDefaultsToBufferedRequest() throws Exception {
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{\"id\": \"ch_123\"}"));
+
+    StripeResponse response = this.client.requestStream(this.request).unstream();
+
+    assertEquals(200, response.code());
+    assertEquals("{\"id\": \"ch_123\"}", response.body());
+  }
+
   @Test
   public void testRequestWithRetriesConflictServiceUnavailable() throws StripeException {
     Mockito.when(this.client.request(this.request))
@@ -179,4 +324,184 @@ public class HttpClientTest extends BaseStripeTest {
     assertEquals(200, response.code());
     assertEquals(1, response.numRetries());
   }
+
+  @Test
+  public void testRequestWithRetriesAsyncConnectException() throws Exception {
+    Mockito.when(this.client.request(this.request))
+        .thenThrow(new ApiConnectionException("foo", new ConnectException("timeout or something")))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{}"));
+
+    StripeResponse response = this.client.requestWithRetriesAsync(this.request).get();
+
+    assertNotNull(response);
+    assertEquals(200, response.code());
+    assertEquals(1, response.numRetries());
+  }
+
+  @Test
+  public void testRequestWithRetriesAsyncRethrowAfterAllAttempts() throws StripeException {
+    Mockito.when(this.client.request(this.request))
+        .thenThrow(new ApiConnectionException("1", new ConnectException("timeout 1")))
+        .thenThrow(new ApiConnectionException("2", new ConnectException("timeout 2")))
+        .thenThrow(new ApiConnectionException("3", new ConnectException("timeout 3")));
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> {
+              this.client.requestWithRetriesAsync(this.request).get();
+            });
+    assertTrue(e.getCause() instanceof ApiConnectionException);
+    assertEquals("3", e.getCause().getMessage());
+    Mockito.verify(this.client, Mockito.times(3)).request(this.request);
+  }
+
+  @Test
+  public void testRequestWithRetriesAsyncConflictInternalServerError() throws Exception {
+    Mockito.when(this.client.request(this.request))
+        .thenReturn(new StripeResponse(500, emptyHeaders, "{}"))
+        .thenReturn(new StripeResponse(200, emptyHeaders, "{}"));
+
+    StripeResponse response = this.client.requestWithRetriesAsync(this.request).get();
+
+    assertNotNull(response);
+    assertEquals(200, response.code());
+    assertEquals(1, response.numRetries());
+  }
+
+  @Test
+  public void testRequestWithRetriesCallTimeoutShortensTimeouts() throws StripeException {
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/get",
+            null,
+            RequestOptions.builder()
+                .setConnectTimeout(30_000)
+                .setReadTimeout(0)
+                .setCallTimeout(1_000)
+                .build());
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    this.client.requestWithRetries(request);
+
+    ArgumentCaptor<StripeRequest> sent = ArgumentCaptor.forClass(StripeRequest.class);
+    Mockito.verify(this.client).request(sent.capture());
+    assertTrue(sent.getValue().options().getConnectTimeout() <= 1_000);
+    assertTrue(sent.getValue().options().getReadTimeout() > 0);
+    assertTrue(sent.getValue().options().getReadTimeout() <= 1_000);
+    assertEquals(1_000, sent.getValue().options().getCallTimeout());
+  }
+
+  @Test
+  public void testRequestWithRetriesNoCallTimeoutKeepsRequest() throws StripeException {
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    this.client.requestWithRetries(this.request);
+
+    Mockito.verify(this.client).request(Mockito.same(this.request));
+  }
+
+  @Test
+  public void testRequestWithRetriesCallTimeoutExceeded() throws StripeException {
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/get",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).setCallTimeout(50).build());
+    Mockito.doAnswer(
+            invocation -> {
+              Thread.sleep(100);
+              throw new ApiConnectionException("foo", new SocketTimeoutException("read timed out"));
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    DeadlineExceededException e =
+        assertThrows(
+            DeadlineExceededException.class,
+            () -> {
+              this.client.requestWithRetries(request);
+            });
+    assertTrue(e.getCause() instanceof ApiConnectionException);
+    Mockito.verify(this.client, Mockito.times(1)).request(Mockito.any());
+  }
+
+  @Test
+  public void testRequestWithRetriesCallTimeoutFailsFastInsteadOfSleeping() throws StripeException {
+    this.client.networkRetriesSleep = true;
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/get",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).setCallTimeout(200).build());
+    Mockito.doReturn(new StripeResponse(500, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    long start = System.nanoTime();
+    assertThrows(
+        DeadlineExceededException.class,
+        () -> {
+          this.client.requestWithRetries(request);
+        });
+
+    // The backoff is at least minNetworkRetriesDelay, more than the call timeout.
+    assertTrue(System.nanoTime() - start < HttpClient.minNetworkRetriesDelay.toNanos());
+    Mockito.verify(this.client, Mockito.times(1)).request(Mockito.any());
+  }
+
+  @Test
+  public void testRequestWithRetriesAsyncCallTimeoutFailsFastInsteadOfSleeping() throws Exception {
+    this.client.networkRetriesSleep = true;
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/get",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).setCallTimeout(200).build());
+    Mockito.doReturn(CompletableFuture.completedFuture(new StripeResponse(500, emptyHeaders, "{}")))
+        .when(this.client)
+        .requestAsync(Mockito.any());
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> {
+              this.client.requestWithRetriesAsync(request).get();
+            });
+    assertTrue(e.getCause() instanceof DeadlineExceededException);
+    Mockito.verify(this.client, Mockito.times(1)).requestAsync(Mockito.any());
+  }
+
+  @Test
+  public void testClientHeadersCachedUntilAppInfoChanges() throws Exception {
+    Field appInfoField = Stripe.class.getDeclaredField("appInfo");
+    appInfoField.setAccessible(true);
+    Object origAppInfo = appInfoField.get(null);
+    try {
+      Map<String, String> headers = HttpClient.getClientHeaders();
+      assertSame(headers, HttpClient.getClientHeaders());
+      assertEquals(HttpClient.buildUserAgentString(), headers.get("User-Agent"));
+      assertEquals(
+          HttpClient.buildXStripeClientUserAgentString(),
+          headers.get("X-Stripe-Client-User-Agent"));
+
+      Stripe.setAppInfo("MyAwesomePlugin", "1.2.34", "https://myawesomeplugin.info");
+
+      Map<String, String> newHeaders = HttpClient.getClientHeaders();
+      assertNotSame(headers, newHeaders);
+      assertTrue(newHeaders.get("User-Agent").contains("MyAwesomePlugin/1.2.34"));
+      assertTrue(newHeaders.get("X-Stripe-Client-User-Agent").contains("MyAwesomePlugin"));
+      assertSame(newHeaders, HttpClient.getClientHeaders());
+    } finally {
+      appInfoField.set(null, origAppInfo);
+    }
+  }
 }
@@ -1,12 +1,17 @@
 package com.stripe.net;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.stripe.BaseStripeTest;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -177,4 +182,47 @@ public class HttpContentTest extends BaseStripeTest {
     assertEquals(9, stringContent.length());
     assertEquals("key=value", stringContent);
   }
+
+  @Test
+  public void testBuildStreamingMultipartFormDataContentSuccess() throws IOException {
+    Path path = Files.createTempFile("stripe-test", ".txt");
+    try {
+      Files.write(path, "Hello World!".getBytes(StandardCharsets.UTF_8));
+      List<KeyValuePair<String, Object>> data = new ArrayList<KeyValuePair<String, Object>>();
+      data.add(new KeyValuePair<String, Object>("key", "value"));
+      data.add(new KeyValuePair<String, Object>("file", path));
+
+      HttpContent content =
+          HttpContent.buildStreamingMultipartFormDataContent(data, "test-boundary");
+      HttpContent bufferedContent =
+          HttpContent.buildMultipartFormDataContent(data, "test-boundary");
+
+      assertTrue(content.isStreamed());
+      assertEquals("multipart/form-data; boundary=test-boundary", content.contentType());
+      assertEquals(bufferedContent.byteArrayContent().length, content.contentLength());
+
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      content.writeTo(output);
+      assertArrayEquals(bufferedContent.byteArrayContent(), output.toByteArray());
+
+      // Streamed content can be written again, e.g. when the request is retried.
+      assertArrayEquals(bufferedContent.byteArrayContent(), content.byteArrayContent());
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void testBuildStreamingMultipartFormDataContentInputStream() {
+    List<KeyValuePair<String, Object>> data = new ArrayList<KeyValuePair<String, Object>>();
+    data.add(
+        new KeyValuePair<String, Object>(
+            "key", new ByteArrayInputStream("Hello World!".getBytes(StandardCharsets.UTF_8))));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> {
+          HttpContent.buildStreamingMultipartFormDataContent(data, "test-boundary");
+        });
+  }
 }
@@ -0,0 +1,221 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.util.StreamUtils;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class InterceptorTest extends BaseStripeTest {
+  private HttpClient client;
+
+  private StripeRequest request;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @BeforeEach
+  public void setUpFixtures() throws StripeException {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+
+    this.request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "http://example.com/get",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).build());
+  }
+
+  @Test
+  public void testInterceptorsCalledInOrder() throws StripeException {
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    this.client.addInterceptor(recording(calls, "a"));
+    this.client.addInterceptor(recording(calls, "b"));
+    this.client.addAttemptInterceptor(recording(calls, "c"));
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertEquals(200, response.code());
+    assertEquals(Arrays.asList("a>", "b>", "c>", "<c", "<b", "<a"), calls);
+  }
+
+  @Test
+  public void testAttemptInterceptorCalledForEachAttempt() throws StripeException {
+    AtomicInteger requestCalls = new AtomicInteger();
+    AtomicInteger attemptCalls = new AtomicInteger();
+    this.client.addInterceptor(
+        (request, chain) -> {
+          requestCalls.incrementAndGet();
+          return chain.proceed(request);
+        });
+    this.client.addAttemptInterceptor(
+        (request, chain) -> {
+          attemptCalls.incrementAndGet();
+          return chain.proceed(request);
+        });
+    Mockito.doReturn(
+            new StripeResponse(500, emptyHeaders, "{}"),
+            new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertEquals(200, response.code());
+    assertEquals(1, response.numRetries());
+    assertEquals(1, requestCalls.get());
+    assertEquals(2, attemptCalls.get());
+  }
+
+  @Test
+  public void testInterceptorModifiesRequest() throws StripeException {
+    this.client.addInterceptor(
+        (request, chain) -> chain.proceed(request.withAdditionalHeader("X-Trace-Id", "trace_123")));
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    this.client.requestWithRetries(this.request);
+
+    ArgumentCaptor<StripeRequest> sent = ArgumentCaptor.forClass(StripeRequest.class);
+    Mockito.verify(this.client).request(sent.capture());
+    assertEquals("trace_123", sent.getValue().headers().firstValue("X-Trace-Id").orElse(null));
+  }
+
+  @Test
+  public void testInterceptorShortCircuits() throws StripeException {
+    StripeResponse cached = new StripeResponse(200, emptyHeaders, "{\"id\": \"cached\"}");
+    this.client.addInterceptor((request, chain) -> cached);
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertSame(cached, response);
+    Mockito.verify(this.client, Mockito.never()).request(Mockito.any());
+  }
+
+  @Test
+  public void testInterceptorRejects() throws StripeException {
+    this.client.addInterceptor(
+        (request, chain) -> {
+          throw new RateLimitException("rejected", null, null, null, 429, null);
+        });
+
+    RateLimitException e =
+        assertThrows(
+            RateLimitException.class,
+            () -> {
+              this.client.requestWithRetries(this.request);
+            });
+    assertEquals("rejected", e.getMessage());
+    Mockito.verify(this.client, Mockito.never()).request(Mockito.any());
+  }
+
+  @Test
+  public void testInterceptorShortCircuitsStream() throws Exception {
+    this.client.addInterceptor(
+        (request, chain) -> {
+          assertTrue(chain.isStreaming());
+          return new StripeResponse(200, emptyHeaders, "{\"id\": \"cached\"}");
+        });
+
+    StripeResponseStream response = this.client.requestStreamWithRetries(this.request);
+
+    assertEquals(200, response.code());
+    assertEquals(
+        "{\"id\": \"cached\"}", StreamUtils.readToEnd(response.body(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testStreamedResponseConvertedForBufferedCaller() throws StripeException {
+    this.client.addAttemptInterceptor(
+        (request, chain) ->
+            new StripeResponseStream(
+                200,
+                emptyHeaders,
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))));
+
+    StripeResponse response = this.client.requestWithRetries(this.request);
+
+    assertEquals(200, response.code());
+    assertEquals("{}", response.body());
+  }
+
+  @Test
+  public void testInterceptorNullResponse() {
+    this.client.addInterceptor((request, chain) -> null);
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> {
+          this.client.requestWithRetries(this.request);
+        });
+  }
+
+  @Test
+  public void testAsyncRequestIntercepted() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    this.client.addInterceptor(
+        (request, chain) -> {
+          calls.incrementAndGet();
+          return chain.proceed(request);
+        });
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    StripeResponse response = this.client.requestWithRetriesAsync(this.request).get();
+
+    assertEquals(200, response.code());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testChainSharedAcrossRequests() throws StripeException {
+    List<Interceptor.Chain> chains = Collections.synchronizedList(new ArrayList<>());
+    this.client.addInterceptor(
+        (request, chain) -> {
+          chains.add(chain);
+          return chain.proceed(request);
+        });
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    this.client.requestWithRetries(this.request);
+    this.client.requestWithRetries(this.request);
+
+    assertEquals(2, chains.size());
+    assertSame(chains.get(0), chains.get(1));
+  }
+
+  private static Interceptor recording(List<String> calls, String name) {
+    return (request, chain) -> {
+      calls.add(name + ">");
+      AbstractStripeResponse<?> response = chain.proceed(request);
+      calls.add("<" + name);
+      return response;
+    };
+  }
+}
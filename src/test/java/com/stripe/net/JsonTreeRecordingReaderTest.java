@@ -0,0 +1,65 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.stripe.BaseStripeTest;
+import com.stripe.model.Charge;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+public class JsonTreeRecordingReaderTest extends BaseStripeTest {
+  @Test
+  public void testRecordsModelledAndUnmodelledFields() {
+    String json =
+        "{\"id\": \"ch_123\", \"object\": \"charge\", \"amount\": 100, \"paid\": true,"
+            + " \"metadata\": {\"order_id\": \"6735\"}, \"description\": null,"
+            + " \"unmodelled\": {\"list\": [1, 2.50, -3e2, \"four\"], \"flag\": false}}";
+
+    JsonTreeRecordingReader reader = new JsonTreeRecordingReader(new StringReader(json));
+    Charge charge = ApiResource.GSON.fromJson(reader, Charge.class);
+
+    assertEquals("ch_123", charge.getId());
+    assertEquals(100L, (long) charge.getAmount());
+    assertEquals("6735", charge.getMetadata().get("order_id"));
+    JsonElement recorded = reader.getRecordedTree();
+    assertEquals(JsonParser.parseString(json), recorded);
+    // Numbers are kept as they were written.
+    assertEquals(JsonParser.parseString(json).toString(), recorded.toString());
+  }
+
+  @Test
+  public void testRecordsJsonElements() {
+    String json = "{\"a\": [{\"b\": {}}, []], \"c\": 1}";
+
+    JsonTreeRecordingReader reader = new JsonTreeRecordingReader(new StringReader(json));
+    JsonElement element = ApiResource.GSON.fromJson(reader, JsonElement.class);
+
+    assertEquals(element, reader.getRecordedTree());
+  }
+
+  @Test
+  public void testNumbers() throws IOException {
+    JsonTreeRecordingReader reader =
+        new JsonTreeRecordingReader(new StringReader("[1, 1.0, 1e3, \"7\", 4294967296]"));
+
+    reader.beginArray();
+    assertEquals(1, reader.nextInt());
+    assertEquals(1L, reader.nextLong());
+    assertEquals(1000L, reader.nextLong());
+    assertEquals(7, reader.nextInt());
+    assertThrows(NumberFormatException.class, reader::nextInt);
+  }
+
+  @Test
+  public void testIncompleteValue() throws IOException {
+    JsonTreeRecordingReader reader = new JsonTreeRecordingReader(new StringReader("{\"a\": 1}"));
+
+    reader.beginObject();
+    assertNull(reader.getRecordedTree());
+  }
+}
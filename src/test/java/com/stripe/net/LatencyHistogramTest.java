@@ -0,0 +1,71 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest extends BaseStripeTest {
+  private static void assertClose(Duration expected, Duration actual) {
+    double error = Math.abs(actual.toNanos() - expected.toNanos()) / (double) expected.toNanos();
+    assertTrue(error <= 1.0 / LatencyHistogram.SUB_BUCKETS, expected + " != " + actual);
+  }
+
+  @Test
+  public void testBucketsBoundRelativeError() {
+    for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+      long midpoint = LatencyHistogram.bucketMidpoint(LatencyHistogram.bucketIndex(value));
+      assertTrue(
+          Math.abs(midpoint - value) <= value / (double) LatencyHistogram.SUB_BUCKETS,
+          value + " -> " + midpoint);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(Duration.ofMillis(i));
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(Duration.ofMillis(1000), histogram.getMax());
+    assertClose(Duration.ofMillis(500), histogram.getMean());
+    assertClose(Duration.ofMillis(500), histogram.getValueAtPercentile(0.5));
+    assertClose(Duration.ofMillis(990), histogram.getValueAtPercentile(0.99));
+    assertClose(Duration.ofMillis(999), histogram.getValueAtPercentile(0.999));
+    assertEquals(Duration.ofMillis(1000), histogram.getValueAtPercentile(1));
+  }
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(Duration.ZERO, histogram.getValueAtPercentile(0.99));
+    assertEquals(Duration.ZERO, histogram.getMean());
+  }
+
+  @Test
+  public void testAdd() {
+    LatencyHistogram fast = new LatencyHistogram();
+    LatencyHistogram slow = new LatencyHistogram();
+    for (int i = 0; i < 90; i++) {
+      fast.record(Duration.ofMillis(10));
+    }
+    for (int i = 0; i < 10; i++) {
+      slow.record(Duration.ofSeconds(1));
+    }
+
+    LatencyHistogram total = new LatencyHistogram();
+    total.add(fast);
+    total.add(slow);
+
+    assertEquals(100, total.getCount());
+    assertEquals(Duration.ofSeconds(1), total.getMax());
+    assertClose(Duration.ofMillis(10), total.getValueAtPercentile(0.9));
+    assertClose(Duration.ofSeconds(1), total.getValueAtPercentile(0.91));
+  }
+}
@@ -0,0 +1,308 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Charge;
+import com.stripe.model.ChargeCollection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import lombok.Cleanup;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+
+public class LiveStripeResponseGetterTest extends BaseStripeTest {
+  @Test
+  public void testStreamedResponse() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(
+        new MockResponse()
+            .setHeader("Request-Id", "req_123")
+            .setBody(
+                "{\"object\": \"list\", \"data\": [{\"id\": \"ch_123\", \"object\": \"charge\"}]}"));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options = RequestOptions.builder().setResponseStreamingEnabled(true).build();
+
+    ChargeCollection charges =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges").toString(),
+            Collections.emptyMap(),
+            ChargeCollection.class,
+            options);
+
+    assertEquals(1, charges.getData().size());
+    assertEquals("ch_123", charges.getData().get(0).getId());
+    assertNotNull(charges.getLastResponse());
+    assertEquals(200, charges.getLastResponse().code());
+    assertEquals("req_123", charges.getLastResponse().requestId());
+    assertNull(charges.getLastResponse().body());
+    assertNull(charges.getRawJsonObject());
+  }
+
+  @Test
+  public void testLazyResponse() throws StripeException, IOException {
+    String body =
+        "{\"object\": \"list\", \"data\": ["
+            + "{\"id\": \"ch_123\", \"object\": \"charge\", \"amount\": 100,"
+            + " \"customer\": {\"id\": \"cus_123\", \"object\": \"customer\"}},"
+            + "{\"id\": \"ch_456\", \"object\": \"charge\", \"customer\": \"cus_456\"}]}";
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody(body));
+    server.enqueue(new MockResponse().setBody(body));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options = RequestOptions.builder().setLazyDeserializationEnabled(true).build();
+
+    ChargeCollection charges =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges").toString(),
+            Collections.emptyMap(),
+            ChargeCollection.class,
+            options);
+
+    assertEquals(2, charges.getData().size());
+    Charge charge = charges.getData().get(0);
+    assertEquals("ch_123", charge.getId());
+    assertEquals(100L, (long) charge.getAmount());
+    assertNotNull(charge.getCustomerObject());
+    assertEquals("cus_123", charge.getCustomerObject().getId());
+    assertSame(charge, charges.getData().get(0));
+    assertSame(charge.getCustomerObject(), charge.getCustomerObject());
+    assertEquals("cus_456", charges.getData().get(1).getCustomer());
+    assertNull(charges.getData().get(1).getCustomerObject());
+
+    ChargeCollection eagerCharges =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges").toString(),
+            Collections.emptyMap(),
+            ChargeCollection.class,
+            RequestOptions.getDefault());
+    assertEquals(eagerCharges.toJson(), charges.toJson());
+  }
+
+  @Test
+  public void testLazyResponseWithBracketsInStrings() throws StripeException, IOException {
+    String body =
+        "{\"object\": \"list\", \"url\": \"/v1/charges?data[]=]\", \"data\": [\n"
+            + "  {\"id\": \"ch_123\", \"object\": \"charge\", \"description\": \"a \\\"]}\\\\\","
+            + " \"metadata\": {\"data\": \"[\", \"data.0\": \"{\"}},\n"
+            + "  {\"id\": \"ch_456\", \"object\": \"charge\", \"description\": \"[{\"}\n"
+            + "], \"has_more\": true}";
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody(body));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options = RequestOptions.builder().setLazyDeserializationEnabled(true).build();
+
+    ChargeCollection charges =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges").toString(),
+            Collections.emptyMap(),
+            ChargeCollection.class,
+            options);
+
+    assertEquals(2, charges.getData().size());
+    assertEquals("ch_456", charges.getData().get(1).getId());
+    assertEquals("[{", charges.getData().get(1).getDescription());
+    assertEquals("a \"]}\\", charges.getData().get(0).getDescription());
+    assertEquals("[", charges.getData().get(0).getMetadata().get("data"));
+    assertTrue(charges.getHasMore());
+  }
+
+  @Test
+  public void testRawJsonRecording() throws StripeException, IOException {
+    String body =
+        "{\"id\": \"ch_123\", \"object\": \"charge\", \"unmodelled\": {\"value\": 42}}";
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody(body));
+    server.enqueue(new MockResponse().setBody(body));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options = RequestOptions.builder().setRawJsonRecordingEnabled(true).build();
+
+    Charge charge =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges/ch_123").toString(),
+            Collections.emptyMap(),
+            Charge.class,
+            options);
+
+    assertEquals("ch_123", charge.getId());
+    assertSame(charge.getLastResponse().jsonBody(), charge.getRawJsonObject());
+    assertEquals(
+        42, charge.getRawJsonObject().getAsJsonObject("unmodelled").get("value").getAsInt());
+
+    Charge streamedCharge =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges/ch_123").toString(),
+            Collections.emptyMap(),
+            Charge.class,
+            options.toBuilder()
+                .setRawJsonRecordingEnabled(true)
+                .setResponseStreamingEnabled(true)
+                .build());
+
+    assertNull(streamedCharge.getLastResponse().body());
+    assertEquals(charge.getRawJsonObject(), streamedCharge.getRawJsonObject());
+  }
+
+  @Test
+  public void testLazyResponseWithRawJsonRecording() throws StripeException, IOException {
+    String body =
+        "{\"object\": \"list\", \"data\": ["
+            + "{\"id\": \"ch_123\", \"object\": \"charge\", \"amount\": 100,"
+            + " \"customer\": {\"id\": \"cus_123\", \"object\": \"customer\"}}]}";
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody(body));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options =
+        RequestOptions.builder()
+            .setLazyDeserializationEnabled(true)
+            .setRawJsonRecordingEnabled(true)
+            .build();
+
+    ChargeCollection charges =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges").toString(),
+            Collections.emptyMap(),
+            ChargeCollection.class,
+            options);
+
+    // The recording reader does not locate the elements of lists: they are read eagerly.
+    assertEquals(ArrayList.class, charges.getData().getClass());
+    Charge charge = charges.getData().get(0);
+    assertEquals(100L, (long) charge.getAmount());
+    assertEquals("cus_123", charge.getCustomerObject().getId());
+    assertSame(charges.getLastResponse().jsonBody(), charges.getRawJsonObject());
+    assertEquals(
+        "cus_123",
+        charges
+            .getRawJsonObject()
+            .getAsJsonArray("data")
+            .get(0)
+            .getAsJsonObject()
+            .getAsJsonObject("customer")
+            .get("id")
+            .getAsString());
+  }
+
+  @Test
+  public void testResponseRetention() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(
+          new MockResponse()
+              .setHeader("Request-Id", "req_123")
+              .setBody("{\"id\": \"ch_123\", \"object\": \"charge\"}"));
+    }
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+
+    Charge full =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges/ch_123").toString(),
+            Collections.emptyMap(),
+            Charge.class,
+            RequestOptions.builder().setResponseRetention(ResponseRetention.FULL).build());
+    assertNotNull(full.getLastResponse().body());
+    assertNotNull(full.getRawJsonObject());
+
+    Charge headersOnly =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges/ch_123").toString(),
+            Collections.emptyMap(),
+            Charge.class,
+            RequestOptions.builder().setResponseRetention(ResponseRetention.HEADERS_ONLY).build());
+    assertEquals("ch_123", headersOnly.getId());
+    assertEquals(200, headersOnly.getLastResponse().code());
+    assertEquals("req_123", headersOnly.getLastResponse().requestId());
+    assertNull(headersOnly.getLastResponse().body());
+    assertNull(headersOnly.getRawJsonObject());
+
+    Charge none =
+        getter.request(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/charges/ch_123").toString(),
+            Collections.emptyMap(),
+            Charge.class,
+            RequestOptions.builder().setResponseRetention(ResponseRetention.NONE).build());
+    assertEquals("ch_123", none.getId());
+    assertNull(none.getLastResponse());
+    assertNull(none.getRawJsonObject());
+  }
+
+  @Test
+  public void testMalformedErrorResponse() throws IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("{\"error\": \"oops\"}"));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+
+    ApiException e =
+        assertThrows(
+            ApiException.class,
+            () ->
+                getter.request(
+                    ApiResource.RequestMethod.GET,
+                    server.url("/v1/charges/ch_123").toString(),
+                    Collections.emptyMap(),
+                    Charge.class,
+                    RequestOptions.getDefault()));
+    assertEquals(500, e.getStatusCode());
+  }
+
+  @Test
+  public void testStreamedErrorResponse() throws IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(
+        new MockResponse()
+            .setResponseCode(404)
+            .setBody(
+                "{\"error\": {\"type\": \"invalid_request_error\", \"message\": \"No such charge\"}}"));
+    server.start();
+
+    LiveStripeResponseGetter getter = new LiveStripeResponseGetter();
+    RequestOptions options = RequestOptions.builder().setResponseStreamingEnabled(true).build();
+
+    InvalidRequestException e =
+        assertThrows(
+            InvalidRequestException.class,
+            () ->
+                getter.request(
+                    ApiResource.RequestMethod.GET,
+                    server.url("/v1/charges/ch_123").toString(),
+                    Collections.emptyMap(),
+                    Charge.class,
+                    options));
+    assertEquals(404, e.getStatusCode());
+    assertEquals("No such charge", e.getStripeError().getMessage());
+  }
+}
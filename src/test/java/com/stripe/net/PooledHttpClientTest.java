@@ -0,0 +1,245 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.stripe.BaseStripeTest;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Balance;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import lombok.Cleanup;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PooledHttpClientTest extends BaseStripeTest {
+  @AfterEach
+  public void tearDownHttpClient() {
+    Stripe.setHttpClient(null);
+  }
+
+  @Test
+  public void testRequest() throws StripeException, IOException, InterruptedException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{\"object\": \"balance\"}"));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/balance").toString(),
+            null,
+            RequestOptions.getDefault());
+
+    StripeResponse response = client.request(request);
+
+    assertEquals(200, response.code());
+    assertEquals("{\"object\": \"balance\"}", response.body());
+    assertNotNull(response.timeToFirstByte());
+
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertEquals("GET", recordedRequest.getMethod());
+    assertEquals("Bearer sk_test_123", recordedRequest.getHeader("Authorization"));
+    assertNotNull(recordedRequest.getHeader("X-Stripe-Client-User-Agent"));
+  }
+
+  @Test
+  public void testRequestGzip() throws StripeException, IOException, InterruptedException {
+    byte[] body = "{\"object\": \"balance\"}".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(body);
+    }
+
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(
+        new MockResponse()
+            .setHeader("Content-Encoding", "gzip")
+            .setBody(new Buffer().write(compressed.toByteArray())));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/balance").toString(),
+            null,
+            RequestOptions.getDefault());
+
+    StripeResponse response = client.request(request);
+
+    assertEquals(200, response.code());
+    assertEquals("{\"object\": \"balance\"}", response.body());
+    assertEquals(compressed.size(), response.compressedSize());
+    assertEquals(body.length, response.uncompressedSize());
+
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertEquals("gzip, deflate", recordedRequest.getHeader("Accept-Encoding"));
+  }
+
+  @Test
+  public void testRequestStreamedMultipart() throws Exception {
+    Path path = Files.createTempFile("stripe-test", ".txt");
+    try {
+      Files.write(path, "Hello World!".getBytes(StandardCharsets.UTF_8));
+
+      @Cleanup MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("{\"object\": \"file\"}"));
+      server.start();
+
+      PooledHttpClient client = new PooledHttpClient();
+      StripeRequest request =
+          new StripeRequest(
+              ApiResource.RequestMethod.POST,
+              server.url("/v1/files").toString(),
+              ImmutableMap.of("purpose", "dispute_evidence", "file", path),
+              RequestOptions.getDefault());
+      assertTrue(request.content().isStreamed());
+
+      StripeResponse response = client.request(request);
+      assertEquals(200, response.code());
+
+      RecordedRequest recordedRequest = server.takeRequest();
+      assertEquals(
+          String.valueOf(request.content().contentLength()),
+          recordedRequest.getHeader("Content-Length"));
+      assertTrue(recordedRequest.getBody().readUtf8().contains("\r\n\r\nHello World!\r\n"));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void testRequestAsync() throws Exception {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{\"object\": \"balance\"}"));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/balance").toString(),
+            null,
+            RequestOptions.getDefault());
+
+    StripeResponse response = client.requestAsync(request).get();
+
+    assertEquals(200, response.code());
+    assertEquals("{\"object\": \"balance\"}", response.body());
+  }
+
+  @Test
+  public void testRequestStreamReleasesConnectionOnClose() throws Exception {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{\"object\": \"balance\"}"));
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.start();
+
+    PooledHttpClient client =
+        new PooledHttpClient(ConnectionPoolOptions.builder().setMaxConnectionsPerHost(1).build());
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/balance").toString(),
+            null,
+            RequestOptions.builder().setConnectTimeout(100).build());
+
+    StripeResponseStream responseStream = client.requestStream(request);
+
+    // The connection is held until the body is closed.
+    assertThrows(ApiConnectionException.class, () -> client.request(request));
+
+    StripeResponse response = responseStream.unstream();
+    assertEquals(200, response.code());
+    assertEquals("{\"object\": \"balance\"}", response.body());
+
+    assertEquals(200, client.request(request).code());
+  }
+
+  @Test
+  public void testSelectedThroughStripe() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{\"object\": \"balance\"}"));
+    server.start();
+
+    PooledHttpClient client = Mockito.spy(new PooledHttpClient());
+    Stripe.setHttpClient(client);
+    Stripe.overrideApiBase(server.url("").toString());
+    ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter());
+
+    Balance balance = Balance.retrieve();
+
+    assertNotNull(balance);
+    Mockito.verify(client).request(Mockito.any(StripeRequest.class));
+  }
+
+  @Test
+  public void testMaxConnectionsPerHost() throws Exception {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}").setBodyDelay(500, TimeUnit.MILLISECONDS));
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.start();
+
+    PooledHttpClient client =
+        new PooledHttpClient(ConnectionPoolOptions.builder().setMaxConnectionsPerHost(1).build());
+    StripeRequest request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            server.url("/v1/balance").toString(),
+            null,
+            RequestOptions.builder().setConnectTimeout(100).build());
+
+    @Cleanup("shutdown")
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+    Future<StripeResponse> first =
+        executor.submit(
+            () -> {
+              started.countDown();
+              return client.request(request);
+            });
+    started.await();
+    server.takeRequest();
+
+    ApiConnectionException e =
+        assertThrows(ApiConnectionException.class, () -> client.request(request));
+    assertTrue(e.getMessage().contains("waiting for one of the 1 pooled connections"));
+
+    assertEquals(200, first.get().code());
+  }
+
+  @Test
+  public void testInvalidPoolOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ConnectionPoolOptions.builder().setMaxConnectionsPerHost(0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ConnectionPoolOptions.builder().setIdleTimeout(Duration.ZERO).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ConnectionPoolOptions.builder().setKeepAliveTtl(null).build());
+  }
+}
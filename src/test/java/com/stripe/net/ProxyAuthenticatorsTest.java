@@ -0,0 +1,59 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.stripe.BaseStripeTest;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ProxyAuthenticatorsTest extends BaseStripeTest {
+  @AfterEach
+  public void tearDownAuthenticator() {
+    ProxyAuthenticators.reset();
+  }
+
+  @Test
+  public void testAnswersProxyChallengesWithCredentialOfEachProxy() {
+    PasswordAuthentication first = new PasswordAuthentication("first", "secret".toCharArray());
+    PasswordAuthentication second = new PasswordAuthentication("second", "secret".toCharArray());
+
+    ProxyAuthenticators.apply(
+        Mockito.mock(HttpURLConnection.class), proxy("first.example.com"), first);
+    ProxyAuthenticators.apply(
+        Mockito.mock(HttpURLConnection.class), proxy("second.example.com"), second);
+
+    assertSame(first, challenge("first.example.com", Authenticator.RequestorType.PROXY));
+    assertSame(second, challenge("second.example.com", Authenticator.RequestorType.PROXY));
+    assertNull(challenge("other.example.com", Authenticator.RequestorType.PROXY));
+    assertNull(challenge("first.example.com", Authenticator.RequestorType.SERVER));
+  }
+
+  @Test
+  public void testResetUninstallsAuthenticator() {
+    ProxyAuthenticators.apply(
+        Mockito.mock(HttpURLConnection.class),
+        proxy("first.example.com"),
+        new PasswordAuthentication("first", "secret".toCharArray()));
+
+    ProxyAuthenticators.reset();
+
+    assertNull(challenge("first.example.com", Authenticator.RequestorType.PROXY));
+  }
+
+  private static Proxy proxy(String host) {
+    return new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(host, 8080));
+  }
+
+  private static PasswordAuthentication challenge(
+      String host, Authenticator.RequestorType requestorType) {
+    return Authenticator.requestPasswordAuthentication(
+        host, null, 8080, "http", "Proxy", "basic", null, requestorType);
+  }
+}
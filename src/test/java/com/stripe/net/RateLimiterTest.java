@@ -0,0 +1,134 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest extends BaseStripeTest {
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  private static StripeRequest buildRequest(ApiResource.RequestMethod method, String stripeAccount)
+      throws StripeException {
+    return new StripeRequest(
+        method,
+        "http://example.com/v1/customers",
+        null,
+        RequestOptions.builder().setStripeAccount(stripeAccount).build());
+  }
+
+  @Test
+  public void testFailFastWhenExhausted() throws StripeException {
+    RateLimiter rateLimiter =
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(1)
+                .setBurst(2)
+                .setMaxWait(Duration.ZERO)
+                .build());
+    StripeRequest request = buildRequest(ApiResource.RequestMethod.GET, null);
+
+    assertEquals(0, rateLimiter.reserve(request));
+    assertEquals(0, rateLimiter.reserve(request));
+    assertThrows(RateLimitException.class, () -> rateLimiter.reserve(request));
+  }
+
+  @Test
+  public void testWaitWhenExhausted() throws StripeException {
+    RateLimiter rateLimiter =
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(10)
+                .setBurst(1)
+                .setMaxWait(Duration.ofSeconds(1))
+                .build());
+    StripeRequest request = buildRequest(ApiResource.RequestMethod.GET, null);
+
+    assertEquals(0, rateLimiter.reserve(request));
+    long waitNanos = rateLimiter.reserve(request);
+    assertTrue(waitNanos > 0);
+    assertTrue(waitNanos <= Duration.ofMillis(100).toNanos());
+  }
+
+  @Test
+  public void testSeparateBudgets() throws StripeException {
+    RateLimiter rateLimiter =
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(1)
+                .setWriteRate(1)
+                .setBurst(1)
+                .setMaxWait(Duration.ZERO)
+                .build());
+
+    rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.GET, null));
+    rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.POST, null));
+    rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.GET, "acct_123"));
+
+    assertThrows(
+        RateLimitException.class,
+        () -> rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.DELETE, null)));
+  }
+
+  @Test
+  public void testAdaptsToRateLimitedResponses() throws StripeException {
+    RateLimiter rateLimiter =
+        new RateLimiter(RateLimiterOptions.builder().setWriteRate(20).build());
+    StripeRequest request = buildRequest(ApiResource.RequestMethod.POST, null);
+
+    rateLimiter.reserve(request);
+    rateLimiter.onResponse(request, new StripeResponse(429, emptyHeaders, "{}"));
+    assertEquals(10, rateLimiter.getCurrentRate(request.options(), request.method()), 0.01);
+
+    rateLimiter.onResponse(request, new StripeResponse(200, emptyHeaders, "{}"));
+    assertEquals(11, rateLimiter.getCurrentRate(request.options(), request.method()), 0.01);
+
+    for (int i = 0; i < 20; i++) {
+      rateLimiter.onResponse(request, new StripeResponse(200, emptyHeaders, "{}"));
+    }
+    assertEquals(20, rateLimiter.getCurrentRate(request.options(), request.method()), 0.01);
+  }
+
+  @Test
+  public void testDropsIdleBuckets() throws StripeException {
+    RateLimiter rateLimiter =
+        new RateLimiter(
+            RateLimiterOptions.builder()
+                .setReadRate(1)
+                .setBurst(1)
+                .setMaxWait(Duration.ZERO)
+                .build());
+    for (int i = 0; i < 100; i++) {
+      rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.GET, "acct_" + i));
+    }
+    assertEquals(100, rateLimiter.getBucketCount());
+
+    // Budgets still refilling are kept.
+    rateLimiter.sweep(System.nanoTime());
+    assertEquals(100, rateLimiter.getBucketCount());
+
+    rateLimiter.sweep(System.nanoTime() + Duration.ofMinutes(2).toNanos());
+    assertEquals(0, rateLimiter.getBucketCount());
+
+    // Dropped budgets start over full.
+    assertEquals(0, rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.GET, "acct_0")));
+    assertThrows(
+        RateLimitException.class,
+        () -> rateLimiter.reserve(buildRequest(ApiResource.RequestMethod.GET, "acct_0")));
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class, () -> RateLimiterOptions.builder().setReadRate(0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RateLimiterOptions.builder().setMaxWait(Duration.ofSeconds(-1)).build());
+  }
+}
@@ -0,0 +1,205 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+public class RequestHedgerTest extends BaseStripeTest {
+  private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+  private HttpClient client;
+
+  private RequestHedger hedger;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @BeforeEach
+  public void setUpFixtures() {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+
+    this.hedger =
+        new RequestHedger(
+            HedgingOptions.builder().setMinDelay(HEDGE_DELAY).setMaxDelay(HEDGE_DELAY).build());
+    this.client.setRequestHedger(this.hedger);
+  }
+
+  private static StripeRequest buildRequest(ApiResource.RequestMethod method)
+      throws StripeException {
+    return new StripeRequest(
+        method, "http://example.com/get", null, RequestOptions.builder().build());
+  }
+
+  /** Answers the first call after a second, and the following ones immediately. */
+  private Answer<StripeResponse> slowFirstAnswer(AtomicInteger calls) {
+    return invocation -> {
+      if (calls.incrementAndGet() == 1) {
+        try {
+          Thread.sleep(1000);
+        } catch (InterruptedException e) {
+          throw new ApiConnectionException("interrupted", e);
+        }
+        return new StripeResponse(200, emptyHeaders, "{\"attempt\": 1}");
+      }
+      return new StripeResponse(200, emptyHeaders, "{\"attempt\": 2}");
+    };
+  }
+
+  @Test
+  public void testDelayFromPercentile() {
+    RequestHedger hedger =
+        new RequestHedger(
+            HedgingOptions.builder()
+                .setPercentile(0.5)
+                .setMinDelay(Duration.ZERO)
+                .setMinimumSamples(20)
+                .build());
+    assertEquals(HedgingOptions.DEFAULT_MAX_DELAY, hedger.getCurrentDelay());
+
+    for (int i = 1; i <= 20; i++) {
+      hedger.recordLatency(Duration.ofMillis(i).toNanos());
+    }
+
+    assertEquals(Duration.ofMillis(10), hedger.getCurrentDelay());
+  }
+
+  @Test
+  public void testHedgesSlowGet() throws StripeException {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    long start = System.nanoTime();
+    StripeResponse response =
+        this.client.requestWithRetries(buildRequest(ApiResource.RequestMethod.GET));
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(900)) < 0);
+    assertEquals("{\"attempt\": 2}", response.body());
+    assertEquals(1, this.hedger.getRequestCount());
+    assertEquals(1, this.hedger.getHedgeCount());
+    assertEquals(1, this.hedger.getHedgeWinCount());
+    assertEquals(1.0, this.hedger.getHedgeWinRate());
+  }
+
+  @Test
+  public void testRecordsLatencyOfLosingFirstAttempt() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    this.client.requestWithRetries(buildRequest(ApiResource.RequestMethod.GET));
+
+    // The first attempt is left to complete on its own after the hedged attempt won.
+    assertEquals(0, this.hedger.getSampleCount());
+    for (int i = 0; i < 40 && this.hedger.getSampleCount() == 0; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(1, this.hedger.getSampleCount());
+  }
+
+  @Test
+  public void testDoesNotRecordLatencyOfCancelledFirstAttemptAsync() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    CompletableFuture<StripeResponse> result =
+        this.client.requestWithRetriesAsync(buildRequest(ApiResource.RequestMethod.GET));
+    result.cancel(true);
+
+    assertTrue(result.isCancelled());
+    assertEquals(0, this.hedger.getSampleCount());
+  }
+
+  @Test
+  public void testDoesNotHedgeFastGet() throws StripeException {
+    Mockito.doReturn(new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    this.client.requestWithRetries(buildRequest(ApiResource.RequestMethod.GET));
+
+    Mockito.verify(this.client, Mockito.times(1)).request(Mockito.any(StripeRequest.class));
+    assertEquals(1, this.hedger.getRequestCount());
+    assertEquals(0, this.hedger.getHedgeCount());
+  }
+
+  @Test
+  public void testNeverHedgesPost() throws StripeException {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    StripeResponse response =
+        this.client.requestWithRetries(buildRequest(ApiResource.RequestMethod.POST));
+
+    assertEquals("{\"attempt\": 1}", response.body());
+    assertEquals(1, calls.get());
+    assertEquals(0, this.hedger.getRequestCount());
+  }
+
+  @Test
+  public void testHedgeRespectsRateLimiter() throws StripeException {
+    this.client.setRateLimiter(
+        new RateLimiter(RateLimiterOptions.builder().setReadRate(1).setBurst(1).build()));
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    StripeResponse response =
+        this.client.requestWithRetries(buildRequest(ApiResource.RequestMethod.GET));
+
+    assertEquals("{\"attempt\": 1}", response.body());
+    assertEquals(1, calls.get());
+    assertEquals(0, this.hedger.getHedgeCount());
+  }
+
+  @Test
+  public void testHedgesSlowGetAsync() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Mockito.doAnswer(slowFirstAnswer(calls))
+        .when(this.client)
+        .request(Mockito.any(StripeRequest.class));
+
+    StripeResponse response =
+        this.client.requestWithRetriesAsync(buildRequest(ApiResource.RequestMethod.GET)).get();
+
+    assertEquals("{\"attempt\": 2}", response.body());
+    assertEquals(1, this.hedger.getHedgeCount());
+    assertEquals(1, this.hedger.getHedgeWinCount());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class, () -> HedgingOptions.builder().setPercentile(1).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            HedgingOptions.builder()
+                .setMinDelay(Duration.ofSeconds(2))
+                .setMaxDelay(Duration.ofSeconds(1))
+                .build());
+  }
+}
@@ -0,0 +1,197 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class RequestMetricsRecorderTest extends BaseStripeTest {
+  private static final String ENDPOINT = "GET /v1/customers/{id}";
+
+  private HttpClient client;
+
+  private StripeRequest request;
+
+  private List<RequestMetricsEvent> attempts;
+
+  private List<RequestMetricsEvent> requests;
+
+  private RequestMetricsRecorder recorder;
+
+  @BeforeEach
+  public void setUpFixtures() throws StripeException {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+
+    this.request =
+        new StripeRequest(
+            ApiResource.RequestMethod.GET,
+            "https://api.stripe.com/v1/customers/cus_123",
+            null,
+            RequestOptions.builder().setMaxNetworkRetries(2).build());
+
+    this.attempts = new ArrayList<>();
+    this.requests = new ArrayList<>();
+    this.recorder = new RequestMetricsRecorder();
+    this.client.setMetricsListener(
+        new RequestMetricsListener() {
+          @Override
+          public void onAttempt(RequestMetricsEvent event) {
+            attempts.add(event);
+            recorder.onAttempt(event);
+          }
+
+          @Override
+          public void onRequest(RequestMetricsEvent event) {
+            requests.add(event);
+            recorder.onRequest(event);
+          }
+        });
+  }
+
+  private static StripeResponse buildResponse(int code, String body) {
+    StripeResponse response =
+        new StripeResponse(
+            code,
+            HttpHeaders.of(
+                Collections.singletonMap("Request-Id", Collections.singletonList("req_123"))),
+            body);
+    response.compressedSize(body.length());
+    return response;
+  }
+
+  @Test
+  public void testEndpointTemplate() {
+    assertEquals(
+        "/v1/customers/{id}", RequestMetricsEvent.endpointTemplate("/v1/customers/cus_123"));
+    assertEquals(
+        "/v1/customers/{id}/sources/{id}",
+        RequestMetricsEvent.endpointTemplate("/v1/customers/cus_123/sources/card_456"));
+    assertEquals(
+        "/v1/payment_intents/{id}/confirm",
+        RequestMetricsEvent.endpointTemplate("/v1/payment_intents/pi_123/confirm"));
+    assertEquals(
+        "/v1/country_specs/{id}", RequestMetricsEvent.endpointTemplate("/v1/country_specs/US"));
+    assertEquals(
+        "/v1/reporting/report_types/{id}",
+        RequestMetricsEvent.endpointTemplate("/v1/reporting/report_types/balance.summary.1"));
+    assertEquals(
+        "/v1/invoices/upcoming", RequestMetricsEvent.endpointTemplate("/v1/invoices/upcoming"));
+    assertEquals(
+        "/v1/invoices/upcoming/lines",
+        RequestMetricsEvent.endpointTemplate("/v1/invoices/upcoming/lines"));
+    assertEquals(
+        "/v1/balance/history/{id}",
+        RequestMetricsEvent.endpointTemplate("/v1/balance/history/txn_123"));
+    assertEquals("/oauth/token", RequestMetricsEvent.endpointTemplate("/oauth/token"));
+  }
+
+  @Test
+  public void testEndpointTemplateOfIdsLookingLikeNames() {
+    assertEquals(
+        "/v1/coupons/{id}", RequestMetricsEvent.endpointTemplate("/v1/coupons/summer_sale"));
+    assertEquals("/v1/plans/{id}", RequestMetricsEvent.endpointTemplate("/v1/plans/gold"));
+    assertEquals(
+        "/v1/customers/{id}/tax_ids/{id}",
+        RequestMetricsEvent.endpointTemplate("/v1/customers/cus_123/tax_ids/txi_456"));
+    assertEquals(
+        "/v1/issuing/cards/{id}", RequestMetricsEvent.endpointTemplate("/v1/issuing/cards/abc"));
+  }
+
+  @Test
+  public void testReportsAttemptsAndRequest() throws StripeException {
+    Mockito.when(this.client.request(Mockito.any(StripeRequest.class)))
+        .thenReturn(buildResponse(500, "{}"))
+        .thenReturn(buildResponse(200, "{\"id\": \"cus_123\"}"));
+
+    this.client.requestWithRetries(this.request);
+
+    assertEquals(2, this.attempts.size());
+    assertEquals(500, this.attempts.get(0).getStatusCode());
+    assertEquals(0, this.attempts.get(0).getAttempt());
+    assertNull(this.attempts.get(0).getRetryReason());
+    assertEquals(200, this.attempts.get(1).getStatusCode());
+    assertEquals(1, this.attempts.get(1).getAttempt());
+    assertEquals(RetryReason.SERVER_ERROR, this.attempts.get(1).getRetryReason());
+    assertEquals(17, this.attempts.get(1).getBytesIn());
+    assertEquals(0, this.attempts.get(1).getBytesOut());
+    assertEquals("req_123", this.attempts.get(1).getRequestId());
+
+    assertEquals(1, this.requests.size());
+    RequestMetricsEvent event = this.requests.get(0);
+    assertEquals(ApiResource.RequestMethod.GET, event.getMethod());
+    assertEquals("/v1/customers/{id}", event.getEndpoint());
+    assertEquals(200, event.getStatusCode());
+    assertEquals(1, event.getAttempt());
+    assertEquals(RetryReason.SERVER_ERROR, event.getRetryReason());
+    assertNull(event.getException());
+
+    RequestMetricsRecorder.EndpointMetrics metrics = this.recorder.getEndpointMetrics(ENDPOINT);
+    assertNotNull(metrics);
+    assertEquals(1, metrics.getRequestCount());
+    assertEquals(2, metrics.getAttemptCount());
+    assertEquals(0, metrics.getErrorCount());
+    assertEquals(1, metrics.getRequestLatency().getCount());
+    assertEquals(2, metrics.getAttemptLatency().getCount());
+    assertEquals(1, this.recorder.getTotalMetrics().getRequestCount());
+  }
+
+  @Test
+  public void testReportsFailedRequest() throws StripeException {
+    Mockito.when(this.client.request(Mockito.any(StripeRequest.class)))
+        .thenThrow(new ApiConnectionException("foo", new ConnectException("timeout")));
+
+    assertThrows(ApiConnectionException.class, () -> this.client.requestWithRetries(this.request));
+
+    assertEquals(3, this.attempts.size());
+    assertEquals(RetryReason.CONNECTION_ERROR, this.attempts.get(2).getRetryReason());
+    assertEquals(1, this.requests.size());
+    assertEquals(0, this.requests.get(0).getStatusCode());
+    assertNotNull(this.requests.get(0).getException());
+    assertEquals(1, this.recorder.getEndpointMetrics(ENDPOINT).getErrorCount());
+  }
+
+  @Test
+  public void testReportsAsyncRequest() throws Exception {
+    Mockito.when(this.client.request(Mockito.any(StripeRequest.class)))
+        .thenReturn(buildResponse(409, "{}"))
+        .thenReturn(buildResponse(200, "{}"));
+
+    this.client.requestWithRetriesAsync(this.request).get();
+
+    assertEquals(2, this.attempts.size());
+    assertEquals(RetryReason.CONFLICT, this.attempts.get(1).getRetryReason());
+    assertEquals(1, this.requests.size());
+    assertEquals(200, this.requests.get(0).getStatusCode());
+  }
+
+  @Test
+  public void testListenerExceptionsAreIgnored() throws StripeException {
+    this.client.setMetricsListener(
+        new RequestMetricsListener() {
+          @Override
+          public void onRequest(RequestMetricsEvent event) {
+            throw new IllegalStateException("broken listener");
+          }
+        });
+    Mockito.when(this.client.request(Mockito.any(StripeRequest.class)))
+        .thenReturn(buildResponse(200, "{}"));
+
+    assertEquals(200, this.client.requestWithRetries(this.request).code());
+  }
+}
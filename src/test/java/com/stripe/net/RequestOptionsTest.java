@@ -96,18 +96,22 @@ public class RequestOptionsTest {
   public void testTimeoutDefaultValues() {
     int origConnectTimeout = Stripe.getConnectTimeout();
     int origReadTimeout = Stripe.getReadTimeout();
+    int origCallTimeout = Stripe.getCallTimeout();
 
     try {
       Stripe.setConnectTimeout(123);
       Stripe.setReadTimeout(234);
+      Stripe.setCallTimeout(345);
 
       RequestOptions opts = RequestOptions.builder().build();
 
       assertEquals(123, opts.getConnectTimeout());
       assertEquals(234, opts.getReadTimeout());
+      assertEquals(345, opts.getCallTimeout());
     } finally {
       Stripe.setConnectTimeout(origConnectTimeout);
       Stripe.setReadTimeout(origReadTimeout);
+      Stripe.setCallTimeout(origCallTimeout);
     }
   }
 
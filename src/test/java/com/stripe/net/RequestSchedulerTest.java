@@ -0,0 +1,280 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.withSettings;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.RequestInterruptedException;
+import com.stripe.exception.StripeException;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class RequestSchedulerTest extends BaseStripeTest {
+  private HttpClient client;
+
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setUpFixtures() {
+    this.client =
+        Mockito.mock(
+            HttpClient.class,
+            withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+    this.client.networkRetriesSleep = false;
+    this.executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  public void tearDownFixtures() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testDispatchesImmediatelyWhenIdle() throws StripeException {
+    RequestScheduler scheduler = new RequestScheduler();
+    this.client.setRequestScheduler(scheduler);
+    Mockito.doAnswer(invocation -> new StripeResponse(200, emptyHeaders, "{}"))
+        .when(this.client)
+        .request(Mockito.any());
+
+    assertEquals(200, this.client.requestWithRetries(request("a", null)).code());
+    assertEquals(
+        200, this.client.requestWithRetries(request("b", RequestPriority.BACKGROUND)).code());
+
+    assertEquals(0, scheduler.getActiveCount());
+    RequestScheduler.PriorityClass background =
+        scheduler.getPriorityClass(RequestPriority.BACKGROUND);
+    assertEquals(1, scheduler.getPriorityClass(RequestPriority.STANDARD).getAcceptedCount());
+    assertEquals(1, background.getAcceptedCount());
+    assertEquals(1, background.getWaitTimes().getCount());
+  }
+
+  @Test
+  public void testDispatchesByWeight() throws Exception {
+    RequestScheduler scheduler =
+        new RequestScheduler(RequestSchedulerOptions.builder().setMaxConcurrentCalls(1).build());
+    this.client.setRequestScheduler(scheduler);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> order = new CopyOnWriteArrayList<>();
+    Mockito.doAnswer(
+            invocation -> {
+              StripeRequest request = invocation.getArgument(0);
+              String name = request.url().getPath().substring(1);
+              if (name.equals("first")) {
+                started.countDown();
+                release.await();
+              } else {
+                order.add(name);
+              }
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    List<CompletableFuture<StripeResponse>> futures = new CopyOnWriteArrayList<>();
+    futures.add(this.send(request("first", null)));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    RequestScheduler.PriorityClass background =
+        scheduler.getPriorityClass(RequestPriority.BACKGROUND);
+    RequestScheduler.PriorityClass interactive =
+        scheduler.getPriorityClass(RequestPriority.INTERACTIVE);
+    for (int i = 1; i <= 3; i++) {
+      futures.add(this.send(request("bg" + i, RequestPriority.BACKGROUND)));
+      awaitQueued(background, i);
+    }
+    for (int i = 1; i <= 2; i++) {
+      futures.add(this.send(request("int" + i, RequestPriority.INTERACTIVE)));
+      awaitQueued(interactive, i);
+    }
+    assertEquals(1, scheduler.getActiveCount());
+
+    release.countDown();
+    for (CompletableFuture<StripeResponse> future : futures) {
+      assertEquals(200, future.get(5, TimeUnit.SECONDS).code());
+    }
+
+    assertEquals(Arrays.asList("int1", "int2", "bg1", "bg2", "bg3"), order);
+    assertEquals(0, scheduler.getActiveCount());
+    assertEquals(3, background.getAcceptedCount());
+    assertEquals(2, interactive.getAcceptedCount());
+    assertEquals(0, background.getRejectedCount());
+  }
+
+  @Test
+  public void testRejectsWhenQueueFull() throws Exception {
+    RequestScheduler scheduler =
+        new RequestScheduler(
+            RequestSchedulerOptions.builder().setMaxConcurrentCalls(1).setMaxQueueDepth(0).build());
+    this.client.setRequestScheduler(scheduler);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    CompletableFuture<StripeResponse> first = this.send(request("first", null));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertThrows(
+        RateLimitException.class,
+        () -> {
+          this.client.requestWithRetries(request("second", RequestPriority.BACKGROUND));
+        });
+    assertEquals(1, scheduler.getPriorityClass(RequestPriority.BACKGROUND).getRejectedCount());
+
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    assertEquals(0, scheduler.getActiveCount());
+  }
+
+  @Test
+  public void testInterruptedWaitIsNotRetriedNorCounted() throws Exception {
+    RequestScheduler scheduler =
+        new RequestScheduler(
+            RequestSchedulerOptions.builder()
+                .setMaxConcurrentCalls(1)
+                .setWeight(RequestPriority.STANDARD, 1)
+                .setWeight(RequestPriority.BACKGROUND, 1)
+                .build());
+    this.client.setRequestScheduler(scheduler);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> order = new CopyOnWriteArrayList<>();
+    Mockito.doAnswer(
+            invocation -> {
+              StripeRequest request = invocation.getArgument(0);
+              String name = request.url().getPath().substring(1);
+              if (name.equals("first")) {
+                started.countDown();
+                release.await();
+              } else {
+                order.add(name);
+              }
+              return new StripeResponse(200, emptyHeaders, "{}");
+            })
+        .when(this.client)
+        .request(Mockito.any());
+
+    CompletableFuture<StripeResponse> first = this.send(request("first", null));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    RequestScheduler.PriorityClass background =
+        scheduler.getPriorityClass(RequestPriority.BACKGROUND);
+    for (int i = 0; i < 3; i++) {
+      Thread.currentThread().interrupt();
+      try {
+        assertThrows(
+            RequestInterruptedException.class,
+            () -> {
+              this.client.requestWithRetries(request("interrupted", RequestPriority.BACKGROUND));
+            });
+      } finally {
+        assertTrue(Thread.interrupted());
+      }
+    }
+    assertEquals(3, background.getRejectedCount());
+    assertEquals(0, background.getQueuedCount());
+
+    // The interrupted requests do not push back the background requests that follow them.
+    CompletableFuture<StripeResponse> standard = this.send(request("standard", null));
+    awaitQueued(scheduler.getPriorityClass(RequestPriority.STANDARD), 1);
+    CompletableFuture<StripeResponse> queued =
+        this.send(request("background", RequestPriority.BACKGROUND));
+    awaitQueued(background, 1);
+
+    release.countDown();
+    assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+    assertEquals(200, standard.get(5, TimeUnit.SECONDS).code());
+    assertEquals(200, queued.get(5, TimeUnit.SECONDS).code());
+    assertEquals(Arrays.asList("background", "standard"), order);
+    Mockito.verify(this.client, Mockito.times(3)).request(Mockito.any());
+  }
+
+  @Test
+  public void testStreamedResponseHoldsSlotUntilClosed() throws Exception {
+    RequestScheduler scheduler =
+        new RequestScheduler(RequestSchedulerOptions.builder().setMaxConcurrentCalls(1).build());
+    this.client.setRequestScheduler(scheduler);
+    Mockito.doAnswer(
+            invocation ->
+                new StripeResponseStream(200, emptyHeaders, new ByteArrayInputStream(new byte[0])))
+        .when(this.client)
+        .requestStream(Mockito.any());
+
+    StripeResponseStream response = this.client.requestStreamWithRetries(request("a", null));
+
+    assertEquals(1, scheduler.getActiveCount());
+    response.body().close();
+    assertEquals(0, scheduler.getActiveCount());
+    response.body().close();
+    assertEquals(0, scheduler.getActiveCount());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RequestSchedulerOptions.builder().setMaxConcurrentCalls(-1).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RequestSchedulerOptions.builder().setWeight(RequestPriority.BACKGROUND, 0).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RequestSchedulerOptions.builder().setMaxQueueDepth(-1).build());
+  }
+
+  private CompletableFuture<StripeResponse> send(StripeRequest request) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return this.client.requestWithRetries(request);
+          } catch (StripeException e) {
+            throw new RuntimeException(e);
+          }
+        },
+        this.executor);
+  }
+
+  private static void awaitQueued(RequestScheduler.PriorityClass priorityClass, int count)
+      throws InterruptedException {
+    while (priorityClass.getQueuedCount() < count) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static StripeRequest request(String path, RequestPriority priority)
+      throws StripeException {
+    return new StripeRequest(
+        ApiResource.RequestMethod.GET,
+        "http://example.com/" + path,
+        null,
+        RequestOptions.builder().setPriority(priority).build());
+  }
+}
@@ -0,0 +1,172 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.CardException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Charge;
+import com.stripe.model.Customer;
+import com.stripe.model.Event;
+import com.stripe.model.EventCollection;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.Refund;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Cleanup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StripeEmulatorTest extends BaseStripeTest {
+  private StripeEmulator emulator;
+
+  @BeforeEach
+  public void setUpEmulator() {
+    this.emulator = new StripeEmulator();
+    ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter(this.emulator));
+  }
+
+  @Test
+  public void testCustomerLifecycle() throws StripeException {
+    Map<String, Object> params = new HashMap<>();
+    params.put("email", "jenny.rosen@example.com");
+    params.put("metadata", singleton("order_id", "6735"));
+    Customer created = Customer.create(params);
+
+    Customer retrieved = Customer.retrieve(created.getId());
+    assertEquals("jenny.rosen@example.com", retrieved.getEmail());
+    assertEquals("6735", retrieved.getMetadata().get("order_id"));
+
+    Customer updated = retrieved.update(singleton("name", "Jenny Rosen"));
+    assertEquals("Jenny Rosen", updated.getName());
+
+    assertTrue(updated.delete().getDeleted());
+    InvalidRequestException exception =
+        assertThrows(InvalidRequestException.class, () -> Customer.retrieve(created.getId()));
+    assertEquals(404, exception.getStatusCode());
+    assertEquals("resource_missing", exception.getCode());
+  }
+
+  @Test
+  public void testListPagination() throws StripeException {
+    List<String> created = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      created.add(Customer.create(singleton("email", i + "@example.com")).getId());
+    }
+
+    List<String> listed = new ArrayList<>();
+    for (Customer customer : Customer.list(singleton("limit", 10)).autoPagingIterable()) {
+      listed.add(customer.getId());
+    }
+
+    // Lists start from the most recent object.
+    assertEquals(25, listed.size());
+    assertEquals(created.get(24), listed.get(0));
+    assertEquals(created.get(0), listed.get(24));
+  }
+
+  @Test
+  public void testPaymentIntentCaptureAndRefund() throws StripeException {
+    Map<String, Object> params = new HashMap<>();
+    params.put("amount", 2000);
+    params.put("currency", "usd");
+    params.put("payment_method", "pm_card_visa");
+    params.put("capture_method", "manual");
+    params.put("confirm", true);
+    PaymentIntent paymentIntent = PaymentIntent.create(params);
+    assertEquals("requires_capture", paymentIntent.getStatus());
+    assertEquals(2000L, (long) paymentIntent.getAmountCapturable());
+
+    paymentIntent = paymentIntent.capture(singleton("amount_to_capture", 1500));
+    assertEquals("succeeded", paymentIntent.getStatus());
+    assertEquals(1500L, (long) paymentIntent.getAmountReceived());
+
+    Refund refund = Refund.create(singleton("payment_intent", paymentIntent.getId()));
+    assertEquals(1500L, (long) refund.getAmount());
+    Charge charge = Charge.retrieve(refund.getCharge());
+    assertTrue(charge.getRefunded());
+
+    EventCollection events = Event.list(singleton("type", "charge.refunded"));
+    assertEquals(1, events.getData().size());
+    Event event = events.getData().get(0);
+    assertEquals("charge.refunded", event.getType());
+    assertTrue(event.getDataObjectDeserializer().getRawJson().contains(charge.getId()));
+  }
+
+  @Test
+  public void testDeclinedPayment() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("amount", 2000);
+    params.put("currency", "usd");
+    params.put("source", "tok_chargeDeclined");
+
+    CardException exception = assertThrows(CardException.class, () -> Charge.create(params));
+    assertEquals("card_declined", exception.getCode());
+    assertEquals("generic_decline", exception.getDeclineCode());
+    assertEquals(402, exception.getStatusCode());
+  }
+
+  @Test
+  public void testIdempotentRequestsAreReplayed() throws StripeException {
+    RequestOptions options = RequestOptions.builder().setIdempotencyKey("key").build();
+
+    Customer first = Customer.create(singleton("email", "first@example.com"), options);
+    Customer second = Customer.create(singleton("email", "second@example.com"), options);
+    Customer third = Customer.create(singleton("email", "third@example.com"));
+
+    assertEquals(first.getId(), second.getId());
+    assertEquals("first@example.com", second.getEmail());
+    assertNotEquals(first.getId(), third.getId());
+  }
+
+  @Test
+  public void testInjectedFailures() {
+    this.emulator = new StripeEmulator(StripeEmulatorOptions.builder().setRateLimitRate(1).build());
+    ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter(this.emulator));
+    assertThrows(RateLimitException.class, () -> Customer.create(singleton("email", "a@b.c")));
+
+    this.emulator = new StripeEmulator(StripeEmulatorOptions.builder().setErrorRate(1).build());
+    ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter(this.emulator));
+    assertThrows(ApiException.class, () -> Customer.create(singleton("email", "a@b.c")));
+  }
+
+  @Test
+  public void testListensOnLoopback() throws StripeException, IOException {
+    @Cleanup StripeEmulator server = this.emulator;
+    Stripe.overrideApiBase(server.listen(0));
+    ApiResource.setStripeResponseGetter(
+        new LiveStripeResponseGetter(new HttpURLConnectionClient()));
+
+    Customer created = Customer.create(singleton("email", "jenny.rosen@example.com"));
+
+    assertEquals("jenny.rosen@example.com", Customer.retrieve(created.getId()).getEmail());
+    assertFalse(Customer.list(singleton("limit", 1)).getData().isEmpty());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> StripeEmulatorOptions.builder().setErrorRate(0.6).setRateLimitRate(0.6).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> StripeEmulatorOptions.builder().setErrorRate(-0.1).build());
+  }
+
+  private static Map<String, Object> singleton(String key, Object value) {
+    Map<String, Object> params = new HashMap<>();
+    params.put(key, value);
+    return params;
+  }
+}
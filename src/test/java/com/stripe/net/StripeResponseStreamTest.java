@@ -0,0 +1,118 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.stripe.BaseStripeTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class StripeResponseStreamTest extends BaseStripeTest {
+  private HttpHeaders emptyHeaders = HttpHeaders.of(Collections.emptyMap());
+
+  @Test
+  public void testCtorNullHeaders() {
+    assertThrows(
+        NullPointerException.class,
+        () -> {
+          new StripeResponseStream(200, null, new ByteArrayInputStream(new byte[0]));
+        });
+  }
+
+  @Test
+  public void testCtorNullBody() {
+    assertThrows(
+        NullPointerException.class,
+        () -> {
+          new StripeResponseStream(200, emptyHeaders, null);
+        });
+  }
+
+  @Test
+  public void testUnstream() throws IOException {
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    InputStream body =
+        new ByteArrayInputStream("Response body".getBytes(StandardCharsets.UTF_8)) {
+          @Override
+          public void close() throws IOException {
+            closed.set(true);
+            super.close();
+          }
+        };
+    final StripeResponseStream responseStream =
+        new StripeResponseStream(
+            201,
+            HttpHeaders.of(ImmutableMap.of("Request-Id", ImmutableList.of("req_12345"))),
+            body);
+
+    final StripeResponse response = responseStream.unstream();
+
+    assertEquals(201, response.code());
+    assertEquals("req_12345", response.requestId());
+    assertEquals("Response body", response.body());
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void testDecodeGzip() throws IOException {
+    byte[] body = "{\"object\": \"balance\"}".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(body);
+    }
+
+    final StripeResponse response =
+        StripeResponseStream.decode(
+                200,
+                HttpHeaders.of(ImmutableMap.of("Content-Encoding", ImmutableList.of("gzip"))),
+                new ByteArrayInputStream(compressed.toByteArray()))
+            .unstream();
+
+    assertEquals("{\"object\": \"balance\"}", response.body());
+    assertEquals(compressed.size(), response.compressedSize());
+    assertEquals(body.length, response.uncompressedSize());
+  }
+
+  @Test
+  public void testDecodeDeflate() throws IOException {
+    byte[] body = "{\"object\": \"balance\"}".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+      out.write(body);
+    }
+
+    final StripeResponse response =
+        StripeResponseStream.decode(
+                200,
+                HttpHeaders.of(ImmutableMap.of("Content-Encoding", ImmutableList.of("deflate"))),
+                new ByteArrayInputStream(compressed.toByteArray()))
+            .unstream();
+
+    assertEquals("{\"object\": \"balance\"}", response.body());
+    assertEquals(compressed.size(), response.compressedSize());
+    assertEquals(body.length, response.uncompressedSize());
+  }
+
+  @Test
+  public void testDecodeIdentity() throws IOException {
+    byte[] body = "Response body".getBytes(StandardCharsets.UTF_8);
+
+    final StripeResponse response =
+        StripeResponseStream.decode(200, emptyHeaders, new ByteArrayInputStream(body)).unstream();
+
+    assertEquals("Response body", response.body());
+    assertEquals(body.length, response.compressedSize());
+    assertEquals(body.length, response.uncompressedSize());
+  }
+}
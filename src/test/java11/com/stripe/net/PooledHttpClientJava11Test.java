@@ -0,0 +1,123 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stripe.BaseStripeTest;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.Cleanup;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+
+/** Tests of the Java 11 implementation of {@link PooledHttpClient}. */
+public class PooledHttpClientJava11Test extends BaseStripeTest {
+  private static StripeRequest buildRequest(MockWebServer server, RequestOptions options)
+      throws StripeException {
+    return new StripeRequest(
+        ApiResource.RequestMethod.GET, server.url("/v1/balance").toString(), null, options);
+  }
+
+  @Test
+  public void testSupportsHttp2() {
+    assertTrue(PooledHttpClient.isHttp2Supported());
+  }
+
+  @Test
+  public void testReadTimeoutIsRetriedLikeSocketTimeout() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(1, TimeUnit.SECONDS));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        buildRequest(server, RequestOptions.builder().setReadTimeout(100).build());
+
+    ApiConnectionException exception =
+        assertThrows(ApiConnectionException.class, () -> client.request(request));
+    assertTrue(exception.getCause() instanceof SocketTimeoutException);
+  }
+
+  @Test
+  public void testAsyncReadTimeoutIsRetriedLikeSocketTimeout() throws Exception {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(1, TimeUnit.SECONDS));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        buildRequest(server, RequestOptions.builder().setReadTimeout(100).build());
+
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> client.requestAsync(request).get());
+    assertTrue(exception.getCause() instanceof ApiConnectionException);
+    assertTrue(exception.getCause().getCause() instanceof SocketTimeoutException);
+  }
+
+  @Test
+  public void testRemainingTimeoutOnlyCapsReadTimeout() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    StripeRequest request =
+        buildRequest(
+            server,
+            RequestOptions.builder().setConnectTimeout(30_000).setReadTimeout(80_000).build());
+
+    StripeRequest capped = client.withRemainingTimeout(request, 500);
+
+    // Shortening the connect timeout would build a new pool for each attempt.
+    assertEquals(30_000, capped.options().getConnectTimeout());
+    assertEquals(500, capped.options().getReadTimeout());
+  }
+
+  @Test
+  public void testEqualProxyCredentialsSharePool() throws StripeException, IOException {
+    @Cleanup MockWebServer proxy = new MockWebServer();
+    for (int i = 0; i < 3; i++) {
+      proxy.enqueue(new MockResponse().setBody("{}"));
+    }
+    proxy.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+    for (String password : new String[] {"secret", "secret", "other"}) {
+      RequestOptions options =
+          RequestOptions.builder()
+              .setConnectionProxy(
+                  new Proxy(
+                      Proxy.Type.HTTP, new InetSocketAddress(proxy.getHostName(), proxy.getPort())))
+              .setProxyCredential(new PasswordAuthentication("user", password.toCharArray()))
+              .build();
+      StripeRequest request =
+          new StripeRequest(
+              ApiResource.RequestMethod.GET, "http://example.com/v1/balance", null, options);
+      assertEquals(200, client.request(request).code());
+    }
+
+    // A credential built for each request does not build a pool for each request.
+    assertEquals(2, client.getPoolCount());
+  }
+
+  @Test
+  public void testReportsTimeToFirstByte() throws StripeException, IOException {
+    @Cleanup MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(100, TimeUnit.MILLISECONDS));
+    server.start();
+
+    PooledHttpClient client = new PooledHttpClient();
+
+    StripeResponse response = client.request(buildRequest(server, RequestOptions.getDefault()));
+
+    assertTrue(response.timeToFirstByte().toMillis() >= 100);
+  }
+}
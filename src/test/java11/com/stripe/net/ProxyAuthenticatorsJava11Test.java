@@ -0,0 +1,68 @@
+package com.stripe.net;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.stripe.BaseStripeTest;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/** Tests of the Java 11 implementation of {@link ProxyAuthenticators}. */
+public class ProxyAuthenticatorsJava11Test extends BaseStripeTest {
+  private static final Proxy PROXY =
+      new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved("proxy.example.com", 8080));
+
+  @AfterEach
+  public void tearDownAuthenticators() {
+    ProxyAuthenticators.reset();
+  }
+
+  private static Authenticator apply(Proxy proxy, String userName, String password) {
+    HttpURLConnection conn = Mockito.mock(HttpURLConnection.class);
+    ProxyAuthenticators.apply(
+        conn, proxy, new PasswordAuthentication(userName, password.toCharArray()));
+
+    ArgumentCaptor<Authenticator> authenticator = ArgumentCaptor.forClass(Authenticator.class);
+    Mockito.verify(conn).setAuthenticator(authenticator.capture());
+    return authenticator.getValue();
+  }
+
+  @Test
+  public void testSharesAuthenticatorOfEqualCredentials() {
+    Authenticator first = apply(PROXY, "user", "secret");
+
+    assertSame(first, apply(PROXY, "user", "secret"));
+    assertNotSame(first, apply(PROXY, "user", "other"));
+    assertNotSame(first, apply(PROXY, "other", "secret"));
+    assertNotSame(
+        first,
+        apply(
+            new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved("other.example.com", 80)),
+            "user",
+            "secret"));
+  }
+
+  @Test
+  public void testLeavesDefaultAuthenticatorUntouched() {
+    apply(PROXY, "user", "secret");
+
+    assertNull(Authenticator.getDefault());
+  }
+
+  @Test
+  public void testDoesNotAuthenticateConnectionsWithoutCredential() {
+    HttpURLConnection conn = Mockito.mock(HttpURLConnection.class);
+
+    ProxyAuthenticators.apply(conn, PROXY, null);
+
+    Mockito.verify(conn, Mockito.never()).setAuthenticator(Mockito.any());
+  }
+}